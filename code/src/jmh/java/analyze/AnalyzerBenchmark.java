@@ -0,0 +1,155 @@
+package analyze;
+
+import jmh.SampleCorpus;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the analyzers on the sample documents, each one on the text the indexers give it: one operation is the
+ * analysis of a document, so that the {@code gc} profiler reports the bytes allocated per document, and the tokens
+ * are also counted per second.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AnalyzerBenchmark {
+
+    /**
+     * The analyzer to measure.
+     */
+    @Param({"english", "french", "ngram3", "ngram4", "ngram5", "ner"})
+    public String analyzer;
+
+    /**
+     * The analyzer to measure.
+     */
+    private Analyzer an;
+
+    /**
+     * The field analyzed, as some analyzers depend on it.
+     */
+    private String field;
+
+    /**
+     * The texts to analyze.
+     */
+    private String[] texts;
+
+    /**
+     * The next text to analyze.
+     */
+    private int next = 0;
+
+    /**
+     * The tokens produced, reported per second next to the documents.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        /**
+         * The produced tokens.
+         */
+        public long tokens;
+
+        /**
+         * Resets the counter at each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    /**
+     * Creates the analyzer and prepares the texts it analyzes when indexing.
+     *
+     * @throws IOException if the sample documents cannot be read.
+     */
+    @Setup
+    public void setup() throws IOException {
+
+        final List<ParsedDocument> en = SampleCorpus.parse(SampleCorpus.ENGLISH);
+        final List<ParsedDocument> fr = SampleCorpus.parse(SampleCorpus.FRENCH);
+
+        texts = new String[en.size()];
+
+        switch (analyzer) {
+            case "english":
+                an = new EnglishAnalyzer();
+                field = ParsedDocument.FIELDS.ENGLISH_BODY;
+                for (int i = 0; i < texts.length; i++) {
+                    texts[i] = en.get(i).getBody();
+                }
+                break;
+            case "french":
+                an = new FrenchAnalyzer();
+                field = ParsedDocument.FIELDS.FRENCH_BODY;
+                for (int i = 0; i < texts.length; i++) {
+                    texts[i] = fr.get(i).getBody();
+                }
+                break;
+            case "ner":
+                an = new NERAnalyzer();
+                field = ParsedDocument.FIELDS.NER;
+                for (int i = 0; i < texts.length; i++) {
+                    texts[i] = fr.get(i).getBody();
+                }
+                break;
+            default:
+                an = new NGramAnalyzer(Integer.parseInt(analyzer.substring("ngram".length())));
+                field = ParsedDocument.FIELDS.N_GRAM;
+                for (int i = 0; i < texts.length; i++) {
+                    texts[i] = en.get(i).getBody() + " " + fr.get(i).getBody();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Closes the analyzer.
+     */
+    @TearDown
+    public void tearDown() {
+        an.close();
+    }
+
+    /**
+     * Analyzes the next document.
+     *
+     * @param counters the produced tokens.
+     * @param bh       consumes the produced tokens.
+     * @throws IOException if something goes wrong while analyzing.
+     */
+    @Benchmark
+    public void analyze(final Counters counters, final Blackhole bh) throws IOException {
+
+        final String text = texts[next];
+        next = (next + 1) % texts.length;
+
+        try (TokenStream stream = an.tokenStream(field, text)) {
+            final CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+
+            stream.reset();
+            while (stream.incrementToken()) {
+                bh.consume(term);
+                counters.tokens++;
+            }
+            stream.end();
+        }
+    }
+}
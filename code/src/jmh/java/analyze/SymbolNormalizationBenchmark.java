@@ -0,0 +1,127 @@
+package analyze;
+
+import jmh.SampleCorpus;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.pattern.PatternReplaceFilter;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link SymbolNormalizationFilter} with the three {@link PatternReplaceFilter}s it replaces at the
+ * beginning of {@link EnglishAnalyzer} and {@link FrenchAnalyzer}, on the English and French sample documents: one
+ * operation is the normalization of the words of a document, so that the {@code gc} profiler reports the bytes
+ * allocated per document.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SymbolNormalizationBenchmark {
+
+    /**
+     * The normalization to measure: the regular expressions or the filter.
+     */
+    @Param({"regex", "filter"})
+    public String normalization;
+
+    /**
+     * The whitespace tokenizer followed by the normalization.
+     */
+    private Analyzer an;
+
+    /**
+     * The texts to normalize, in both languages.
+     */
+    private String[] texts;
+
+    /**
+     * The next text to normalize.
+     */
+    private int next = 0;
+
+    /**
+     * Creates the analyzer and reads the texts.
+     *
+     * @throws IOException if the sample documents cannot be read.
+     */
+    @Setup
+    public void setup() throws IOException {
+
+        final List<ParsedDocument> en = SampleCorpus.parse(SampleCorpus.ENGLISH);
+        final List<ParsedDocument> fr = SampleCorpus.parse(SampleCorpus.FRENCH);
+
+        texts = new String[en.size() + fr.size()];
+        for (int i = 0; i < en.size(); i++) {
+            texts[2 * i] = en.get(i).getBody();
+            texts[2 * i + 1] = fr.get(i).getBody();
+        }
+
+        final boolean regex = "regex".equals(normalization);
+
+        an = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+
+                final Tokenizer source = new WhitespaceTokenizer();
+
+                if (!regex) {
+                    return new TokenStreamComponents(source, new SymbolNormalizationFilter(source));
+                }
+
+                // the filters of the analyzers before SymbolNormalizationFilter
+                TokenStream tokens = new PatternReplaceFilter(source,
+                        Pattern.compile(AnalyzerUtil.STRANGE_SYMBOLS_REGEX), "", true);
+                tokens = new PatternReplaceFilter(tokens, Pattern.compile("^[\\p{Punct}]+"), "", true);
+                tokens = new PatternReplaceFilter(tokens, Pattern.compile("[\\p{Punct}]+$"), "", true);
+
+                return new TokenStreamComponents(source, tokens);
+            }
+        };
+    }
+
+    /**
+     * Closes the analyzer.
+     */
+    @TearDown
+    public void tearDown() {
+        an.close();
+    }
+
+    /**
+     * Normalizes the words of the next document.
+     *
+     * @param bh consumes the normalized words.
+     * @throws IOException if something goes wrong while analyzing.
+     */
+    @Benchmark
+    public void normalize(final Blackhole bh) throws IOException {
+
+        final String text = texts[next];
+        next = (next + 1) % texts.length;
+
+        try (TokenStream stream = an.tokenStream(ParsedDocument.FIELDS.ENGLISH_BODY, text)) {
+            final CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+
+            stream.reset();
+            while (stream.incrementToken()) {
+                bh.consume(term);
+            }
+            stream.end();
+        }
+    }
+}
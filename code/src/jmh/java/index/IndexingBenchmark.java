@@ -0,0 +1,130 @@
+package index;
+
+import analyze.EnglishAnalyzer;
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NGramAnalyzer;
+import jmh.SampleCorpus;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.openjdk.jmh.annotations.*;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@code addDocument} for the multilingual document built by
+ * {@link MultilingualDirectoryIndexer}, analysis of all its fields included, into an in-memory index: one operation
+ * is the indexing of a document.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IndexingBenchmark {
+
+    /**
+     * The size of the N-Grams.
+     */
+    @Param({"3", "4", "5"})
+    public int ngramSize;
+
+    /**
+     * The English documents.
+     */
+    private List<ParsedDocument> en;
+
+    /**
+     * The French documents.
+     */
+    private List<ParsedDocument> fr;
+
+    /**
+     * The analyzers of the fields.
+     */
+    private Analyzer[] analyzers;
+
+    /**
+     * The index writer, a new one at each iteration.
+     */
+    private IndexWriter writer;
+
+    /**
+     * The next document to index.
+     */
+    private int next = 0;
+
+    /**
+     * Reads the documents and creates the analyzers.
+     *
+     * @throws IOException if the sample documents cannot be read.
+     */
+    @Setup
+    public void setup() throws IOException {
+        en = SampleCorpus.parse(SampleCorpus.ENGLISH);
+        fr = SampleCorpus.parse(SampleCorpus.FRENCH);
+
+        analyzers = new Analyzer[]{new EnglishAnalyzer(), new FrenchAnalyzer(), new NGramAnalyzer(ngramSize),
+                new NERAnalyzer()};
+    }
+
+    /**
+     * Creates an empty in-memory index.
+     *
+     * @throws IOException if the index cannot be created.
+     */
+    @Setup(Level.Iteration)
+    public void openWriter() throws IOException {
+
+        final IndexWriterConfig config = new IndexWriterConfig(
+                MultilingualDirectoryIndexer.fieldAnalyzer(analyzers[0], analyzers[1], analyzers[2], analyzers[3]));
+        config.setSimilarity(new BM25Similarity());
+
+        writer = new IndexWriter(new ByteBuffersDirectory(), config);
+    }
+
+    /**
+     * Discards the in-memory index.
+     *
+     * @throws IOException if the index cannot be closed.
+     */
+    @TearDown(Level.Iteration)
+    public void closeWriter() throws IOException {
+        writer.rollback();
+    }
+
+    /**
+     * Closes the analyzers.
+     */
+    @TearDown
+    public void tearDown() {
+        for (Analyzer a : analyzers) {
+            a.close();
+        }
+    }
+
+    /**
+     * Indexes the next document.
+     *
+     * @return the sequence number of the operation.
+     * @throws IOException if something goes wrong while indexing.
+     */
+    @Benchmark
+    public long addDocument() throws IOException {
+
+        final int i = next;
+        next = (next + 1) % en.size();
+
+        return writer.addDocument(MultilingualDirectoryIndexer.document(en.get(i), fr.get(i)));
+    }
+}
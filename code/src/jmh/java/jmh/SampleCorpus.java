@@ -0,0 +1,200 @@
+package jmh;
+
+import analyze.EnglishAnalyzer;
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NGramAnalyzer;
+import index.MultilingualDirectoryIndexer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import parse.DocumentParser;
+import parse.LongEvalParser;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The small sample corpus bundled with the benchmarks, laid out as the LongEval collection: the same documents and
+ * topics in English and in French.
+ *
+ * The sample is synthetic: its words follow a Zipf distribution over a bilingual vocabulary, with some named entities,
+ * so that every analyzer has something to do, but its absolute figures are not those of the real collection.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class SampleCorpus {
+
+    /**
+     * The English version of the corpus.
+     */
+    public static final String ENGLISH = "English";
+
+    /**
+     * The French version of the corpus.
+     */
+    public static final String FRENCH = "French";
+
+    /**
+     * The number of documents of the corpus.
+     */
+    public static final int DOCUMENTS = 120;
+
+    /**
+     * The number of topics of the corpus.
+     */
+    public static final int TOPICS = 50;
+
+    /**
+     * The files of the corpus, relative to its root.
+     */
+    private static final String[] FILES = {
+            "English/Documents/Json/sample.json", "English/Queries/sample.trec",
+            "French/Documents/Json/sample.json", "French/Queries/sample.trec"};
+
+    /**
+     * The directory where the corpus is copied out of the classpath, as the parsers and the topic readers want files.
+     */
+    private static Path root = null;
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private SampleCorpus() {
+    }
+
+    /**
+     * Returns the directory where the corpus is copied, copying it the first time.
+     *
+     * @return the directory of the corpus.
+     * @throws IOException if the corpus cannot be copied.
+     */
+    private static synchronized Path root() throws IOException {
+
+        if (root != null) {
+            return root;
+        }
+
+        final Path dir = Files.createTempDirectory("sample-corpus");
+
+        for (String f : FILES) {
+            final Path file = dir.resolve(f);
+            Files.createDirectories(file.getParent());
+
+            try (InputStream in = SampleCorpus.class.getResourceAsStream("/sample/" + f)) {
+                if (in == null) {
+                    throw new IOException(String.format("Sample file %s not found in the classpath.", f));
+                }
+                Files.copy(in, file);
+            }
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(dir)));
+
+        root = dir;
+        return root;
+    }
+
+    /**
+     * Deletes a directory and its content, reporting the files that cannot be deleted.
+     *
+     * @param dir the directory to delete.
+     */
+    public static void delete(final Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> {
+                try {
+                    Files.delete(f);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            System.err.printf("Unable to delete %s: %s.%n", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the file of the documents in a language.
+     *
+     * @param language either {@link #ENGLISH} or {@link #FRENCH}.
+     * @return the file of the documents.
+     * @throws IOException if the corpus cannot be copied.
+     */
+    public static Path documents(final String language) throws IOException {
+        return root().resolve(language).resolve("Documents").resolve("Json").resolve("sample.json");
+    }
+
+    /**
+     * Returns the file of the topics in a language.
+     *
+     * @param language either {@link #ENGLISH} or {@link #FRENCH}.
+     * @return the file of the topics.
+     * @throws IOException if the corpus cannot be copied.
+     */
+    public static Path topics(final String language) throws IOException {
+        return root().resolve(language).resolve("Queries").resolve("sample.trec");
+    }
+
+    /**
+     * Parses the documents in a language.
+     *
+     * @param language either {@link #ENGLISH} or {@link #FRENCH}.
+     * @return the parsed documents.
+     * @throws IOException if the documents cannot be read.
+     */
+    public static List<ParsedDocument> parse(final String language) throws IOException {
+
+        final List<ParsedDocument> docs = new ArrayList<>(DOCUMENTS);
+        for (ParsedDocument d : DocumentParser.create(LongEvalParser.class, documents(language),
+                StandardCharsets.UTF_8)) {
+            docs.add(d);
+        }
+
+        return docs;
+    }
+
+    /**
+     * Indexes the corpus in memory as {@link MultilingualDirectoryIndexer} does.
+     *
+     * @param ngramSize the size of the N-Grams.
+     * @return the directory of the index.
+     * @throws IOException if something goes wrong while indexing.
+     */
+    public static Directory index(final int ngramSize) throws IOException {
+
+        final List<ParsedDocument> en = parse(ENGLISH);
+        final List<ParsedDocument> fr = parse(FRENCH);
+
+        final Directory dir = new ByteBuffersDirectory();
+
+        try (Analyzer enAn = new EnglishAnalyzer(); Analyzer frAn = new FrenchAnalyzer();
+             Analyzer ngramAn = new NGramAnalyzer(ngramSize); Analyzer nerAn = new NERAnalyzer()) {
+
+            final IndexWriterConfig config = new IndexWriterConfig(
+                    MultilingualDirectoryIndexer.fieldAnalyzer(enAn, frAn, ngramAn, nerAn));
+            config.setSimilarity(new BM25Similarity());
+
+            try (IndexWriter writer = new IndexWriter(dir, config)) {
+                for (int i = 0; i < en.size(); i++) {
+                    writer.addDocument(MultilingualDirectoryIndexer.document(en.get(i), fr.get(i)));
+                }
+            }
+        }
+
+        return dir;
+    }
+}
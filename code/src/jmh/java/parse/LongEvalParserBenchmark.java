@@ -0,0 +1,105 @@
+package parse;
+
+import jmh.SampleCorpus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the LongEval document parsers over the English sample file: one operation is the
+ * parsing of the whole file, and the parsed documents and bytes are also counted per second.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LongEvalParserBenchmark {
+
+    /**
+     * The parser to measure.
+     */
+    @Param({"LongEvalParser", "MappedLongEvalParser"})
+    public String parser;
+
+    /**
+     * The class of the parser to measure.
+     */
+    private Class<? extends DocumentParser> cls;
+
+    /**
+     * The file to parse.
+     */
+    private Path file;
+
+    /**
+     * The size of the file to parse.
+     */
+    private long size;
+
+    /**
+     * The documents and the bytes parsed, reported per second next to the files.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        /**
+         * The parsed documents.
+         */
+        public long documents;
+
+        /**
+         * The parsed bytes.
+         */
+        public long bytes;
+
+        /**
+         * Resets the counters at each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            documents = 0;
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Finds the parser and the file to parse.
+     *
+     * @throws Exception if the parser or the file cannot be found.
+     */
+    @Setup
+    public void setup() throws Exception {
+        cls = Class.forName("parse." + parser).asSubclass(DocumentParser.class);
+        file = SampleCorpus.documents(SampleCorpus.ENGLISH);
+        size = Files.size(file);
+    }
+
+    /**
+     * Parses the whole file.
+     *
+     * @param counters the documents and the bytes parsed.
+     * @param bh       consumes the parsed documents.
+     * @throws IOException if the file cannot be read.
+     */
+    @Benchmark
+    public void parse(final Counters counters, final Blackhole bh) throws IOException {
+
+        for (ParsedDocument d : DocumentParser.create(cls, file, StandardCharsets.UTF_8)) {
+            bh.consume(d);
+            counters.documents++;
+        }
+
+        counters.bytes += size;
+    }
+}
@@ -0,0 +1,208 @@
+package search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.openjdk.jmh.annotations.*;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to look up the identifiers of the documents retrieved for a topic, reading them from their doc
+ * values as {@link Searcher} does and from the stored fields as it did before: one operation is the lookup of the
+ * identifiers of all the hits of a topic.
+ *
+ * The index only contains the identifier field, as stored field and as doc values, which is the only field the
+ * indexers store, so that the stored fields have the same layout as in the real indexes.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DocumentIdBenchmark {
+
+    /**
+     * The number of documents of the index.
+     */
+    @Param({"100000"})
+    public int documents;
+
+    /**
+     * The number of documents retrieved for a topic.
+     */
+    @Param({"1000"})
+    public int hits;
+
+    /**
+     * The number of topics whose hits are looked up in turn.
+     */
+    private static final int TOPICS = 50;
+
+    /**
+     * The identifier field to load from the stored fields.
+     */
+    private static final Set<String> ID_FIELD = Collections.singleton(ParsedDocument.FIELDS.ID);
+
+    /**
+     * The directory of the index.
+     */
+    private Directory dir;
+
+    /**
+     * The reader of the index.
+     */
+    private DirectoryReader reader;
+
+    /**
+     * The Lucene document numbers of the hits of each topic, in rank order.
+     */
+    private int[][] topicHits;
+
+    /**
+     * The next topic to look up.
+     */
+    private int next = 0;
+
+    /**
+     * Indexes the identifiers in memory and draws the hits of the topics.
+     *
+     * @throws IOException if something goes wrong while indexing.
+     */
+    @Setup
+    public void setup() throws IOException {
+
+        dir = new ByteBuffersDirectory();
+
+        // flush every 10000 documents, so that the lookups go through several segments
+        final IndexWriterConfig config = new IndexWriterConfig().setMaxBufferedDocs(10000);
+
+        try (IndexWriter writer = new IndexWriter(dir, config)) {
+            for (int i = 0; i < documents; i++) {
+                final String id = String.format("doc%012d", i);
+
+                final Document doc = new Document();
+                doc.add(new StringField(ParsedDocument.FIELDS.ID, id, Field.Store.YES));
+                doc.add(new SortedDocValuesField(ParsedDocument.FIELDS.ID, new BytesRef(id)));
+                writer.addDocument(doc);
+            }
+        }
+
+        reader = DirectoryReader.open(dir);
+
+        // the hits of a topic are distinct documents, in no particular order of document number
+        final Random random = new Random(11);
+        topicHits = new int[TOPICS][];
+        for (int t = 0; t < TOPICS; t++) {
+            topicHits[t] = random.ints(0, documents).distinct().limit(Math.min(hits, documents)).toArray();
+        }
+    }
+
+    /**
+     * Closes the index.
+     *
+     * @throws IOException if the index cannot be closed.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        dir.close();
+    }
+
+    /**
+     * Looks up the identifiers of the hits of the next topic from their doc values, going through the hits in
+     * increasing document number as {@link Searcher} does.
+     *
+     * @return the identifiers of the hits, in rank order.
+     * @throws IOException if something goes wrong while reading the identifiers.
+     */
+    @Benchmark
+    public String[] docValues() throws IOException {
+
+        final int[] sd = nextHits();
+        final String[] docIDs = new String[sd.length];
+
+        // the Lucene document number in the upper half, the rank in the lower half
+        final long[] order = new long[sd.length];
+        for (int i = 0; i < sd.length; i++) {
+            order[i] = ((long) sd[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        final List<LeafReaderContext> leaves = reader.leaves();
+        LeafReaderContext leaf = null;
+        SortedDocValues ids = null;
+
+        for (long o : order) {
+            final int doc = (int) (o >>> 32);
+            final int rank = (int) o;
+
+            // move to the segment containing the document, if needed
+            if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                ids = leaf.reader().getSortedDocValues(ParsedDocument.FIELDS.ID);
+            }
+
+            if (ids.advanceExact(doc - leaf.docBase)) {
+                docIDs[rank] = ids.lookupOrd(ids.ordValue()).utf8ToString();
+            }
+        }
+
+        return docIDs;
+    }
+
+    /**
+     * Looks up the identifiers of the hits of the next topic from the stored fields, in rank order.
+     *
+     * @return the identifiers of the hits, in rank order.
+     * @throws IOException if something goes wrong while reading the identifiers.
+     */
+    @Benchmark
+    public String[] storedFields() throws IOException {
+
+        final int[] sd = nextHits();
+        final String[] docIDs = new String[sd.length];
+
+        final StoredFields storedFields = reader.storedFields();
+        for (int i = 0; i < sd.length; i++) {
+            docIDs[i] = storedFields.document(sd[i], ID_FIELD).get(ParsedDocument.FIELDS.ID);
+        }
+
+        return docIDs;
+    }
+
+    /**
+     * Returns the hits of the next topic.
+     *
+     * @return the Lucene document numbers of the hits, in rank order.
+     */
+    private int[] nextHits() {
+
+        final int[] sd = topicHits[next];
+        next = (next + 1) % TOPICS;
+
+        return sd;
+    }
+}
@@ -0,0 +1,156 @@
+package search;
+
+import analyze.EnglishAnalyzer;
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NGramAnalyzer;
+import jmh.SampleCorpus;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.openjdk.jmh.annotations.*;
+import topic.LongEvalTopic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a topic for each run of {@link Searcher}, on an in-memory index of the sample corpus with
+ * the N-Grams of the run: one operation is the search of a topic, from parsing its title to formatting its results.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearcherBenchmark {
+
+    /**
+     * The run, as numbered in {@link Searcher#main(String[])}.
+     */
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    public int run;
+
+    /**
+     * The analyzers of the searcher.
+     */
+    private Analyzer[] analyzers;
+
+    /**
+     * The reader of the index.
+     */
+    private DirectoryReader reader;
+
+    /**
+     * The directory of the run file, which is not written.
+     */
+    private Path runPath;
+
+    /**
+     * The topics of the run.
+     */
+    private List<LongEvalTopic> topics;
+
+    /**
+     * The searcher, whose run file is closed at the end.
+     */
+    private Searcher searcher;
+
+    /**
+     * Searches the topics as the searcher does for each of them.
+     */
+    private Searcher.TopicSearcher topicSearcher;
+
+    /**
+     * The next topic to search.
+     */
+    private int next = 0;
+
+    /**
+     * Indexes the sample corpus with the N-Grams of the run and creates the searcher.
+     *
+     * @throws IOException if something goes wrong while indexing.
+     */
+    @Setup
+    public void setup() throws IOException {
+
+        // the size of the N-Grams of the index of each run, as in Searcher.main
+        final int ngramSize;
+        switch (run) {
+            case 3:
+            case 6:
+            case 9:
+            case 12:
+                ngramSize = 4;
+                break;
+            case 4:
+            case 5:
+            case 10:
+            case 11:
+                ngramSize = 5;
+                break;
+            default:
+                ngramSize = 3;
+                break;
+        }
+
+        analyzers = new Analyzer[]{new EnglishAnalyzer(), new FrenchAnalyzer(), new NGramAnalyzer(ngramSize),
+                new NERAnalyzer()};
+
+        reader = DirectoryReader.open(SampleCorpus.index(ngramSize));
+
+        // runs 1 to 6 search the English topics, runs 7 to 12 the French ones
+        topics = Searcher.readTopics(
+                SampleCorpus.topics(run <= 6 ? SampleCorpus.ENGLISH : SampleCorpus.FRENCH).toString());
+
+        runPath = Files.createTempDirectory("searcher-benchmark");
+
+        searcher = new Searcher(analyzers[0], analyzers[1], analyzers[2], analyzers[3],
+                new BM25Similarity(), reader, topics, topics.size(), "benchmark", runPath.toString(), 1000, 1, 0, 0);
+
+        topicSearcher = searcher.new TopicSearcher(Searcher.runFields(run), null);
+    }
+
+    /**
+     * Closes the searcher, the index and the analyzers.
+     *
+     * @throws IOException if the searcher or the index cannot be closed.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+
+        searcher.close();
+
+        reader.close();
+
+        for (Analyzer a : analyzers) {
+            a.close();
+        }
+
+        SampleCorpus.delete(runPath);
+    }
+
+    /**
+     * Searches the next topic.
+     *
+     * @return the results of the topic, in the format of the run.
+     * @throws IOException    if something goes wrong while searching.
+     * @throws ParseException if something goes wrong while parsing the topic.
+     */
+    @Benchmark
+    public String searchTopic() throws IOException, ParseException {
+
+        final int i = next;
+        next = (next + 1) % topics.size();
+
+        return topicSearcher.search(topics.get(i), i);
+    }
+}
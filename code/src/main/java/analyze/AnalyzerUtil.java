@@ -30,7 +30,12 @@ public class AnalyzerUtil {
     /**
      * Some strage symbols found in LongEval documents.
      */
-    public static final String STRANGE_SYMBOLS_REGEX = "[·'’_…–-]";
+    public static final String STRANGE_SYMBOLS = "·'’_…–-";
+
+    /**
+     * A regular expression matching any of the {@link #STRANGE_SYMBOLS}.
+     */
+    public static final String STRANGE_SYMBOLS_REGEX = "[" + STRANGE_SYMBOLS + "]";
 
     /**
      * The class loader of this class. Needed for reading files from the {@code resource} directory.
@@ -205,6 +210,20 @@ public class AnalyzerUtil {
      * @throws IllegalStateException if there is any issue while loading the model.
      */
     static NLPNERTaggerOp loadLNerTaggerModel(final String modelFile) {
+        return new NLPNERTaggerOp(loadNerModel(modelFile));
+    }
+
+    /**
+     * Loads the required Apache OpenNLP NER model among those available in the {@code resources} folder. The model is
+     * immutable and can be shared by several taggers, see {@link NERTaggerPool}.
+     *
+     * @param modelFile the name of the file containing the model.
+     *
+     * @return the required Apache OpenNLP model.
+     *
+     * @throws IllegalStateException if there is any issue while loading the model.
+     */
+    static TokenNameFinderModel loadNerModel(final String modelFile) {
 
         if (modelFile == null) {
             throw new NullPointerException("Model file name cannot be null.");
@@ -215,7 +234,7 @@ public class AnalyzerUtil {
         }
 
         // the model
-        NLPNERTaggerOp model = null;
+        TokenNameFinderModel model = null;
 
         try {
 
@@ -223,7 +242,7 @@ public class AnalyzerUtil {
             InputStream in = new BufferedInputStream(CL.getResourceAsStream(modelFile));
 
             // Load the model
-            model = new NLPNERTaggerOp(new TokenNameFinderModel(in));
+            model = new TokenNameFinderModel(in);
 
             // Close the file
             in.close();
@@ -0,0 +1,193 @@
+package analyze;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.*;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Lucene custom {@link Tokenizer} returning the tokens of the NER analysis of a text from a {@link NERCache}, if
+ * available, and running the NER analysis (and filling the cache) otherwise.
+ *
+ * The whole text is read when the tokenizer is reset, since the key of the cache is the hash of the text. The cached
+ * tokens keep their term, type, offsets, position increment and length and keyword flag: all that is needed to index
+ * them.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class CachedNERTokenizer extends Tokenizer {
+
+    /**
+     * The cache of the NER tokens.
+     */
+    private final NERCache cache;
+
+    /**
+     * A description of the NER analysis, part of the key, so that texts analyzed in different ways do not collide.
+     */
+    private final String analysis;
+
+    /**
+     * The tokenizer at the beginning of the NER analysis.
+     */
+    private final Tokenizer nerSource;
+
+    /**
+     * The end of the NER analysis.
+     */
+    private final TokenStream nerTokens;
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+    private final PositionLengthAttribute posLenAtt = addAttribute(PositionLengthAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+    private final KeywordAttribute keywordAtt = addAttribute(KeywordAttribute.class);
+
+    /**
+     * The encoded tokens of the current text.
+     */
+    private final ByteArrayDataInput tokens = new ByteArrayDataInput();
+
+    /**
+     * The number of tokens of the current text still to be returned.
+     */
+    private int remaining = 0;
+
+    /**
+     * The final offset of the current text.
+     */
+    private int finalOffset = 0;
+
+    /**
+     * Creates a new tokenizer.
+     *
+     * @param cache     the cache of the NER tokens.
+     * @param analysis  a description of the NER analysis.
+     * @param nerSource the tokenizer at the beginning of the NER analysis.
+     * @param nerTokens the end of the NER analysis.
+     */
+    CachedNERTokenizer(final NERCache cache, final String analysis, final Tokenizer nerSource,
+                       final TokenStream nerTokens) {
+
+        if (cache == null) {
+            throw new NullPointerException("NER cache cannot be null.");
+        }
+
+        this.cache = cache;
+        this.analysis = analysis;
+        this.nerSource = nerSource;
+        this.nerTokens = nerTokens;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+
+        if (remaining == 0) {
+            return false;
+        }
+
+        clearAttributes();
+
+        termAtt.append(tokens.readString());
+        typeAtt.setType(tokens.readString());
+        final int startOffset = tokens.readVInt();
+        offsetAtt.setOffset(correctOffset(startOffset), correctOffset(startOffset + tokens.readVInt()));
+        posIncrAtt.setPositionIncrement(tokens.readVInt());
+        posLenAtt.setPositionLength(tokens.readVInt());
+        keywordAtt.setKeyword(tokens.readByte() != 0);
+
+        remaining--;
+        return true;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+
+        // the key is the hash of the whole text
+        final StringBuilder sb = new StringBuilder();
+        final char[] buffer = new char[8192];
+        for (int n = input.read(buffer); n != -1; n = input.read(buffer)) {
+            sb.append(buffer, 0, n);
+        }
+        final String text = sb.toString();
+
+        final byte[] key = NERCache.key(analysis, text);
+
+        byte[] value = cache.get(key);
+        if (value == null) {
+            value = analyze(text);
+            cache.put(key, value);
+        }
+
+        tokens.reset(value);
+        remaining = tokens.readVInt();
+        finalOffset = text.length();
+    }
+
+    /**
+     * Runs the NER analysis over a text and encodes the resulting tokens.
+     *
+     * @param text the text to analyze.
+     *
+     * @return the encoded tokens.
+     *
+     * @throws IOException if something goes wrong while analyzing the text.
+     */
+    private byte[] analyze(final String text) throws IOException {
+
+        final CharTermAttribute term = nerTokens.getAttribute(CharTermAttribute.class);
+        final TypeAttribute type = nerTokens.getAttribute(TypeAttribute.class);
+        final OffsetAttribute offset = nerTokens.getAttribute(OffsetAttribute.class);
+        final PositionIncrementAttribute posIncr = nerTokens.getAttribute(PositionIncrementAttribute.class);
+        final PositionLengthAttribute posLen = nerTokens.getAttribute(PositionLengthAttribute.class);
+        final KeywordAttribute keyword = nerTokens.getAttribute(KeywordAttribute.class);
+
+        final ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        int count = 0;
+
+        nerSource.setReader(new StringReader(text));
+        try {
+            nerTokens.reset();
+            while (nerTokens.incrementToken()) {
+                out.writeString(term.toString());
+                out.writeString(type.type());
+                out.writeVInt(offset.startOffset());
+                out.writeVInt(offset.endOffset() - offset.startOffset());
+                out.writeVInt(posIncr.getPositionIncrement());
+                out.writeVInt(posLen.getPositionLength());
+                out.writeByte((byte) (keyword.isKeyword() ? 1 : 0));
+                count++;
+            }
+            nerTokens.end();
+        } finally {
+            nerTokens.close();
+        }
+
+        // the number of tokens followed by the tokens
+        final ByteBuffersDataOutput value = new ByteBuffersDataOutput();
+        value.writeVInt(count);
+        out.copyTo(value);
+
+        return value.toArrayCopy();
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+        final int offset = correctOffset(finalOffset);
+        offsetAtt.setOffset(offset, offset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        remaining = 0;
+    }
+}
@@ -8,14 +8,10 @@ import org.apache.lucene.analysis.core.StopFilter;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.analysis.en.EnglishMinimalStemFilter;
 import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
-import org.apache.lucene.analysis.pattern.PatternReplaceFilter;
-import org.apache.lucene.wordnet.SynonymMap;
-import org.apache.lucene.wordnet.SynonymTokenFilter;
 import parse.LongEvalParser;
 import parse.ParsedDocument;
 
 import java.io.*;
-import java.util.regex.Pattern;
 
 import static analyze.AnalyzerUtil.consumeTokenStream;
 import static analyze.AnalyzerUtil.loadStopList;
@@ -28,11 +24,6 @@ import static analyze.AnalyzerUtil.loadStopList;
  */
 public class EnglishAnalyzer extends Analyzer
 {
-    /**
-     * The class loader of this class. Needed for reading files from the {@code resource} directory.
-     */
-    private static final ClassLoader CL = AnalyzerUtil.class.getClassLoader();
-
     /**
      * Creates a new instance of the analyzer.
      */
@@ -43,29 +34,16 @@ public class EnglishAnalyzer extends Analyzer
     @Override
     protected TokenStreamComponents createComponents(String s) {
 
-        // Synonym map to use in SynonymTokenFilter
-        SynonymMap synMap;
-        try {
-            // Load wordnet synonym map
-            // Load file wn_s.pl (in resources/) (Prolog version from: https://wordnet.princeton.edu/download/current-version)
-            synMap = new SynonymMap(CL.getResourceAsStream("prolog\\wn_s.pl"));
-        } catch (IOException  e) {
-            throw new IllegalArgumentException(
-                    String.format("Unable to find synonym file: %s.", e.getMessage()), e);
-        }
+        // WordNet synonyms, loaded only once and shared by every analyzer instance and thread
+        // (compiled from file wn_s.pl in resources/, see WordNetSynonyms)
+        final WordNetSynonyms synonyms = WordNetSynonyms.getInstance();
 
         // Whitespace tokenizer
         final Tokenizer source = new WhitespaceTokenizer();
 
-        // Delete some strange symbols found in documents
-        TokenStream tokens = new PatternReplaceFilter(source, Pattern.compile(AnalyzerUtil.STRANGE_SYMBOLS_REGEX), "",
-                true);
-
-        // Delete punctuation marks at the beginning of words (text)
-        tokens = new PatternReplaceFilter(tokens, Pattern.compile("^[\\p{Punct}]+"), "", true);
-
-        // Delete punctuation marks at the end of words (text)
-        tokens = new PatternReplaceFilter(tokens, Pattern.compile("[\\p{Punct}]+$"), "", true);
+        // Delete some strange symbols found in documents, and punctuation marks at the beginning and at the end of
+        // words (text)
+        TokenStream tokens = new SymbolNormalizationFilter(source);
 
         // Apply WordDelimiterGraphFilter with the following options
         tokens = new WordDelimiterGraphFilter(tokens,
@@ -85,7 +63,7 @@ public class EnglishAnalyzer extends Analyzer
         tokens = new StopFilter(tokens, loadStopList("terrier.txt"));
 
         // Apply query expansion with synonyms
-        tokens = new SynonymTokenFilter(tokens, synMap, 10);
+        tokens = new WordNetSynonymFilter(tokens, synonyms, 10);
 
         // Apply English Minimal Stem Filter
         tokens = new EnglishMinimalStemFilter(tokens);
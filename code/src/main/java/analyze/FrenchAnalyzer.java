@@ -7,7 +7,6 @@ import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.StopFilter;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
-import org.apache.lucene.analysis.pattern.PatternReplaceFilter;
 import org.apache.lucene.analysis.fr.FrenchMinimalStemFilter;
 import parse.LongEvalParser;
 import parse.ParsedDocument;
@@ -15,7 +14,6 @@ import parse.ParsedDocument;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.regex.Pattern;
 
 import static analyze.AnalyzerUtil.consumeTokenStream;
 import static analyze.AnalyzerUtil.loadStopList;
@@ -41,15 +39,9 @@ public class FrenchAnalyzer extends Analyzer
         // Whitespace tokenizer
         final Tokenizer source = new WhitespaceTokenizer();
 
-        // Delete some strange symbols found in documents
-        TokenStream tokens = new PatternReplaceFilter(source, Pattern.compile(AnalyzerUtil.STRANGE_SYMBOLS_REGEX),
-                "", true);
-
-        // Delete punctuation marks at the beginning of words (text)
-        tokens = new PatternReplaceFilter(tokens, Pattern.compile("^[\\p{Punct}]+"), "", true);
-
-        // Delete punctuation marks at the end of words (text)
-        tokens = new PatternReplaceFilter(tokens, Pattern.compile("[\\p{Punct}]+$"), "", true);
+        // Delete some strange symbols found in documents, and punctuation marks at the beginning and at the end of
+        // words (text)
+        TokenStream tokens = new SymbolNormalizationFilter(source);
 
         // Apply WordDelimiterGraphFilter with the following options
         tokens = new WordDelimiterGraphFilter(tokens,
@@ -0,0 +1,255 @@
+package analyze;
+
+import org.apache.lucene.analysis.CharacterUtils;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenFilter;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.util.CharTokenizer;
+
+import java.io.IOException;
+
+/**
+ * Lucene custom {@link Tokenizer} generating the character N-Grams of the letters of a text in a single pass.
+ *
+ * It returns exactly the tokens of a {@link WhitespaceTokenizer}, followed by a lowercase filter, a filter deleting
+ * everything but the letters {@code [a-zéàèùçâêîôûëïü]}, the removal of the empty tokens and a
+ * {@link NGramTokenFilter} of size N: same terms, offsets and position increments. Instead of a regular expression
+ * and a copy of every token in each filter, the letters of each word are lowercased and filtered into a single
+ * reusable buffer, and the N-Grams are copied from it.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class LetterNGramTokenizer extends Tokenizer {
+
+    /**
+     * The maximum length of a word, as in {@link WhitespaceTokenizer}: longer words are split.
+     */
+    private static final int MAX_WORD_LENGTH = CharTokenizer.DEFAULT_MAX_WORD_LEN;
+
+    /**
+     * The size of the buffer of the input.
+     */
+    private static final int IO_BUFFER_SIZE = 4096;
+
+    /**
+     * The letters kept in the N-Grams, indexed by character: they all are in Latin-1.
+     */
+    private static final boolean[] LETTERS = new boolean[256];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            LETTERS[c] = true;
+        }
+        for (char c : "éàèùçâêîôûëïü".toCharArray()) {
+            LETTERS[c] = true;
+        }
+    }
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+
+    /**
+     * The size of the N-Grams.
+     */
+    private final int n;
+
+    /**
+     * The buffer of the input.
+     */
+    private final CharacterUtils.CharacterBuffer ioBuffer = CharacterUtils.newCharacterBuffer(IO_BUFFER_SIZE);
+
+    /**
+     * The next character to read in {@link #ioBuffer}.
+     */
+    private int bufferIndex = 0;
+
+    /**
+     * The number of characters in {@link #ioBuffer}.
+     */
+    private int dataLen = 0;
+
+    /**
+     * The offset of the beginning of {@link #ioBuffer} in the input.
+     */
+    private int offset = 0;
+
+    /**
+     * The final offset of the input, once it has been read completely.
+     */
+    private int finalOffset = 0;
+
+    /**
+     * The lowercase letters of the current word, a supplementary character taking two characters at most.
+     */
+    private final char[] word = new char[MAX_WORD_LENGTH + 1];
+
+    /**
+     * The number of letters of the current word.
+     */
+    private int wordLength = 0;
+
+    /**
+     * The start offset of the current word.
+     */
+    private int wordStart = 0;
+
+    /**
+     * The end offset of the current word.
+     */
+    private int wordEnd = 0;
+
+    /**
+     * The position of the next N-Gram in the current word.
+     */
+    private int gramPos = 0;
+
+    /**
+     * The positions of the words without N-Grams since the last N-Gram, given to the next one.
+     */
+    private int pendingPositions = 0;
+
+    /**
+     * The positions of the words without letters since the last word with some, given to the next one.
+     */
+    private int skippedPositions = 0;
+
+    /**
+     * Creates a new tokenizer.
+     *
+     * @param n the size of the N-Grams.
+     * @throws IllegalArgumentException if {@code n} is less than or equal to zero.
+     */
+    LetterNGramTokenizer(final int n) {
+
+        if (n <= 0) {
+            throw new IllegalArgumentException("The size of the N-Grams cannot be less than or equal to zero.");
+        }
+
+        this.n = n;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+
+        // move to the next word which is long enough, when the current one is over
+        while (gramPos + n > wordLength) {
+            if (!nextWord()) {
+                return false;
+            }
+        }
+
+        clearAttributes();
+        termAtt.copyBuffer(word, gramPos, n);
+        offsetAtt.setOffset(correctOffset(wordStart), correctOffset(wordEnd));
+
+        // only the first N-Gram of a word moves to the next position
+        if (gramPos == 0) {
+            posIncrAtt.setPositionIncrement(pendingPositions);
+            pendingPositions = 0;
+        } else {
+            posIncrAtt.setPositionIncrement(0);
+        }
+
+        gramPos++;
+
+        return true;
+    }
+
+    /**
+     * Reads the next word, i.e. the next sequence of non-whitespace characters, keeping only its lowercase letters.
+     *
+     * @return {@code true} if there is a next word, {@code false} if the input is over.
+     * @throws IOException if the input cannot be read.
+     */
+    private boolean nextWord() throws IOException {
+
+        int length = 0;
+        int start = -1;
+        int end = -1;
+
+        wordLength = 0;
+        gramPos = 0;
+
+        while (true) {
+            if (bufferIndex >= dataLen) {
+                offset += dataLen;
+                CharacterUtils.fill(ioBuffer, input);
+                if (ioBuffer.getLength() == 0) {
+                    dataLen = 0;
+                    if (length > 0) {
+                        break;
+                    }
+                    finalOffset = correctOffset(offset);
+                    return false;
+                }
+                dataLen = ioBuffer.getLength();
+                bufferIndex = 0;
+            }
+
+            final int c = Character.codePointAt(ioBuffer.getBuffer(), bufferIndex, ioBuffer.getLength());
+            final int charCount = Character.charCount(c);
+            bufferIndex += charCount;
+
+            if (!Character.isWhitespace(c)) {
+                if (length == 0) {
+                    start = offset + bufferIndex - charCount;
+                    end = start;
+                }
+                end += charCount;
+                length += charCount;
+
+                final int lc = Character.toLowerCase(c);
+                if (lc < LETTERS.length && LETTERS[lc]) {
+                    word[wordLength++] = (char) lc;
+                }
+
+                if (length >= MAX_WORD_LENGTH) {
+                    break;
+                }
+            } else if (length > 0) {
+                break;
+            }
+        }
+
+        wordStart = start;
+        wordEnd = end;
+
+        // a word without letters is deleted, a word shorter than the N-Grams has no N-Grams but its position
+        if (wordLength == 0) {
+            skippedPositions++;
+        } else {
+            pendingPositions += 1 + skippedPositions;
+            skippedPositions = 0;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+
+        offsetAtt.setOffset(finalOffset, finalOffset);
+        posIncrAtt.setPositionIncrement(pendingPositions);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+
+        ioBuffer.reset();
+        bufferIndex = 0;
+        dataLen = 0;
+        offset = 0;
+        finalOffset = 0;
+        wordLength = 0;
+        gramPos = 0;
+        pendingPositions = 0;
+        skippedPositions = 0;
+    }
+}
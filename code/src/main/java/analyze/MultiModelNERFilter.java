@@ -0,0 +1,508 @@
+package analyze;
+
+import opennlp.tools.util.Span;
+import org.apache.lucene.analysis.CharArrayMap;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.opennlp.tools.NLPNERTaggerOp;
+import org.apache.lucene.analysis.tokenattributes.*;
+import org.apache.lucene.util.AttributeSource;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A filter that relies on several <a href="http://opennlp.apache.org/" target="_blank">Apache OpenNLP</a> Named
+ * Entity Recognizer (NER) models at once, e.g. locations, persons and organizations.
+ *
+ * The output is exactly the one of a chain with one {@link OpenNLPNERFilter} per model, in the same order: each model
+ * tags the tokens produced by the previous one, where the entities already merged are single terms, and cuts them into
+ * sentences as its own filter would. What the chain does once per model, this filter does only once: each token is
+ * cloned once and handed from one model to the next, the terms are turned into strings once and the same string is
+ * reused for the same term, and the buffers are recycled from one sentence to the next.
+ *
+ * As in {@link OpenNLPNERFilter}, a sentence ends when the {@link SentenceAttribute} changes or after a maximum number
+ * of tokens, and the tokens after the cut of a too long sentence are tagged again with the following ones.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class MultiModelNERFilter extends TokenFilter {
+
+    /**
+     * The maximum number of distinct terms whose string is kept for reuse
+     */
+    private static final int MAX_CACHED_TERMS = 1 << 16;
+
+    /**
+     * The pools providing the Apache OpenNLP NER taggers, in the order they would be chained
+     */
+    private final NERTaggerPool[] nerTaggerPools;
+
+    /**
+     * The taggers taken from the pools for the current document only
+     */
+    private final NLPNERTaggerOp[] nerTaggerOps;
+
+    /**
+     * The maximum number of tokens buffered and tagged together
+     */
+    private final int maxSentenceLength;
+
+    /**
+     * The classes of relevant {@code Attribute}s of a token
+     */
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+    private final PositionLengthAttribute posLenAtt = addAttribute(PositionLengthAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+    private final SentenceAttribute sentenceAtt = addAttribute(SentenceAttribute.class);
+
+    // Added to avoid the error:
+    // "This AttributeSource contains AttributeImpl of type KeywordAttributeImpl that is not in the target"
+    private final KeywordAttribute keywordAttr = addAttribute(KeywordAttribute.class);
+
+    /**
+     * The models, in the order they would be chained
+     */
+    private final Stage[] stages;
+
+    /**
+     * The tokens already returned or merged into an entity, which can hold the next tokens of the current document
+     */
+    private final ArrayDeque<Token> spareTokens = new ArrayDeque<>();
+
+    /**
+     * The strings of the terms seen so far, to pass the same string to the taggers every time a term occurs
+     */
+    private final CharArrayMap<String> termStrings = new CharArrayMap<>(1024, false);
+
+    /**
+     * The sentence index the chained filters would see in the stream, i.e. the one of the last token read from the
+     * input or handed from one model to the next
+     */
+    private int currentSentenceIndex = 0;
+
+    /**
+     * Creates a new multi-model Named Entity Recognizer (NER) filter, cutting sentences after
+     * {@link OpenNLPNERFilter#DEFAULT_MAX_SENTENCE_LENGTH} tokens.
+     *
+     * @param input          the source of tokens for this filter.
+     * @param nerTaggerPools the pools of the NER taggers to use, in the order they would be chained.
+     */
+    public MultiModelNERFilter(TokenStream input, NERTaggerPool... nerTaggerPools) {
+        this(input, OpenNLPNERFilter.DEFAULT_MAX_SENTENCE_LENGTH, nerTaggerPools);
+    }
+
+    /**
+     * Creates a new multi-model Named Entity Recognizer (NER) filter.
+     *
+     * @param input             the source of tokens for this filter.
+     * @param maxSentenceLength the maximum number of tokens of a sentence.
+     * @param nerTaggerPools    the pools of the NER taggers to use, in the order they would be chained.
+     */
+    public MultiModelNERFilter(TokenStream input, int maxSentenceLength, NERTaggerPool... nerTaggerPools) {
+        super(input);
+
+        if (nerTaggerPools == null) {
+            throw new NullPointerException("NER tagger pools cannot be null.");
+        }
+
+        if (nerTaggerPools.length == 0) {
+            throw new IllegalArgumentException("At least one NER tagger pool must be provided.");
+        }
+
+        for (NERTaggerPool pool : nerTaggerPools) {
+            if (pool == null) {
+                throw new NullPointerException("NER tagger pool cannot be null.");
+            }
+        }
+
+        if (maxSentenceLength <= 0) {
+            throw new IllegalArgumentException("The maximum sentence length cannot be less than or equal to zero.");
+        }
+
+        this.nerTaggerPools = nerTaggerPools.clone();
+        this.nerTaggerOps = new NLPNERTaggerOp[nerTaggerPools.length];
+        this.maxSentenceLength = maxSentenceLength;
+
+        this.stages = new Stage[nerTaggerPools.length];
+        for (int m = 0; m < stages.length; m++) {
+            stages[m] = new Stage(m);
+        }
+    }
+
+    @Override
+    public final boolean incrementToken() throws IOException {
+
+        // the chained filters share the attributes of the stream, whatever the consumer did with them
+        currentSentenceIndex = sentenceAtt.getSentenceIndex();
+
+        final Token token = stages[stages.length - 1].next();
+
+        if (token == null) {
+            return false;
+        }
+
+        // copy the token back to the stream and keep it for a next one
+        token.attributes.copyTo(this);
+        spareTokens.add(token);
+
+        return true;
+    }
+
+    /**
+     * Reads the next token from the input, as the first chained filter would.
+     *
+     * @return the next token, or {@code null} if the input is over.
+     *
+     * @throws IOException if something goes wrong while reading the input.
+     */
+    private Token read() throws IOException {
+
+        final boolean available = input.incrementToken();
+        currentSentenceIndex = sentenceAtt.getSentenceIndex();
+
+        if (!available) {
+            return null;
+        }
+
+        // copy all the attributes for the current token, reusing a token no longer needed if any
+        Token token = spareTokens.poll();
+        if (token == null) {
+            token = new Token(input.cloneAttributes());
+        } else {
+            input.copyTo(token.attributes);
+        }
+        token.term = termString(termAtt);
+
+        return token;
+    }
+
+    /**
+     * Returns the string of a term, the same one every time the term occurs.
+     *
+     * @param term the term.
+     *
+     * @return the string of the term.
+     */
+    private String termString(final CharTermAttribute term) {
+
+        String s = termStrings.get(term.buffer(), 0, term.length());
+
+        if (s == null) {
+            s = term.toString();
+
+            // keep memory bounded on large vocabularies
+            if (termStrings.size() >= MAX_CACHED_TERMS) {
+                termStrings.clear();
+            }
+            termStrings.put(s, s);
+        }
+
+        return s;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+
+        // Attributes can be added to the stream before it is reset (e.g. by the query parser): the tokens cloned for a
+        // previous document may miss them, so they are not reused
+        spareTokens.clear();
+        for (Stage stage : stages) {
+            stage.reset();
+        }
+
+        // Give back the taggers of the previous document, if still held
+        releaseTaggers();
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+
+        // The document is over, other threads can use the taggers
+        releaseTaggers();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // In case the stream has not been consumed until its end
+            releaseTaggers();
+        }
+    }
+
+    /**
+     * Gives the NER taggers back to their pools, if this filter is holding any.
+     */
+    private void releaseTaggers() {
+        for (int m = 0; m < nerTaggerOps.length; m++) {
+            if (nerTaggerOps[m] != null) {
+                nerTaggerPools[m].release(nerTaggerOps[m]);
+                nerTaggerOps[m] = null;
+            }
+        }
+    }
+
+    /**
+     * A token handed from one model to the next, with its attributes and the string of its term.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    private static final class Token {
+
+        /**
+         * All the attributes of the token
+         */
+        private final AttributeSource attributes;
+
+        /**
+         * The attributes changed when the token becomes an entity
+         */
+        private final CharTermAttribute termAtt;
+        private final OffsetAttribute offsetAtt;
+        private final PositionIncrementAttribute posIncrAtt;
+        private final PositionLengthAttribute posLenAtt;
+        private final TypeAttribute typeAtt;
+        private final SentenceAttribute sentenceAtt;
+        private final KeywordAttribute keywordAtt;
+
+        /**
+         * The string of the term
+         */
+        private String term;
+
+        /**
+         * Creates a new token.
+         *
+         * @param attributes all the attributes of the token.
+         */
+        private Token(final AttributeSource attributes) {
+            this.attributes = attributes;
+            this.termAtt = attributes.getAttribute(CharTermAttribute.class);
+            this.offsetAtt = attributes.getAttribute(OffsetAttribute.class);
+            this.posIncrAtt = attributes.getAttribute(PositionIncrementAttribute.class);
+            this.posLenAtt = attributes.getAttribute(PositionLengthAttribute.class);
+            this.typeAtt = attributes.getAttribute(TypeAttribute.class);
+            this.sentenceAtt = attributes.getAttribute(SentenceAttribute.class);
+            this.keywordAtt = attributes.getAttribute(KeywordAttribute.class);
+        }
+    }
+
+    /**
+     * One model of the chain: it buffers the tokens of the previous model, or of the input for the first one, one
+     * sentence at a time, tags them and merges the entities, exactly as {@link OpenNLPNERFilter} does.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    private final class Stage {
+
+        /**
+         * The index of the model
+         */
+        private final int model;
+
+        /**
+         * The tokens in the current sentence
+         */
+        private final Token[] sentence;
+
+        /**
+         * The terms of the tokens in the current sentence
+         */
+        private final String[] terms;
+
+        /**
+         * The tokens to hand to the next model for the current sentence
+         */
+        private final Token[] output;
+
+        /**
+         * The number of tokens to hand to the next model for the current sentence
+         */
+        private int outputSize = 0;
+
+        /**
+         * The next token to hand to the next model for the current sentence
+         */
+        private int outputIndex = 0;
+
+        /**
+         * The number of tokens after the cut of the previous sentence, at the beginning of {@link #sentence}
+         */
+        private int carried = 0;
+
+        /**
+         * Indicates whether there are more tokens coming from the previous model
+         */
+        private boolean moreTokensAvailable = true;
+
+        /**
+         * Creates a new stage.
+         *
+         * @param model the index of the model.
+         */
+        private Stage(final int model) {
+            this.model = model;
+            this.sentence = new Token[maxSentenceLength];
+            this.terms = new String[maxSentenceLength];
+            this.output = new Token[maxSentenceLength];
+        }
+
+        /**
+         * Returns the next token of this model, as the corresponding chained filter would.
+         *
+         * @return the next token, or {@code null} if there are no more tokens.
+         *
+         * @throws IOException if something goes wrong while processing the tokens.
+         */
+        private Token next() throws IOException {
+
+            if (outputIndex < outputSize || (moreTokensAvailable && nextSentence())) {
+                final Token token = output[outputIndex++];
+
+                // the chained filter would copy the token to the stream
+                currentSentenceIndex = token.sentenceAtt.getSentenceIndex();
+
+                return token;
+            }
+
+            return null;
+        }
+
+        /**
+         * Process the next sentence, or the next {@code maxSentenceLength} tokens if the sentence is longer.
+         *
+         * @return {@code true} if there is one more sentence; {@code false} otherwise.
+         *
+         * @throws IOException if something goes wrong while processing the tokens.
+         */
+        private boolean nextSentence() throws IOException {
+
+            outputSize = 0;
+            outputIndex = 0;
+
+            // the number of tokens in the current sentence, starting from the ones after the previous cut
+            int n = carried;
+            carried = 0;
+
+            boolean endOfSentence = false;
+
+            final int sentenceIndex = currentSentenceIndex;
+
+            // advance until we reach either the end of a sentence, the maximum sentence length or the end of the stream
+            Token token;
+            while (!endOfSentence && n < maxSentenceLength
+                    && (moreTokensAvailable = (token = model == 0 ? read() : stages[model - 1].next()) != null)) {
+
+                sentence[n] = token;
+                terms[n] = token.term;
+
+                // check whether the current token marks the end of the sentence
+                endOfSentence = sentenceIndex != token.sentenceAtt.getSentenceIndex();
+
+                n++;
+            }
+
+            // there was no next sentence
+            if (n == 0) {
+                return false;
+            }
+
+            // Apache OpenNLP NER Tagger is not thread-safe: take one from the pool and keep it until the end of the
+            // document, so that adaptive data is shared only by the sentences of the same document
+            if (nerTaggerOps[model] == null) {
+                nerTaggerOps[model] = nerTaggerPools[model].acquire();
+            }
+
+            // recognize entities; the tagger needs a new array with exactly one term per token, since its features are
+            // cached as long as it is given the same array
+            final Span[] spans = nerTaggerOps[model].getNames(Arrays.copyOf(terms, n));
+            int spanCount = 0;
+
+            // the sentence is too long and goes on: keep the tokens after the cut for the next one
+            final int cut = n == maxSentenceLength && !endOfSentence && moreTokensAvailable
+                    ? OpenNLPNERFilter.cut(spans, n) : n;
+
+            // go through each local token before the cut:
+            // 1) if it is (part of) an entity, merge it with the other tokens in the same entity and hand it over
+            // 2) if it is not (part of) an entity hand it over
+            for (int i = 0; i < cut; ) {
+
+                // the token is not (part of) an entity
+                if (spanCount >= spans.length || spans[spanCount].getStart() != i) {
+                    output[outputSize++] = sentence[i++];
+                    continue;
+                }
+
+                // get the first token in the entity
+                Token entity = sentence[i++];
+
+                final StringBuilder tmp = new StringBuilder(entity.termAtt);
+                int spannedPositions = entity.posIncrAtt.getPositionIncrement();
+                final int startOffset = entity.offsetAtt.startOffset();
+                final int entitySentenceIndex = entity.sentenceAtt.getSentenceIndex();
+
+                // the entity spans multiple tokens: only the last one is kept, the others can be reused
+                while (i < spans[spanCount].getEnd()) {
+
+                    spareTokens.add(entity);
+
+                    // get the next token in the entity
+                    entity = sentence[i++];
+
+                    // append the term of the token
+                    tmp.append(' ').append(entity.termAtt);
+
+                    // increase the count of the spanned tokens
+                    spannedPositions += entity.posIncrAtt.getPositionIncrement();
+                }
+
+                final int endOffset = entity.offsetAtt.endOffset();
+
+                // turn the last token of the entity into the entity itself and hand it over
+                entity.attributes.clearAttributes();
+                entity.termAtt.append(tmp);
+                entity.posIncrAtt.setPositionIncrement(1);
+                entity.posLenAtt.setPositionLength(spannedPositions);
+                entity.offsetAtt.setOffset(startOffset, endOffset);
+                entity.typeAtt.setType(spans[spanCount].getType());
+                entity.keywordAtt.setKeyword(true);
+                entity.sentenceAtt.setSentenceIndex(entitySentenceIndex);
+                entity.term = tmp.toString();
+
+                output[outputSize++] = entity;
+
+                // advance to the next span
+                spanCount++;
+            }
+
+            // move the tokens after the cut to the beginning of the next sentence
+            carried = n - cut;
+            System.arraycopy(sentence, cut, sentence, 0, carried);
+            System.arraycopy(terms, cut, terms, 0, carried);
+
+            return true;
+        }
+
+        /**
+         * Forgets the tokens of the previous document.
+         */
+        private void reset() {
+            moreTokensAvailable = true;
+            carried = 0;
+            outputSize = 0;
+            outputIndex = 0;
+            Arrays.fill(sentence, null);
+            Arrays.fill(output, null);
+        }
+    }
+}
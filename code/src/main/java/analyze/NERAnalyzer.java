@@ -22,11 +22,41 @@ import static analyze.AnalyzerUtil.*;
  */
 public class NERAnalyzer extends Analyzer
 {
+    /**
+     * The NER models, in the order they are applied.
+     */
+    private static final String[] MODELS = {"en-ner-location.bin", "en-ner-person.bin", "en-ner-organization.bin"};
+    // "en-ner-money.bin", "en-ner-date.bin", "en-ner-time.bin"
+
+    /**
+     * Describes the analysis in the keys of the cache: if the models, the tokenization or the cut of the sentences
+     * change, the cached tokens are not used anymore.
+     */
+    private static final String ANALYSIS = "StandardTokenizer|" + String.join(",", MODELS) + "|"
+            + OpenNLPNERFilter.DEFAULT_MAX_SENTENCE_LENGTH + "+"
+            + OpenNLPNERFilter.overlap(OpenNLPNERFilter.DEFAULT_MAX_SENTENCE_LENGTH);
+
+    /**
+     * The cache of the NER tokens, if any.
+     */
+    private final NERCache cache;
+
     /**
      * Creates a new instance of the analyzer.
      */
     public NERAnalyzer() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of the analyzer, taking the NER tokens from a cache when the same text has already been
+     * analyzed.
+     *
+     * @param cache the cache of the NER tokens, or {@code null} to always run the NER models.
+     */
+    public NERAnalyzer(final NERCache cache) {
         super();
+        this.cache = cache;
     }
 
     @Override
@@ -35,20 +65,23 @@ public class NERAnalyzer extends Analyzer
         // Apply a standard tokenizer
         final Tokenizer source = new StandardTokenizer();
 
-        // Apply NER (locations)
-        TokenStream tokens = new OpenNLPNERFilter(source, loadLNerTaggerModel("en-ner-location.bin"));
-
-        // Apply NER (persons)
-        tokens = new OpenNLPNERFilter(tokens, loadLNerTaggerModel("en-ner-person.bin"));
+        // The models are loaded only once per process and shared by all the threads, each thread taking its own
+        // tagger from the pools
+        final NERTaggerPool[] pools = new NERTaggerPool[MODELS.length];
+        for (int i = 0; i < MODELS.length; i++) {
+            pools[i] = NERTaggerPool.forModel(MODELS[i]);
+        }
 
-        // Apply NER (organizations)
-        tokens = new OpenNLPNERFilter(tokens, loadLNerTaggerModel("en-ner-organization.bin"));
+        // Apply NER (locations, persons and organizations) in a single pass over the tokens, with the same output as
+        // the chained filters
+        final TokenStream tokens = new MultiModelNERFilter(source, pools);
 
-        // tokens = new OpenNLPNERFilter(tokens, loadLNerTaggerModel("en-ner-money.bin"));
-        // tokens = new OpenNLPNERFilter(tokens, loadLNerTaggerModel("en-ner-date.bin"));
-        // tokens = new OpenNLPNERFilter(tokens, loadLNerTaggerModel("en-ner-time.bin"));
+        if (cache == null) {
+            return new TokenStreamComponents(source, tokens);
+        }
 
-        return new TokenStreamComponents(source, tokens);
+        // Run the NER analysis only for texts not found in the cache
+        return new TokenStreamComponents(new CachedNERTokenizer(cache, ANALYSIS, source, tokens));
     }
 
     @Override
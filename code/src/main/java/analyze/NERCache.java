@@ -0,0 +1,514 @@
+package analyze;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.*;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.IntroSorter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persistent cache of the tokens produced by the NER analysis, keyed by the MD5 hash of the analyzed text.
+ *
+ * Running the Apache OpenNLP models is by far the most expensive part of indexing, and it produces exactly the same
+ * tokens every time the same text is analyzed, e.g. when an index is rebuilt with a different N-Gram size or when a
+ * later LongEval collection contains the same documents. The cache is stored in a directory and is made of
+ * generations: every time it is opened, the entries added are appended to a new data file, {@code ner_<gen>.dat}, and
+ * when it is closed their keys are sorted and written to {@code ner_<gen>.idx}. The files of the previous generations
+ * are memory-mapped and looked up with a binary search, so the cache takes almost no heap whatever its size.
+ *
+ * The cache can be used by several threads at the same time, but only by one process: the directory is locked while
+ * the cache is open. A generation is visible only after the cache has been closed; the data of a generation without
+ * its key file (e.g. because the process crashed) is discarded.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class NERCache implements Closeable {
+
+    /**
+     * The size, in bytes, of a key.
+     */
+    public static final int KEY_LENGTH = 16;
+
+    private static final String DATA_CODEC = "NERCacheData";
+    private static final String INDEX_CODEC = "NERCacheIndex";
+    private static final int VERSION = 0;
+
+    private static final String PREFIX = "ner_";
+    private static final String DATA_EXTENSION = ".dat";
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final String LOCK_NAME = "write.lock";
+
+    /**
+     * The size, in bytes, of an entry of the key file: two longs for the key and one for the offset of the data.
+     */
+    private static final int ENTRY_LENGTH = 3 * Long.BYTES;
+
+    /**
+     * The directory containing the cache.
+     */
+    private final Directory directory;
+
+    /**
+     * The lock preventing other processes from using the cache.
+     */
+    private final Lock lock;
+
+    /**
+     * The generations written by the previous sessions, newest first.
+     */
+    private final List<Generation> generations;
+
+    /**
+     * The number of the generation written by this session.
+     */
+    private final long generation;
+
+    /**
+     * The data file of this session, created on the first new entry.
+     */
+    private IndexOutput data = null;
+
+    /**
+     * The keys and offsets of the entries added by this session.
+     */
+    private long[] pendingHigh = new long[0];
+    private long[] pendingLow = new long[0];
+    private long[] pendingOffset = new long[0];
+    private int pendingCount = 0;
+
+    /**
+     * The number of look-ups which found an entry.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of look-ups which did not find an entry.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Whether the cache has been closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Opens the cache stored in the given directory, creating it if needed.
+     *
+     * @param path the directory of the cache.
+     *
+     * @throws IOException if the cache cannot be opened, e.g. because it is being used by another process.
+     */
+    public NERCache(final Path path) throws IOException {
+
+        if (path == null) {
+            throw new NullPointerException("NER cache path cannot be null.");
+        }
+
+        directory = new MMapDirectory(path);
+
+        Lock lock = null;
+        final List<Generation> generations = new ArrayList<>();
+        boolean success = false;
+
+        try {
+            lock = directory.obtainLock(LOCK_NAME);
+
+            final Set<String> files = new HashSet<>(Arrays.asList(directory.listAll()));
+
+            long maxGeneration = -1;
+            for (String file : files) {
+                if (file.startsWith(PREFIX) && file.endsWith(DATA_EXTENSION)) {
+                    maxGeneration = Math.max(maxGeneration, Long.parseLong(
+                            file.substring(PREFIX.length(), file.length() - DATA_EXTENSION.length())));
+                }
+            }
+
+            for (long gen = maxGeneration; gen >= 0; gen--) {
+                final String dataName = PREFIX + gen + DATA_EXTENSION;
+                final String indexName = PREFIX + gen + INDEX_EXTENSION;
+
+                if (!files.contains(dataName)) {
+                    continue;
+                }
+
+                // an incomplete generation: drop it
+                if (!files.contains(indexName)) {
+                    directory.deleteFile(dataName);
+                    continue;
+                }
+
+                generations.add(new Generation(directory, dataName, indexName));
+            }
+
+            this.lock = lock;
+            this.generations = generations;
+            this.generation = maxGeneration + 1;
+
+            success = true;
+        } finally {
+            if (!success) {
+                IOUtils.closeWhileHandlingException(generations);
+                IOUtils.closeWhileHandlingException(lock, directory);
+            }
+        }
+    }
+
+    /**
+     * Returns the key of a piece of text, i.e. the MD5 hash of the given parts, UTF-8 encoded.
+     *
+     * @param parts the parts of the text, e.g. a description of the analysis followed by the text itself.
+     *
+     * @return the key of the text.
+     */
+    public static byte[] key(final String... parts) {
+        try {
+            final MessageDigest md5 = MessageDigest.getInstance("MD5");
+            for (String part : parts) {
+                md5.update(part.getBytes(StandardCharsets.UTF_8));
+                // separate the parts, so that ("ab", "c") and ("a", "bc") are different
+                md5.update((byte) 0);
+            }
+            return md5.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support MD5
+            throw new IllegalStateException("MD5 not available.", e);
+        }
+    }
+
+    /**
+     * Looks an entry up.
+     *
+     * @param key the key of the entry.
+     *
+     * @return the value of the entry, or {@code null} if it is not in the cache.
+     *
+     * @throws IOException if something goes wrong while reading the cache.
+     */
+    public byte[] get(final byte[] key) throws IOException {
+
+        final long high = high(key);
+        final long low = low(key);
+
+        for (Generation g : generations) {
+            final byte[] value = g.get(high, low);
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Adds an entry to the cache. It will be visible only when the cache is opened again.
+     *
+     * @param key   the key of the entry.
+     * @param value the value of the entry.
+     *
+     * @throws IOException if something goes wrong while writing the cache.
+     */
+    public synchronized void put(final byte[] key, final byte[] value) throws IOException {
+
+        if (closed) {
+            throw new IllegalStateException("NER cache already closed.");
+        }
+
+        if (data == null) {
+            data = directory.createOutput(PREFIX + generation + DATA_EXTENSION, IOContext.DEFAULT);
+            CodecUtil.writeHeader(data, DATA_CODEC, VERSION);
+        }
+
+        if (pendingCount == pendingOffset.length) {
+            final int size = ArrayUtil.oversize(pendingCount + 1, Long.BYTES);
+            pendingHigh = ArrayUtil.growExact(pendingHigh, size);
+            pendingLow = ArrayUtil.growExact(pendingLow, size);
+            pendingOffset = ArrayUtil.growExact(pendingOffset, size);
+        }
+
+        pendingHigh[pendingCount] = high(key);
+        pendingLow[pendingCount] = low(key);
+        pendingOffset[pendingCount] = data.getFilePointer();
+        pendingCount++;
+
+        data.writeVInt(value.length);
+        data.writeBytes(value, value.length);
+    }
+
+    /**
+     * Returns the number of look-ups which found an entry.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of look-ups which did not find an entry.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of look-ups which found an entry.
+     *
+     * @return the hit rate, between 0 and 1.
+     */
+    public double getHitRate() {
+        final long hits = getHits();
+        final long lookups = hits + getMisses();
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    /**
+     * Returns the number of entries in the cache, including those added by this session.
+     *
+     * @return the number of entries.
+     */
+    public synchronized long size() {
+        long size = pendingCount;
+        for (Generation g : generations) {
+            size += g.count;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the size of the cache on disk, including the data added by this session.
+     *
+     * @return the size in bytes.
+     *
+     * @throws IOException if the size of a file cannot be read.
+     */
+    public synchronized long sizeInBytes() throws IOException {
+        long bytes = data != null ? data.getFilePointer() : 0;
+        for (Generation g : generations) {
+            bytes += directory.fileLength(g.dataName) + directory.fileLength(g.indexName);
+        }
+        return bytes;
+    }
+
+    /**
+     * Prints the statistics of the cache.
+     *
+     * @throws IOException if the size of a file cannot be read.
+     */
+    public void printStatistics() throws IOException {
+        System.out.printf("%n------------- NER CACHE -------------%n");
+        System.out.printf("+ %d entries (%d Mbytes) in %d generation(s)%n", size(), sizeInBytes() / (1024 * 1024),
+                generations.size() + (pendingCount > 0 ? 1 : 0));
+        System.out.printf("+ %d hit(s), %d miss(es), hit rate %.2f%%%n", getHits(), getMisses(), getHitRate() * 100);
+        System.out.printf("-------------------------------------%n");
+    }
+
+    /**
+     * Writes the keys of the entries added by this session and closes the cache.
+     *
+     * @throws IOException if something goes wrong while writing the cache.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (data != null) {
+                CodecUtil.writeFooter(data);
+                data.close();
+                writeIndex();
+            }
+        } finally {
+            IOUtils.close(() -> IOUtils.close(generations), lock, directory);
+        }
+    }
+
+    /**
+     * Writes the sorted keys of the entries added by this session.
+     *
+     * @throws IOException if something goes wrong while writing the key file.
+     */
+    private void writeIndex() throws IOException {
+
+        new IntroSorter() {
+
+            private long pivotHigh;
+            private long pivotLow;
+
+            @Override
+            protected void setPivot(int i) {
+                pivotHigh = pendingHigh[i];
+                pivotLow = pendingLow[i];
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                return NERCache.compare(pivotHigh, pivotLow, pendingHigh[j], pendingLow[j]);
+            }
+
+            @Override
+            protected void swap(int i, int j) {
+                swapLongs(pendingHigh, i, j);
+                swapLongs(pendingLow, i, j);
+                swapLongs(pendingOffset, i, j);
+            }
+        }.sort(0, pendingCount);
+
+        try (IndexOutput index = directory.createOutput(PREFIX + generation + INDEX_EXTENSION, IOContext.DEFAULT)) {
+            CodecUtil.writeHeader(index, INDEX_CODEC, VERSION);
+            index.writeLong(pendingCount);
+            for (int i = 0; i < pendingCount; i++) {
+                index.writeLong(pendingHigh[i]);
+                index.writeLong(pendingLow[i]);
+                index.writeLong(pendingOffset[i]);
+            }
+            CodecUtil.writeFooter(index);
+        }
+
+        directory.sync(List.of(PREFIX + generation + DATA_EXTENSION, PREFIX + generation + INDEX_EXTENSION));
+    }
+
+    private static long high(final byte[] key) {
+        checkKey(key);
+        return toLong(key, 0);
+    }
+
+    private static long low(final byte[] key) {
+        return toLong(key, Long.BYTES);
+    }
+
+    private static void checkKey(final byte[] key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null.");
+        }
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException(String.format("Key must be %d bytes long.", KEY_LENGTH));
+        }
+    }
+
+    private static long toLong(final byte[] b, final int offset) {
+        long v = 0;
+        for (int i = offset; i < offset + Long.BYTES; i++) {
+            v = (v << 8) | (b[i] & 0xFF);
+        }
+        return v;
+    }
+
+    private static int compare(final long high1, final long low1, final long high2, final long low2) {
+        final int c = Long.compareUnsigned(high1, high2);
+        return c != 0 ? c : Long.compareUnsigned(low1, low2);
+    }
+
+    private static void swapLongs(final long[] a, final int i, final int j) {
+        final long tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
+    /**
+     * A generation of the cache written by a previous session.
+     */
+    private static final class Generation implements Closeable {
+
+        private final String dataName;
+        private final String indexName;
+
+        private final IndexInput data;
+        private final IndexInput index;
+
+        /**
+         * The sorted keys and the offsets of their data.
+         */
+        private final RandomAccessInput entries;
+
+        /**
+         * The number of entries.
+         */
+        private final long count;
+
+        private Generation(final Directory directory, final String dataName, final String indexName)
+                throws IOException {
+            this.dataName = dataName;
+            this.indexName = indexName;
+
+            IndexInput data = null;
+            IndexInput index = null;
+            boolean success = false;
+
+            try {
+                data = directory.openInput(dataName, IOContext.DEFAULT);
+                CodecUtil.checkHeader(data, DATA_CODEC, VERSION, VERSION);
+                CodecUtil.retrieveChecksum(data);
+
+                index = directory.openInput(indexName, IOContext.DEFAULT);
+                CodecUtil.checkHeader(index, INDEX_CODEC, VERSION, VERSION);
+                CodecUtil.retrieveChecksum(index);
+
+                index.seek(CodecUtil.headerLength(INDEX_CODEC));
+                count = index.readLong();
+                entries = index.randomAccessSlice(index.getFilePointer(), count * ENTRY_LENGTH);
+
+                this.data = data;
+                this.index = index;
+                success = true;
+            } finally {
+                if (!success) {
+                    IOUtils.closeWhileHandlingException(data, index);
+                }
+            }
+        }
+
+        /**
+         * Looks an entry up with a binary search over the sorted keys.
+         */
+        private byte[] get(final long high, final long low) throws IOException {
+
+            long lo = 0;
+            long hi = count - 1;
+
+            while (lo <= hi) {
+                final long mid = (lo + hi) >>> 1;
+                final long pos = mid * ENTRY_LENGTH;
+                final int c = compare(entries.readLong(pos), entries.readLong(pos + Long.BYTES), high, low);
+
+                if (c < 0) {
+                    lo = mid + 1;
+                } else if (c > 0) {
+                    hi = mid - 1;
+                } else {
+                    // every thread needs its own position in the data
+                    final IndexInput in = data.clone();
+                    in.seek(entries.readLong(pos + 2 * Long.BYTES));
+
+                    final byte[] value = new byte[in.readVInt()];
+                    in.readBytes(value, 0, value.length);
+                    return value;
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(data, index);
+        }
+    }
+}
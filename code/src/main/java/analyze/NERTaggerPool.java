@@ -0,0 +1,205 @@
+package analyze;
+
+import opennlp.tools.namefind.TokenNameFinderModel;
+import org.apache.lucene.analysis.opennlp.tools.NLPNERTaggerOp;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import static analyze.AnalyzerUtil.loadNerModel;
+
+/**
+ * A pool of <a href="http://opennlp.apache.org/" target="_blank">Apache OpenNLP</a> NER taggers sharing the same
+ * model.
+ *
+ * A {@link TokenNameFinderModel} is immutable and expensive to load, so it is loaded only once per process and shared
+ * by all the pools asking for the same model file. A tagger, on the other hand, is cheap to create but it is not
+ * thread-safe: the pool hands out each tagger to one thread at a time and creates new taggers on demand, up to
+ * {@link #MAX_TAGGERS}. Threads only wait when all the taggers are in use.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class NERTaggerPool {
+
+    /**
+     * The maximum number of taggers of a pool, one per core by default. It can be changed with the
+     * {@code ner.pool.size} system property.
+     */
+    public static final int MAX_TAGGERS = Integer.getInteger("ner.pool.size",
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The pools created so far, by model file.
+     */
+    private static final ConcurrentMap<String, NERTaggerPool> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * The name of the file containing the model.
+     */
+    private final String modelFile;
+
+    /**
+     * The model shared by all the taggers of the pool.
+     */
+    private final TokenNameFinderModel model;
+
+    /**
+     * The taggers not in use.
+     */
+    private final Queue<NLPNERTaggerOp> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Limits the number of taggers in use at the same time.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The number of times a tagger has been requested.
+     */
+    private final LongAdder acquisitions = new LongAdder();
+
+    /**
+     * The number of taggers created.
+     */
+    private final LongAdder created = new LongAdder();
+
+    /**
+     * The total time, in nanoseconds, threads have waited for a tagger.
+     */
+    private final LongAdder waitTime = new LongAdder();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param modelFile  the name of the file containing the model.
+     * @param maxTaggers the maximum number of taggers in use at the same time.
+     */
+    private NERTaggerPool(final String modelFile, final int maxTaggers) {
+        this.modelFile = modelFile;
+        this.model = loadNerModel(modelFile);
+        this.permits = new Semaphore(maxTaggers, true);
+    }
+
+    /**
+     * Returns the pool for the given model, among those available in the {@code resources} folder. The model is loaded
+     * the first time it is requested.
+     *
+     * @param modelFile the name of the file containing the model.
+     *
+     * @return the pool of taggers for the model.
+     *
+     * @throws IllegalStateException if there is any issue while loading the model.
+     */
+    public static NERTaggerPool forModel(final String modelFile) {
+
+        if (modelFile == null) {
+            throw new NullPointerException("Model file name cannot be null.");
+        }
+
+        return POOLS.computeIfAbsent(modelFile, f -> new NERTaggerPool(f, MAX_TAGGERS));
+    }
+
+    /**
+     * Takes a tagger from the pool, waiting if all of them are in use. The tagger has forgotten all the adaptive data
+     * collected during previous calls and must be given back with {@link #release(NLPNERTaggerOp)}.
+     *
+     * @return a tagger for the exclusive use of the caller.
+     */
+    public NLPNERTaggerOp acquire() {
+
+        final long start = System.nanoTime();
+        permits.acquireUninterruptibly();
+        waitTime.add(System.nanoTime() - start);
+
+        acquisitions.increment();
+
+        NLPNERTaggerOp tagger = idle.poll();
+        if (tagger == null) {
+            tagger = new NLPNERTaggerOp(model);
+            created.increment();
+        }
+
+        // Forget all adaptive data collected during previous calls
+        tagger.reset();
+
+        return tagger;
+    }
+
+    /**
+     * Gives a tagger back to the pool.
+     *
+     * @param tagger the tagger taken with {@link #acquire()}.
+     */
+    public void release(final NLPNERTaggerOp tagger) {
+
+        if (tagger == null) {
+            throw new NullPointerException("Tagger cannot be null.");
+        }
+
+        idle.offer(tagger);
+        permits.release();
+    }
+
+    /**
+     * Returns the name of the file containing the model.
+     *
+     * @return the name of the file containing the model.
+     */
+    public String getModelFile() {
+        return modelFile;
+    }
+
+    /**
+     * Returns the number of times a tagger has been requested.
+     *
+     * @return the number of times a tagger has been requested.
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Returns the number of taggers created by the pool.
+     *
+     * @return the number of taggers created by the pool.
+     */
+    public long getCreatedTaggers() {
+        return created.sum();
+    }
+
+    /**
+     * Returns the total time threads have waited for a tagger.
+     *
+     * @return the total waiting time, in milliseconds.
+     */
+    public long getWaitTime() {
+        return waitTime.sum() / 1_000_000;
+    }
+
+    /**
+     * Prints the statistics of all the pools created so far.
+     */
+    public static void printStatistics() {
+
+        System.out.printf("%n------------- NER TAGGER POOLS -------------%n");
+
+        // in alphabetical order of model
+        for (Map.Entry<String, NERTaggerPool> e : new TreeMap<>(POOLS).entrySet()) {
+            final NERTaggerPool pool = e.getValue();
+            final long acquisitions = pool.getAcquisitions();
+
+            System.out.printf("+ %s: %d tagger(s) created, %d acquisition(s), %d ms waited (%.3f ms per acquisition)%n",
+                    e.getKey(), pool.getCreatedTaggers(), acquisitions, pool.getWaitTime(),
+                    acquisitions > 0 ? (double) pool.waitTime.sum() / 1_000_000 / acquisitions : 0.0);
+        }
+
+        System.out.printf("--------------------------------------------%n");
+    }
+}
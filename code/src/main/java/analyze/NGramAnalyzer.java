@@ -1,16 +1,12 @@
 package analyze;
 
 import org.apache.lucene.analysis.*;
-import org.apache.lucene.analysis.core.WhitespaceTokenizer;
-import org.apache.lucene.analysis.ngram.NGramTokenFilter;
-import org.apache.lucene.analysis.pattern.PatternReplaceFilter;
 import parse.LongEvalParser;
 import parse.ParsedDocument;
 
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.regex.Pattern;
 
 import static analyze.AnalyzerUtil.consumeTokenStream;
 
@@ -40,22 +36,11 @@ public class NGramAnalyzer extends Analyzer
     @Override
     protected TokenStreamComponents createComponents(String s) {
 
-        // Whitespace tokenizer
-        final Tokenizer source = new WhitespaceTokenizer();
+        // Split on whitespace, lowercase, delete everything but letters (also maintain French accent characters) and
+        // create the N-Grams, all in a single pass
+        final Tokenizer source = new LetterNGramTokenizer(N);
 
-        // Lowercase
-        TokenStream tokens = new LowerCaseFilter(source);
-
-        // Delete everything but letters (also maintain French accent characters)
-        tokens = new PatternReplaceFilter(tokens, Pattern.compile("[^a-zéàèùçâêîôûëïü]+"), "", true);
-
-        // Delete empty tokens
-        tokens = new EmptyTokenFilter(tokens);
-
-        // Create N-Gram
-        tokens = new NGramTokenFilter(tokens, N);
-
-        return new TokenStreamComponents(source, tokens);
+        return new TokenStreamComponents(source);
     }
 
     @Override
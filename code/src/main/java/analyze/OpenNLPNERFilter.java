@@ -31,6 +31,18 @@ import java.util.List;
  * A filter that relies on the <a href="http://opennlp.apache.org/" target="_blank">Apache OpenNLP</a>
  * Named Entity Recognizer (NER) to detect different types of entities.
  *
+ * Tokens are tagged one sentence at a time, as marked by the {@link SentenceAttribute} of the input. Tokenizers that do
+ * not set it, like {@link org.apache.lucene.analysis.standard.StandardTokenizer}, would turn the whole document into a
+ * single sentence; to keep memory bounded and tagging time linear in the document length, a sentence is also cut
+ * after a maximum number of tokens.
+ *
+ * Such a cut must not split an entity in two. The tokens of the last quarter of a cut sentence are not returned yet:
+ * they are tagged again together with the following tokens, which gives them the context on both sides. The cut is
+ * then moved back to the beginning of any entity crossing it, or after the entity if it starts the sentence. The
+ * entities may still differ from the ones found when tagging a whole long sentence at once, since each token is tagged
+ * with at most a maximum number of tokens around it, and the tokens tagged twice also count twice in the adaptive
+ * data of the tagger.
+ *
  * @author Nicola Ferro (ferro@dei.unipd.it)
  * @version 1.0
  * @since 1.0
@@ -38,9 +50,24 @@ import java.util.List;
 public final class OpenNLPNERFilter extends TokenFilter {
 
     /**
-     * The wrapper around the Apache OpenNLP NER tagger
+     * The default maximum number of tokens of a sentence
+     */
+    public static final int DEFAULT_MAX_SENTENCE_LENGTH = 128;
+
+    /**
+     * The pool providing the Apache OpenNLP NER taggers
+     */
+    private final NERTaggerPool nerTaggerPool;
+
+    /**
+     * The wrapper around the Apache OpenNLP NER tagger, taken from the pool for the current document only
      */
-    private final NLPNERTaggerOp nerTaggerOp;
+    private NLPNERTaggerOp nerTaggerOp = null;
+
+    /**
+     * The maximum number of tokens buffered and tagged together
+     */
+    private final int maxSentenceLength;
 
     /**
      * The classes of relevant {@code Attribute}s of a token
@@ -62,24 +89,52 @@ public final class OpenNLPNERFilter extends TokenFilter {
     private final List<AttributeSource> sentenceTokens = new ArrayList<>();
     private Iterator<AttributeSource> iterator = sentenceTokens.iterator();
 
+    /**
+     * The tokens after the cut of the previous sentence, to be tagged again with the next ones
+     */
+    private final List<AttributeSource> carriedTokens = new ArrayList<>();
+
+    /**
+     * The terms of the tokens after the cut of the previous sentence
+     */
+    private final List<String> carriedTerms = new ArrayList<>();
+
     /**
      * Indicates whether there are more tokens in the stream
      */
     private boolean moreTokensAvailable = true;
 
+    /**
+     * Creates a new Named Entity Recognizer (NER) filter, cutting sentences after
+     * {@link #DEFAULT_MAX_SENTENCE_LENGTH} tokens.
+     *
+     * @param input         the source of tokens for this filter.
+     * @param nerTaggerPool the pool of the NER taggers to use.
+     */
+    public OpenNLPNERFilter(TokenStream input, NERTaggerPool nerTaggerPool) {
+        this(input, nerTaggerPool, DEFAULT_MAX_SENTENCE_LENGTH);
+    }
+
     /**
      * Creates a new Named Entity Recognizer (NER) filter.
      *
-     * @param input       the source of tokens for this filter.
-     * @param nerTaggerOp the NER tagger to use.
+     * @param input             the source of tokens for this filter.
+     * @param nerTaggerPool     the pool of the NER taggers to use.
+     * @param maxSentenceLength the maximum number of tokens of a sentence.
      */
-    public OpenNLPNERFilter(TokenStream input, NLPNERTaggerOp nerTaggerOp) {
+    public OpenNLPNERFilter(TokenStream input, NERTaggerPool nerTaggerPool, int maxSentenceLength) {
         super(input);
 
-        this.nerTaggerOp = nerTaggerOp;
+        if (nerTaggerPool == null) {
+            throw new NullPointerException("NER tagger pool cannot be null.");
+        }
 
-        // Forget all adaptive data collected during previous calls
-        this.nerTaggerOp.reset();
+        if (maxSentenceLength <= 0) {
+            throw new IllegalArgumentException("The maximum sentence length cannot be less than or equal to zero.");
+        }
+
+        this.nerTaggerPool = nerTaggerPool;
+        this.maxSentenceLength = maxSentenceLength;
     }
 
     @Override
@@ -112,7 +167,8 @@ public final class OpenNLPNERFilter extends TokenFilter {
     }
 
     /**
-     * Process the next sentence as identified by the Apache OpenNLP sentence detector.
+     * Process the next sentence as identified by the Apache OpenNLP sentence detector, or the next
+     * {@code maxSentenceLength} tokens if the sentence is longer.
      *
      * @return {@code true} if there is one more sentence; {@code false} otherwise.
      *
@@ -124,18 +180,22 @@ public final class OpenNLPNERFilter extends TokenFilter {
         sentenceTokens.clear();
         iterator = sentenceTokens.iterator();
 
-        // the attributes for the tokens in the current sentence
-        final List<AttributeSource> localAttrs = new ArrayList<>();
+        // the attributes for the tokens in the current sentence, starting from the ones after the previous cut
+        final List<AttributeSource> localAttrs = new ArrayList<>(carriedTokens);
 
         // the list of terms in the sentence
-        final List<String> termList = new ArrayList<>();
+        final List<String> termList = new ArrayList<>(carriedTerms);
+
+        carriedTokens.clear();
+        carriedTerms.clear();
 
         boolean endOfSentence = false;
 
         int sentenceIndex = sentenceAtt.getSentenceIndex();
 
-        // advance until  we reach either the end of a sentence or the end of the stream
-        while (!endOfSentence && (moreTokensAvailable = input.incrementToken())) {
+        // advance until  we reach either the end of a sentence, the maximum sentence length or the end of the stream
+        while (!endOfSentence && localAttrs.size() < maxSentenceLength
+                && (moreTokensAvailable = input.incrementToken())) {
 
             // get the term from the current token
             termList.add(termAtt.toString());
@@ -156,16 +216,28 @@ public final class OpenNLPNERFilter extends TokenFilter {
         Span[] spans = null;
         int spanCount = 0;
 
-        // Apache OpenNLP NER Tagger is not thread-safe
-        synchronized (nerTaggerOp) {
-            // recognize entities
-            spans = nerTaggerOp.getNames(termList.toArray(new String[termList.size()]));
+        // Apache OpenNLP NER Tagger is not thread-safe: take one from the pool and keep it until the end of the
+        // document, so that adaptive data is shared only by the sentences of the same document
+        if (nerTaggerOp == null) {
+            nerTaggerOp = nerTaggerPool.acquire();
         }
 
-        // go through each local token:
+        // recognize entities
+        spans = nerTaggerOp.getNames(termList.toArray(new String[termList.size()]));
+
+        // the sentence is too long and goes on: keep the tokens after the cut for the next one
+        int n = localAttrs.size();
+        if (n == maxSentenceLength && !endOfSentence && moreTokensAvailable) {
+            n = cut(spans, n);
+
+            carriedTokens.addAll(localAttrs.subList(n, localAttrs.size()));
+            carriedTerms.addAll(termList.subList(n, termList.size()));
+        }
+
+        // go through each local token before the cut:
         // 1) if it is (part of) an entity, merge it with the other tokens in the same entity and add it back to the stream
         // 2) if it is not (part of) an entity add it back to the stream
-        for (int i = 0, n = localAttrs.size(); i < n; ) {
+        for (int i = 0; i < n; ) {
 
             // the token is (part of) an entity
             if (spanCount < spans.length && spans[spanCount].getStart() == i) {
@@ -222,18 +294,79 @@ public final class OpenNLPNERFilter extends TokenFilter {
         return true;
     }
 
+    /**
+     * Returns the number of tokens, out of the given ones, after which a too long sentence is cut.
+     *
+     * The cut leaves the last quarter of the tokens to the next sentence, and it is moved before any entity crossing
+     * it, or after the entity if the entity starts the sentence.
+     *
+     * @param spans the entities found in the sentence.
+     * @param n     the number of tokens of the sentence.
+     *
+     * @return the number of tokens before the cut, at least one.
+     */
+    static int cut(final Span[] spans, final int n) {
+
+        final int cut = n - overlap(n);
+
+        for (Span span : spans) {
+            if (span.getStart() < cut && cut < span.getEnd()) {
+                return span.getStart() > 0 ? span.getStart() : span.getEnd();
+            }
+        }
+
+        return cut;
+    }
+
+    /**
+     * Returns the number of tokens of a too long sentence which are tagged again with the next sentence.
+     *
+     * @param maxSentenceLength the maximum number of tokens of a sentence.
+     *
+     * @return the number of tokens tagged again.
+     */
+    static int overlap(final int maxSentenceLength) {
+        return maxSentenceLength / 4;
+    }
+
     @Override
     public void reset() throws IOException {
+        super.reset();
+        moreTokensAvailable = true;
+        sentenceTokens.clear();
+        iterator = sentenceTokens.iterator();
+        carriedTokens.clear();
+        carriedTerms.clear();
 
-        // Apache OpenNLP NER Tagger is not thread-safe
-        synchronized (nerTaggerOp) {
-            super.reset();
-            moreTokensAvailable = true;
-            sentenceTokens.clear();
-            iterator = sentenceTokens.iterator();
+        // Give back the tagger of the previous document, if still held
+        releaseTagger();
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
 
-            // Forget all adaptive data collected during previous calls
-            nerTaggerOp.reset();
+        // The document is over, other threads can use the tagger
+        releaseTagger();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // In case the stream has not been consumed until its end
+            releaseTagger();
+        }
+    }
+
+    /**
+     * Gives the NER tagger back to the pool, if this filter is holding one.
+     */
+    private void releaseTagger() {
+        if (nerTaggerOp != null) {
+            nerTaggerPool.release(nerTaggerOp);
+            nerTaggerOp = null;
         }
     }
 
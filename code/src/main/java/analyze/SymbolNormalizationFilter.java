@@ -0,0 +1,105 @@
+package analyze;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+import java.io.IOException;
+
+/**
+ * Lucene custom {@link TokenFilter} deleting the {@link AnalyzerUtil#STRANGE_SYMBOLS} from every token, and then the
+ * punctuation marks at its beginning and at its end.
+ *
+ * It produces the same tokens as three {@link org.apache.lucene.analysis.pattern.PatternReplaceFilter}s replacing
+ * {@link AnalyzerUtil#STRANGE_SYMBOLS_REGEX}, {@code ^[\p{Punct}]+} and {@code [\p{Punct}]+$} with nothing, one after
+ * the other, but it works in place on the term buffer, without any matcher or string. Like the filters it replaces,
+ * it keeps the tokens which become empty.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class SymbolNormalizationFilter extends TokenFilter {
+
+    /**
+     * The punctuation marks, i.e. {@code \p{Punct}}: the ASCII ones, indexed by character.
+     */
+    private static final boolean[] PUNCT = new boolean[128];
+
+    /**
+     * The only line terminator which is not whitespace, so it can end a token, and before which {@code $} matches.
+     */
+    private static final char NEXT_LINE = '\u0085';
+
+    static {
+        for (char c : "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".toCharArray()) {
+            PUNCT[c] = true;
+        }
+    }
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+
+    /**
+     * Creates a new filter.
+     *
+     * @param input the input token stream.
+     */
+    public SymbolNormalizationFilter(final TokenStream input) {
+        super(input);
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+
+        if (!input.incrementToken()) {
+            return false;
+        }
+
+        final char[] buffer = termAtt.buffer();
+
+        // delete the strange symbols
+        int length = 0;
+        for (int i = 0, n = termAtt.length(); i < n; i++) {
+            final char c = buffer[i];
+            if (AnalyzerUtil.STRANGE_SYMBOLS.indexOf(c) < 0) {
+                buffer[length++] = c;
+            }
+        }
+
+        // the leading punctuation marks
+        int start = 0;
+        while (start < length && isPunct(buffer[start])) {
+            start++;
+        }
+
+        // the trailing punctuation marks, also before a final line terminator
+        final boolean nextLine = length > start && buffer[length - 1] == NEXT_LINE;
+        final int last = nextLine ? length - 1 : length;
+
+        int end = last;
+        while (end > start && isPunct(buffer[end - 1])) {
+            end--;
+        }
+
+        if (nextLine) {
+            buffer[end] = NEXT_LINE;
+            end++;
+        }
+
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+        }
+        termAtt.setLength(end - start);
+
+        return true;
+    }
+
+    /**
+     * Tells whether a character is a punctuation mark.
+     *
+     * @param c the character.
+     * @return {@code true} if {@code c} is in {@code \p{Punct}}.
+     */
+    private static boolean isPunct(final char c) {
+        return c < PUNCT.length && PUNCT[c];
+    }
+}
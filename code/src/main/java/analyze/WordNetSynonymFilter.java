@@ -0,0 +1,146 @@
+package analyze;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.AttributeSource;
+
+import java.io.IOException;
+
+/**
+ * Lucene custom {@link TokenFilter} injecting WordNet synonyms for every token, looked up in the shared
+ * {@link WordNetSynonyms} table.
+ *
+ * It produces the same tokens as the lucene-wordnet {@link org.apache.lucene.wordnet.SynonymTokenFilter}: the original
+ * token followed by at most {@code maxSynonyms} synonyms at the same position, with type {@link #SYNONYM_TOKEN_TYPE}.
+ * When a word has more synonyms than that, they are shuffled with the same fixed seed before picking the first ones.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class WordNetSynonymFilter extends TokenFilter {
+
+    /**
+     * The type of the injected synonym tokens.
+     */
+    public static final String SYNONYM_TOKEN_TYPE = "SYNONYM";
+
+    /**
+     * The table to look synonyms up.
+     */
+    private final WordNetSynonyms synonyms;
+
+    /**
+     * The maximum number of synonyms to inject for each token.
+     */
+    private final int maxSynonyms;
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+
+    /**
+     * The synonyms of the current token.
+     */
+    private String[] stack = null;
+
+    /**
+     * The next synonym to be returned.
+     */
+    private int index = 0;
+
+    /**
+     * The attributes of the current token.
+     */
+    private AttributeSource.State current = null;
+
+    /**
+     * How many synonyms can still be returned for the current token.
+     */
+    private int todo = 0;
+
+    /**
+     * Creates a new synonym filter.
+     *
+     * @param input       the source of tokens for this filter.
+     * @param synonyms    the table to look synonyms up.
+     * @param maxSynonyms the maximum number of synonyms to inject for each token.
+     */
+    public WordNetSynonymFilter(final TokenStream input, final WordNetSynonyms synonyms, final int maxSynonyms) {
+        super(input);
+
+        if (synonyms == null) {
+            throw new NullPointerException("Synonyms cannot be null.");
+        }
+
+        if (maxSynonyms < 0) {
+            throw new IllegalArgumentException("The maximum number of synonyms cannot be less than zero.");
+        }
+
+        this.synonyms = synonyms;
+        this.maxSynonyms = maxSynonyms;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+
+        // return the pending synonyms of the current token, if any
+        if (todo > 0 && index < stack.length) {
+            restoreState(current);
+            termAtt.setEmpty().append(stack[index++]);
+            typeAtt.setType(SYNONYM_TOKEN_TYPE);
+            posIncrAtt.setPositionIncrement(0);
+            todo--;
+            return true;
+        }
+
+        if (!input.incrementToken()) {
+            return false;
+        }
+
+        stack = synonyms.getSynonyms(termAtt.toString());
+        if (stack.length > maxSynonyms) {
+            randomize(stack);
+        }
+
+        index = 0;
+        current = captureState();
+        todo = maxSynonyms;
+
+        return true;
+    }
+
+    /**
+     * Shuffles the synonyms with a fixed seed, exactly as {@link org.apache.lucene.wordnet.SynonymTokenFilter} does.
+     *
+     * @param arr the synonyms to shuffle.
+     */
+    private static void randomize(final Object[] arr) {
+        int seed = 1234567;
+        int randomState = 4 * seed + 1;
+        final int len = arr.length;
+
+        for (int i = 0; i < len - 1; i++) {
+            randomState *= 663608941;
+            int r = randomState % (len - i);
+            if (r < 0) {
+                r = -r;
+            }
+
+            final Object tmp = arr[i];
+            arr[i] = arr[i + r];
+            arr[i + r] = tmp;
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        stack = null;
+        index = 0;
+        current = null;
+        todo = 0;
+    }
+}
@@ -0,0 +1,266 @@
+package analyze;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.store.InputStreamDataInput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.ByteSequenceOutputs;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.Util;
+import org.apache.lucene.wordnet.SynonymMap;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Process-wide, immutable WordNet synonym table, stored as a Lucene {@link FST} mapping every word to its list of
+ * synonyms.
+ *
+ * The table contains exactly the same entries as the lucene-wordnet {@link SynonymMap} built from {@code wn_s.pl}, but
+ * parsing the Prolog file takes seconds and tens of megabytes of heap. For this reason the table can be compiled once
+ * into {@code prolog/wn_s.fst} (see {@link #main(String[])}) and it is loaded lazily, only once, the first time
+ * {@link #getInstance()} is called. If the compiled file is not found among the resources, the table is built from
+ * {@code prolog/wn_s.pl} instead, again only once per process.
+ *
+ * The FST is read-only, so the same instance can be shared by every {@link EnglishAnalyzer} and every thread.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class WordNetSynonyms {
+
+    /**
+     * The WordNet Prolog file with the synsets (Prolog version from: https://wordnet.princeton.edu/download/current-version).
+     */
+    public static final String PROLOG_FILE = "prolog/wn_s.pl";
+
+    /**
+     * The compiled synonym FST.
+     */
+    public static final String FST_FILE = "prolog/wn_s.fst";
+
+    /**
+     * The class loader of this class. Needed for reading files from the {@code resource} directory.
+     */
+    private static final ClassLoader CL = WordNetSynonyms.class.getClassLoader();
+
+    /**
+     * Returned when a word has no synonyms.
+     */
+    private static final String[] EMPTY = new String[0];
+
+    /**
+     * Lazily loads the synonyms the first time they are needed (initialization-on-demand holder).
+     */
+    private static final class Holder {
+        private static final WordNetSynonyms INSTANCE = load();
+    }
+
+    /**
+     * The word to synonyms map. Every output is the number of synonyms followed by the synonyms themselves.
+     */
+    private final FST<BytesRef> fst;
+
+    /**
+     * Creates a new synonym table.
+     *
+     * @param fst the word to synonyms map.
+     */
+    private WordNetSynonyms(final FST<BytesRef> fst) {
+        this.fst = fst;
+    }
+
+    /**
+     * Returns the synonym table shared by the whole process, loading it if needed.
+     *
+     * @return the synonym table.
+     *
+     * @throws IllegalStateException if neither the compiled FST nor the Prolog file can be loaded.
+     */
+    public static WordNetSynonyms getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the synonyms of a word, as {@link SynonymMap#getSynonyms(String)} does. The returned array is a fresh
+     * copy and can be modified by the caller.
+     *
+     * @param word the word to look up.
+     *
+     * @return the synonyms of the word, in alphabetical order, or an empty array if it has none.
+     */
+    public String[] getSynonyms(final String word) {
+        try {
+            final BytesRef output = Util.get(fst, new BytesRef(word));
+
+            if (output == null) {
+                return EMPTY;
+            }
+
+            final ByteArrayDataInput in = new ByteArrayDataInput(output.bytes, output.offset, output.length);
+            final String[] synonyms = new String[in.readVInt()];
+            for (int i = 0; i < synonyms.length; i++) {
+                synonyms[i] = in.readString();
+            }
+
+            return synonyms;
+        } catch (IOException e) {
+            // the FST is in memory, it cannot fail
+            throw new IllegalStateException(String.format("Unable to look up the synonyms of %s.", word), e);
+        }
+    }
+
+    /**
+     * Returns the amount of heap used by the synonym table.
+     *
+     * @return the number of bytes used by the FST.
+     */
+    public long ramBytesUsed() {
+        return fst.ramBytesUsed();
+    }
+
+    /**
+     * Loads the compiled FST, or builds it from the Prolog file if the compiled version is missing.
+     *
+     * @return the synonym table.
+     */
+    private static WordNetSynonyms load() {
+
+        final long start = System.currentTimeMillis();
+
+        try (InputStream fstIn = CL.getResourceAsStream(FST_FILE)) {
+
+            final FST<BytesRef> fst;
+
+            if (fstIn != null) {
+                final InputStreamDataInput in = new InputStreamDataInput(new BufferedInputStream(fstIn));
+                fst = new FST<>(in, in, ByteSequenceOutputs.getSingleton());
+            } else {
+                try (InputStream prologIn = CL.getResourceAsStream(PROLOG_FILE)) {
+                    if (prologIn == null) {
+                        throw new IOException(String.format("Neither %s nor %s found.", FST_FILE, PROLOG_FILE));
+                    }
+                    fst = compile(prologIn);
+                }
+            }
+
+            System.out.printf("WordNet synonyms loaded in %d milliseconds (%d Kbytes).%n",
+                    System.currentTimeMillis() - start, fst.ramBytesUsed() / 1024);
+
+            return new WordNetSynonyms(fst);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    String.format("Unable to load the WordNet synonyms: %s.", e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Builds the synonym FST from the WordNet Prolog file.
+     *
+     * The file is parsed by the lucene-wordnet {@link SynonymMap}, so that the synonyms are exactly the ones it would
+     * return; then every word of the file is looked up and the non-empty entries are added to the FST.
+     *
+     * @param prolog the content of {@code wn_s.pl}.
+     *
+     * @return the synonym FST.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    static FST<BytesRef> compile(final InputStream prolog) throws IOException {
+
+        final byte[] content = prolog.readAllBytes();
+
+        final SynonymMap synMap = new SynonymMap(new ByteArrayInputStream(content));
+
+        // The FST must be built with the words in (unsigned) byte order, as BytesRef sorts them
+        final Map<BytesRef, BytesRef> entries = new TreeMap<>();
+
+        final BufferedReader lines = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+
+        byte[] buffer = new byte[256];
+
+        // Every line looks like s(100001740,1,'entity',n,1,11).
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+
+            final int begin = line.indexOf('\'');
+            final int end = line.lastIndexOf("',");
+
+            if (!line.startsWith("s(") || begin < 0 || end <= begin) {
+                continue;
+            }
+
+            // SynonymMap stores the words lower cased
+            final BytesRef word = new BytesRef(line.substring(begin + 1, end).toLowerCase());
+
+            if (entries.containsKey(word)) {
+                continue;
+            }
+
+            final String[] synonyms = synMap.getSynonyms(word.utf8ToString());
+
+            if (synonyms.length == 0) {
+                continue;
+            }
+
+            // number of synonyms followed by the synonyms
+            int size = 5;
+            for (String s : synonyms) {
+                size += 5 + 3 * s.length();
+            }
+            buffer = ArrayUtil.grow(buffer, size);
+
+            final ByteArrayDataOutput out = new ByteArrayDataOutput(buffer);
+            out.writeVInt(synonyms.length);
+            for (String s : synonyms) {
+                out.writeString(s);
+            }
+
+            entries.put(word, new BytesRef(ArrayUtil.copyOfSubArray(buffer, 0, out.getPosition())));
+        }
+
+        final FSTCompiler<BytesRef> compiler = new FSTCompiler<>(FST.INPUT_TYPE.BYTE1,
+                ByteSequenceOutputs.getSingleton());
+        final IntsRefBuilder scratch = new IntsRefBuilder();
+
+        for (Map.Entry<BytesRef, BytesRef> e : entries.entrySet()) {
+            compiler.add(Util.toIntsRef(e.getKey(), scratch), e.getValue());
+        }
+
+        return compiler.compile();
+    }
+
+    /**
+     * Compiles {@code wn_s.pl} into the binary synonym FST. To be run once, every time the WordNet file changes.
+     *
+     * @param args the path of {@code wn_s.pl} and the path of the FST to write; by default the ones in the
+     *             {@code resources} directory.
+     *
+     * @throws IOException if something goes wrong while reading or writing the files.
+     */
+    public static void main(String[] args) throws IOException {
+
+        final Path prolog = Paths.get(args.length > 0 ? args[0] : "src/main/resources/" + PROLOG_FILE);
+        final Path output = Paths.get(args.length > 1 ? args[1] : "src/main/resources/" + FST_FILE);
+
+        final long start = System.currentTimeMillis();
+
+        final FST<BytesRef> fst;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(prolog))) {
+            fst = compile(in);
+        }
+
+        fst.save(output);
+
+        System.out.printf("Compiled %s into %s (%d Kbytes) in %d milliseconds.%n", prolog.toAbsolutePath(),
+                output.toAbsolutePath(), Files.size(output) / 1024, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,268 @@
+package benchmark;
+
+import org.apache.lucene.benchmark.byTask.feeds.ContentSource;
+import org.apache.lucene.benchmark.byTask.feeds.DocData;
+import org.apache.lucene.benchmark.byTask.feeds.NoMoreDataException;
+import org.apache.lucene.benchmark.byTask.utils.Config;
+import parse.DocumentParser;
+import parse.MappedLongEvalParser;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * A {@link ContentSource} for the lucene-benchmark framework which reads the LongEval collection, pairing every
+ * English document with its French version as {@link index.MultilingualDirectoryIndexer} does.
+ *
+ * The English body of a document is its body, while the French body is the {@link #FRENCH_BODY} property; use it
+ * with {@link LongEvalDocMaker} to get the same documents as the indexer. It is configured by the following
+ * properties of the algorithm:
+ * <ul>
+ *     <li>{@code longeval.en.dir}: the directory of the English documents;</li>
+ *     <li>{@code longeval.fr.dir}: the directory of the French documents, with the same files;</li>
+ *     <li>{@code longeval.extension}: the extension of the files to read, {@code .json} by default;</li>
+ *     <li>{@code longeval.parser}: the class of the {@link DocumentParser}, {@link MappedLongEvalParser} by
+ *     default;</li>
+ *     <li>{@code content.source.encoding}: the charset of the files, UTF-8 by default;</li>
+ *     <li>{@code content.source.forever}: whether to start again from the first file once the last one is over, as
+ *     for any other content source.</li>
+ * </ul>
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class LongEvalContentSource extends ContentSource {
+
+    /**
+     * The property of a {@link DocData} with the French body of the document.
+     */
+    public static final String FRENCH_BODY = ParsedDocument.FIELDS.FRENCH_BODY;
+
+    /**
+     * The English files, sorted by name.
+     */
+    private final List<Path> enFiles = new ArrayList<>();
+
+    /**
+     * The French files, sorted by name.
+     */
+    private final List<Path> frFiles = new ArrayList<>();
+
+    /**
+     * The class of the document parser.
+     */
+    private Class<? extends DocumentParser> dpCls;
+
+    /**
+     * The charset of the files.
+     */
+    private Charset cs;
+
+    /**
+     * The index of the next file pair to read.
+     */
+    private int nextFile = 0;
+
+    /**
+     * The number of times all the files have been read.
+     */
+    private int iteration = 0;
+
+    /**
+     * The name of the current file pair, or {@code null} if no pair is open.
+     */
+    private Path pairName = null;
+
+    /**
+     * The parser of the English documents of the current file pair, or {@code null} if no pair is open.
+     */
+    private DocumentParser enDocs = null;
+
+    /**
+     * The parser of the French documents of the current file pair, or {@code null} if no pair is open.
+     */
+    private DocumentParser frDocs = null;
+
+    @Override
+    public void setConfig(final Config config) {
+        super.setConfig(config);
+
+        final String extension = config.get("longeval.extension", ".json");
+
+        listFiles(config.get("longeval.en.dir", null), "longeval.en.dir", extension, enFiles);
+        listFiles(config.get("longeval.fr.dir", null), "longeval.fr.dir", extension, frFiles);
+
+        if (enFiles.size() != frFiles.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Found %d English files but %d French ones.", enFiles.size(), frFiles.size()));
+        }
+
+        for (int i = 0; i < enFiles.size(); i++) {
+            if (!enFiles.get(i).getFileName().equals(frFiles.get(i).getFileName())) {
+                throw new IllegalArgumentException(String.format("English file %s has no French version.",
+                        enFiles.get(i).getFileName()));
+            }
+        }
+
+        final String parser = config.get("longeval.parser", MappedLongEvalParser.class.getName());
+        try {
+            dpCls = Class.forName(parser).asSubclass(DocumentParser.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IllegalArgumentException(String.format("Unable to load the document parser %s.", parser), e);
+        }
+
+        cs = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+    }
+
+    /**
+     * Lists the files with an extension in a directory, sorted by name.
+     *
+     * @param dirName   the directory.
+     * @param property  the property of the directory, to report errors.
+     * @param extension the extension of the files.
+     * @param files     where to add the files.
+     * @throws NullPointerException     if {@code dirName} is {@code null}.
+     * @throws IllegalArgumentException if the directory cannot be read.
+     */
+    private static void listFiles(final String dirName, final String property, final String extension,
+                                  final List<Path> files) {
+
+        if (dirName == null) {
+            throw new NullPointerException(String.format("Property %s cannot be null.", property));
+        }
+
+        final Path dir = Paths.get(dirName);
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalArgumentException(
+                    String.format("%s expected to be a directory of documents.", dir.toAbsolutePath()));
+        }
+
+        files.clear();
+        try (Stream<Path> s = Files.list(dir)) {
+            s.filter(f -> f.getFileName().toString().endsWith(extension)).sorted().forEach(files::add);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(
+                    String.format("Unable to list directory %s: %s.", dir.toAbsolutePath(), e.getMessage()), e);
+        }
+
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException(
+                    String.format("No %s files in directory %s.", extension, dir.toAbsolutePath()));
+        }
+    }
+
+    @Override
+    public synchronized DocData getNextDocData(final DocData docData) throws NoMoreDataException, IOException {
+
+        // move to the next file pair until one still has documents; hasNext() is called only once per document, since
+        // some parsers read the next document in it
+        while (true) {
+            if (enDocs != null) {
+                final boolean enNext = enDocs.hasNext();
+                final boolean frNext = frDocs.hasNext();
+
+                if (enNext && frNext) {
+                    break;
+                }
+
+                // the remaining documents are skipped, as the indexers do
+                if (enNext != frNext) {
+                    System.out.printf("WARNING: file %s has more %s documents than %s ones: the remaining ones are "
+                            + "skipped.%n", pairName, enNext ? "English" : "French", enNext ? "French" : "English");
+                }
+
+                closePair();
+            }
+
+            if (nextFile == enFiles.size()) {
+                if (!forever) {
+                    throw new NoMoreDataException();
+                }
+                nextFile = 0;
+                iteration++;
+            }
+
+            final Path enFile = enFiles.get(nextFile);
+            final Path frFile = frFiles.get(nextFile);
+            nextFile++;
+
+            pairName = enFile.getFileName();
+            enDocs = DocumentParser.create(dpCls, enFile, cs);
+            frDocs = DocumentParser.create(dpCls, frFile, cs);
+
+            addBytes(Files.size(enFile) + Files.size(frFile));
+        }
+
+        final ParsedDocument en = enDocs.next();
+        final ParsedDocument fr = frDocs.next();
+
+        if (!en.getIdentifier().equals(fr.getIdentifier())) {
+            throw new IOException(String.format("English document %s and French document %s don't have the same ID.",
+                    en.getIdentifier(), fr.getIdentifier()));
+        }
+
+        // documents read again in later iterations must have different identifiers
+        final String name = iteration == 0 ? en.getIdentifier() : en.getIdentifier() + "_" + iteration;
+
+        Properties props = docData.getProps();
+        if (props == null) {
+            props = new Properties();
+        }
+        props.setProperty(FRENCH_BODY, fr.getBody());
+
+        docData.clear();
+        docData.setName(name);
+        docData.setBody(en.getBody());
+        docData.setProps(props);
+
+        addItem();
+
+        return docData;
+    }
+
+    /**
+     * Closes the parsers of the current file pair, if any, which close their files only once all the documents are
+     * parsed.
+     *
+     * @throws IOException if the files cannot be closed.
+     */
+    private void closePair() throws IOException {
+
+        if (enDocs == null) {
+            return;
+        }
+
+        try {
+            enDocs.close();
+        } finally {
+            frDocs.close();
+
+            pairName = null;
+            enDocs = null;
+            frDocs = null;
+        }
+    }
+
+    @Override
+    public synchronized void resetInputs() throws IOException {
+        super.resetInputs();
+
+        closePair();
+        nextFile = 0;
+        iteration = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closePair();
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import index.MultilingualDirectoryIndexer;
+import org.apache.lucene.benchmark.byTask.feeds.DocData;
+import org.apache.lucene.benchmark.byTask.feeds.DocMaker;
+import org.apache.lucene.document.Document;
+import parse.ParsedDocument;
+
+/**
+ * A {@link DocMaker} for the lucene-benchmark framework which makes the same multilingual documents as
+ * {@link MultilingualDirectoryIndexer}, i.e. with the {@code id}, {@code english_body}, {@code french_body},
+ * {@code n_gram} and {@code ner} fields, out of the document pairs of a {@link LongEvalContentSource}.
+ *
+ * The fields are analyzed by the analyzer of the algorithm, which should be a {@link MultilingualAnalyzer}.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class LongEvalDocMaker extends DocMaker {
+
+    /**
+     * The document data of each indexing thread, reused from one document to the next.
+     */
+    private final ThreadLocal<DocData> docData = ThreadLocal.withInitial(DocData::new);
+
+    @Override
+    public Document makeDocument() throws Exception {
+        return makeDocument(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Makes the next document with its English and French bodies truncated to a number of characters, cut at the
+     * last whitespace before the limit if there is one. Unlike the default {@link DocMaker}, the rest of the bodies is
+     * not used for the next documents: it would pair the pieces of the English and French versions of different
+     * lengths, and give them the identifier of the same document.
+     *
+     * @param size the maximum number of characters of each body.
+     * @return the document.
+     * @throws IllegalArgumentException if {@code size} is less than or equal to zero.
+     * @throws Exception                if the content source cannot provide the next document.
+     */
+    @Override
+    public Document makeDocument(final int size) throws Exception {
+
+        if (size <= 0) {
+            throw new IllegalArgumentException("Document size cannot be less than or equal to zero.");
+        }
+
+        final DocData dd = source.getNextDocData(docData.get());
+
+        final String french = dd.getProps().getProperty(LongEvalContentSource.FRENCH_BODY);
+        if (french == null) {
+            throw new IllegalStateException(String.format("Document %s has no French body: use %s as content source.",
+                    dd.getName(), LongEvalContentSource.class.getName()));
+        }
+
+        return MultilingualDirectoryIndexer.document(new ParsedDocument(dd.getName(), truncate(dd.getBody(), size)),
+                new ParsedDocument(dd.getName(), truncate(french, size)));
+    }
+
+    /**
+     * Truncates a body to a number of characters, at the last whitespace before the limit if there is one.
+     *
+     * @param body the body.
+     * @param size the maximum number of characters.
+     * @return the truncated body.
+     */
+    private static String truncate(final String body, final int size) {
+
+        if (body == null || body.length() <= size) {
+            return body;
+        }
+
+        for (int i = size; i > 0; i--) {
+            if (Character.isWhitespace(body.charAt(i))) {
+                return body.substring(0, i);
+            }
+        }
+
+        return body.substring(0, size);
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import org.apache.lucene.benchmark.byTask.feeds.AbstractQueryMaker;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.queryparser.classic.QueryParserBase;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import parse.ParsedDocument;
+import search.Searcher;
+import topic.LongEvalTopic;
+import topic.LongEvalTopicReader;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A query maker for the lucene-benchmark framework which turns the LongEval topics into the same queries as
+ * {@link Searcher}: the title of each topic is searched in the fields of a run, always in the same order.
+ *
+ * It is configured by the following properties of the algorithm:
+ * <ul>
+ *     <li>{@code longeval.topics}: the file of the topics;</li>
+ *     <li>{@code longeval.run}: the run, as numbered in {@link Searcher#runFields(int)}, 1 by default;</li>
+ *     <li>{@code longeval.ngram.size}: the size of the N-Grams of the index, 3 by default.</li>
+ * </ul>
+ * The queries are made again whenever the inputs are reset, so that these properties can change from one round to
+ * the next, e.g. {@code longeval.run=1:3:6} to compare three runs on the same index.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class LongEvalQueryMaker extends AbstractQueryMaker {
+
+    @Override
+    protected Query[] prepareQueries() throws Exception {
+
+        final String topicsFile = config.get("longeval.topics", null);
+        if (topicsFile == null) {
+            throw new NullPointerException("Property longeval.topics cannot be null.");
+        }
+
+        final int run = config.get("longeval.run", 1);
+        final Set<String> fields = Searcher.runFields(run);
+
+        final List<LongEvalTopic> topics = new LongEvalTopicReader(Paths.get(topicsFile)).read();
+
+        final Query[] qs = new Query[topics.size()];
+
+        try (MultilingualAnalyzer analyzer = new MultilingualAnalyzer(config.get("longeval.ngram.size", 3))) {
+
+            final QueryParser enQp = new QueryParser(ParsedDocument.FIELDS.ENGLISH_BODY, analyzer);
+            final QueryParser frQp = new QueryParser(ParsedDocument.FIELDS.FRENCH_BODY, analyzer);
+            final QueryParser ngramQp = new QueryParser(ParsedDocument.FIELDS.N_GRAM, analyzer);
+            final QueryParser nerQp = new QueryParser(ParsedDocument.FIELDS.NER, analyzer);
+
+            for (int i = 0; i < qs.length; i++) {
+                final BooleanQuery.Builder bq = new BooleanQuery.Builder();
+
+                final String title = QueryParserBase.escape(topics.get(i).getTitle());
+
+                // the same clauses, in the same order, as Searcher
+                if (fields.contains(ParsedDocument.FIELDS.ENGLISH_BODY)) {
+                    bq.add(enQp.parse(title), BooleanClause.Occur.SHOULD);
+                }
+                if (fields.contains(ParsedDocument.FIELDS.FRENCH_BODY)) {
+                    bq.add(frQp.parse(title), BooleanClause.Occur.SHOULD);
+                }
+                if (fields.contains(ParsedDocument.FIELDS.N_GRAM)) {
+                    bq.add(ngramQp.parse(title), BooleanClause.Occur.SHOULD);
+                }
+                if (fields.contains(ParsedDocument.FIELDS.NER)) {
+                    bq.add(nerQp.parse(title), BooleanClause.Occur.SHOULD);
+                }
+
+                qs[i] = bq.build();
+            }
+        }
+
+        System.out.printf("%d topic(s) of %s made into queries for run %d.%n", qs.length, topicsFile, run);
+
+        return qs;
+    }
+
+    @Override
+    public void resetInputs() throws Exception {
+        super.resetInputs();
+
+        // the properties of the new round may be different
+        queries = prepareQueries();
+    }
+}
@@ -0,0 +1,109 @@
+package benchmark;
+
+import analyze.EnglishAnalyzer;
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NGramAnalyzer;
+import index.MultilingualDirectoryIndexer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
+
+/**
+ * The analyzer of the multilingual documents, as {@link MultilingualDirectoryIndexer#fieldAnalyzer} builds it, for
+ * the lucene-benchmark framework.
+ *
+ * The framework instantiates analyzers by class name with no arguments, so there is one nested class for each size
+ * of the N-Grams, e.g. {@code analyzer=benchmark.MultilingualAnalyzer$FourGram} in an algorithm, or
+ * {@code NewAnalyzer(benchmark.MultilingualAnalyzer$TriGram, benchmark.MultilingualAnalyzer$FourGram)} to compare
+ * them round after round.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class MultilingualAnalyzer extends DelegatingAnalyzerWrapper {
+
+    /**
+     * The analyzers of the fields: English, French, N-Gram and NER.
+     */
+    private final Analyzer[] analyzers;
+
+    /**
+     * The analyzer applying the right analyzer to each field.
+     */
+    private final Analyzer fieldAnalyzer;
+
+    /**
+     * Creates a new multilingual analyzer.
+     *
+     * @param ngramSize the size of the N-Grams.
+     * @throws IllegalArgumentException if {@code ngramSize} is less than or equal to zero.
+     */
+    public MultilingualAnalyzer(final int ngramSize) {
+        super(PER_FIELD_REUSE_STRATEGY);
+
+        if (ngramSize <= 0) {
+            throw new IllegalArgumentException("The size of the N-Grams cannot be less than or equal to zero.");
+        }
+
+        analyzers = new Analyzer[]{new EnglishAnalyzer(), new FrenchAnalyzer(), new NGramAnalyzer(ngramSize),
+                new NERAnalyzer()};
+
+        fieldAnalyzer = MultilingualDirectoryIndexer.fieldAnalyzer(analyzers[0], analyzers[1], analyzers[2],
+                analyzers[3]);
+    }
+
+    @Override
+    protected Analyzer getWrappedAnalyzer(final String fieldName) {
+        return fieldAnalyzer;
+    }
+
+    @Override
+    public void close() {
+        fieldAnalyzer.close();
+
+        for (Analyzer a : analyzers) {
+            a.close();
+        }
+
+        super.close();
+    }
+
+    /**
+     * The multilingual analyzer with 3-Grams.
+     */
+    public static class TriGram extends MultilingualAnalyzer {
+
+        /**
+         * Creates a new multilingual analyzer with 3-Grams.
+         */
+        public TriGram() {
+            super(3);
+        }
+    }
+
+    /**
+     * The multilingual analyzer with 4-Grams.
+     */
+    public static class FourGram extends MultilingualAnalyzer {
+
+        /**
+         * Creates a new multilingual analyzer with 4-Grams.
+         */
+        public FourGram() {
+            super(4);
+        }
+    }
+
+    /**
+     * The multilingual analyzer with 5-Grams.
+     */
+    public static class FiveGram extends MultilingualAnalyzer {
+
+        /**
+         * Creates a new multilingual analyzer with 5-Grams.
+         */
+        public FiveGram() {
+            super(5);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package eval;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * The relevance judgements (qrels) of a set of topics, in the TREC format used by LongEval:
+ * <pre>
+ * topic iteration document relevance
+ * </pre>
+ * e.g. {@code q06223196 0 doc062200112743 1}, where relevance is {@code 0} (not relevant), {@code 1} (relevant) or
+ * {@code 2} (highly relevant).
+ *
+ * Topics are coded as consecutive integers; the judged documents of each topic are kept sorted, with their
+ * relevance in a parallel array.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class Qrels {
+
+    /**
+     * The index of each topic.
+     */
+    private final Map<String, Integer> topicIndex = new HashMap<>();
+
+    /**
+     * The identifier of each topic.
+     */
+    private final String[] topics;
+
+    /**
+     * The judged documents of each topic, sorted.
+     */
+    private final String[][] docs;
+
+    /**
+     * The relevance of the judged documents of each topic.
+     */
+    private final byte[][] rels;
+
+    /**
+     * Reads the relevance judgements.
+     *
+     * @param qrelsFile the file containing the relevance judgements.
+     * @throws NullPointerException     if {@code qrelsFile} is {@code null}.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not in the TREC format.
+     */
+    public Qrels(final Path qrelsFile) throws IOException {
+
+        if (qrelsFile == null) {
+            throw new NullPointerException("Qrels file cannot be null.");
+        }
+
+        // topic -> (document -> relevance), keeping the last judgement of a document, as trec_eval does
+        final Map<String, Map<String, Integer>> judgements = new TreeMap<>();
+
+        try (BufferedReader in = Files.newBufferedReader(qrelsFile, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                lineNumber++;
+
+                final String[] f = line.trim().split("\\s+");
+                if (f.length == 1 && f[0].isEmpty()) {
+                    continue;
+                }
+
+                if (f.length != 4) {
+                    throw new IllegalArgumentException(
+                            String.format("Line %d of qrels file %s is not in the TREC format: %s.", lineNumber,
+                                    qrelsFile, line));
+                }
+
+                final int rel;
+                try {
+                    rel = Integer.parseInt(f[3]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(
+                            String.format("Line %d of qrels file %s has an invalid relevance: %s.", lineNumber,
+                                    qrelsFile, f[3]), e);
+                }
+
+                if (rel < Byte.MIN_VALUE || rel > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException(
+                            String.format("Line %d of qrels file %s has an out of range relevance: %d.", lineNumber,
+                                    qrelsFile, rel));
+                }
+
+                judgements.computeIfAbsent(f[0], t -> new TreeMap<>()).put(f[2], rel);
+            }
+        }
+
+        topics = new String[judgements.size()];
+        docs = new String[topics.length][];
+        rels = new byte[topics.length][];
+
+        int t = 0;
+        for (Map.Entry<String, Map<String, Integer>> e : judgements.entrySet()) {
+            topics[t] = e.getKey();
+            topicIndex.put(e.getKey(), t);
+
+            // the documents are already sorted
+            docs[t] = e.getValue().keySet().toArray(new String[0]);
+            rels[t] = new byte[docs[t].length];
+
+            int d = 0;
+            for (int rel : e.getValue().values()) {
+                rels[t][d++] = (byte) rel;
+            }
+
+            t++;
+        }
+    }
+
+    /**
+     * Returns the number of judged topics.
+     *
+     * @return the number of judged topics.
+     */
+    public int size() {
+        return topics.length;
+    }
+
+    /**
+     * Returns the index of a topic.
+     *
+     * @param topic the identifier of the topic.
+     * @return the index of the topic, or {@code -1} if the topic is not judged.
+     */
+    public int topicIndex(final String topic) {
+        final Integer t = topicIndex.get(topic);
+        return t == null ? -1 : t;
+    }
+
+    /**
+     * Returns the identifier of a topic.
+     *
+     * @param t the index of the topic.
+     * @return the identifier of the topic.
+     */
+    public String topic(final int t) {
+        return topics[t];
+    }
+
+    /**
+     * Returns the judged documents of a topic, sorted.
+     *
+     * @param t the index of the topic.
+     * @return the judged documents of the topic; the array must not be modified.
+     */
+    String[] docs(final int t) {
+        return docs[t];
+    }
+
+    /**
+     * Returns the relevance of the judged documents of a topic.
+     *
+     * @param t the index of the topic.
+     * @return the relevance of the judged documents of the topic, in the same order as {@link #docs(int)}; the array
+     * must not be modified.
+     */
+    byte[] rels(final int t) {
+        return rels[t];
+    }
+
+    /**
+     * Returns the relevance of a document for a topic.
+     *
+     * @param topic the identifier of the topic.
+     * @param doc   the identifier of the document.
+     * @return the relevance of the document, or {@code -1} if the document is not judged for the topic.
+     */
+    public int relevance(final String topic, final String doc) {
+
+        final int t = topicIndex(topic);
+        if (t < 0) {
+            return -1;
+        }
+
+        final int d = Arrays.binarySearch(docs[t], doc);
+        return d < 0 ? -1 : rels[t][d];
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes.
+     *
+     * @param args command line arguments.
+     * @throws Exception if something goes wrong while reading.
+     */
+    public static void main(String[] args) throws Exception {
+
+        final Qrels qrels = new Qrels(Paths.get("runs\\experiments\\longeval-relevance-judgements\\b-long-september.txt"));
+
+        long judged = 0;
+        for (int t = 0; t < qrels.size(); t++) {
+            judged += qrels.docs(t).length;
+        }
+
+        System.out.printf("%d topic(s), %d judgement(s).%n", qrels.size(), judged);
+    }
+}
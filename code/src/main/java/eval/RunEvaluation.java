@@ -0,0 +1,167 @@
+package eval;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The evaluation of a run: the measures of each topic and their means over the topics, as {@code trec_eval} does
+ * (i.e. over the retrieved topics having relevance judgements).
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class RunEvaluation {
+
+    /**
+     * The measures of each topic, sorted by topic.
+     */
+    private final SortedMap<String, TopicMeasures> topics = new TreeMap<>();
+
+    /**
+     * Creates the evaluation of a run.
+     *
+     * @param measures the measures of the topics.
+     * @throws NullPointerException     if {@code measures} is {@code null}.
+     * @throws IllegalArgumentException if a topic is evaluated more than once.
+     */
+    public RunEvaluation(final Collection<TopicMeasures> measures) {
+
+        if (measures == null) {
+            throw new NullPointerException("Measures cannot be null.");
+        }
+
+        for (TopicMeasures m : measures) {
+            if (topics.put(m.getTopic(), m) != null) {
+                throw new IllegalArgumentException(String.format("Topic %s evaluated more than once.", m.getTopic()));
+            }
+        }
+    }
+
+    /**
+     * Returns the measures of each topic, sorted by topic.
+     *
+     * @return the measures of each topic.
+     */
+    public SortedMap<String, TopicMeasures> getTopics() {
+        return Collections.unmodifiableSortedMap(topics);
+    }
+
+    /**
+     * Returns the number of evaluated topics.
+     *
+     * @return the number of evaluated topics.
+     */
+    public int size() {
+        return topics.size();
+    }
+
+    /**
+     * Returns the mean average precision ({@code map}).
+     *
+     * @return the mean average precision.
+     */
+    public double getMAP() {
+        return mean(TopicMeasures::getAP);
+    }
+
+    /**
+     * Returns the mean normalized discounted cumulated gain at 10 ({@code ndcg_cut_10}).
+     *
+     * @return the mean normalized discounted cumulated gain at 10.
+     */
+    public double getNDCG10() {
+        return mean(TopicMeasures::getNDCG10);
+    }
+
+    /**
+     * Returns the mean precision at 10 ({@code P_10}).
+     *
+     * @return the mean precision at 10.
+     */
+    public double getP10() {
+        return mean(TopicMeasures::getP10);
+    }
+
+    /**
+     * Returns the mean recall at 1000 ({@code recall_1000}).
+     *
+     * @return the mean recall at 1000.
+     */
+    public double getRecall1000() {
+        return mean(TopicMeasures::getRecall1000);
+    }
+
+    /**
+     * Returns the mean binary preference ({@code bpref}).
+     *
+     * @return the mean binary preference.
+     */
+    public double getBpref() {
+        return mean(TopicMeasures::getBpref);
+    }
+
+    /**
+     * Returns the mean of a measure over the topics.
+     *
+     * @param measure the measure.
+     * @return the mean of the measure, or {@code 0} if there are no topics.
+     */
+    private double mean(final ToDoubleFunction<TopicMeasures> measure) {
+
+        if (topics.isEmpty()) {
+            return 0;
+        }
+
+        double sum = 0;
+        for (TopicMeasures m : topics.values()) {
+            sum += measure.applyAsDouble(m);
+        }
+
+        return sum / topics.size();
+    }
+
+    /**
+     * Prints the evaluation in the format of {@code trec_eval}.
+     *
+     * @param out      where to print the evaluation.
+     * @param perTopic whether to print also the measures of each topic, as {@code trec_eval -q} does.
+     */
+    public void print(final PrintStream out, final boolean perTopic) {
+
+        if (perTopic) {
+            for (TopicMeasures m : topics.values()) {
+                print(out, m.getTopic(), m.getNumRet(), m.getNumRel(), m.getNumRelRet(), m.getAP(), m.getNDCG10(),
+                        m.getP10(), m.getRecall1000(), m.getBpref());
+            }
+        }
+
+        int numRet = 0;
+        int numRel = 0;
+        int numRelRet = 0;
+        for (TopicMeasures m : topics.values()) {
+            numRet += m.getNumRet();
+            numRel += m.getNumRel();
+            numRelRet += m.getNumRelRet();
+        }
+
+        out.printf(Locale.ENGLISH, "%-22s\tall\t%d%n", "num_q", topics.size());
+        print(out, "all", numRet, numRel, numRelRet, getMAP(), getNDCG10(), getP10(), getRecall1000(), getBpref());
+    }
+
+    /**
+     * Prints the measures of a topic, or their means, in the format of {@code trec_eval}.
+     */
+    private static void print(final PrintStream out, final String topic, final int numRet, final int numRel,
+                              final int numRelRet, final double map, final double ndcg10, final double p10,
+                              final double recall1000, final double bpref) {
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%d%n", "num_ret", topic, numRet);
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%d%n", "num_rel", topic, numRel);
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%d%n", "num_rel_ret", topic, numRelRet);
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%.4f%n", "map", topic, map);
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%.4f%n", "bpref", topic, bpref);
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%.4f%n", "P_10", topic, p10);
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%.4f%n", "recall_1000", topic, recall1000);
+        out.printf(Locale.ENGLISH, "%-22s\t%s\t%.4f%n", "ndcg_cut_10", topic, ndcg10);
+    }
+}
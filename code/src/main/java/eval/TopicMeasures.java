@@ -0,0 +1,168 @@
+package eval;
+
+/**
+ * The evaluation measures of a topic, computed as {@code trec_eval} does.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class TopicMeasures {
+
+    /**
+     * The identifier of the topic.
+     */
+    private final String topic;
+
+    /**
+     * The number of retrieved documents.
+     */
+    private final int numRet;
+
+    /**
+     * The number of relevant documents.
+     */
+    private final int numRel;
+
+    /**
+     * The number of relevant retrieved documents.
+     */
+    private final int numRelRet;
+
+    /**
+     * The average precision.
+     */
+    private final double ap;
+
+    /**
+     * The normalized discounted cumulated gain at 10.
+     */
+    private final double ndcg10;
+
+    /**
+     * The precision at 10.
+     */
+    private final double p10;
+
+    /**
+     * The recall at 1000.
+     */
+    private final double recall1000;
+
+    /**
+     * The binary preference.
+     */
+    private final double bpref;
+
+    /**
+     * Creates the evaluation measures of a topic.
+     *
+     * @param topic      the identifier of the topic.
+     * @param numRet     the number of retrieved documents.
+     * @param numRel     the number of relevant documents.
+     * @param numRelRet  the number of relevant retrieved documents.
+     * @param ap         the average precision.
+     * @param ndcg10     the normalized discounted cumulated gain at 10.
+     * @param p10        the precision at 10.
+     * @param recall1000 the recall at 1000.
+     * @param bpref      the binary preference.
+     */
+    TopicMeasures(final String topic, final int numRet, final int numRel, final int numRelRet, final double ap,
+                  final double ndcg10, final double p10, final double recall1000, final double bpref) {
+        this.topic = topic;
+        this.numRet = numRet;
+        this.numRel = numRel;
+        this.numRelRet = numRelRet;
+        this.ap = ap;
+        this.ndcg10 = ndcg10;
+        this.p10 = p10;
+        this.recall1000 = recall1000;
+        this.bpref = bpref;
+    }
+
+    /**
+     * Returns the identifier of the topic.
+     *
+     * @return the identifier of the topic.
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Returns the number of retrieved documents ({@code num_ret}).
+     *
+     * @return the number of retrieved documents.
+     */
+    public int getNumRet() {
+        return numRet;
+    }
+
+    /**
+     * Returns the number of relevant documents ({@code num_rel}).
+     *
+     * @return the number of relevant documents.
+     */
+    public int getNumRel() {
+        return numRel;
+    }
+
+    /**
+     * Returns the number of relevant retrieved documents ({@code num_rel_ret}).
+     *
+     * @return the number of relevant retrieved documents.
+     */
+    public int getNumRelRet() {
+        return numRelRet;
+    }
+
+    /**
+     * Returns the average precision ({@code map}).
+     *
+     * @return the average precision.
+     */
+    public double getAP() {
+        return ap;
+    }
+
+    /**
+     * Returns the normalized discounted cumulated gain at 10 ({@code ndcg_cut_10}).
+     *
+     * @return the normalized discounted cumulated gain at 10.
+     */
+    public double getNDCG10() {
+        return ndcg10;
+    }
+
+    /**
+     * Returns the precision at 10 ({@code P_10}).
+     *
+     * @return the precision at 10.
+     */
+    public double getP10() {
+        return p10;
+    }
+
+    /**
+     * Returns the recall at 1000 ({@code recall_1000}).
+     *
+     * @return the recall at 1000.
+     */
+    public double getRecall1000() {
+        return recall1000;
+    }
+
+    /**
+     * Returns the binary preference ({@code bpref}).
+     *
+     * @return the binary preference.
+     */
+    public double getBpref() {
+        return bpref;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: map=%.4f ndcg_cut_10=%.4f P_10=%.4f recall_1000=%.4f bpref=%.4f", topic, ap, ndcg10,
+                p10, recall1000, bpref);
+    }
+}
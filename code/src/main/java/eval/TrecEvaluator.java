@@ -0,0 +1,422 @@
+package eval;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.InPlaceMergeSorter;
+import parse.ParsedDocument;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates the results of a search, as {@link TopDocs}, against relevance judgements, without writing a run. The
+ * measures are computed as {@code trec_eval} computes them on the corresponding run: MAP, nDCG@10, P@10,
+ * Recall@1000 and bpref.
+ *
+ * The evaluator is bound to an index: the identifiers of all the documents of the index and of the judged documents
+ * are coded as integers once, when the evaluator is created, so that evaluating a topic only looks up integers. Like
+ * {@code trec_eval}, documents are ranked by decreasing score, as written in the run (i.e. with 6 decimals), and then
+ * by decreasing identifier, whatever their order in the {@code TopDocs}.
+ *
+ * The evaluator is immutable and thread-safe.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class TrecEvaluator {
+
+    /**
+     * The minimum relevance of a relevant document.
+     */
+    private static final int RELEVANCE_LEVEL = 1;
+
+    /**
+     * The cut-off of nDCG and precision.
+     */
+    private static final int CUTOFF_10 = 10;
+
+    /**
+     * The cut-off of recall.
+     */
+    private static final int CUTOFF_1000 = 1000;
+
+    /**
+     * The relevance judgements.
+     */
+    private final Qrels qrels;
+
+    /**
+     * The ordinal of the identifier of each document of the index, in the sorted order of the identifiers, or
+     * {@code -1} if the document has no identifier.
+     */
+    private final int[] docOrds;
+
+    /**
+     * The ordinals of the judged documents of each topic found in the index, sorted.
+     */
+    private final int[][] judgedOrds;
+
+    /**
+     * The relevance of the judged documents of each topic found in the index.
+     */
+    private final byte[][] judgedRels;
+
+    /**
+     * The number of relevant documents of each topic.
+     */
+    private final int[] numRel;
+
+    /**
+     * The number of judged non-relevant documents of each topic.
+     */
+    private final int[] numNonRel;
+
+    /**
+     * The ideal discounted cumulated gain at 10 of each topic.
+     */
+    private final double[] idealDCG10;
+
+    /**
+     * Creates a new evaluator.
+     *
+     * The identifiers of the documents are read from their doc values, if the index has them for all the segments,
+     * and from the stored fields otherwise.
+     *
+     * @param qrels  the relevance judgements.
+     * @param reader the reader of the index searched.
+     * @throws NullPointerException if any of the parameters is {@code null}.
+     * @throws IOException          if something goes wrong while reading the identifiers of the documents.
+     */
+    public TrecEvaluator(final Qrels qrels, final IndexReader reader) throws IOException {
+
+        if (qrels == null) {
+            throw new NullPointerException("Qrels cannot be null.");
+        }
+
+        if (reader == null) {
+            throw new NullPointerException("Index reader cannot be null.");
+        }
+
+        this.qrels = qrels;
+
+        docOrds = new int[reader.maxDoc()];
+        Arrays.fill(docOrds, -1);
+
+        final int n = qrels.size();
+        judgedOrds = new int[n][];
+        judgedRels = new byte[n][];
+        numRel = new int[n];
+        numNonRel = new int[n];
+        idealDCG10 = new double[n];
+
+        // the ordinals of the judged documents of each topic, not sorted yet
+        final int[][] ords = new int[n][];
+
+        if (hasIdDocValues(reader)) {
+            // the global ordinals of sorted doc values follow the sorted order of the identifiers
+            final SortedDocValues ids = MultiDocValues.getSortedValues(reader, ParsedDocument.FIELDS.ID);
+
+            for (int doc = ids.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = ids.nextDoc()) {
+                docOrds[doc] = ids.ordValue();
+            }
+
+            final BytesRef term = new BytesRef();
+            for (int t = 0; t < n; t++) {
+                final String[] docs = qrels.docs(t);
+                ords[t] = new int[docs.length];
+                for (int d = 0; d < docs.length; d++) {
+                    term.bytes = docs[d].getBytes(StandardCharsets.UTF_8);
+                    term.length = term.bytes.length;
+                    ords[t][d] = ids.lookupTerm(term);
+                }
+            }
+        } else {
+            // old indexes: read all the identifiers and sort them
+            final String[] docIds = new String[reader.maxDoc()];
+            final Set<String> idField = Collections.singleton(ParsedDocument.FIELDS.ID);
+            final StoredFields storedFields = reader.storedFields();
+            for (int doc = 0; doc < docIds.length; doc++) {
+                docIds[doc] = storedFields.document(doc, idField).get(ParsedDocument.FIELDS.ID);
+            }
+
+            final String[] sorted = Arrays.stream(docIds).filter(Objects::nonNull).sorted().distinct()
+                    .toArray(String[]::new);
+
+            for (int doc = 0; doc < docIds.length; doc++) {
+                if (docIds[doc] != null) {
+                    docOrds[doc] = Arrays.binarySearch(sorted, docIds[doc]);
+                }
+            }
+
+            for (int t = 0; t < n; t++) {
+                final String[] docs = qrels.docs(t);
+                ords[t] = new int[docs.length];
+                for (int d = 0; d < docs.length; d++) {
+                    ords[t][d] = Arrays.binarySearch(sorted, docs[d]);
+                }
+            }
+        }
+
+        for (int t = 0; t < n; t++) {
+            final byte[] rels = qrels.rels(t);
+
+            // the judged documents count even if they are not in the index, as for trec_eval
+            final int[] gains = new int[rels.length];
+            int judgedInIndex = 0;
+            for (int d = 0; d < rels.length; d++) {
+                if (rels[d] >= RELEVANCE_LEVEL) {
+                    numRel[t]++;
+                } else if (rels[d] >= 0) {
+                    numNonRel[t]++;
+                }
+                gains[d] = Math.max(rels[d], 0);
+
+                if (ords[t][d] >= 0) {
+                    judgedInIndex++;
+                }
+            }
+
+            Arrays.sort(gains);
+            for (int i = 0; i < CUTOFF_10 && i < gains.length; i++) {
+                idealDCG10[t] += gains[gains.length - 1 - i] / log2(i + 2);
+            }
+
+            // keep only the judged documents in the index, sorted by ordinal
+            final long[] judged = new long[judgedInIndex];
+            for (int d = 0, j = 0; d < rels.length; d++) {
+                if (ords[t][d] >= 0) {
+                    judged[j++] = ((long) ords[t][d] << 8) | (rels[d] & 0xFF);
+                }
+            }
+            Arrays.sort(judged);
+
+            judgedOrds[t] = new int[judged.length];
+            judgedRels[t] = new byte[judged.length];
+            for (int j = 0; j < judged.length; j++) {
+                judgedOrds[t][j] = (int) (judged[j] >>> 8);
+                judgedRels[t][j] = (byte) judged[j];
+            }
+        }
+    }
+
+    /**
+     * Checks whether all the segments of an index have doc values for the identifier of the documents.
+     *
+     * @param reader the index reader.
+     * @return {@code true} if all the segments have doc values for the identifier, {@code false} otherwise.
+     */
+    private static boolean hasIdDocValues(final IndexReader reader) {
+
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final FieldInfo fi = leaf.reader().getFieldInfos().fieldInfo(ParsedDocument.FIELDS.ID);
+
+            if (fi == null || fi.getDocValuesType() != DocValuesType.SORTED) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the base 2 logarithm of a number.
+     *
+     * @param x the number.
+     * @return the base 2 logarithm of the number.
+     */
+    private static double log2(final double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    /**
+     * Returns the relevance judgements.
+     *
+     * @return the relevance judgements.
+     */
+    public Qrels getQrels() {
+        return qrels;
+    }
+
+    /**
+     * Evaluates the results of a topic.
+     *
+     * @param topic the identifier of the topic.
+     * @param docs  the results of the topic.
+     * @return the measures of the topic, or {@code null} if the topic is not judged.
+     * @throws NullPointerException if any of the parameters is {@code null}.
+     */
+    public TopicMeasures evaluate(final String topic, final TopDocs docs) {
+
+        if (topic == null) {
+            throw new NullPointerException("Topic cannot be null.");
+        }
+
+        if (docs == null) {
+            throw new NullPointerException("Results cannot be null.");
+        }
+
+        final int t = qrels.topicIndex(topic);
+        if (t < 0) {
+            return null;
+        }
+
+        final ScoreDoc[] sd = docs.scoreDocs;
+        final int n = sd.length;
+
+        // rank as trec_eval does: by decreasing score, as written in the run, and then by decreasing identifier
+        final long[] scores = new long[n];
+        final int[] ords = new int[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = Math.round((double) sd[i].score * 1e6);
+            ords[i] = docOrds[sd[i].doc];
+        }
+
+        new InPlaceMergeSorter() {
+            @Override
+            protected int compare(final int i, final int j) {
+                final int c = Long.compare(scores[j], scores[i]);
+                return c != 0 ? c : Integer.compare(ords[j], ords[i]);
+            }
+
+            @Override
+            protected void swap(final int i, final int j) {
+                final long s = scores[i];
+                scores[i] = scores[j];
+                scores[j] = s;
+
+                final int o = ords[i];
+                ords[i] = ords[j];
+                ords[j] = o;
+            }
+        }.sort(0, n);
+
+        final int R = numRel[t];
+        final int N = numNonRel[t];
+
+        int relRet = 0;
+        int relRet10 = 0;
+        int relRet1000 = 0;
+        int nonRelSoFar = 0;
+        double sumPrecision = 0;
+        double dcg10 = 0;
+        double bpref = 0;
+
+        for (int i = 0; i < n; i++) {
+
+            final int j = ords[i] < 0 ? -1 : Arrays.binarySearch(judgedOrds[t], ords[i]);
+
+            // not judged
+            if (j < 0) {
+                continue;
+            }
+
+            final int rel = judgedRels[t][j];
+
+            if (rel >= RELEVANCE_LEVEL) {
+                relRet++;
+                sumPrecision += (double) relRet / (i + 1);
+
+                if (i < CUTOFF_10) {
+                    relRet10++;
+                }
+                if (i < CUTOFF_1000) {
+                    relRet1000++;
+                }
+
+                bpref += nonRelSoFar > 0 ? 1.0 - (double) Math.min(nonRelSoFar, R) / Math.min(R, N) : 1.0;
+            } else if (rel >= 0) {
+                nonRelSoFar++;
+            }
+
+            if (i < CUTOFF_10 && rel > 0) {
+                dcg10 += rel / log2(i + 2);
+            }
+        }
+
+        return new TopicMeasures(topic, n, R, relRet,
+                R > 0 ? sumPrecision / R : 0,
+                idealDCG10[t] > 0 ? dcg10 / idealDCG10[t] : 0,
+                (double) relRet10 / CUTOFF_10,
+                R > 0 ? (double) relRet1000 / R : 0,
+                R > 0 ? bpref / R : 0);
+    }
+
+    /**
+     * Evaluates the results of a run, evaluating the topics in parallel.
+     *
+     * @param run the results of each topic of the run.
+     * @return the evaluation of the run, over the topics which are judged.
+     * @throws NullPointerException if {@code run} is {@code null}.
+     */
+    public RunEvaluation evaluate(final Map<String, TopDocs> run) {
+
+        if (run == null) {
+            throw new NullPointerException("Run cannot be null.");
+        }
+
+        return new RunEvaluation(run.entrySet().parallelStream()
+                .map(e -> evaluate(e.getKey(), e.getValue()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes: evaluates a run file, read back into {@code TopDocs}.
+     *
+     * @param args command line arguments.
+     * @throws Exception if something goes wrong while evaluating.
+     */
+    public static void main(String[] args) throws Exception {
+
+        final String qrelsFile = "runs\\experiments\\longeval-relevance-judgements\\b-long-september.txt";
+        final String indexPath = "D:\\created_indexes\\test_long\\2023_05_11_multilingual_4gram_synonym";
+        final String runFile = "runs\\seupd2223-JIHUMING-09_fr_fr_4gram.LT.txt";
+
+        try (DirectoryReader reader = DirectoryReader.open(FSDirectory.open(Paths.get(indexPath)))) {
+
+            long start = System.currentTimeMillis();
+            final TrecEvaluator evaluator = new TrecEvaluator(new Qrels(Paths.get(qrelsFile)), reader);
+            System.out.printf("Evaluator created in %d milliseconds.%n", System.currentTimeMillis() - start);
+
+            // the Lucene document of each identifier
+            final Map<String, Integer> docs = new HashMap<>();
+            final Set<String> idField = Collections.singleton(ParsedDocument.FIELDS.ID);
+            final StoredFields storedFields = reader.storedFields();
+            for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                docs.put(storedFields.document(doc, idField).get(ParsedDocument.FIELDS.ID), doc);
+            }
+
+            // read the run back into TopDocs
+            final Map<String, List<ScoreDoc>> hits = new LinkedHashMap<>();
+            try (BufferedReader in = Files.newBufferedReader(Paths.get(runFile), StandardCharsets.UTF_8)) {
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    final String[] f = line.split("\\s+");
+                    hits.computeIfAbsent(f[0], t -> new ArrayList<>())
+                            .add(new ScoreDoc(docs.get(f[2]), Float.parseFloat(f[4])));
+                }
+            }
+
+            final Map<String, TopDocs> run = new HashMap<>();
+            for (Map.Entry<String, List<ScoreDoc>> e : hits.entrySet()) {
+                run.put(e.getKey(), new TopDocs(new TotalHits(e.getValue().size(), TotalHits.Relation.EQUAL_TO),
+                        e.getValue().toArray(new ScoreDoc[0])));
+            }
+
+            start = System.nanoTime();
+            final RunEvaluation evaluation = evaluator.evaluate(run);
+            System.out.printf("Run evaluated in %.3f milliseconds.%n", (System.nanoTime() - start) / 1e6);
+
+            evaluation.print(System.out, false);
+        }
+    }
+}
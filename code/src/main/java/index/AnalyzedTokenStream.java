@@ -0,0 +1,131 @@
+package index;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.util.AttributeSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@link TokenStream} replaying the tokens produced by an {@link Analyzer} for a piece of text.
+ *
+ * The text is analyzed only once, when the stream is created, and the tokens can then be consumed as many times as
+ * needed, e.g. by several {@link org.apache.lucene.index.IndexWriter}s indexing the same field. Differently from
+ * {@link org.apache.lucene.analysis.CachingTokenFilter}, the stream of the analyzer is closed immediately, so that the
+ * analyzer can be reused for other fields and documents while the tokens are still being replayed.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class AnalyzedTokenStream extends TokenStream {
+
+    /**
+     * The attribute values of every token
+     */
+    private final List<AttributeSource.State> tokens = new ArrayList<>();
+
+    /**
+     * The attribute values at the end of the stream, e.g. the final offset
+     */
+    private AttributeSource.State finalState = null;
+
+    /**
+     * The next token to replay
+     */
+    private Iterator<AttributeSource.State> iterator = null;
+
+    /**
+     * Creates a new stream with the same attributes as the given one.
+     *
+     * @param attributes the attributes of the analyzed stream.
+     */
+    private AnalyzedTokenStream(final AttributeSource attributes) {
+        super(attributes);
+    }
+
+    /**
+     * Analyzes a piece of text and keeps all the produced tokens.
+     *
+     * @param analyzer  the analyzer to use.
+     * @param fieldName the name of the field the text belongs to.
+     * @param text      the text to analyze.
+     *
+     * @return the stream replaying the tokens of the text.
+     *
+     * @throws IOException if something goes wrong while analyzing the text.
+     */
+    static AnalyzedTokenStream analyze(final Analyzer analyzer, final String fieldName, final String text)
+            throws IOException {
+        return analyze(analyzer.tokenStream(fieldName, text));
+    }
+
+    /**
+     * Analyzes a piece of text read from a {@code Reader} and keeps all the produced tokens.
+     *
+     * @param analyzer  the analyzer to use.
+     * @param fieldName the name of the field the text belongs to.
+     * @param reader    the reader of the text to analyze.
+     *
+     * @return the stream replaying the tokens of the text.
+     *
+     * @throws IOException if something goes wrong while analyzing the text.
+     */
+    static AnalyzedTokenStream analyze(final Analyzer analyzer, final String fieldName, final Reader reader)
+            throws IOException {
+        return analyze(analyzer.tokenStream(fieldName, reader));
+    }
+
+    /**
+     * Consumes the tokens of an analyzer and keeps them all.
+     *
+     * @param stream the stream of the analyzer, which is closed.
+     *
+     * @return the stream replaying the tokens.
+     *
+     * @throws IOException if something goes wrong while analyzing the text.
+     */
+    private static AnalyzedTokenStream analyze(final TokenStream stream) throws IOException {
+
+        try (TokenStream ts = stream) {
+
+            final AnalyzedTokenStream analyzed = new AnalyzedTokenStream(ts.cloneAttributes());
+
+            ts.reset();
+            while (ts.incrementToken()) {
+                analyzed.tokens.add(ts.captureState());
+            }
+            ts.end();
+
+            analyzed.finalState = ts.captureState();
+
+            return analyzed;
+        }
+    }
+
+    @Override
+    public boolean incrementToken() {
+
+        if (!iterator.hasNext()) {
+            return false;
+        }
+
+        restoreState(iterator.next());
+        return true;
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+        restoreState(finalState);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        iterator = tokens.iterator();
+    }
+}
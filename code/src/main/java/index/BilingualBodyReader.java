@@ -0,0 +1,132 @@
+package index;
+
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * A {@link Reader} returning the English body of a document, a space and its French body, which is the text of the
+ * {@link NGramField}, without concatenating them into a new string.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class BilingualBodyReader extends Reader {
+
+    /**
+     * The character between the English and the French body.
+     */
+    private static final char SEPARATOR = ' ';
+
+    /**
+     * The English body.
+     */
+    private final String en;
+
+    /**
+     * The French body.
+     */
+    private final String fr;
+
+    /**
+     * The length of the whole text.
+     */
+    private final int length;
+
+    /**
+     * The position of the next character to read in the whole text.
+     */
+    private int pos = 0;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param en the English body.
+     * @param fr the French body.
+     * @throws NullPointerException if any of the bodies is {@code null}.
+     */
+    BilingualBodyReader(final String en, final String fr) {
+
+        if (en == null) {
+            throw new NullPointerException("English body cannot be null.");
+        }
+
+        if (fr == null) {
+            throw new NullPointerException("French body cannot be null.");
+        }
+
+        this.en = en;
+        this.fr = fr;
+        this.length = en.length() + 1 + fr.length();
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) {
+
+        Objects.checkFromIndexSize(off, len, cbuf.length);
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (pos >= length) {
+            return -1;
+        }
+
+        final int enLength = en.length();
+
+        int n = 0;
+        while (n < len && pos < length) {
+            final int k;
+
+            if (pos < enLength) {
+                k = Math.min(len - n, enLength - pos);
+                en.getChars(pos, pos + k, cbuf, off + n);
+            } else if (pos == enLength) {
+                k = 1;
+                cbuf[off + n] = SEPARATOR;
+            } else {
+                final int frPos = pos - enLength - 1;
+                k = Math.min(len - n, fr.length() - frPos);
+                fr.getChars(frPos, frPos + k, cbuf, off + n);
+            }
+
+            pos += k;
+            n += k;
+        }
+
+        return n;
+    }
+
+    @Override
+    public int read() {
+
+        if (pos >= length) {
+            return -1;
+        }
+
+        final int enLength = en.length();
+        final int c;
+
+        if (pos < enLength) {
+            c = en.charAt(pos);
+        } else if (pos == enLength) {
+            c = SEPARATOR;
+        } else {
+            c = fr.charAt(pos - enLength - 1);
+        }
+
+        pos++;
+
+        return c;
+    }
+
+    @Override
+    public boolean ready() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        pos = length;
+    }
+}
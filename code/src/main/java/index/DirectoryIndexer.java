@@ -8,6 +8,7 @@ import org.apache.lucene.analysis.en.PorterStemFilterFactory;
 import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.similarities.BM25Similarity;
@@ -243,6 +244,9 @@ public class DirectoryIndexer {
                         // add the document identifier
                         doc.add(new StringField(ParsedDocument.FIELDS.ID, pd.getIdentifier(), Field.Store.YES));
 
+                        // add the document identifier as doc values too, to look it up quickly when writing runs
+                        doc.add(new SortedDocValuesField(ParsedDocument.FIELDS.ID, new BytesRef(pd.getIdentifier())));
+
                         // add the document body
                         doc.add(new EnglishBodyField(pd.getBody()));
 
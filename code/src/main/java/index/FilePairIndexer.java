@@ -0,0 +1,490 @@
+package index;
+
+import parse.DocumentParser;
+import parse.ParsedDocument;
+import util.ConcurrencyUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the documents of a collection made of pairs of files, with the English and the French versions of the same
+ * documents, for the indexers: it lists the pairs, hands them out to several threads and parses them, counting the
+ * documents and printing the progress.
+ *
+ * The English and the French directories are expected to contain the same files: both are listed in the order of the
+ * file names and their files are paired in that order.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class FilePairIndexer {
+
+    /**
+     * One megabyte.
+     */
+    private static final int MBYTE = 1024 * 1024;
+
+    /**
+     * Something done with every file pair, by several threads concurrently.
+     */
+    @FunctionalInterface
+    interface PairConsumer {
+
+        /**
+         * Consumes a file pair.
+         *
+         * @param pair the file pair.
+         * @return the number of documents of the pair.
+         * @throws IOException if something goes wrong while indexing.
+         */
+        long accept(FilePair pair) throws IOException;
+    }
+
+    /**
+     * Something done with every document, by several threads concurrently.
+     */
+    @FunctionalInterface
+    interface DocumentConsumer {
+
+        /**
+         * Consumes a document.
+         *
+         * @param enParDoc the English version of the document.
+         * @param frParDoc the French version of the document.
+         * @throws IOException if something goes wrong while indexing.
+         */
+        void accept(ParsedDocument enParDoc, ParsedDocument frParDoc) throws IOException;
+    }
+
+    /**
+     * The extension of the files to be indexed.
+     */
+    private final String extension;
+
+    /**
+     * The charset used for encoding documents.
+     */
+    private final Charset cs;
+
+    /**
+     * The class of the {@code DocumentParser} to be used.
+     */
+    private final Class<? extends DocumentParser> dpCls;
+
+    /**
+     * The number of threads parsing, analyzing and indexing file pairs concurrently.
+     */
+    private final int numThreads;
+
+    /**
+     * The total number of documents expected to be indexed, or {@code 0} if it is not known.
+     */
+    private final long expectedDocs;
+
+    /**
+     * The total number of indexed files. Shared by all the indexing threads.
+     */
+    private final AtomicLong filesCount = new AtomicLong();
+
+    /**
+     * The total number of indexed documents. Shared by all the indexing threads.
+     */
+    private final AtomicLong docsCount = new AtomicLong();
+
+    /**
+     * The total number of indexed bytes. Shared by all the indexing threads.
+     */
+    private final AtomicLong bytesCount = new AtomicLong();
+
+    /**
+     * The start instant of the indexing, i.e. of the listing of the file pairs.
+     */
+    private long start = System.currentTimeMillis();
+
+    /**
+     * Creates a new reader of file pairs.
+     *
+     * @param extension    the extension of the files to be indexed.
+     * @param charsetName  the name of the charset used for encoding documents.
+     * @param dpCls        the class of the {@code DocumentParser} to be used.
+     * @param numThreads   the number of threads indexing file pairs concurrently.
+     * @param expectedDocs the total number of documents expected to be indexed, or {@code 0} if it is not known.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    FilePairIndexer(final String extension, final String charsetName, final Class<? extends DocumentParser> dpCls,
+                    final int numThreads, final long expectedDocs) {
+
+        // extension
+        if (extension == null) {
+            throw new NullPointerException("File extension cannot be null.");
+        }
+        if (extension.isEmpty()) {
+            throw new IllegalArgumentException("File extension cannot be empty.");
+        }
+        this.extension = extension;
+
+        // charsetName
+        if (charsetName == null) {
+            throw new NullPointerException("Charset name cannot be null.");
+        }
+        if (charsetName.isEmpty()) {
+            throw new IllegalArgumentException("Charset name cannot be empty.");
+        }
+
+        try {
+            cs = Charset.forName(charsetName);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    String.format("Unable to create the charset %s: %s.", charsetName, e.getMessage()), e);
+        }
+
+        // dpCls
+        if (dpCls == null) {
+            throw new NullPointerException("Document parser class cannot be null.");
+        }
+        this.dpCls = dpCls;
+
+        // numThreads
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException("The number of indexing threads cannot be less than or equal to zero.");
+        }
+        this.numThreads = numThreads;
+
+        // expectedDocs
+        if (expectedDocs < 0) {
+            throw new IllegalArgumentException("The expected number of documents to be indexed cannot be negative.");
+        }
+        this.expectedDocs = expectedDocs;
+    }
+
+    /**
+     * Checks a directory of documents.
+     *
+     * @param path     the directory.
+     * @param language the language of the documents, e.g. {@code English}.
+     * @return the directory.
+     * @throws NullPointerException     if {@code path} is {@code null}.
+     * @throws IllegalArgumentException if {@code path} is empty or is not a directory which can be read.
+     */
+    static Path documentsDirectory(final String path, final String language) {
+
+        if (path == null) {
+            throw new NullPointerException(String.format("%s documents path cannot be null.", language));
+        }
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException(String.format("%s documents path cannot be empty.", language));
+        }
+
+        final Path dir = Paths.get(path);
+        if (!Files.isReadable(dir)) {
+            throw new IllegalArgumentException(
+                    String.format("%s documents directory %s cannot be read.", language, dir.toAbsolutePath()));
+        }
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalArgumentException(
+                    String.format("%s expected to be a directory of documents.", dir.toAbsolutePath()));
+        }
+
+        return dir;
+    }
+
+    /**
+     * Pairs every English file with its French version, both sorted by name, and starts counting the documents indexed
+     * from them.
+     *
+     * @param enDocsDir the directory of the English documents.
+     * @param frDocsDir the directory of the French documents.
+     * @return the list of English/French file pairs to be indexed, in the order of their names.
+     * @throws IOException if a directory cannot be listed or the size of a file cannot be read.
+     */
+    List<FilePair> listFilePairs(final Path enDocsDir, final Path frDocsDir) throws IOException {
+
+        final File[] enFiles = listFiles(enDocsDir, "English");
+        final File[] frFiles = listFiles(frDocsDir, "French");
+
+        if (enFiles.length != frFiles.length) {
+            System.out.printf("WARNING: %d English and %d French files: only the first %d pairs are indexed.%n",
+                    enFiles.length, frFiles.length, Math.min(enFiles.length, frFiles.length));
+        }
+
+        final List<FilePair> pairs = new ArrayList<>();
+        for (int i = 0, n = Math.min(enFiles.length, frFiles.length); i < n; i++) {
+            pairs.add(new FilePair(enFiles[i].toPath(), frFiles[i].toPath()));
+        }
+
+        filesCount.set(0);
+        docsCount.set(0);
+        bytesCount.set(0);
+        start = System.currentTimeMillis();
+
+        return pairs;
+    }
+
+    /**
+     * Lists the files of a directory with the extension of the files to be indexed, sorted by name.
+     *
+     * @param docsDir  the directory.
+     * @param language the language of the documents.
+     * @return the files.
+     * @throws IOException if the directory cannot be listed.
+     */
+    private File[] listFiles(final Path docsDir, final String language) throws IOException {
+
+        final File[] files = docsDir.toFile().listFiles((dir, name) -> name.endsWith(extension));
+        if (files == null) {
+            throw new IOException(String.format("Unable to list the files in %s documents directory %s.", language,
+                    docsDir.toAbsolutePath()));
+        }
+
+        Arrays.sort(files);
+
+        return files;
+    }
+
+    /**
+     * Counts a file pair which is not indexed again, e.g. because it is already in the index being updated.
+     *
+     * @param pair the file pair.
+     * @param docs the number of documents of the pair.
+     */
+    void skipped(final FilePair pair, final long docs) {
+        filesCount.addAndGet(2);
+        bytesCount.addAndGet(pair.size);
+        docsCount.addAndGet(docs);
+    }
+
+    /**
+     * Hands the file pairs out to the indexing threads.
+     *
+     * With a single thread the file pairs are consumed in the order they are listed. With more threads, every worker
+     * takes the largest pair still to be consumed, until no pair is left, so that the last pairs to be consumed are the
+     * small ones and no worker is left alone with a big file at the end.
+     *
+     * @param pairs    the file pairs.
+     * @param consumer what to do with each pair.
+     * @throws IOException if something goes wrong while indexing.
+     */
+    void forEachPair(final List<FilePair> pairs, final PairConsumer consumer) throws IOException {
+
+        if (numThreads == 1) {
+            for (FilePair pair : pairs) {
+                consumer.accept(pair);
+            }
+            return;
+        }
+
+        // Largest pairs first
+        final List<FilePair> sorted = new ArrayList<>(pairs);
+        sorted.sort(Comparator.comparingLong((FilePair p) -> p.size).reversed());
+        final Queue<FilePair> queue = new ConcurrentLinkedQueue<>(sorted);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final List<Future<WorkerStatistics>> workers = new ArrayList<>();
+
+        for (int i = 0; i < numThreads; i++) {
+            workers.add(executor.submit(() -> {
+                final WorkerStatistics stats = new WorkerStatistics();
+                final long workerStart = System.currentTimeMillis();
+
+                try {
+                    FilePair pair;
+                    while ((pair = queue.poll()) != null) {
+                        stats.docsCount += consumer.accept(pair);
+                        stats.filesCount += 2;
+                    }
+                } catch (Exception e) {
+                    // stop the other workers as soon as they finish their current pair
+                    queue.clear();
+                    throw e;
+                }
+
+                stats.elapsedTime = System.currentTimeMillis() - workerStart;
+                return stats;
+            }));
+        }
+
+        executor.shutdown();
+
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                final WorkerStatistics stats = ConcurrencyUtil.get(workers.get(i), "the indexing threads");
+
+                System.out.printf("Worker %d: %d document(s) (%d files) indexed in %d seconds (%.2f documents/sec).%n",
+                        i, stats.docsCount, stats.filesCount, stats.elapsedTime / 1000,
+                        stats.elapsedTime > 0 ? stats.docsCount * 1000.0 / stats.elapsedTime : 0.0);
+            }
+        } finally {
+            // stop indexing if something went wrong, and wait for the pairs being indexed to stop using the writer
+            // before it is closed
+            ConcurrencyUtil.shutdownNow(executor, "the pairs still being indexed");
+        }
+    }
+
+    /**
+     * Parses the documents of a file pair, pairing every English document with its French version, and prints the
+     * progress every 1000 documents. It can be called concurrently by several threads.
+     *
+     * @param pair     the file pair.
+     * @param consumer what to do with each document.
+     * @return the number of documents of the pair.
+     * @throws IOException           if something goes wrong while parsing or indexing.
+     * @throws IllegalStateException if the English and the French versions of a document don't have the same ID.
+     */
+    long forEachDocument(final FilePair pair, final DocumentConsumer consumer) throws IOException {
+
+        bytesCount.addAndGet(pair.size);
+        filesCount.addAndGet(2);
+
+        long pairDocs = 0;
+
+        // a parser closes its file only once all its documents are parsed; hasNext() is called only once per document,
+        // since some parsers read the next document in it
+        try (DocumentParser enParser = DocumentParser.create(dpCls, pair.enFile, cs);
+             DocumentParser frParser = DocumentParser.create(dpCls, pair.frFile, cs)) {
+
+            while (true) {
+                final boolean enNext = enParser.hasNext();
+                final boolean frNext = frParser.hasNext();
+
+                if (!enNext || !frNext) {
+                    if (enNext != frNext) {
+                        System.out.printf("WARNING: file %s has more %s documents than %s ones: the remaining ones "
+                                + "are not indexed.%n", pair.name, enNext ? "English" : "French",
+                                enNext ? "French" : "English");
+                    }
+                    break;
+                }
+
+                final ParsedDocument enParDoc = enParser.next();
+                final ParsedDocument frParDoc = frParser.next();
+
+                if (!enParDoc.getIdentifier().equals(frParDoc.getIdentifier())) {
+                    throw new IllegalStateException(String.format(
+                            "English document %s and French document %s of file %s don't have the same ID.",
+                            enParDoc.getIdentifier(), frParDoc.getIdentifier(), pair.name));
+                }
+
+                consumer.accept(enParDoc, frParDoc);
+
+                pairDocs++;
+
+                final long indexedDocs = docsCount.incrementAndGet();
+
+                // print progress every 1000 indexed documents
+                if (indexedDocs % 1000 == 0) {
+                    long elapsedTime = (System.currentTimeMillis() - start) / 1000;
+
+                    System.out.printf(
+                            "%d document(s) in both languages (%d files, %d Mbytes) indexed in %d seconds.%n",
+                            indexedDocs, filesCount.get(), bytesCount.get() / MBYTE, elapsedTime);
+
+                    if (expectedDocs > 0) {
+                        System.out.printf("\tEstimated remaining time (%d/%d processed): %d second(s).%n",
+                                indexedDocs, expectedDocs,
+                                (long) ((double) expectedDocs * elapsedTime / (double) indexedDocs) - elapsedTime);
+                    }
+                }
+            }
+        }
+
+        return pairDocs;
+    }
+
+    /**
+     * Returns the number of documents indexed so far.
+     *
+     * @return the number of documents indexed so far.
+     */
+    long docsCount() {
+        return docsCount.get();
+    }
+
+    /**
+     * Prints how many documents have been indexed, and how long it took.
+     *
+     * @param what what the documents have been indexed into, e.g. {@code "4 variant(s)"}, or {@code null}.
+     */
+    void printTotals(final String what) {
+
+        if (expectedDocs > 0 && docsCount.get() != expectedDocs) {
+            System.out.printf("Expected to index %d documents (in both languages); %d indexed instead.%n", expectedDocs,
+                    docsCount.get());
+        }
+
+        System.out.printf("%d document(s) in both languages (%d files, %d Mbytes) indexed%s in %d seconds.%n",
+                docsCount.get(), filesCount.get(), bytesCount.get() / MBYTE, what != null ? " into " + what : "",
+                (System.currentTimeMillis() - start) / 1000);
+    }
+
+    /**
+     * A pair of files containing the English and the French versions of the same documents.
+     */
+    static final class FilePair {
+
+        // The file with the English documents.
+        final Path enFile;
+
+        // The file with the French documents.
+        final Path frFile;
+
+        // The total size in bytes of both files.
+        final long size;
+
+        // The name of the pair, i.e. of the file with the English documents.
+        final String name;
+
+        // The hash of the content of both files, computed the first time it is needed.
+        private String hash;
+
+        private FilePair(final Path enFile, final Path frFile) throws IOException {
+            this.enFile = enFile;
+            this.frFile = frFile;
+            this.size = Files.size(enFile) + Files.size(frFile);
+            this.name = enFile.getFileName().toString();
+        }
+
+        /**
+         * Returns the hash of the content of both files.
+         *
+         * @return the hash of the content of both files.
+         * @throws IOException if the files cannot be read.
+         */
+        String hash() throws IOException {
+            if (hash == null) {
+                hash = IndexManifest.hash(enFile, frFile);
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * What a single indexing thread has done.
+     */
+    private static final class WorkerStatistics {
+
+        // The number of documents indexed by the worker.
+        private long docsCount;
+
+        // The number of files indexed by the worker.
+        private long filesCount;
+
+        // The time in milliseconds the worker has been running.
+        private long elapsedTime;
+    }
+}
@@ -1,5 +1,6 @@
 package index;
 
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.index.IndexOptions;
@@ -46,4 +47,14 @@ public class FrenchBodyField extends Field
     public FrenchBodyField(final String value) {
         super(ParsedDocument.FIELDS.FRENCH_BODY, value, FRENCH_BODY_TYPE);
     }
+
+    /**
+     * Create a new field for the French body of a document,
+     * from tokens already produced by an analyzer (e.g. to share the same analysis among several indexes).
+     *
+     * @param value the already analyzed tokens of the French body of a document.
+     */
+    public FrenchBodyField(final TokenStream value) {
+        super(ParsedDocument.FIELDS.FRENCH_BODY, value, FRENCH_BODY_TYPE);
+    }
 }
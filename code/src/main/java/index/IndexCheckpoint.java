@@ -0,0 +1,209 @@
+package index;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link IndexManifest} of the file pairs completely indexed by an indexer, committed periodically with the index
+ * as its user data.
+ *
+ * Every commit only records the pairs whose documents were all added before it started, so that an interrupted run can
+ * be resumed from the last commit skipping them. The documents of the pairs still being indexed at that time may be in
+ * the commit as well: the resumed run has to replace them rather than add them again.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class IndexCheckpoint {
+
+    /**
+     * The time between two commits, in milliseconds, or {@code 0} not to commit until the end.
+     */
+    private final long intervalMillis;
+
+    /**
+     * The completed pairs.
+     */
+    private final IndexManifest manifest;
+
+    /**
+     * Held while committing.
+     */
+    private final Object commitLock = new Object();
+
+    /**
+     * The time of the last commit.
+     */
+    private long lastCommit = System.currentTimeMillis();
+
+    /**
+     * Creates a new checkpoint.
+     *
+     * @param intervalSeconds the time between two commits, in seconds, or {@code 0} not to commit until the end.
+     * @param manifest        the pairs already completed.
+     * @throws IllegalArgumentException if {@code intervalSeconds} is negative.
+     */
+    private IndexCheckpoint(final long intervalSeconds, final IndexManifest manifest) {
+
+        if (intervalSeconds < 0) {
+            throw new IllegalArgumentException("Checkpoint interval cannot be negative.");
+        }
+
+        this.intervalMillis = intervalSeconds * 1000;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Creates the checkpoint of a new index, without any completed pair.
+     *
+     * @param intervalSeconds the time between two commits, in seconds, or {@code 0} not to commit until the end.
+     * @return the checkpoint.
+     * @throws IllegalArgumentException if {@code intervalSeconds} is negative.
+     */
+    static IndexCheckpoint empty(final long intervalSeconds) {
+        return new IndexCheckpoint(intervalSeconds, new IndexManifest());
+    }
+
+    /**
+     * Reads the checkpoint of the last commit of an index.
+     *
+     * @param dir             the directory of the index.
+     * @param intervalSeconds the time between two commits, in seconds, or {@code 0} not to commit until the end.
+     * @return the checkpoint; without any completed pair if the last commit has no manifest.
+     * @throws IOException              if the last commit cannot be read.
+     * @throws IllegalArgumentException if {@code intervalSeconds} is negative or the manifest is corrupted.
+     */
+    static IndexCheckpoint read(final Directory dir, final long intervalSeconds) throws IOException {
+        return new IndexCheckpoint(intervalSeconds,
+                IndexManifest.read(SegmentInfos.readLatestCommit(dir).getUserData()));
+    }
+
+    /**
+     * Returns a completed pair.
+     *
+     * @param name the name of the pair, i.e. of its English file.
+     * @return the pair, or {@code null} if it is not completed.
+     */
+    synchronized IndexManifest.Entry get(final String name) {
+        return manifest.get(name);
+    }
+
+    /**
+     * Returns the names of the completed pairs.
+     *
+     * @return the names of the completed pairs.
+     */
+    synchronized Set<String> names() {
+        return manifest.names();
+    }
+
+    /**
+     * Returns the number of completed pairs.
+     *
+     * @return the number of completed pairs.
+     */
+    synchronized int pairs() {
+        return manifest.size();
+    }
+
+    /**
+     * Returns the number of documents of the completed pairs.
+     *
+     * @return the number of documents.
+     */
+    synchronized long docs() {
+        return manifest.docs();
+    }
+
+    /**
+     * Returns the number of bytes of the completed pairs.
+     *
+     * @return the number of bytes.
+     */
+    synchronized long bytes() {
+        return manifest.bytes();
+    }
+
+    /**
+     * Removes a pair, whose documents have been deleted from the writer.
+     *
+     * @param name the name of the pair, i.e. of its English file.
+     */
+    synchronized void removed(final String name) {
+        manifest.remove(name);
+    }
+
+    /**
+     * Records a completed pair, all its documents being added to the writer, and commits if the interval has elapsed
+     * since the last commit.
+     *
+     * It can be called concurrently by several threads: only one commits, the others keep indexing.
+     *
+     * @param writer the writer of the index.
+     * @param name   the name of the pair, i.e. of its English file.
+     * @param entry  the pair.
+     * @throws IOException if the commit fails.
+     */
+    void completed(final IndexWriter writer, final String name, final IndexManifest.Entry entry) throws IOException {
+
+        synchronized (this) {
+            manifest.put(name, entry);
+
+            if (intervalMillis == 0 || System.currentTimeMillis() - lastCommit < intervalMillis) {
+                return;
+            }
+
+            // the next checkpoint is due an interval from now, even if this commit takes long
+            lastCommit = System.currentTimeMillis();
+        }
+
+        final long start = System.currentTimeMillis();
+        final int committedPairs;
+        final long committedDocs;
+
+        // one commit at a time, so that a later commit never records fewer pairs than an earlier one
+        synchronized (commitLock) {
+            final Map<String, String> userData;
+
+            synchronized (this) {
+                userData = userData();
+                committedPairs = manifest.size();
+                committedDocs = manifest.docs();
+            }
+
+            writer.setLiveCommitData(userData.entrySet());
+            writer.commit();
+        }
+
+        System.out.printf("Checkpoint: %d file pair(s) (%d documents) committed in %d milliseconds.%n",
+                committedPairs, committedDocs, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Records the completed pairs into the next commit of the writer, e.g. the final one.
+     *
+     * @param writer the writer of the index.
+     */
+    synchronized void record(final IndexWriter writer) {
+        writer.setLiveCommitData(userData().entrySet());
+    }
+
+    /**
+     * Returns the user data of the completed pairs.
+     *
+     * @return the user data.
+     */
+    private Map<String, String> userData() {
+
+        final Map<String, String> userData = new HashMap<>();
+        manifest.write(userData);
+
+        return userData;
+    }
+}
@@ -0,0 +1,237 @@
+package index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The English/French file pairs in an index, with the size and the content hash of their files and the number of
+ * their documents, so that an index can be updated by indexing only the pairs which are new or have changed.
+ *
+ * It is stored as lines of tab-separated values, one per pair, in a single entry of the user data of the commits.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class IndexManifest {
+
+    /**
+     * The key of the user data with the manifest.
+     */
+    static final String USER_DATA_KEY = "manifest";
+
+    /**
+     * The algorithm hashing the content of the files.
+     */
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * The size of the buffer reading the files to hash.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A pair of files in the index.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    static final class Entry {
+
+        /**
+         * The total size in bytes of both files.
+         */
+        final long size;
+
+        /**
+         * The hash of the content of both files, in hexadecimal.
+         */
+        final String hash;
+
+        /**
+         * The number of documents of the pair.
+         */
+        final long docs;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param size the total size in bytes of both files.
+         * @param hash the hash of the content of both files, in hexadecimal.
+         * @param docs the number of documents of the pair.
+         */
+        Entry(final long size, final String hash, final long docs) {
+            this.size = size;
+            this.hash = hash;
+            this.docs = docs;
+        }
+    }
+
+    /**
+     * The pairs in the index, by name of their English file.
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Reads the manifest from the user data of a commit.
+     *
+     * @param userData the user data of the commit.
+     * @return the manifest; empty if the commit has none.
+     * @throws IllegalArgumentException if the manifest is corrupted.
+     */
+    static IndexManifest read(final Map<String, String> userData) {
+
+        final IndexManifest manifest = new IndexManifest();
+
+        final String lines = userData.get(USER_DATA_KEY);
+        if (lines == null || lines.isEmpty()) {
+            return manifest;
+        }
+
+        for (String line : lines.split("\n")) {
+            final String[] values = line.split("\t");
+
+            if (values.length != 4) {
+                throw new IllegalArgumentException(String.format("Corrupted manifest line: %s.", line));
+            }
+
+            try {
+                manifest.entries.put(values[0],
+                        new Entry(Long.parseLong(values[1]), values[2], Long.parseLong(values[3])));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Corrupted manifest line: %s.", line), e);
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Hashes the content of a pair of files.
+     *
+     * @param enFile the file with the English documents.
+     * @param frFile the file with the French documents.
+     * @return the hash of the content of both files, in hexadecimal.
+     * @throws IOException if the files cannot be read.
+     */
+    static String hash(final Path enFile, final Path frFile) throws IOException {
+
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(String.format("%s not available: %s.", HASH_ALGORITHM, e.getMessage()), e);
+        }
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        for (Path file : new Path[]{enFile, frFile}) {
+            try (InputStream in = Files.newInputStream(file)) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+        }
+
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return hex.toString();
+    }
+
+    /**
+     * Returns a pair of the index.
+     *
+     * @param name the name of the pair, i.e. of its English file.
+     * @return the pair, or {@code null} if it is not in the index.
+     */
+    Entry get(final String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Adds a pair to the index, or replaces it.
+     *
+     * @param name  the name of the pair, i.e. of its English file.
+     * @param entry the pair.
+     */
+    void put(final String name, final Entry entry) {
+        entries.put(name, entry);
+    }
+
+    /**
+     * Removes a pair from the index.
+     *
+     * @param name the name of the pair, i.e. of its English file.
+     * @return the pair removed, or {@code null} if it was not in the index.
+     */
+    Entry remove(final String name) {
+        return entries.remove(name);
+    }
+
+    /**
+     * Returns the names of the pairs in the index.
+     *
+     * @return the names of the pairs.
+     */
+    Set<String> names() {
+        return Collections.unmodifiableSet(new HashSet<>(entries.keySet()));
+    }
+
+    /**
+     * Returns the number of pairs in the index.
+     *
+     * @return the number of pairs.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of documents of the pairs in the index.
+     *
+     * @return the number of documents.
+     */
+    long docs() {
+        return entries.values().stream().mapToLong(e -> e.docs).sum();
+    }
+
+    /**
+     * Returns the number of bytes of the pairs in the index.
+     *
+     * @return the number of bytes.
+     */
+    long bytes() {
+        return entries.values().stream().mapToLong(e -> e.size).sum();
+    }
+
+    /**
+     * Writes the manifest into user data of a commit.
+     *
+     * @param userData the user data of the commit.
+     */
+    void write(final Map<String, String> userData) {
+
+        final StringBuilder lines = new StringBuilder();
+
+        entries.forEach((name, e) -> {
+            if (lines.length() > 0) {
+                lines.append('\n');
+            }
+            lines.append(name).append('\t').append(e.size).append('\t').append(e.hash).append('\t').append(e.docs);
+        });
+
+        userData.put(USER_DATA_KEY, lines.toString());
+    }
+}
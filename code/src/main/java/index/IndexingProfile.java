@@ -0,0 +1,379 @@
+package index;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.bloom.BloomFilteringPostingsFormat;
+import org.apache.lucene.codecs.lucene90.Lucene90PostingsFormat;
+import org.apache.lucene.codecs.lucene95.Lucene95Codec;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.search.similarities.Similarity;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How an {@link IndexWriter} is configured to build an index, and what is done once all the documents are added.
+ *
+ * There are three profiles:
+ * <ul>
+ *     <li>{@code rebuild}: a new index every time, with compound files and the default merge policy and scheduler,
+ *     i.e. what the indexers always did;</li>
+ *     <li>{@code incremental}: the same, but adding the documents to the index if it already exists, and leaving the
+ *     documents deleted or replaced to the merge policy;</li>
+ *     <li>{@code bulk}: a new index built once and then only searched. It writes no compound files, gives each
+ *     indexing thread its own share of the RAM buffer, merges less often but without any I/O throttling and, at the
+ *     end, can force the merge of the index down to a number of segments.</li>
+ * </ul>
+ *
+ * The documents deleted or replaced, e.g. when updating an index or resuming an interrupted run, still count in the
+ * statistics of the terms and of the fields until their segments are merged, and so in the BM25 scores. With exact
+ * statistics, the default of {@code rebuild} and {@code bulk}, they are all merged away at the end, so that the index
+ * scores as one built from scratch: right for resuming a run, but a refresh with changed documents spread over the
+ * whole collection leaves deletions in nearly every segment and rewrites almost the whole index. Without, the default
+ * of {@code incremental}, the merge policy reclaims them over time, and the scores drift slightly in the meantime.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class IndexingProfile {
+
+    /**
+     * The largest RAM buffer of a single indexing thread allowed by Lucene, in megabytes.
+     */
+    private static final int MAX_RAM_PER_THREAD_MB = 1945;
+
+    /**
+     * The number of segments of the same size allowed by the merge policy of the {@code bulk} profile, twice the
+     * default one: fewer merges while indexing, a larger one at the end.
+     */
+    private static final double BULK_SEGMENTS_PER_TIER = 20;
+
+    /**
+     * The postings format of the identifiers of the documents, which {@code updateDocument} looks up in every segment:
+     * a bloom filter rules out most of the segments without the identifier, without seeking their terms dictionary.
+     */
+    private static final PostingsFormat ID_POSTINGS_FORMAT =
+            new BloomFilteringPostingsFormat(new Lucene90PostingsFormat());
+
+    /**
+     * The name of the profile.
+     */
+    private final String name;
+
+    /**
+     * The size in megabytes of the RAM buffer, either of the whole writer or of each indexing thread.
+     */
+    private final int ramBufferSizeMB;
+
+    /**
+     * Whether {@link #ramBufferSizeMB} is the size of the buffer of each indexing thread.
+     */
+    private final boolean ramBufferPerThread;
+
+    /**
+     * Whether the segments are written as compound files.
+     */
+    private final boolean useCompoundFile;
+
+    /**
+     * Whether the index is created or opened.
+     */
+    private final IndexWriterConfig.OpenMode openMode;
+
+    /**
+     * Whether the merge policy and the merge scheduler are tuned for throughput.
+     */
+    private final boolean tunedMerges;
+
+    /**
+     * The number of segments to merge the index into at the end, or {@code 0} not to force any merge.
+     */
+    private final int forceMergeSegments;
+
+    /**
+     * Whether all the documents deleted or replaced are merged away at the end.
+     */
+    private final boolean exactStatistics;
+
+    /**
+     * Creates a new indexing profile.
+     *
+     * @param name               the name of the profile.
+     * @param ramBufferSizeMB    the size in megabytes of the RAM buffer, either of the whole writer or of each indexing
+     *                           thread.
+     * @param ramBufferPerThread whether {@code ramBufferSizeMB} is the size of the buffer of each indexing thread.
+     * @param useCompoundFile    whether the segments are written as compound files.
+     * @param openMode           whether the index is created or opened.
+     * @param tunedMerges        whether the merge policy and the merge scheduler are tuned for throughput.
+     * @param forceMergeSegments the number of segments to merge the index into at the end, or {@code 0} not to force
+     *                           any merge.
+     * @param exactStatistics    whether all the documents deleted or replaced are merged away at the end.
+     * @throws NullPointerException     if {@code name} or {@code openMode} are {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    private IndexingProfile(final String name, final int ramBufferSizeMB, final boolean ramBufferPerThread,
+                            final boolean useCompoundFile, final IndexWriterConfig.OpenMode openMode,
+                            final boolean tunedMerges, final int forceMergeSegments, final boolean exactStatistics) {
+
+        if (name == null) {
+            throw new NullPointerException("Profile name cannot be null.");
+        }
+
+        if (ramBufferSizeMB <= 0) {
+            throw new IllegalArgumentException("RAM buffer size cannot be less than or equal to zero.");
+        }
+
+        if (ramBufferPerThread && ramBufferSizeMB > MAX_RAM_PER_THREAD_MB) {
+            throw new IllegalArgumentException(
+                    String.format("RAM buffer size per thread cannot be greater than %d.", MAX_RAM_PER_THREAD_MB));
+        }
+
+        if (openMode == null) {
+            throw new NullPointerException("Open mode cannot be null.");
+        }
+
+        if (forceMergeSegments < 0) {
+            throw new IllegalArgumentException("The number of segments to force merge into cannot be negative.");
+        }
+
+        this.name = name;
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        this.ramBufferPerThread = ramBufferPerThread;
+        this.useCompoundFile = useCompoundFile;
+        this.openMode = openMode;
+        this.tunedMerges = tunedMerges;
+        this.forceMergeSegments = forceMergeSegments;
+        this.exactStatistics = exactStatistics;
+    }
+
+    /**
+     * Returns the {@code rebuild} profile, which creates a new index every time with compound files and the default
+     * merge policy and scheduler.
+     *
+     * @param ramBufferSizeMB the size in megabytes of the RAM buffer of the writer.
+     * @return the {@code rebuild} profile.
+     * @throws IllegalArgumentException if {@code ramBufferSizeMB} is less than or equal to zero.
+     */
+    public static IndexingProfile rebuild(final int ramBufferSizeMB) {
+        return new IndexingProfile("rebuild", ramBufferSizeMB, false, true, IndexWriterConfig.OpenMode.CREATE, false,
+                0, true);
+    }
+
+    /**
+     * Returns the {@code incremental} profile, which adds the documents to the index if it already exists, with
+     * compound files and the default merge policy and scheduler.
+     *
+     * @param ramBufferSizeMB the size in megabytes of the RAM buffer of the writer.
+     * @return the {@code incremental} profile.
+     * @throws IllegalArgumentException if {@code ramBufferSizeMB} is less than or equal to zero.
+     */
+    public static IndexingProfile incremental(final int ramBufferSizeMB) {
+        return new IndexingProfile("incremental", ramBufferSizeMB, false, true,
+                IndexWriterConfig.OpenMode.CREATE_OR_APPEND, false, 0, false);
+    }
+
+    /**
+     * Returns the {@code bulk} profile, which builds a new index once for searching it only afterwards.
+     *
+     * @param ramBufferSizeMBPerThread the size in megabytes of the RAM buffer of each indexing thread.
+     * @param forceMergeSegments       the number of segments to merge the index into at the end, or {@code 0} not to
+     *                                 force any merge.
+     * @return the {@code bulk} profile.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    public static IndexingProfile bulk(final int ramBufferSizeMBPerThread, final int forceMergeSegments) {
+        return new IndexingProfile("bulk", ramBufferSizeMBPerThread, true, false, IndexWriterConfig.OpenMode.CREATE,
+                true, forceMergeSegments, true);
+    }
+
+    /**
+     * Returns a profile by name.
+     *
+     * @param name               the name of the profile: {@code rebuild}, {@code incremental} or {@code bulk}.
+     * @param ramBufferSizeMB    the size in megabytes of the RAM buffer, of each indexing thread for the {@code bulk}
+     *                           profile, of the writer otherwise.
+     * @param forceMergeSegments the number of segments to merge the index into at the end with the {@code bulk}
+     *                           profile, or {@code 0} not to force any merge; ignored by the other profiles.
+     * @return the profile.
+     * @throws NullPointerException     if {@code name} is {@code null}.
+     * @throws IllegalArgumentException if there is no profile with that name, or any of the other parameters assumes
+     *                                  invalid values.
+     */
+    public static IndexingProfile forName(final String name, final int ramBufferSizeMB, final int forceMergeSegments) {
+
+        if (name == null) {
+            throw new NullPointerException("Profile name cannot be null.");
+        }
+
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "rebuild":
+                return rebuild(ramBufferSizeMB);
+            case "incremental":
+                return incremental(ramBufferSizeMB);
+            case "bulk":
+                return bulk(ramBufferSizeMB, forceMergeSegments);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown indexing profile %s.", name));
+        }
+    }
+
+    /**
+     * Returns the same profile, but merging away all the documents deleted or replaced at the end or not.
+     *
+     * @param exactStatistics whether all the documents deleted or replaced are merged away at the end: needed for the
+     *                        scores to be the same as the ones of an index built from scratch, e.g. when resuming an
+     *                        interrupted run, but it rewrites most of the index after a refresh with a new snapshot.
+     * @return the profile.
+     */
+    public IndexingProfile withExactStatistics(final boolean exactStatistics) {
+        return new IndexingProfile(name, ramBufferSizeMB, ramBufferPerThread, useCompoundFile, openMode, tunedMerges,
+                forceMergeSegments, exactStatistics);
+    }
+
+    /**
+     * Returns the name of the profile.
+     *
+     * @return the name of the profile.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of segments the index is merged into at the end.
+     *
+     * @return the number of segments, or {@code 0} if no merge is forced.
+     */
+    public int getForceMergeSegments() {
+        return forceMergeSegments;
+    }
+
+    /**
+     * Creates the configuration of a writer following this profile.
+     *
+     * @param analyzer   the analyzer of the writer.
+     * @param similarity the similarity of the writer.
+     * @param numThreads the number of threads adding documents to the writer.
+     * @param stats      where the writer reports its merges.
+     * @return the configuration of the writer.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if {@code numThreads} is less than or equal to zero.
+     */
+    public IndexWriterConfig config(final Analyzer analyzer, final Similarity similarity, final int numThreads,
+                                    final IndexingStatistics stats) {
+
+        if (analyzer == null) {
+            throw new NullPointerException("Analyzer cannot be null.");
+        }
+
+        if (similarity == null) {
+            throw new NullPointerException("Similarity cannot be null.");
+        }
+
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException("The number of indexing threads cannot be less than or equal to zero.");
+        }
+
+        if (stats == null) {
+            throw new NullPointerException("Indexing statistics cannot be null.");
+        }
+
+        final IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setSimilarity(similarity);
+        config.setOpenMode(openMode);
+        config.setCommitOnClose(true);
+        config.setUseCompoundFile(useCompoundFile);
+
+        // still the default codec for reading the index, which finds the postings format of each field by name
+        config.setCodec(new Lucene95Codec() {
+            @Override
+            public PostingsFormat getPostingsFormatForField(final String field) {
+                return ParsedDocument.FIELDS.ID.equals(field) ? ID_POSTINGS_FORMAT
+                        : super.getPostingsFormatForField(field);
+            }
+        });
+
+        if (ramBufferPerThread) {
+            // the writer flushes the largest thread buffer when all of them together exceed the RAM buffer
+            config.setRAMBufferSizeMB((double) ramBufferSizeMB * numThreads);
+            config.setRAMPerThreadHardLimitMB(Math.min(MAX_RAM_PER_THREAD_MB, 2 * ramBufferSizeMB));
+        } else {
+            config.setRAMBufferSizeMB(ramBufferSizeMB);
+        }
+
+        final IndexingStatistics.TimedMergeScheduler scheduler = new IndexingStatistics.TimedMergeScheduler(stats);
+
+        if (tunedMerges) {
+            final TieredMergePolicy policy = new TieredMergePolicy();
+            policy.setSegmentsPerTier(BULK_SEGMENTS_PER_TIER);
+            policy.setNoCFSRatio(useCompoundFile ? TieredMergePolicy.DEFAULT_NO_CFS_RATIO : 0.0);
+            config.setMergePolicy(policy);
+
+            // one merge thread every two cores, at full speed, and enough pending merges not to stall indexing
+            final int mergeThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            scheduler.setMaxMergesAndThreads(mergeThreads + numThreads, mergeThreads);
+            scheduler.disableAutoIOThrottle();
+        }
+
+        config.setMergeScheduler(scheduler);
+
+        return config;
+    }
+
+    /**
+     * Finishes an index once all the documents have been added, merging it if the profile requires it, and commits it.
+     *
+     * With exact statistics, the documents deleted or replaced, e.g. when updating an index or resuming an interrupted
+     * run, are all merged away, so that the index scores as one built from scratch; otherwise they are left to the
+     * merge policy.
+     *
+     * @param writer the writer of the index.
+     * @param stats  where to record the time spent.
+     * @throws IOException if something goes wrong while merging or committing.
+     */
+    public void finish(final IndexWriter writer, final IndexingStatistics stats) throws IOException {
+
+        long start = System.nanoTime();
+        writer.commit();
+        stats.committed(System.nanoTime() - start);
+
+        if (forceMergeSegments > 0) {
+            start = System.nanoTime();
+            writer.forceMerge(forceMergeSegments);
+            writer.commit();
+            stats.forceMerged(System.nanoTime() - start);
+        }
+
+        if (exactStatistics && writer.hasDeletions()) {
+            start = System.nanoTime();
+
+            // by default, the segments with less than 10% of deleted documents are left as they are
+            final MergePolicy policy = writer.getConfig().getMergePolicy();
+            if (policy instanceof TieredMergePolicy) {
+                ((TieredMergePolicy) policy).setForceMergeDeletesPctAllowed(0);
+            }
+
+            writer.forceMergeDeletes();
+            writer.commit();
+            stats.forceMerged(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        final List<String> options = new ArrayList<>(2);
+        if (forceMergeSegments > 0) {
+            options.add(String.format("force merge to %d segment(s)", forceMergeSegments));
+        }
+        options.add(exactStatistics ? "exact statistics" : "deleted documents left to the merge policy");
+
+        return String.format("%s (%s)", name, String.join(", ", options));
+    }
+}
@@ -0,0 +1,229 @@
+package index;
+
+import org.apache.lucene.codecs.lucene90.Lucene90SegmentInfoFormat;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where the time spent building an index goes: analyzing and inverting the documents, flushing the segments, merging
+ * them, committing and force merging the index.
+ *
+ * The time of {@code addDocument} is measured by the indexers and merges go through a {@link TimedMergeScheduler}.
+ * The writer flushes a segment in the indexing thread which fills up its buffer, or which helps flushing the pending
+ * ones, within its {@code addDocument}: the {@link #directory(Directory) directory} of the index records when each
+ * thread writes a segment info file, and the whole time of an {@code addDocument} during which its thread wrote one
+ * counts as flush time, the others as analysis and inversion time. The flushes at commit time count in the commit time. Flushes and
+ * merges are measured in the threads which run them, so their times add up over the threads and are not wall-clock
+ * times.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class IndexingStatistics {
+
+    /**
+     * The number of documents added.
+     */
+    private final AtomicLong docs = new AtomicLong();
+
+    /**
+     * The time spent in {@code addDocument} without flushing, in nanoseconds.
+     */
+    private final AtomicLong analysisNanos = new AtomicLong();
+
+    /**
+     * The number of {@code addDocument} which flushed one segment or more.
+     */
+    private final AtomicLong flushes = new AtomicLong();
+
+    /**
+     * The time spent in {@code addDocument} which flushed one segment or more, in nanoseconds.
+     */
+    private final AtomicLong flushNanos = new AtomicLong();
+
+    /**
+     * The number of merges.
+     */
+    private final AtomicLong merges = new AtomicLong();
+
+    /**
+     * The time spent merging, in nanoseconds.
+     */
+    private final AtomicLong mergeNanos = new AtomicLong();
+
+    /**
+     * The time of the final commit, in nanoseconds.
+     */
+    private volatile long commitNanos = 0;
+
+    /**
+     * The time of the forced merge, its commit included, in nanoseconds.
+     */
+    private volatile long forceMergeNanos = 0;
+
+    /**
+     * Whether the writer works on the {@link #directory(Directory) directory} detecting the flushes: if not, the time
+     * of the flushes is unknown.
+     */
+    private volatile boolean flushesDetected = false;
+
+    /**
+     * When the current thread last wrote a segment info file, as returned by {@link System#nanoTime()}.
+     */
+    private final ThreadLocal<Long> lastFlush = ThreadLocal.withInitial(() -> Long.MIN_VALUE);
+
+    /**
+     * A {@link ConcurrentMergeScheduler} recording how long its merges take.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    static final class TimedMergeScheduler extends ConcurrentMergeScheduler {
+
+        /**
+         * Where the merges are recorded.
+         */
+        private final IndexingStatistics stats;
+
+        /**
+         * Creates a new merge scheduler.
+         *
+         * @param stats where the merges are recorded.
+         */
+        TimedMergeScheduler(final IndexingStatistics stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        protected void doMerge(final MergeSource mergeSource, final MergePolicy.OneMerge merge) throws IOException {
+
+            final long start = System.nanoTime();
+
+            try {
+                super.doMerge(mergeSource, merge);
+            } finally {
+                stats.merges.incrementAndGet();
+                stats.mergeNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Returns a directory detecting the flushes of the writer working on it.
+     *
+     * @param dir the directory of the index.
+     * @return the directory on which the writer has to work.
+     * @throws NullPointerException if {@code dir} is {@code null}.
+     */
+    Directory directory(final Directory dir) {
+
+        if (dir == null) {
+            throw new NullPointerException("Directory cannot be null.");
+        }
+
+        flushesDetected = true;
+
+        return new FilterDirectory(dir) {
+
+            @Override
+            public IndexOutput createOutput(final String name, final IOContext context) throws IOException {
+
+                // the segment info file is written only once a segment is complete, by a flush or by a merge
+                if (Lucene90SegmentInfoFormat.SI_EXTENSION.equals(IndexFileNames.getExtension(name))) {
+                    lastFlush.set(System.nanoTime());
+                }
+
+                return super.createOutput(name, context);
+            }
+        };
+    }
+
+    /**
+     * Records a document added to the writer, in the thread which added it.
+     *
+     * @param nanos the time spent in {@code addDocument}, in nanoseconds.
+     */
+    public void addDocument(final long nanos) {
+
+        docs.incrementAndGet();
+
+        // a segment info file written before this addDocument, e.g. by a commit, is not a flush of this one
+        if (lastFlush.get() >= System.nanoTime() - nanos) {
+            flushes.incrementAndGet();
+            flushNanos.addAndGet(nanos);
+        } else {
+            analysisNanos.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * Records the time of the final commit.
+     *
+     * @param nanos the time of the commit, in nanoseconds.
+     */
+    void committed(final long nanos) {
+        commitNanos = nanos;
+    }
+
+    /**
+     * Records the time of a forced merge.
+     *
+     * @param nanos the time of the forced merge and of its commit, in nanoseconds.
+     */
+    void forceMerged(final long nanos) {
+        forceMergeNanos += nanos;
+    }
+
+    /**
+     * Prints the statistics of an index, once its writer is closed.
+     *
+     * @param profile the profile the index was built with.
+     * @param dir     the directory of the index.
+     * @throws IOException if the index cannot be read.
+     */
+    public void print(final IndexingProfile profile, final Directory dir) throws IOException {
+
+        long size = 0;
+        for (String file : dir.listAll()) {
+            size += dir.fileLength(file);
+        }
+
+        System.out.printf("Profile %s: %d document(s) added.%n", profile, docs.get());
+        if (flushesDetected) {
+            System.out.printf("\tAnalysis and inversion: %.2f seconds (summed over the indexing threads).%n",
+                    seconds(analysisNanos.get()));
+            System.out.printf("\tFlush: %.2f seconds in %d addDocument(s) (summed over the indexing threads).%n",
+                    seconds(flushNanos.get()), flushes.get());
+        } else {
+            System.out.printf("\tAnalysis and inversion: unknown; %.2f seconds with the flushes (summed over the "
+                    + "indexing threads).%n", seconds(analysisNanos.get()));
+            System.out.printf("\tFlush: unknown.%n");
+        }
+        System.out.printf("\tMerge: %.2f seconds in %d merge(s) (summed over the merge threads).%n",
+                seconds(mergeNanos.get()), merges.get());
+        System.out.printf("\tCommit: %.2f seconds; forced merge: %.2f seconds.%n", seconds(commitNanos),
+                seconds(forceMergeNanos));
+        System.out.printf("\tIndex: %d segment(s), %d Mbytes.%n", SegmentInfos.readLatestCommit(dir).size(),
+                size / 1024 / 1024);
+    }
+
+    /**
+     * Converts nanoseconds to seconds.
+     *
+     * @param nanos the nanoseconds.
+     * @return the seconds.
+     */
+    private static double seconds(final long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
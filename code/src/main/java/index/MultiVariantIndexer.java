@@ -0,0 +1,437 @@
+package index;
+
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NERCache;
+import analyze.NERTaggerPool;
+import analyze.NGramAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import parse.DocumentParser;
+import parse.MappedLongEvalParser;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Builds several variants of the multilingual index (see {@link MultilingualDirectoryIndexer}) reading the English and
+ * French documents only once.
+ *
+ * The variants differ in the size of the character N-Grams and in whether they contain the NER field. Every parsed
+ * document is fanned out to one {@link IndexWriter} per variant. The English body, the French body and the NER
+ * information are analyzed only once and their tokens are replayed into all the variants; the N-Grams are generated
+ * once for every distinct size. Building all the variants thus costs about as much as building one of them, apart
+ * from the writing of the indexes.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class MultiVariantIndexer {
+
+    // The variants of the index to be built.
+    private final List<IndexVariant> variants;
+
+    // The index writers, one for each variant.
+    private final List<IndexWriter> writers;
+
+    // How the index writers are configured, and what is done once all the documents are added.
+    private final IndexingProfile profile;
+
+    // Where the time spent building each variant goes.
+    private final List<IndexingStatistics> indexingStats;
+
+    // The analyzer for the English documents.
+    private final Analyzer enAnalyzer;
+
+    // The analyzer for the French documents.
+    private final Analyzer frAnalyzer;
+
+    // The analyzer for the NER information, used only if at least one variant needs it.
+    private final Analyzer nerAnalyzer;
+
+    // The N-Gram analyzers, one for each distinct N-Gram size.
+    private final Map<Integer, Analyzer> ngramAnalyzers = new TreeMap<>();
+
+    // Whether at least one variant contains the NER field.
+    private final boolean anyNer;
+
+    // The directory (and sub-directories) where English documents are stored.
+    private final Path enDocsDir;
+
+    // The directory (and sub-directories) where French documents are stored.
+    private final Path frDocsDir;
+
+    // Lists, parses and counts the file pairs, handing them out to the indexing threads.
+    private final FilePairIndexer pairIndexer;
+
+    /**
+     * Creates a new indexer.
+     *
+     * @param enAnalyzer      the {@code Analyzer} to be used for the English documents.
+     * @param frAnalyzer      the {@code Analyzer} to be used for the French documents.
+     * @param nerAnalyzer     the {@code Analyzer} to be used for NER extracted information from documents.
+     * @param similarity      the {@code Similarity} to be used.
+     * @param ramBufferSizeMB the size in megabytes of the RAM buffer of each index writer.
+     * @param variants        the variants of the index to be built.
+     * @param enDocsPath      the directory from which English documents have to be read.
+     * @param frDocsPath      the directory from which French documents have to be read.
+     * @param extension       the extension of the files to be indexed.
+     * @param charsetName     the name of the charset used for encoding documents.
+     * @param expectedDocs    the total number of documents expected to be indexed
+     * @param dpCls           the class of the {@code DocumentParser} to be used.
+     * @param numThreads      the number of threads indexing file pairs concurrently.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    public MultiVariantIndexer(final Analyzer enAnalyzer, final Analyzer frAnalyzer, final Analyzer nerAnalyzer,
+                               final Similarity similarity, final int ramBufferSizeMB,
+                               final List<IndexVariant> variants, final String enDocsPath, final String frDocsPath,
+                               final String extension, final String charsetName, final long expectedDocs,
+                               final Class<? extends DocumentParser> dpCls, final int numThreads) {
+        this(enAnalyzer, frAnalyzer, nerAnalyzer, similarity, IndexingProfile.rebuild(ramBufferSizeMB), variants,
+                enDocsPath, frDocsPath, extension, charsetName, expectedDocs, dpCls, numThreads);
+    }
+
+    /**
+     * Creates a new indexer.
+     *
+     * @param enAnalyzer   the {@code Analyzer} to be used for the English documents.
+     * @param frAnalyzer   the {@code Analyzer} to be used for the French documents.
+     * @param nerAnalyzer  the {@code Analyzer} to be used for NER extracted information from documents.
+     * @param similarity   the {@code Similarity} to be used.
+     * @param profile      how each index writer is configured, and what is done once all the documents are added.
+     * @param variants     the variants of the index to be built.
+     * @param enDocsPath   the directory from which English documents have to be read.
+     * @param frDocsPath   the directory from which French documents have to be read.
+     * @param extension    the extension of the files to be indexed.
+     * @param charsetName  the name of the charset used for encoding documents.
+     * @param expectedDocs the total number of documents expected to be indexed
+     * @param dpCls        the class of the {@code DocumentParser} to be used.
+     * @param numThreads   the number of threads indexing file pairs concurrently.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    public MultiVariantIndexer(final Analyzer enAnalyzer, final Analyzer frAnalyzer, final Analyzer nerAnalyzer,
+                               final Similarity similarity, final IndexingProfile profile,
+                               final List<IndexVariant> variants, final String enDocsPath, final String frDocsPath,
+                               final String extension, final String charsetName, final long expectedDocs,
+                               final Class<? extends DocumentParser> dpCls, final int numThreads) {
+        // enAnalyzer
+        if (enAnalyzer == null) {
+            throw new NullPointerException("English analyzer cannot be null.");
+        }
+        this.enAnalyzer = enAnalyzer;
+
+        // frAnalyzer
+        if (frAnalyzer == null) {
+            throw new NullPointerException("French analyzer cannot be null.");
+        }
+        this.frAnalyzer = frAnalyzer;
+
+        // nerAnalyzer
+        if (nerAnalyzer == null) {
+            throw new NullPointerException("NER analyzer cannot be null.");
+        }
+        this.nerAnalyzer = nerAnalyzer;
+
+        // similarity
+        if (similarity == null) {
+            throw new NullPointerException("Similarity cannot be null.");
+        }
+
+        // profile
+        if (profile == null) {
+            throw new NullPointerException("Indexing profile cannot be null.");
+        }
+        this.profile = profile;
+
+        // variants
+        if (variants == null) {
+            throw new NullPointerException("Index variants cannot be null.");
+        }
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("Index variants cannot be empty.");
+        }
+        this.variants = List.copyOf(variants);
+
+        final Set<Path> indexDirs = new HashSet<>();
+        boolean anyNer = false;
+        for (IndexVariant v : this.variants) {
+            if (!indexDirs.add(v.indexDir.toAbsolutePath().normalize())) {
+                throw new IllegalArgumentException(
+                        String.format("Index directory %s used by more than one variant.", v.indexDir.toAbsolutePath()));
+            }
+            ngramAnalyzers.computeIfAbsent(v.ngramSize, NGramAnalyzer::new);
+            anyNer |= v.ner;
+        }
+        this.anyNer = anyNer;
+
+        // enDocsPath and frDocsPath
+        this.enDocsDir = FilePairIndexer.documentsDirectory(enDocsPath, "English");
+        this.frDocsDir = FilePairIndexer.documentsDirectory(frDocsPath, "French");
+
+        // extension, charsetName, dpCls, numThreads and expectedDocs
+        this.pairIndexer = new FilePairIndexer(extension, charsetName, dpCls, numThreads, expectedDocs);
+
+        // Create one IndexWriter for each variant
+        final List<IndexWriter> writers = new ArrayList<>();
+        final List<IndexingStatistics> indexingStats = new ArrayList<>();
+        try {
+            for (IndexVariant v : this.variants) {
+                final IndexingStatistics stats = new IndexingStatistics();
+                writers.add(openWriter(v, similarity, profile, numThreads, stats));
+                indexingStats.add(stats);
+            }
+        } catch (RuntimeException e) {
+            // do not leave the indexes already opened locked
+            for (IndexWriter w : writers) {
+                try {
+                    w.rollback();
+                } catch (IOException ignored) {
+                    // already failing
+                }
+            }
+            throw e;
+        }
+        this.writers = writers;
+        this.indexingStats = indexingStats;
+    }
+
+    /**
+     * Opens the writer of a variant of the index.
+     *
+     * @param variant    the variant of the index.
+     * @param similarity the {@code Similarity} to be used.
+     * @param profile    how the index writer is configured.
+     * @param numThreads the number of threads adding documents to the writer.
+     * @param stats      where the writer reports its flushes and merges.
+     * @return the writer of the variant.
+     * @throws IllegalArgumentException if the index directory cannot be created or written.
+     */
+    private static IndexWriter openWriter(final IndexVariant variant, final Similarity similarity,
+                                          final IndexingProfile profile, final int numThreads,
+                                          final IndexingStatistics stats) {
+
+        final Path indexDir = variant.indexDir;
+
+        // if the directory does not already exist, create it
+        if (Files.notExists(indexDir)) {
+            try {
+                Files.createDirectory(indexDir);
+            } catch (Exception e) {
+                throw new IllegalArgumentException(
+                        String.format("Unable to create directory %s: %s. (Try to create the directory manually)",
+                                indexDir.toAbsolutePath(), e.getMessage()), e);
+            }
+        }
+        if (!Files.isWritable(indexDir)) {
+            throw new IllegalArgumentException(
+                    String.format("Index directory %s cannot be written.", indexDir.toAbsolutePath()));
+        }
+        if (!Files.isDirectory(indexDir)) {
+            throw new IllegalArgumentException(String.format("%s expected to be a directory where to write the index.",
+                    indexDir.toAbsolutePath()));
+        }
+
+        // All the body fields are analyzed in advance, once for all the variants: the analyzer of the writer is never
+        // used for them
+        final IndexWriterConfig indexConfig = profile.config(new StandardAnalyzer(), similarity, numThreads, stats);
+
+        try {
+            return new IndexWriter(stats.directory(FSDirectory.open(indexDir)), indexConfig);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to create the index writer in directory %s: %s.",
+                    indexDir.toAbsolutePath(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Indexes the documents into all the variants.
+     *
+     * @throws IOException if something goes wrong while indexing.
+     */
+    public void index() throws IOException {
+
+        System.out.printf("%n#### Start indexing %d variant(s) ####%n", variants.size());
+
+        final List<FilePairIndexer.FilePair> pairs = pairIndexer.listFilePairs(enDocsDir, frDocsDir);
+
+        pairIndexer.forEachPair(pairs, this::indexFilePair);
+
+        for (int i = 0; i < writers.size(); i++) {
+            final long commitStart = System.currentTimeMillis();
+
+            profile.finish(writers.get(i), indexingStats.get(i));
+            writers.get(i).close();
+
+            System.out.printf("Variant %s committed in %d seconds.%n", variants.get(i),
+                    (System.currentTimeMillis() - commitStart) / 1000);
+            indexingStats.get(i).print(profile, writers.get(i).getDirectory());
+        }
+
+        pairIndexer.printTotals(String.format("%d variant(s)", variants.size()));
+
+        System.out.printf("#### Indexing complete ####%n");
+    }
+
+    /**
+     * Indexes all the documents contained in a pair of English/French files into all the variants. It can be called
+     * concurrently by several threads.
+     *
+     * @param pair the pair of files to be indexed.
+     * @return the number of documents indexed from the pair.
+     * @throws IOException if something goes wrong while indexing.
+     */
+    private long indexFilePair(final FilePairIndexer.FilePair pair) throws IOException {
+
+        // The N-Grams of the current document, by size
+        final Map<Integer, AnalyzedTokenStream> ngrams = new HashMap<>();
+
+        return pairIndexer.forEachDocument(pair, (enParDoc, frParDoc) -> {
+            // analyze each field once for all the variants
+            final AnalyzedTokenStream en =
+                    AnalyzedTokenStream.analyze(enAnalyzer, ParsedDocument.FIELDS.ENGLISH_BODY, enParDoc.getBody());
+            final AnalyzedTokenStream fr =
+                    AnalyzedTokenStream.analyze(frAnalyzer, ParsedDocument.FIELDS.FRENCH_BODY, frParDoc.getBody());
+
+            // we take the French version of the documents, because it is the original, the English one is a translation
+            final AnalyzedTokenStream ner = anyNer
+                    ? AnalyzedTokenStream.analyze(nerAnalyzer, ParsedDocument.FIELDS.NER, frParDoc.getBody())
+                    : null;
+
+            // the English body followed by the French one, read without concatenating them
+            ngrams.clear();
+            for (Map.Entry<Integer, Analyzer> e : ngramAnalyzers.entrySet()) {
+                ngrams.put(e.getKey(), AnalyzedTokenStream.analyze(e.getValue(), ParsedDocument.FIELDS.N_GRAM,
+                        new BilingualBodyReader(enParDoc.getBody(), frParDoc.getBody())));
+            }
+
+            // fan the document out to all the variants
+            for (int i = 0; i < variants.size(); i++) {
+                final IndexVariant v = variants.get(i);
+
+                final Document doc = new Document();
+                doc.add(new StringField(ParsedDocument.FIELDS.ID, enParDoc.getIdentifier(), Field.Store.YES));
+                doc.add(new SortedDocValuesField(ParsedDocument.FIELDS.ID, new BytesRef(enParDoc.getIdentifier())));
+                doc.add(new EnglishBodyField(en));
+                doc.add(new FrenchBodyField(fr));
+                doc.add(new NGramField(ngrams.get(v.ngramSize)));
+                if (v.ner) {
+                    doc.add(new NERBodyField(ner));
+                }
+
+                final long addStart = System.nanoTime();
+                writers.get(i).addDocument(doc);
+                indexingStats.get(i).addDocument(System.nanoTime() - addStart);
+            }
+        });
+    }
+
+    /**
+     * A variant of the multilingual index: where it is stored, the size of its character N-Grams and whether it
+     * contains the NER field.
+     */
+    public static final class IndexVariant {
+
+        // The directory where the index is stored.
+        private final Path indexDir;
+
+        // The N parameter of the character N-Grams.
+        private final int ngramSize;
+
+        // Whether the index contains the NER field.
+        private final boolean ner;
+
+        /**
+         * Creates a new variant.
+         *
+         * @param indexPath the directory where to store the index.
+         * @param ngramSize the N parameter of the character N-Grams.
+         * @param ner       whether the index contains the NER field.
+         * @throws NullPointerException     if the index path is {@code null}.
+         * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+         */
+        public IndexVariant(final String indexPath, final int ngramSize, final boolean ner) {
+
+            if (indexPath == null) {
+                throw new NullPointerException("Index path cannot be null.");
+            }
+            if (indexPath.isEmpty()) {
+                throw new IllegalArgumentException("Index path cannot be empty.");
+            }
+
+            if (ngramSize <= 0) {
+                throw new IllegalArgumentException("The N-Gram size cannot be less than or equal to zero.");
+            }
+
+            this.indexDir = Paths.get(indexPath);
+            this.ngramSize = ngramSize;
+            this.ner = ner;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d-gram%s)", indexDir.getFileName(), ngramSize, ner ? ", NER" : "");
+        }
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes.
+     *
+     * @param args command line arguments.
+     * @throws Exception if something goes wrong while indexing.
+     */
+    public static void main(String[] args) throws Exception {
+        // FILL: RAM buffer of each indexing thread, and number of segments of the final indexes (0 not to merge)
+        final int ramBuffer = 256;
+        final int forceMergeSegments = 1;
+        // FILL: English documents path
+        final String enDocsPath = "D:\\longeval_test\\test-collection\\B-Long-September\\English\\Documents\\Json";
+        // FILL: French documents path
+        final String frDocsPath = "D:\\longeval_test\\test-collection\\B-Long-September\\French\\Documents\\Json";
+        // FILL: the variants to build
+        final List<IndexVariant> variants = List.of(
+                new IndexVariant("D:\\created_indexes\\test_long\\2023_05_11_multilingual_3gram_synonym", 3, false),
+                new IndexVariant("D:\\created_indexes\\test_long\\2023_05_11_multilingual_4gram_synonym", 4, false),
+                new IndexVariant("D:\\created_indexes\\test_long\\2023_05_11_multilingual_5gram_synonym", 5, false),
+                new IndexVariant("D:\\created_indexes\\test_long\\2023_05_13_multilingual_4gram_synonym_ner", 4, true));
+
+        // FILL: extension of the files containing documents
+        final String extension = "json";
+        // FILE: number of expected documents
+        final int expectedDocs = 1081334;
+        final String charsetName = "ISO-8859-1";
+        // FILL: the document parser (MappedLongEvalParser parses the files faster than LongEvalParser)
+        final Class<? extends DocumentParser> dpCls = MappedLongEvalParser.class;
+        // FILL: number of threads indexing documents concurrently
+        final int numThreads = Runtime.getRuntime().availableProcessors();
+
+        // FILL: directory of the NER cache, shared by all the indexes and collections
+        final String nerCachePath = "D:\\created_indexes\\ner_cache";
+
+        try (NERCache nerCache = new NERCache(Paths.get(nerCachePath))) {
+            final MultiVariantIndexer i = new MultiVariantIndexer(new EnglishAnalyzer(), new FrenchAnalyzer(),
+                    new NERAnalyzer(nerCache), new BM25Similarity(), IndexingProfile.bulk(ramBuffer, forceMergeSegments),
+                    variants, enDocsPath, frDocsPath, extension, charsetName, expectedDocs, dpCls, numThreads);
+            i.index();
+
+            NERTaggerPool.printStatistics();
+            nerCache.printStatistics();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package index;
 
 import analyze.FrenchAnalyzer;
 import analyze.NERAnalyzer;
+import analyze.NERCache;
+import analyze.NERTaggerPool;
 import analyze.NGramAnalyzer;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.en.EnglishAnalyzer;
@@ -9,6 +11,7 @@ import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.similarities.BM25Similarity;
@@ -17,12 +20,10 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.BytesRef;
 import parse.DocumentParser;
-import parse.LongEvalParser;
+import parse.MappedLongEvalParser;
 import parse.ParsedDocument;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.file.*;
 import java.util.*;
 
@@ -35,14 +36,20 @@ import java.util.*;
  */
 public class MultilingualDirectoryIndexer {
 
-    // One megabyte
-    private static final int MBYTE = 1024 * 1024;
-
     // The index writer
     private final IndexWriter writer;
 
-    // The class of the {@code DocumentParser} to be used.
-    private final Class<? extends DocumentParser> dpCls;
+    // How the index writer is configured, and what is done once all the documents are added.
+    private final IndexingProfile profile;
+
+    // Where the time spent building the index goes.
+    private final IndexingStatistics indexingStats = new IndexingStatistics();
+
+    // The file pairs completely indexed, committed periodically with the index.
+    private final IndexCheckpoint checkpoint;
+
+    // Whether an existing index is being updated, rather than a new one built.
+    private final boolean updating;
 
     // The directory where the index is stored.
     private final Path indexDir;
@@ -53,29 +60,36 @@ public class MultilingualDirectoryIndexer {
     // The directory (and sub-directories) where French documents are stored.
     private final Path frDocsDir;
 
-    // The extension of the files to be indexed.
-    private final String extension;
-
-    // The charset used for encoding documents.
-    private final Charset cs;
+    // Lists, parses and counts the file pairs, handing them out to the indexing threads.
+    private final FilePairIndexer pairIndexer;
 
     /**
-     * The total number of documents expected to be indexed. For every document there will be two versions (English and
-     * French), the count is 1, not 2.
+     * Creates a new indexer.
+     *
+     * @param enAnalyzer      the {@code Analyzer} to be used for the English documents.
+     * @param frAnalyzer      the {@code Analyzer} to be used for the French documents.
+     * @param ngramAnalyzer   the {@code Analyzer} to be used for N-Gram field of documents.
+     * @param nerAnalyzer     the {@code Analyzer} to be used for NER extracted information from documents.
+     * @param similarity      the {@code Similarity} to be used.
+     * @param ramBufferSizeMB the size in megabytes of the RAM buffer for indexing documents.
+     * @param indexPath       the directory where to store the index.
+     * @param enDocsPath      the directory from which English documents have to be read.
+     * @param frDocsPath      the directory from which French documents have to be read.
+     * @param extension       the extension of the files to be indexed.
+     * @param charsetName     the name of the charset used for encoding documents.
+     * @param expectedDocs    the total number of documents expected to be indexed
+     * @param dpCls           the class of the {@code DocumentParser} to be used.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
      */
-    private final long expectedDocs;
-
-    // The start instant of the indexing.
-    private final long start;
-
-    // The total number of indexed files.
-    private long filesCount;
-
-    // The total number of indexed documents.
-    private long docsCount;
-
-    // The total number of indexed bytes
-    private long bytesCount;
+    public MultilingualDirectoryIndexer(final Analyzer enAnalyzer, final Analyzer frAnalyzer,
+                                        final Analyzer ngramAnalyzer, final Analyzer nerAnalyzer, final Similarity similarity,
+                                        final int ramBufferSizeMB, final String indexPath, final String enDocsPath,
+                                        final String frDocsPath, final String extension, final String charsetName,
+                                        final long expectedDocs, final Class<? extends DocumentParser> dpCls) {
+        this(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer, similarity, ramBufferSizeMB, indexPath, enDocsPath,
+                frDocsPath, extension, charsetName, expectedDocs, dpCls, 1);
+    }
 
     /**
      * Creates a new indexer.
@@ -93,6 +107,7 @@ public class MultilingualDirectoryIndexer {
      * @param charsetName     the name of the charset used for encoding documents.
      * @param expectedDocs    the total number of documents expected to be indexed
      * @param dpCls           the class of the {@code DocumentParser} to be used.
+     * @param numThreads      the number of threads indexing file pairs concurrently.
      * @throws NullPointerException     if any of the parameters is {@code null}.
      * @throws IllegalArgumentException if any of the parameters assumes invalid values.
      */
@@ -100,13 +115,80 @@ public class MultilingualDirectoryIndexer {
                                         final Analyzer ngramAnalyzer, final Analyzer nerAnalyzer, final Similarity similarity,
                                         final int ramBufferSizeMB, final String indexPath, final String enDocsPath,
                                         final String frDocsPath, final String extension, final String charsetName,
-                                        final long expectedDocs, final Class<? extends DocumentParser> dpCls) {
-        // dpCls
-        if (dpCls == null) {
-            throw new NullPointerException("Document parser class cannot be null.");
-        }
-        this.dpCls = dpCls;
+                                        final long expectedDocs, final Class<? extends DocumentParser> dpCls,
+                                        final int numThreads) {
+        this(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer, similarity, IndexingProfile.rebuild(ramBufferSizeMB),
+                indexPath, enDocsPath, frDocsPath, extension, charsetName, expectedDocs, dpCls, numThreads);
+    }
+
+    /**
+     * Creates a new indexer.
+     *
+     * @param enAnalyzer    the {@code Analyzer} to be used for the English documents.
+     * @param frAnalyzer    the {@code Analyzer} to be used for the French documents.
+     * @param ngramAnalyzer the {@code Analyzer} to be used for N-Gram field of documents.
+     * @param nerAnalyzer   the {@code Analyzer} to be used for NER extracted information from documents.
+     * @param similarity    the {@code Similarity} to be used.
+     * @param profile       how the index writer is configured, and what is done once all the documents are added.
+     * @param indexPath     the directory where to store the index.
+     * @param enDocsPath    the directory from which English documents have to be read.
+     * @param frDocsPath    the directory from which French documents have to be read.
+     * @param extension     the extension of the files to be indexed.
+     * @param charsetName   the name of the charset used for encoding documents.
+     * @param expectedDocs  the total number of documents expected to be indexed
+     * @param dpCls         the class of the {@code DocumentParser} to be used.
+     * @param numThreads    the number of threads indexing file pairs concurrently.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    public MultilingualDirectoryIndexer(final Analyzer enAnalyzer, final Analyzer frAnalyzer,
+                                        final Analyzer ngramAnalyzer, final Analyzer nerAnalyzer, final Similarity similarity,
+                                        final IndexingProfile profile, final String indexPath, final String enDocsPath,
+                                        final String frDocsPath, final String extension, final String charsetName,
+                                        final long expectedDocs, final Class<? extends DocumentParser> dpCls,
+                                        final int numThreads) {
+        this(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer, similarity, profile, indexPath, enDocsPath, frDocsPath,
+                extension, charsetName, expectedDocs, dpCls, numThreads, 0, false);
+    }
 
+    /**
+     * Creates a new indexer.
+     *
+     * When updating, the index in {@code indexPath} is opened in append mode as it was at its last commit, either the
+     * last checkpoint of an interrupted run or the end of a run on an earlier snapshot of the collection. Only the file
+     * pairs which are new or have changed since, according to the manifest of the index, are indexed: their documents
+     * replace the ones with the same identifier, the documents of their previous version which are gone are deleted,
+     * as are the documents of the pairs removed from the collection. If there is no index to update, a new one is
+     * built. With a profile with exact statistics, the replaced and deleted documents are merged away at the end, see
+     * {@link IndexingProfile#finish(IndexWriter, IndexingStatistics)}, so that the statistics of the terms, and the
+     * scores, are the same as the ones of an index built from scratch.
+     *
+     * @param enAnalyzer        the {@code Analyzer} to be used for the English documents.
+     * @param frAnalyzer        the {@code Analyzer} to be used for the French documents.
+     * @param ngramAnalyzer     the {@code Analyzer} to be used for N-Gram field of documents.
+     * @param nerAnalyzer       the {@code Analyzer} to be used for NER extracted information from documents.
+     * @param similarity        the {@code Similarity} to be used.
+     * @param profile           how the index writer is configured, and what is done once all the documents are added.
+     * @param indexPath         the directory where to store the index.
+     * @param enDocsPath        the directory from which English documents have to be read.
+     * @param frDocsPath        the directory from which French documents have to be read.
+     * @param extension         the extension of the files to be indexed.
+     * @param charsetName       the name of the charset used for encoding documents.
+     * @param expectedDocs      the total number of documents expected to be indexed
+     * @param dpCls             the class of the {@code DocumentParser} to be used.
+     * @param numThreads        the number of threads indexing file pairs concurrently.
+     * @param checkpointSeconds the time in seconds between two commits of the completed file pairs, or {@code 0} not to
+     *                          commit until the end.
+     * @param update            whether to update the index in {@code indexPath}, if any.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    public MultilingualDirectoryIndexer(final Analyzer enAnalyzer, final Analyzer frAnalyzer,
+                                        final Analyzer ngramAnalyzer, final Analyzer nerAnalyzer, final Similarity similarity,
+                                        final IndexingProfile profile, final String indexPath, final String enDocsPath,
+                                        final String frDocsPath, final String extension, final String charsetName,
+                                        final long expectedDocs, final Class<? extends DocumentParser> dpCls,
+                                        final int numThreads, final long checkpointSeconds, final boolean update) {
         // enAnalyzer
         if (enAnalyzer == null) {
             throw new NullPointerException("English analyzer cannot be null.");
@@ -132,26 +214,11 @@ public class MultilingualDirectoryIndexer {
             throw new NullPointerException("Similarity cannot be null.");
         }
 
-        // ramBufferSizeMB
-        if (ramBufferSizeMB <= 0) {
-            throw new IllegalArgumentException("RAM buffer size cannot be less than or equal to zero.");
+        // profile
+        if (profile == null) {
+            throw new NullPointerException("Indexing profile cannot be null.");
         }
-
-        // To apply different analyzers to different fields of documents
-        // Taken from: https://www.baeldung.com/lucene-analyzers
-        Map<String, Analyzer> analyzerMap = new HashMap<>();
-        analyzerMap.put(ParsedDocument.FIELDS.ENGLISH_BODY, enAnalyzer);
-        analyzerMap.put(ParsedDocument.FIELDS.FRENCH_BODY, frAnalyzer);
-        analyzerMap.put(ParsedDocument.FIELDS.N_GRAM, ngramAnalyzer);
-        analyzerMap.put(ParsedDocument.FIELDS.NER, nerAnalyzer);
-        PerFieldAnalyzerWrapper wrapper = new PerFieldAnalyzerWrapper(new StandardAnalyzer(), analyzerMap);
-
-        final IndexWriterConfig indexConfig = new IndexWriterConfig(wrapper);
-        indexConfig.setSimilarity(similarity);
-        indexConfig.setRAMBufferSizeMB(ramBufferSizeMB);
-        indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
-        indexConfig.setCommitOnClose(true);
-        indexConfig.setUseCompoundFile(true);
+        this.profile = profile;
 
         // indexPath
         if (indexPath == null) {
@@ -182,213 +249,252 @@ public class MultilingualDirectoryIndexer {
         }
         this.indexDir = indexDir;
 
-        // enDocsPath
-        if (enDocsPath == null) {
-            throw new NullPointerException("English documents path cannot be null.");
-        }
-        if (enDocsPath.isEmpty()) {
-            throw new IllegalArgumentException("English documents path cannot be empty.");
-        }
-        final Path enDocsDir = Paths.get(enDocsPath);
-        if (!Files.isReadable(enDocsDir)) {
-            throw new IllegalArgumentException(
-                    String.format("English documents directory %s cannot be read.", enDocsDir.toAbsolutePath()));
-        }
-        if (!Files.isDirectory(enDocsDir)) {
-            throw new IllegalArgumentException(
-                    String.format("%s expected to be a directory of documents.", enDocsDir.toAbsolutePath()));
-        }
-        this.enDocsDir = enDocsDir;
+        // enDocsPath and frDocsPath
+        this.enDocsDir = FilePairIndexer.documentsDirectory(enDocsPath, "English");
+        this.frDocsDir = FilePairIndexer.documentsDirectory(frDocsPath, "French");
 
-        // frDocsPath
-        if (frDocsPath == null) {
-            throw new NullPointerException("French documents path cannot be null.");
-        }
-        if (frDocsPath.isEmpty()) {
-            throw new IllegalArgumentException("French documents path cannot be empty.");
-        }
-        final Path frDocsDir = Paths.get(frDocsPath);
-        if (!Files.isReadable(frDocsDir)) {
-            throw new IllegalArgumentException(
-                    String.format("French documents directory %s cannot be read.", frDocsDir.toAbsolutePath()));
-        }
-        if (!Files.isDirectory(frDocsDir)) {
-            throw new IllegalArgumentException(
-                    String.format("%s expected to be a directory of documents.", frDocsDir.toAbsolutePath()));
-        }
-        this.frDocsDir = frDocsDir;
+        // extension, charsetName, dpCls, numThreads and expectedDocs
+        this.pairIndexer = new FilePairIndexer(extension, charsetName, dpCls, numThreads, expectedDocs);
 
-        // extension
-        if (extension == null) {
-            throw new NullPointerException("File extension cannot be null.");
-        }
-        if (extension.isEmpty()) {
-            throw new IllegalArgumentException("File extension cannot be empty.");
+        // checkpointSeconds
+        if (checkpointSeconds < 0) {
+            throw new IllegalArgumentException("Checkpoint interval cannot be negative.");
         }
-        this.extension = extension;
 
-        // charsetName
-        if (charsetName == null) {
-            throw new NullPointerException("Charset name cannot be null.");
-        }
-        if (charsetName.isEmpty()) {
-            throw new IllegalArgumentException("Charset name cannot be empty.");
-        }
+        final IndexWriterConfig indexConfig = profile.config(
+                fieldAnalyzer(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer), similarity, numThreads,
+                indexingStats);
 
+        // Create the IndexWritter object, on the existing index when updating
         try {
-            cs = Charset.forName(charsetName);
-        } catch (Exception e) {
-            throw new IllegalArgumentException(
-                    String.format("Unable to create the charset %s: %s.", charsetName, e.getMessage()), e);
-        }
-
-        // expectedDocs
-        if (expectedDocs <= 0) {
-            throw new IllegalArgumentException(
-                    "The expected number of documents to be indexed cannot be less than or equal to zero.");
-        }
-        this.expectedDocs = expectedDocs;
+            final Directory dir = indexingStats.directory(FSDirectory.open(indexDir));
+
+            updating = update && DirectoryReader.indexExists(dir);
+            if (updating) {
+                try {
+                    checkIdDocValues(dir, indexDir);
+                } catch (IllegalArgumentException e) {
+                    dir.close();
+                    throw e;
+                }
 
-        // Set all the counts to 0
-        this.docsCount = 0;
-        this.bytesCount = 0;
-        this.filesCount = 0;
+                indexConfig.setOpenMode(IndexWriterConfig.OpenMode.APPEND);
+                checkpoint = IndexCheckpoint.read(dir, checkpointSeconds);
+            } else {
+                if (update) {
+                    System.out.printf("No index to update in %s: building a new one.%n", indexDir.toAbsolutePath());
+                }
+                checkpoint = IndexCheckpoint.empty(checkpointSeconds);
+            }
 
-        // Create the IndexWritter object
-        try {
-            writer = new IndexWriter(FSDirectory.open(indexDir), indexConfig);
+            writer = new IndexWriter(dir, indexConfig);
         } catch (IOException e) {
             throw new IllegalArgumentException(String.format("Unable to create the index writer in directory %s: %s.",
                     indexDir.toAbsolutePath(), e.getMessage()), e);
         }
 
-        this.start = System.currentTimeMillis();
     }
 
     /**
-     * Indexes the documents.
+     * Checks that an index to update has the doc values of the document identifiers. Indexes built before they were
+     * added do not have them, and Lucene does not allow to add doc values to a field indexed without.
      *
-     * @throws IOException if something goes wrong while indexing.
+     * @param dir      the directory of the index.
+     * @param indexDir the path of the index.
+     * @throws IOException              if the index cannot be read.
+     * @throws IllegalArgumentException if the index has no doc values for the document identifiers.
      */
-    public void index() throws IOException {
+    private static void checkIdDocValues(final Directory dir, final Path indexDir) throws IOException {
 
-        System.out.printf("%n#### Start indexing ####%n");
+        try (DirectoryReader reader = DirectoryReader.open(dir)) {
+            final FieldInfo id = FieldInfos.getMergedFieldInfos(reader).fieldInfo(ParsedDocument.FIELDS.ID);
 
-        // Create an iterator to access every file in the English directory (enFileIterator)
-        File[] enFiles = enDocsDir.toFile().listFiles();
-        Iterator<File> enFileIterator;
-        if (enFiles != null) {
-            enFiles = deleteWithoutExtension(enFiles, extension);
-            enFileIterator = Arrays.stream(enFiles).iterator();
-        } else {
-            throw new RuntimeException("List of files in English documents directory is null");
+            if (id != null && id.getDocValuesType() != DocValuesType.SORTED) {
+                throw new IllegalArgumentException(String.format("The index in %s has no doc values for the document "
+                        + "identifiers, so it cannot be updated: rebuild it from scratch.", indexDir.toAbsolutePath()));
+            }
         }
+    }
 
-        // Create an iterator to access every file in the French directory (frFileIterator)
-        File[] frFiles = frDocsDir.toFile().listFiles();
-        Iterator<File> frFileIterator;
-        if (frFiles != null) {
-            frFiles = deleteWithoutExtension(frFiles, extension);
-            frFileIterator = Arrays.stream(frFiles).iterator();
-        } else {
-            throw new RuntimeException("List of files in French documents directory is null");
-        }
+    /**
+     * Returns the analyzer applying a different analyzer to each field of the multilingual documents.
+     *
+     * @param enAnalyzer    the {@code Analyzer} to be used for the English documents.
+     * @param frAnalyzer    the {@code Analyzer} to be used for the French documents.
+     * @param ngramAnalyzer the {@code Analyzer} to be used for N-Gram field of documents.
+     * @param nerAnalyzer   the {@code Analyzer} to be used for NER extracted information from documents.
+     * @return the analyzer of the multilingual documents.
+     */
+    public static Analyzer fieldAnalyzer(final Analyzer enAnalyzer, final Analyzer frAnalyzer,
+                                         final Analyzer ngramAnalyzer, final Analyzer nerAnalyzer) {
+        // To apply different analyzers to different fields of documents
+        // Taken from: https://www.baeldung.com/lucene-analyzers
+        Map<String, Analyzer> analyzerMap = new HashMap<>();
+        analyzerMap.put(ParsedDocument.FIELDS.ENGLISH_BODY, enAnalyzer);
+        analyzerMap.put(ParsedDocument.FIELDS.FRENCH_BODY, frAnalyzer);
+        analyzerMap.put(ParsedDocument.FIELDS.N_GRAM, ngramAnalyzer);
+        analyzerMap.put(ParsedDocument.FIELDS.NER, nerAnalyzer);
+        return new PerFieldAnalyzerWrapper(new StandardAnalyzer(), analyzerMap);
+    }
 
-        long elapsedTime;
+    /**
+     * Creates the Lucene document for the English and French versions of a document.
+     *
+     * @param enParDoc the English version of the document.
+     * @param frParDoc the French version of the document.
+     * @return the Lucene document to be indexed.
+     */
+    public static Document document(final ParsedDocument enParDoc, final ParsedDocument frParDoc) {
 
-        while (enFileIterator.hasNext() && frFileIterator.hasNext()) {
-            Path enFile = enFileIterator.next().toPath();
-            Path frFile = frFileIterator.next().toPath();
+        Document doc = new Document();
 
-            bytesCount += Files.size(enFile) + Files.size(frFile);
-            filesCount += 2;
+        // add the document identifier
+        doc.add(new StringField(ParsedDocument.FIELDS.ID, enParDoc.getIdentifier(), Field.Store.YES));
 
-            // Create a document parser for English documents
-            DocumentParser enDp = DocumentParser.create(dpCls, Files.newBufferedReader(enFile, cs));
+        // add the document identifier as doc values too, to look it up quickly when writing runs
+        doc.add(new SortedDocValuesField(ParsedDocument.FIELDS.ID, new BytesRef(enParDoc.getIdentifier())));
 
-            // Create a document parser for French documents
-            DocumentParser frDp = DocumentParser.create(dpCls, Files.newBufferedReader(frFile, cs));
+        // add the English document body
+        doc.add(new EnglishBodyField(enParDoc.getBody()));
 
-            // Create an iterator for the English documents
-            Iterator<ParsedDocument> enParDocIterator = enDp.iterator();
+        // add the French document body
+        doc.add(new FrenchBodyField(frParDoc.getBody()));
 
-            // Create an iterator for the French documents
-            Iterator<ParsedDocument> frParDocIterator = frDp.iterator();
+        // add the English body followed by the French body to generate the N-Gram, read without concatenating them
+        // note that the N-Gram will be generated by the class NGramAnalyzer using this field content
+        doc.add(new NGramField(new BilingualBodyReader(enParDoc.getBody(), frParDoc.getBody())));
 
-            while (enParDocIterator.hasNext() && frParDocIterator.hasNext()) {
-                ParsedDocument enParDoc = enParDocIterator.next();
-                ParsedDocument frParDoc = frParDocIterator.next();
+        // add the French body to extract NER information
+        // note that the NER information will be generated by the class NERAnalyzer using this field content
+        // we take the French version of the documents, because it is the original, the English one is a translation
+        doc.add(new NERBodyField(frParDoc.getBody()));
 
-                if (!enParDoc.getIdentifier().equals(frParDoc.getIdentifier())) {
-                    throw new RuntimeException("English and French versions of a document don't have the same ID");
-                }
+        return doc;
+    }
 
-                Document doc = new Document();
+    /**
+     * Indexes the documents.
+     *
+     * With a single thread the file pairs are indexed in the order of their names. With more threads, the pairs are
+     * handed out to the workers largest first, so that the last pairs to be indexed are the small ones and no worker
+     * is left alone with a big file at the end.
+     *
+     * @throws IOException if something goes wrong while indexing.
+     */
+    public void index() throws IOException {
 
-                // add the document identifier
-                doc.add(new StringField(ParsedDocument.FIELDS.ID, enParDoc.getIdentifier(), Field.Store.YES));
+        System.out.printf("%n#### Start indexing ####%n");
 
-                // add the English document body
-                doc.add(new EnglishBodyField(enParDoc.getBody()));
+        final List<FilePairIndexer.FilePair> pairs = pairIndexer.listFilePairs(enDocsDir, frDocsDir);
 
-                // add the French document body
-                doc.add(new FrenchBodyField(frParDoc.getBody()));
+        if (updating) {
+            selectPairsToUpdate(pairs);
+        }
 
-                // add the English body concatenated to the French body to generate the N-Gram
-                // note that the N-Gram will be generated by the class NGramAnalyzer using this field content
-                doc.add(new NGramField(enParDoc.getBody() + " " +frParDoc.getBody()));
+        pairIndexer.forEachPair(pairs, this::indexFilePair);
 
-                // add the French body to extract NER information
-                // note that the NER information will be generated by the class NERAnalyzer using this field content
-                // we take the French version of the documents, because it is the original, the English one is a translation
-                doc.add(new NERBodyField(frParDoc.getBody()));
+        checkpoint.record(writer);
+        profile.finish(writer, indexingStats);
+        writer.close();
 
-                writer.addDocument(doc);
+        pairIndexer.printTotals(null);
 
-                docsCount++;
+        indexingStats.print(profile, writer.getDirectory());
 
-                // print progress every 1000 indexed documents
-                if (docsCount % 1000 == 0) {
-                    elapsedTime = (System.currentTimeMillis() - start) / 1000;
+        System.out.printf("#### Indexing complete ####%n");
+    }
 
-                    System.out.printf("%d document(s) in both languages (%d files, %d Mbytes) indexed in %d seconds.%n",
-                            docsCount, filesCount, bytesCount / MBYTE,
-                            elapsedTime);
+    /**
+     * Keeps only the file pairs to be indexed into the index being updated, i.e. the new ones and the ones which have
+     * changed, and deletes the documents of the pairs no longer in the collection.
+     *
+     * @param pairs the file pairs in the collection; the ones already in the index are removed.
+     * @throws IOException if a file cannot be read or the documents cannot be deleted.
+     */
+    private void selectPairsToUpdate(final List<FilePairIndexer.FilePair> pairs) throws IOException {
 
-                    System.out.printf("\tEstimated remaining time (%d/%d processed): %d second(s).%n",
-                            docsCount, expectedDocs,
-                            (long)((double)expectedDocs * elapsedTime / (double)docsCount) - elapsedTime);
-                }
+        final Set<String> removed = new HashSet<>(checkpoint.names());
+        int unchanged = 0;
+        int changed = 0;
+
+        for (Iterator<FilePairIndexer.FilePair> it = pairs.iterator(); it.hasNext(); ) {
+            final FilePairIndexer.FilePair pair = it.next();
+            final IndexManifest.Entry entry = checkpoint.get(pair.name);
+
+            removed.remove(pair.name);
+
+            if (entry == null) {
+                continue;
             }
-        }
 
-        writer.commit();
-        writer.close();
+            // a different size is enough to tell a pair has changed, without hashing its files
+            if (entry.size == pair.size && entry.hash.equals(pair.hash())) {
+                it.remove();
+                unchanged++;
 
-        if (docsCount != expectedDocs) {
-            System.out.printf("Expected to index %d documents (in both languages); %d indexed instead.%n", expectedDocs, docsCount);
+                pairIndexer.skipped(pair, entry.docs);
+            } else {
+                changed++;
+            }
         }
 
-        System.out.printf("%d document(s) in both languages (%d files, %d Mbytes) indexed in %d seconds.%n", docsCount, filesCount,
-                bytesCount / MBYTE, (System.currentTimeMillis() - start) / 1000);
+        for (String name : removed) {
+            writer.deleteDocuments(new Term(ParsedDocument.FIELDS.FILE, fileId(name, checkpoint.get(name).hash)));
+            checkpoint.removed(name);
+        }
 
-        System.out.printf("#### Indexing complete ####%n");
+        System.out.printf("Updating the index: %d unchanged (%d documents), %d changed, %d new and %d removed file " +
+                "pair(s).%n", unchanged, pairIndexer.docsCount(), changed, pairs.size() - changed, removed.size());
     }
 
     /**
-     * Given an array of files, delete those files not having the specified extension.
+     * Indexes all the documents contained in a pair of English/French files. It can be called concurrently by
+     * several threads.
      *
-     * @param files array of files from which files without the extension will be deleted.
-     * @param extension extension of files of the resulting array.
-     * @return array of files with the specified extension.
+     * @param pair the pair of files to be indexed.
+     * @return the number of documents indexed from the pair.
+     * @throws IOException if something goes wrong while indexing.
      */
-    private File[] deleteWithoutExtension(File[] files, String extension) {
-        List<File> result = new ArrayList<>();
-        for (File f : files) {
-            if (f.toPath().getFileName().toString().endsWith(extension))
-                result.add(f);
+    private long indexFilePair(final FilePairIndexer.FilePair pair) throws IOException {
+
+        final String hash = pair.hash();
+        final String fileId = fileId(pair.name, hash);
+
+        final long pairDocs = pairIndexer.forEachDocument(pair, (enParDoc, frParDoc) -> {
+            final Document doc = document(enParDoc, frParDoc);
+            doc.add(new StringField(ParsedDocument.FIELDS.FILE, fileId, Field.Store.NO));
+
+            final long addStart = System.nanoTime();
+            if (updating) {
+                // the document may be in the index already: in the previous version of the pair, or in this one if
+                // the pair was in progress at the last checkpoint of an interrupted run
+                writer.updateDocument(new Term(ParsedDocument.FIELDS.ID, enParDoc.getIdentifier()), doc);
+            } else {
+                writer.addDocument(doc);
+            }
+            indexingStats.addDocument(System.nanoTime() - addStart);
+        });
+
+        // the documents of the previous version of the pair not replaced by the ones of this version
+        final IndexManifest.Entry previous = checkpoint.get(pair.name);
+        if (previous != null && !previous.hash.equals(hash)) {
+            writer.deleteDocuments(new Term(ParsedDocument.FIELDS.FILE, fileId(pair.name, previous.hash)));
         }
-        return result.toArray(new File[0]);
+
+        checkpoint.completed(writer, pair.name, new IndexManifest.Entry(pair.size, hash, pairDocs));
+
+        return pairDocs;
+    }
+
+    /**
+     * Returns the value of the {@link ParsedDocument.FIELDS#FILE} field of the documents of a version of a file pair.
+     *
+     * @param name the name of the pair.
+     * @param hash the hash of the content of the pair.
+     * @return the value of the field.
+     */
+    private static String fileId(final String name, final String hash) {
+        return name + '@' + hash;
     }
 
     /**
@@ -468,7 +574,9 @@ public class MultilingualDirectoryIndexer {
      * @throws Exception if something goes wrong while indexing.
      */
     public static void main(String[] args) throws Exception {
+        // FILL: the RAM buffer of each indexing thread, and the number of segments of the final index (0 not to merge)
         final int ramBuffer = 256;
+        final int forceMergeSegments = 1;
         // FILL: English documents path
         final String enDocsPath = "D:\\longeval_test\\test-collection\\B-Long-September\\English\\Documents\\Json";
         // FILL: French documents path
@@ -482,18 +590,38 @@ public class MultilingualDirectoryIndexer {
         // FILE: number of expected documents
         final int expectedDocs = 1081334;
         final String charsetName = "ISO-8859-1";
+        // FILL: the document parser (MappedLongEvalParser parses the files faster than LongEvalParser)
+        final Class<? extends DocumentParser> dpCls = MappedLongEvalParser.class;
+        // FILL: number of threads indexing documents concurrently
+        final int numThreads = Runtime.getRuntime().availableProcessors();
+        // FILL: seconds between two checkpoints (0 not to commit until the end), whether to update an existing index
+        final long checkpointSeconds = 10 * 60;
+        final boolean update = false;
+        // FILL: whether to merge away all the replaced and deleted documents at the end, for the same scores as a full
+        // build: needed to resume an interrupted run, while a refresh with a new snapshot would rewrite most of the index
+        final boolean exactStatistics = true;
 
         final EnglishAnalyzer enAn = new EnglishAnalyzer();
         final FrenchAnalyzer frAn = new FrenchAnalyzer();
         NGramAnalyzer ngramAn;
         ngramAn = new NGramAnalyzer(4);
-        final NERAnalyzer nerAnalyzer = new NERAnalyzer();
 
-        MultilingualDirectoryIndexer i;
+        // FILL: directory of the NER cache, shared by all the indexes and collections
+        final String nerCachePath = "D:\\created_indexes\\ner_cache";
 
-        i = new MultilingualDirectoryIndexer(enAn, frAn, ngramAn, nerAnalyzer, new BM25Similarity(),
-                ramBuffer, indexPath, enDocsPath, frDocsPath, extension, charsetName, expectedDocs,
-                LongEvalParser.class);
-        i.index();
+        try (NERCache nerCache = new NERCache(Paths.get(nerCachePath))) {
+            final NERAnalyzer nerAnalyzer = new NERAnalyzer(nerCache);
+
+            MultilingualDirectoryIndexer i;
+
+            i = new MultilingualDirectoryIndexer(enAn, frAn, ngramAn, nerAnalyzer, new BM25Similarity(),
+                    IndexingProfile.bulk(ramBuffer, forceMergeSegments).withExactStatistics(exactStatistics), indexPath,
+                    enDocsPath, frDocsPath, extension, charsetName, expectedDocs, dpCls, numThreads, checkpointSeconds,
+                    update);
+            i.index();
+
+            NERTaggerPool.printStatistics();
+            nerCache.printStatistics();
+        }
     }
 }
\ No newline at end of file
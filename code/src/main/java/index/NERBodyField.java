@@ -1,5 +1,6 @@
 package index;
 
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.index.IndexOptions;
@@ -46,4 +47,14 @@ public class NERBodyField extends Field
     public NERBodyField(final String value) {
         super(ParsedDocument.FIELDS.NER, value, NER_TYPE);
     }
+
+    /**
+     * Create a new field for the NER information of a document,
+     * from tokens already produced by an analyzer (e.g. to share the same analysis among several indexes).
+     *
+     * @param value the already analyzed tokens of the NER information of a document.
+     */
+    public NERBodyField(final TokenStream value) {
+        super(ParsedDocument.FIELDS.NER, value, NER_TYPE);
+    }
 }
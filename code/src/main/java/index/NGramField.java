@@ -1,5 +1,6 @@
 package index;
 
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.index.IndexOptions;
@@ -50,4 +51,14 @@ public class NGramField extends Field
     public NGramField(final String value) {
         super(ParsedDocument.FIELDS.N_GRAM, value, N_GRAM_TYPE);
     }
+
+    /**
+     * Create a new field for the character N-Gram of the English and French versions of the documents,
+     * from tokens already produced by an analyzer (e.g. to share the same analysis among several indexes).
+     *
+     * @param value the already analyzed character N-Grams of a document.
+     */
+    public NGramField(final TokenStream value) {
+        super(ParsedDocument.FIELDS.N_GRAM, value, N_GRAM_TYPE);
+    }
 }
@@ -0,0 +1,446 @@
+package index;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IOUtils;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A temporal index of the LongEval snapshots: a base index with the documents shared by the snapshots, and a delta
+ * index for each snapshot with the documents it adds or changes and a tombstone for every document of the base it
+ * removes or changes. The layout is built by {@link TemporalIndexer}.
+ *
+ * A snapshot is searched opening its delta: the base is found through the user data of the delta, and the two are
+ * combined in a {@link MultiReader} which hides the tombstones and the documents of the base they remove. The term and
+ * collection statistics of the removed documents are subtracted as well, so that the scores, and the rankings, are
+ * the same as the ones of a whole index of the snapshot.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class TemporalIndex {
+
+    /**
+     * The directory of the base index in the layout.
+     */
+    public static final String BASE = "base";
+
+    /**
+     * The field of the tombstones in a delta index, with the identifier of the document of the base they remove.
+     */
+    static final String TOMBSTONE = "tombstone";
+
+    /**
+     * The doc values field of the base index with the fingerprint of the content of each document.
+     */
+    static final String FINGERPRINT = "fingerprint";
+
+    /**
+     * The key of the user data of a delta index with the path of its base, relative to the delta.
+     */
+    static final String BASE_PATH_KEY = "temporal.base";
+
+    /**
+     * The key of the user data of a delta index with the generation of the commit of the base it was built on.
+     */
+    static final String BASE_GENERATION_KEY = "temporal.base.generation";
+
+    /**
+     * The key of the user data of a delta index with the name of its snapshot.
+     */
+    static final String SNAPSHOT_KEY = "temporal.snapshot";
+
+    /**
+     * The key of the user data of a delta index with the statistics of the documents of the base it removes, as lines
+     * of tab-separated values: segment, field, document count, sum of the document frequencies, sum of the total term
+     * frequencies.
+     */
+    static final String REMOVED_KEY = "temporal.removed";
+
+    /**
+     * The statistics of a field over the documents of a segment removed by a snapshot.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    static final class FieldStatistics {
+
+        /**
+         * The number of documents with the field.
+         */
+        final long docCount;
+
+        /**
+         * The sum of the document frequencies of the terms of the field.
+         */
+        final long sumDocFreq;
+
+        /**
+         * The sum of the total term frequencies of the terms of the field.
+         */
+        final long sumTotalTermFreq;
+
+        /**
+         * Creates new statistics.
+         *
+         * @param docCount         the number of documents with the field.
+         * @param sumDocFreq       the sum of the document frequencies of the terms of the field.
+         * @param sumTotalTermFreq the sum of the total term frequencies of the terms of the field.
+         */
+        FieldStatistics(final long docCount, final long sumDocFreq, final long sumTotalTermFreq) {
+            this.docCount = docCount;
+            this.sumDocFreq = sumDocFreq;
+            this.sumTotalTermFreq = sumTotalTermFreq;
+        }
+    }
+
+    /**
+     * No instances: this class only opens the snapshots.
+     */
+    private TemporalIndex() {
+    }
+
+    /**
+     * Tells whether an index is the delta of a snapshot.
+     *
+     * @param dir the directory of the index.
+     * @return {@code true} if the index is a delta, {@code false} otherwise.
+     * @throws IOException if the last commit of the index cannot be read.
+     */
+    public static boolean isDelta(final Directory dir) throws IOException {
+        return SegmentInfos.readLatestCommit(dir).getUserData().containsKey(BASE_PATH_KEY);
+    }
+
+    /**
+     * Opens a snapshot, combining its delta with the base.
+     *
+     * @param deltaDir the directory of the delta index of the snapshot.
+     * @return the reader of the snapshot.
+     * @throws NullPointerException     if {@code deltaDir} is {@code null}.
+     * @throws IllegalArgumentException if the index is not a delta, or the base has changed since it was built.
+     * @throws IOException              if the indexes cannot be read.
+     */
+    public static IndexReader open(final Path deltaDir) throws IOException {
+
+        if (deltaDir == null) {
+            throw new NullPointerException("Delta index directory cannot be null.");
+        }
+
+        DirectoryReader delta = null;
+        DirectoryReader base = null;
+
+        try {
+            delta = DirectoryReader.open(FSDirectory.open(deltaDir));
+
+            final Map<String, String> userData = delta.getIndexCommit().getUserData();
+            final String basePath = userData.get(BASE_PATH_KEY);
+            if (basePath == null) {
+                throw new IllegalArgumentException(String.format("%s is not the delta index of a snapshot.",
+                        deltaDir.toAbsolutePath()));
+            }
+
+            final Path baseDir = deltaDir.resolve(basePath).normalize();
+            base = DirectoryReader.open(FSDirectory.open(baseDir));
+
+            if (!String.valueOf(base.getIndexCommit().getGeneration()).equals(userData.get(BASE_GENERATION_KEY))) {
+                throw new IllegalArgumentException(String.format(
+                        "The base index %s has changed since the delta index %s was built: rebuild the delta.",
+                        baseDir.toAbsolutePath(), deltaDir.toAbsolutePath()));
+            }
+
+            final Set<BytesRef> removed = tombstones(delta);
+
+            if (!removed.isEmpty()) {
+                // the tombstones hide themselves, and the documents they remove from the base
+                delta = new TombstoneFilterReader(delta, TOMBSTONE, removed, null);
+                base = new TombstoneFilterReader(base, ParsedDocument.FIELDS.ID, removed,
+                        readRemovedStatistics(userData));
+            }
+
+            return new MultiReader(base, delta);
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeWhileHandlingException(base, delta);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the identifiers of the documents of the base removed by a delta.
+     *
+     * @param delta the reader of the delta index.
+     * @return the identifiers of the removed documents.
+     * @throws IOException if the index cannot be read.
+     */
+    static Set<BytesRef> tombstones(final IndexReader delta) throws IOException {
+
+        final Set<BytesRef> removed = new HashSet<>();
+
+        for (LeafReaderContext leaf : delta.leaves()) {
+            final Terms terms = leaf.reader().terms(TOMBSTONE);
+            if (terms == null) {
+                continue;
+            }
+
+            final TermsEnum te = terms.iterator();
+            for (BytesRef id = te.next(); id != null; id = te.next()) {
+                removed.add(BytesRef.deepCopyOf(id));
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Returns the documents of a segment with any of the given values in a field.
+     *
+     * @param reader the reader of the segment.
+     * @param field  the field.
+     * @param values the values.
+     * @return the documents, or {@code null} if there is none.
+     * @throws IOException if the segment cannot be read.
+     */
+    static FixedBitSet matchingDocs(final LeafReader reader, final String field, final Set<BytesRef> values)
+            throws IOException {
+
+        final Terms terms = reader.terms(field);
+        if (terms == null) {
+            return null;
+        }
+
+        final TermsEnum te = terms.iterator();
+        FixedBitSet docs = null;
+        PostingsEnum pe = null;
+
+        for (BytesRef value : values) {
+            if (!te.seekExact(value)) {
+                continue;
+            }
+
+            if (docs == null) {
+                docs = new FixedBitSet(reader.maxDoc());
+            }
+
+            pe = te.postings(pe, PostingsEnum.NONE);
+            for (int doc = pe.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = pe.nextDoc()) {
+                docs.set(doc);
+            }
+        }
+
+        return docs;
+    }
+
+    /**
+     * Returns the documents of a bit set, in increasing order.
+     *
+     * @param docs the bit set.
+     * @return the documents.
+     */
+    static int[] toArray(final FixedBitSet docs) {
+
+        final int[] array = new int[docs.cardinality()];
+
+        final BitSetIterator it = new BitSetIterator(docs, array.length);
+        int i = 0;
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+            array[i++] = doc;
+        }
+
+        return array;
+    }
+
+    /**
+     * Counts how many of the given documents have the current term of an enumeration, and how many times.
+     *
+     * The postings of the term and the documents are intersected leapfrogging, so that only the blocks of the postings
+     * with any of the documents are read.
+     *
+     * @param te      the enumeration, positioned on the term.
+     * @param docs    the documents, in increasing order.
+     * @param matched where to set the documents with the term, or {@code null}.
+     * @return the document frequency and the total term frequency of the term over the documents.
+     * @throws IOException if the postings cannot be read.
+     */
+    static long[] countIn(final TermsEnum te, final int[] docs, final FixedBitSet matched) throws IOException {
+
+        long docFreq = 0;
+        long totalTermFreq = 0;
+
+        if (docs.length > 0) {
+            final PostingsEnum pe = te.postings(null, PostingsEnum.FREQS);
+
+            int i = 0;
+            int doc = pe.advance(docs[0]);
+
+            while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+                // the first of the documents not before the current posting
+                if (docs[i] < doc) {
+                    i = Arrays.binarySearch(docs, i, docs.length, doc);
+                    if (i < 0) {
+                        i = -i - 1;
+                    }
+                    if (i == docs.length) {
+                        break;
+                    }
+                }
+
+                if (docs[i] == doc) {
+                    docFreq++;
+                    totalTermFreq += pe.freq();
+
+                    if (matched != null) {
+                        matched.set(doc);
+                    }
+
+                    if (++i == docs.length) {
+                        break;
+                    }
+                }
+
+                doc = pe.advance(docs[i]);
+            }
+        }
+
+        return new long[]{docFreq, totalTermFreq};
+    }
+
+    /**
+     * Computes the statistics of the indexed fields over some documents of a segment.
+     *
+     * It reads the postings of all the terms, so it is as expensive as reading the segment: it is done once, when the
+     * delta removing the documents is built.
+     *
+     * @param reader the reader of the segment.
+     * @param docs   the documents, in increasing order.
+     * @return the statistics, by field.
+     * @throws IOException if the segment cannot be read.
+     */
+    static Map<String, FieldStatistics> statistics(final LeafReader reader, final int[] docs) throws IOException {
+
+        final Map<String, FieldStatistics> stats = new HashMap<>();
+
+        for (FieldInfo fi : reader.getFieldInfos()) {
+            if (fi.getIndexOptions() == IndexOptions.NONE) {
+                continue;
+            }
+
+            final Terms terms = reader.terms(fi.name);
+            if (terms == null) {
+                continue;
+            }
+
+            final FixedBitSet withField = new FixedBitSet(reader.maxDoc());
+            long sumDocFreq = 0;
+            long sumTotalTermFreq = 0;
+
+            final TermsEnum te = terms.iterator();
+            while (te.next() != null) {
+                final long[] counts = countIn(te, docs, withField);
+                sumDocFreq += counts[0];
+                sumTotalTermFreq += counts[1];
+            }
+
+            stats.put(fi.name, new FieldStatistics(withField.cardinality(), sumDocFreq, sumTotalTermFreq));
+        }
+
+        return stats;
+    }
+
+    /**
+     * Writes the statistics of the documents of the base removed by a delta into the user data of its commit.
+     *
+     * @param stats    the statistics, by segment and field.
+     * @param userData the user data of the commit.
+     */
+    static void writeRemovedStatistics(final Map<String, Map<String, FieldStatistics>> stats,
+                                       final Map<String, String> userData) {
+
+        final StringBuilder lines = new StringBuilder();
+
+        stats.forEach((segment, fields) -> fields.forEach((field, s) -> {
+            if (lines.length() > 0) {
+                lines.append('\n');
+            }
+            lines.append(segment).append('\t').append(field).append('\t').append(s.docCount).append('\t')
+                    .append(s.sumDocFreq).append('\t').append(s.sumTotalTermFreq);
+        }));
+
+        userData.put(REMOVED_KEY, lines.toString());
+    }
+
+    /**
+     * Reads the statistics of the documents of the base removed by a delta from the user data of its commit.
+     *
+     * @param userData the user data of the commit.
+     * @return the statistics, by segment and field.
+     * @throws IllegalArgumentException if the statistics are corrupted.
+     */
+    static Map<String, Map<String, FieldStatistics>> readRemovedStatistics(final Map<String, String> userData) {
+
+        final Map<String, Map<String, FieldStatistics>> stats = new HashMap<>();
+
+        final String lines = userData.get(REMOVED_KEY);
+        if (lines == null || lines.isEmpty()) {
+            return stats;
+        }
+
+        for (String line : lines.split("\n")) {
+            final String[] values = line.split("\t");
+
+            if (values.length != 5) {
+                throw new IllegalArgumentException(String.format("Corrupted statistics line: %s.", line));
+            }
+
+            try {
+                stats.computeIfAbsent(values[0], s -> new HashMap<>()).put(values[1], new FieldStatistics(
+                        Long.parseLong(values[2]), Long.parseLong(values[3]), Long.parseLong(values[4])));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Corrupted statistics line: %s.", line), e);
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Returns the name of the segment of a leaf reader.
+     *
+     * @param reader the leaf reader.
+     * @return the name of the segment.
+     * @throws IllegalArgumentException if the reader does not read a segment.
+     */
+    static String segmentName(final LeafReader reader) {
+
+        final LeafReader segment = FilterLeafReader.unwrap(reader);
+
+        if (!(segment instanceof SegmentReader)) {
+            throw new IllegalArgumentException(String.format("%s does not read a segment.", reader));
+        }
+
+        return ((SegmentReader) segment).getSegmentName();
+    }
+}
@@ -0,0 +1,560 @@
+package index;
+
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NERCache;
+import analyze.NGramAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import parse.DocumentParser;
+import parse.MappedLongEvalParser;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Indexes several LongEval snapshots of the same collection into a {@link TemporalIndex}: a base index with the
+ * documents which are the same in all the snapshots, and a small delta index for each snapshot.
+ *
+ * The snapshots are parsed a first time to fingerprint the content of their documents, which finds the documents they
+ * share. These are analyzed and indexed only once, into the base; the delta of each snapshot has the documents which
+ * are new or have changed since the others, and a tombstone for every document of the base which the snapshot does not
+ * have as it is.
+ *
+ * When the base is built from the same snapshots, no delta removes anything from it. With {@code update} set, the
+ * existing base is kept and only the deltas of the given snapshots are built against it, e.g. for a new snapshot: the
+ * documents of the base the snapshot has removed or changed are then hidden by its tombstones.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class TemporalIndexer {
+
+    /**
+     * A LongEval snapshot of the collection, with its English and French documents.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    public static final class Snapshot {
+
+        /**
+         * The name of the snapshot, which is also the name of the directory of its delta.
+         */
+        private final String name;
+
+        /**
+         * The directory where the English documents are stored.
+         */
+        private final Path enDocsDir;
+
+        /**
+         * The directory where the French documents are stored.
+         */
+        private final Path frDocsDir;
+
+        /**
+         * Creates a new snapshot.
+         *
+         * @param name       the name of the snapshot, which is also the name of the directory of its delta.
+         * @param enDocsPath the directory from which English documents have to be read.
+         * @param frDocsPath the directory from which French documents have to be read.
+         * @throws NullPointerException     if any of the parameters is {@code null}.
+         * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+         */
+        public Snapshot(final String name, final String enDocsPath, final String frDocsPath) {
+
+            if (name == null) {
+                throw new NullPointerException("Snapshot name cannot be null.");
+            }
+
+            if (name.isEmpty() || name.equals(TemporalIndex.BASE) || !Paths.get(name).getFileName().toString()
+                    .equals(name)) {
+                throw new IllegalArgumentException(String.format("Invalid snapshot name %s.", name));
+            }
+
+            this.name = name;
+            this.enDocsDir = FilePairIndexer.documentsDirectory(enDocsPath, "English");
+            this.frDocsDir = FilePairIndexer.documentsDirectory(frDocsPath, "French");
+        }
+
+        /**
+         * Returns the name of the snapshot.
+         *
+         * @return the name of the snapshot.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * The analyzer of the multilingual documents.
+     */
+    private final Analyzer analyzer;
+
+    /**
+     * The similarity of the writers.
+     */
+    private final Similarity similarity;
+
+    /**
+     * How the writers are configured, and what is done once all the documents are added.
+     */
+    private final IndexingProfile profile;
+
+    /**
+     * The directory of the layout: the base and the deltas are in sub-directories of it.
+     */
+    private final Path layoutDir;
+
+    /**
+     * The snapshots to be indexed.
+     */
+    private final List<Snapshot> snapshots;
+
+    /**
+     * Lists and parses the file pairs of the snapshots, handing them out to the indexing threads.
+     */
+    private final FilePairIndexer pairIndexer;
+
+    /**
+     * The number of threads parsing, analyzing and indexing file pairs concurrently.
+     */
+    private final int numThreads;
+
+    /**
+     * Whether the existing base is kept, and only the deltas are built.
+     */
+    private final boolean update;
+
+    /**
+     * Creates a new indexer.
+     *
+     * @param enAnalyzer    the {@code Analyzer} to be used for the English documents.
+     * @param frAnalyzer    the {@code Analyzer} to be used for the French documents.
+     * @param ngramAnalyzer the {@code Analyzer} to be used for N-Gram field of documents.
+     * @param nerAnalyzer   the {@code Analyzer} to be used for NER extracted information from documents.
+     * @param similarity    the {@code Similarity} to be used.
+     * @param profile       how the writers are configured; the indexes are always created anew.
+     * @param layoutPath    the directory where to store the base and the deltas.
+     * @param snapshots     the snapshots to be indexed; the base is built from the first one.
+     * @param extension     the extension of the files to be indexed.
+     * @param charsetName   the name of the charset used for encoding documents.
+     * @param dpCls         the class of the {@code DocumentParser} to be used.
+     * @param numThreads    the number of threads parsing, analyzing and indexing file pairs concurrently.
+     * @param update        whether to keep the existing base, and only build the deltas of the snapshots against it.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid values.
+     */
+    public TemporalIndexer(final Analyzer enAnalyzer, final Analyzer frAnalyzer, final Analyzer ngramAnalyzer,
+                           final Analyzer nerAnalyzer, final Similarity similarity, final IndexingProfile profile,
+                           final String layoutPath, final List<Snapshot> snapshots, final String extension,
+                           final String charsetName, final Class<? extends DocumentParser> dpCls,
+                           final int numThreads, final boolean update) {
+
+        if (enAnalyzer == null || frAnalyzer == null || ngramAnalyzer == null || nerAnalyzer == null) {
+            throw new NullPointerException("Analyzers cannot be null.");
+        }
+        this.analyzer = MultilingualDirectoryIndexer.fieldAnalyzer(enAnalyzer, frAnalyzer, ngramAnalyzer,
+                nerAnalyzer);
+
+        if (similarity == null) {
+            throw new NullPointerException("Similarity cannot be null.");
+        }
+        this.similarity = similarity;
+
+        if (profile == null) {
+            throw new NullPointerException("Indexing profile cannot be null.");
+        }
+        this.profile = profile;
+
+        if (layoutPath == null) {
+            throw new NullPointerException("Layout path cannot be null.");
+        }
+        if (layoutPath.isEmpty()) {
+            throw new IllegalArgumentException("Layout path cannot be empty.");
+        }
+        this.layoutDir = Paths.get(layoutPath);
+
+        if (update && !Files.isDirectory(layoutDir.resolve(TemporalIndex.BASE))) {
+            throw new IllegalArgumentException(String.format("No base index to update in %s.",
+                    layoutDir.toAbsolutePath()));
+        }
+
+        if (snapshots == null) {
+            throw new NullPointerException("Snapshots cannot be null.");
+        }
+        if (snapshots.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one snapshot.");
+        }
+        final Set<String> names = new HashSet<>();
+        for (Snapshot s : snapshots) {
+            if (!names.add(s.name)) {
+                throw new IllegalArgumentException(String.format("Duplicated snapshot %s.", s.name));
+            }
+        }
+        this.snapshots = List.copyOf(snapshots);
+
+        this.pairIndexer = new FilePairIndexer(extension, charsetName, dpCls, numThreads, 0);
+        this.numThreads = numThreads;
+
+        this.update = update;
+    }
+
+    /**
+     * Fingerprints the content of a document, i.e. both its versions.
+     *
+     * @param enParDoc the English version of the document.
+     * @param frParDoc the French version of the document.
+     * @return the 64-bit FNV-1a hash of the bodies of the two versions.
+     */
+    static long fingerprint(final ParsedDocument enParDoc, final ParsedDocument frParDoc) {
+
+        long hash = 0xcbf29ce484222325L;
+
+        for (String body : new String[]{enParDoc.getBody(), "\u0000", frParDoc.getBody()}) {
+            for (int i = 0, n = body.length(); i < n; i++) {
+                hash ^= body.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Indexes the snapshots.
+     *
+     * @throws IOException if something goes wrong while indexing.
+     */
+    public void index() throws IOException {
+
+        System.out.printf("%n#### Start temporal indexing of %d snapshot(s) ####%n", snapshots.size());
+
+        final long start = System.currentTimeMillis();
+
+        final Path baseDir = layoutDir.resolve(TemporalIndex.BASE);
+        final Map<String, Long> base;
+
+        if (update) {
+            base = readBase(baseDir);
+
+            System.out.printf("Base index %s: %d document(s).%n", baseDir, base.size());
+        } else {
+            // the documents which are the same in all the snapshots
+            Map<String, Long> shared = null;
+
+            for (Snapshot s : snapshots) {
+                final Map<String, Long> fingerprints = new ConcurrentHashMap<>();
+                forEachDocument(s, (en, fr) -> fingerprints.put(en.getIdentifier(), fingerprint(en, fr)));
+
+                System.out.printf("Snapshot %s: %d document(s) fingerprinted.%n", s.name, fingerprints.size());
+
+                if (shared == null) {
+                    shared = fingerprints;
+                } else {
+                    shared.entrySet().removeIf(e -> !e.getValue().equals(fingerprints.get(e.getKey())));
+                }
+            }
+
+            base = shared;
+
+            System.out.printf("%d document(s) shared by all the snapshots.%n", base.size());
+
+            buildBase(baseDir, base);
+        }
+
+        for (Snapshot s : snapshots) {
+            buildDelta(s, baseDir, base);
+        }
+
+        long size = 0;
+        try (Stream<Path> files = Files.walk(layoutDir)) {
+            for (Iterator<Path> it = files.filter(Files::isRegularFile).iterator(); it.hasNext(); ) {
+                size += Files.size(it.next());
+            }
+        }
+
+        System.out.printf("Temporal index of %d snapshot(s): %d Mbytes, built in %d seconds.%n", snapshots.size(),
+                size / 1024 / 1024, (System.currentTimeMillis() - start) / 1000);
+
+        System.out.printf("#### Temporal indexing complete ####%n");
+    }
+
+    /**
+     * Builds the base index with the documents shared by the snapshots, taking them from the first one.
+     *
+     * @param baseDir the directory of the base index.
+     * @param base    the fingerprints of the shared documents, by identifier.
+     * @throws IOException if something goes wrong while indexing.
+     */
+    private void buildBase(final Path baseDir, final Map<String, Long> base) throws IOException {
+
+        final IndexingStatistics stats = new IndexingStatistics();
+
+        try (Directory dir = stats.directory(FSDirectory.open(baseDir))) {
+            try (IndexWriter writer = new IndexWriter(dir, config(stats))) {
+
+                forEachDocument(snapshots.get(0), (en, fr) -> {
+                    final long fingerprint = fingerprint(en, fr);
+                    final Long shared = base.get(en.getIdentifier());
+
+                    if (shared != null && shared == fingerprint) {
+                        final Document doc = MultilingualDirectoryIndexer.document(en, fr);
+                        doc.add(new NumericDocValuesField(TemporalIndex.FINGERPRINT, fingerprint));
+                        add(writer, doc, stats);
+                    }
+                });
+
+                profile.finish(writer, stats);
+            }
+
+            System.out.printf("Base index %s:%n", baseDir);
+            stats.print(profile, dir);
+        }
+    }
+
+    /**
+     * Builds the delta index of a snapshot against the base.
+     *
+     * @param s       the snapshot.
+     * @param baseDir the directory of the base index.
+     * @param base    the fingerprints of the documents of the base, by identifier.
+     * @throws IOException if something goes wrong while indexing.
+     */
+    private void buildDelta(final Snapshot s, final Path baseDir, final Map<String, Long> base) throws IOException {
+
+        final Path deltaDir = layoutDir.resolve(s.name);
+        final IndexingStatistics stats = new IndexingStatistics();
+
+        // the documents of the base which are in the snapshot as they are
+        final Set<String> kept = ConcurrentHashMap.newKeySet();
+        final AtomicLong added = new AtomicLong();
+
+        try (Directory dir = stats.directory(FSDirectory.open(deltaDir))) {
+            try (IndexWriter writer = new IndexWriter(dir, config(stats))) {
+
+                forEachDocument(s, (en, fr) -> {
+                    final Long fingerprint = base.get(en.getIdentifier());
+
+                    if (fingerprint != null && fingerprint == fingerprint(en, fr)) {
+                        kept.add(en.getIdentifier());
+                    } else {
+                        add(writer, MultilingualDirectoryIndexer.document(en, fr), stats);
+                        added.incrementAndGet();
+                    }
+                });
+
+                final Set<BytesRef> removed = new HashSet<>();
+                for (String id : base.keySet()) {
+                    if (!kept.contains(id)) {
+                        final Document tombstone = new Document();
+                        tombstone.add(new StringField(TemporalIndex.TOMBSTONE, id, Field.Store.NO));
+                        writer.addDocument(tombstone);
+
+                        removed.add(new BytesRef(id));
+                    }
+                }
+
+                final Map<String, String> userData = new HashMap<>();
+                userData.put(TemporalIndex.BASE_PATH_KEY, deltaDir.relativize(baseDir).toString());
+                userData.put(TemporalIndex.SNAPSHOT_KEY, s.name);
+
+                try (Directory bDir = FSDirectory.open(baseDir); DirectoryReader reader = DirectoryReader.open(bDir)) {
+                    userData.put(TemporalIndex.BASE_GENERATION_KEY,
+                            String.valueOf(reader.getIndexCommit().getGeneration()));
+
+                    if (!removed.isEmpty()) {
+                        TemporalIndex.writeRemovedStatistics(removedStatistics(reader, removed), userData);
+                    }
+                }
+
+                writer.setLiveCommitData(userData.entrySet());
+                profile.finish(writer, stats);
+
+                System.out.printf("Snapshot %s: %d document(s) added, %d removed from the base, %d kept from it.%n",
+                        s.name, added.get(), removed.size(), kept.size());
+            }
+
+            System.out.printf("Delta index %s:%n", deltaDir);
+            stats.print(profile, dir);
+        }
+    }
+
+    /**
+     * Computes the statistics of the fields over the documents of the base removed by a snapshot.
+     *
+     * @param base    the reader of the base index.
+     * @param removed the identifiers of the removed documents.
+     * @return the statistics, by segment and field.
+     * @throws IOException if the base index cannot be read.
+     */
+    private static Map<String, Map<String, TemporalIndex.FieldStatistics>> removedStatistics(
+            final DirectoryReader base, final Set<BytesRef> removed) throws IOException {
+
+        final Map<String, Map<String, TemporalIndex.FieldStatistics>> stats = new HashMap<>();
+
+        for (LeafReaderContext leaf : base.leaves()) {
+            final FixedBitSet docs = TemporalIndex.matchingDocs(leaf.reader(), ParsedDocument.FIELDS.ID, removed);
+
+            if (docs != null) {
+                stats.put(TemporalIndex.segmentName(leaf.reader()),
+                        TemporalIndex.statistics(leaf.reader(), TemporalIndex.toArray(docs)));
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Reads the fingerprints of the documents of an existing base index.
+     *
+     * @param baseDir the directory of the base index.
+     * @return the fingerprints, by identifier.
+     * @throws IOException              if the base index cannot be read.
+     * @throws IllegalArgumentException if the index is not a base index.
+     */
+    private static Map<String, Long> readBase(final Path baseDir) throws IOException {
+
+        final Map<String, Long> base = new HashMap<>();
+
+        try (Directory dir = FSDirectory.open(baseDir); DirectoryReader reader = DirectoryReader.open(dir)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                final SortedDocValues ids = leaf.reader().getSortedDocValues(ParsedDocument.FIELDS.ID);
+                final NumericDocValues fingerprints = leaf.reader().getNumericDocValues(TemporalIndex.FINGERPRINT);
+
+                if (ids == null || fingerprints == null) {
+                    throw new IllegalArgumentException(String.format("%s is not the base index of a temporal index.",
+                            baseDir.toAbsolutePath()));
+                }
+
+                for (int doc = ids.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = ids.nextDoc()) {
+                    if (fingerprints.advanceExact(doc)) {
+                        base.put(ids.lookupOrd(ids.ordValue()).utf8ToString(), fingerprints.longValue());
+                    }
+                }
+            }
+        }
+
+        return base;
+    }
+
+    /**
+     * Creates the configuration of a writer, which always creates a new index.
+     *
+     * @param stats where the writer reports its flushes and merges.
+     * @return the configuration of the writer.
+     */
+    private IndexWriterConfig config(final IndexingStatistics stats) {
+
+        final IndexWriterConfig config = profile.config(analyzer, similarity, numThreads, stats);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+
+        return config;
+    }
+
+    /**
+     * Adds a document to a writer, recording the time spent.
+     *
+     * @param writer the writer.
+     * @param doc    the document.
+     * @param stats  where to record the time spent.
+     * @throws IOException if the document cannot be added.
+     */
+    private static void add(final IndexWriter writer, final Document doc, final IndexingStatistics stats)
+            throws IOException {
+
+        final long start = System.nanoTime();
+        writer.addDocument(doc);
+        stats.addDocument(System.nanoTime() - start);
+    }
+
+    /**
+     * Parses all the documents of a snapshot and hands them to a consumer. The file pairs are parsed concurrently,
+     * largest first.
+     *
+     * @param s        the snapshot.
+     * @param consumer what to do with each document.
+     * @throws IOException if something goes wrong while parsing or indexing.
+     */
+    private void forEachDocument(final Snapshot s, final FilePairIndexer.DocumentConsumer consumer)
+            throws IOException {
+        pairIndexer.forEachPair(pairIndexer.listFilePairs(s.enDocsDir, s.frDocsDir),
+                pair -> pairIndexer.forEachDocument(pair, consumer));
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes.
+     *
+     * @param args command line arguments.
+     * @throws Exception if something goes wrong while indexing.
+     */
+    public static void main(String[] args) throws Exception {
+        // FILL: the RAM buffer of each indexing thread, and the number of segments of each index (0 not to merge)
+        final int ramBuffer = 256;
+        final int forceMergeSegments = 1;
+        // FILL: the snapshots, i.e. their names and the directories of their English and French documents
+        final List<Snapshot> snapshots = List.of(
+                new Snapshot("train", "D:\\longeval_train\\publish\\English\\Documents\\Json",
+                        "D:\\longeval_train\\publish\\French\\Documents\\Json"),
+                new Snapshot("test_short", "D:\\longeval_test\\test-collection\\A-Short-July\\English\\Documents\\Json",
+                        "D:\\longeval_test\\test-collection\\A-Short-July\\French\\Documents\\Json"),
+                new Snapshot("test_long",
+                        "D:\\longeval_test\\test-collection\\B-Long-September\\English\\Documents\\Json",
+                        "D:\\longeval_test\\test-collection\\B-Long-September\\French\\Documents\\Json"));
+        // FILL: created layout path; search the delta of a snapshot, e.g. <layout path>\test_short
+        final String layoutPath = "D:\\created_indexes\\temporal\\2023_05_13_multilingual_4gram_synonym_ner";
+        // FILL: whether to keep the existing base, and only build the deltas of the snapshots
+        final boolean update = false;
+
+        // FILL: extension of the files containing documents
+        final String extension = "json";
+        final String charsetName = "ISO-8859-1";
+        final Class<? extends DocumentParser> dpCls = MappedLongEvalParser.class;
+        // FILL: number of threads indexing documents concurrently
+        final int numThreads = Runtime.getRuntime().availableProcessors();
+
+        // FILL: directory of the NER cache, shared by all the indexes and collections
+        final String nerCachePath = "D:\\created_indexes\\ner_cache";
+
+        try (NERCache nerCache = new NERCache(Paths.get(nerCachePath))) {
+            final TemporalIndexer i = new TemporalIndexer(new EnglishAnalyzer(), new FrenchAnalyzer(),
+                    new NGramAnalyzer(4), new NERAnalyzer(nerCache), new BM25Similarity(),
+                    IndexingProfile.bulk(ramBuffer, forceMergeSegments), layoutPath, snapshots, extension,
+                    charsetName, dpCls, numThreads, update);
+            i.index();
+
+            nerCache.printStatistics();
+        }
+    }
+}
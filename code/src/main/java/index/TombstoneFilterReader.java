@@ -0,0 +1,368 @@
+package index;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.TermState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A reader hiding the documents with any of the given values in a field, as if they were deleted: the tombstones of a
+ * delta index, or the documents of the base index they remove.
+ *
+ * Lucene still counts deleted documents in the statistics of the terms and of the fields. When the statistics of the
+ * hidden documents are given, they are subtracted: the terms are counted over the hidden documents of each segment
+ * when they are looked up, the fields come with the statistics computed when the delta was built. The scores are then
+ * the same as if the hidden documents had never been indexed.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+final class TombstoneFilterReader extends FilterDirectoryReader {
+
+    /**
+     * The field with the values of the hidden documents.
+     */
+    private final String field;
+
+    /**
+     * The values of the hidden documents.
+     */
+    private final Set<BytesRef> values;
+
+    /**
+     * The statistics of the fields over the hidden documents, by segment and field, or {@code null} not to correct the
+     * statistics.
+     */
+    private final Map<String, Map<String, TemporalIndex.FieldStatistics>> stats;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param in     the reader of the index.
+     * @param field  the field with the values of the hidden documents.
+     * @param values the values of the hidden documents.
+     * @param stats  the statistics of the fields over the hidden documents, by segment and field, or {@code null} not
+     *               to correct the statistics.
+     * @throws IOException if the index cannot be read.
+     */
+    TombstoneFilterReader(final DirectoryReader in, final String field, final Set<BytesRef> values,
+                          final Map<String, Map<String, TemporalIndex.FieldStatistics>> stats) throws IOException {
+
+        super(in, new SubReaderWrapper() {
+            @Override
+            public LeafReader wrap(final LeafReader reader) {
+                try {
+                    final FixedBitSet hidden = TemporalIndex.matchingDocs(reader, field, values);
+                    if (hidden == null) {
+                        return reader;
+                    }
+
+                    return new TombstoneLeafReader(reader, hidden, stats == null ? null
+                            : stats.getOrDefault(TemporalIndex.segmentName(reader), Collections.emptyMap()));
+                } catch (IOException e) {
+                    throw new IllegalStateException(String.format("Unable to find the hidden documents of %s: %s.",
+                            reader, e.getMessage()), e);
+                }
+            }
+        });
+
+        this.field = field;
+        this.values = values;
+        this.stats = stats;
+    }
+
+    @Override
+    protected DirectoryReader doWrapDirectoryReader(final DirectoryReader in) throws IOException {
+        return new TombstoneFilterReader(in, field, values, stats);
+    }
+
+    @Override
+    public CacheHelper getReaderCacheHelper() {
+        // the hidden documents are not part of the key of the wrapped reader
+        return null;
+    }
+
+    /**
+     * A segment with hidden documents.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    private static final class TombstoneLeafReader extends FilterLeafReader {
+
+        /**
+         * The hidden documents.
+         */
+        private final FixedBitSet hidden;
+
+        /**
+         * The hidden documents, in increasing order.
+         */
+        private final int[] hiddenDocs;
+
+        /**
+         * The documents which are neither deleted nor hidden.
+         */
+        private final Bits liveDocs;
+
+        /**
+         * The number of documents which are neither deleted nor hidden.
+         */
+        private final int numDocs;
+
+        /**
+         * The statistics of the fields over the hidden documents, or {@code null} not to correct the statistics.
+         */
+        private final Map<String, TemporalIndex.FieldStatistics> stats;
+
+        /**
+         * Creates a new reader.
+         *
+         * @param in     the reader of the segment.
+         * @param hidden the hidden documents.
+         * @param stats  the statistics of the fields over the hidden documents, or {@code null} not to correct the
+         *               statistics.
+         */
+        private TombstoneLeafReader(final LeafReader in, final FixedBitSet hidden,
+                                    final Map<String, TemporalIndex.FieldStatistics> stats) {
+            super(in);
+
+            this.hidden = hidden;
+            this.hiddenDocs = TemporalIndex.toArray(hidden);
+            this.stats = stats;
+
+            final Bits inLiveDocs = in.getLiveDocs();
+
+            int hiddenLive = 0;
+            for (int doc : hiddenDocs) {
+                if (inLiveDocs == null || inLiveDocs.get(doc)) {
+                    hiddenLive++;
+                }
+            }
+            this.numDocs = in.numDocs() - hiddenLive;
+
+            this.liveDocs = new Bits() {
+                @Override
+                public boolean get(final int index) {
+                    return !hidden.get(index) && (inLiveDocs == null || inLiveDocs.get(index));
+                }
+
+                @Override
+                public int length() {
+                    return hidden.length();
+                }
+            };
+        }
+
+        @Override
+        public Bits getLiveDocs() {
+            return liveDocs;
+        }
+
+        @Override
+        public int numDocs() {
+            return numDocs;
+        }
+
+        @Override
+        public Terms terms(final String field) throws IOException {
+
+            final Terms terms = super.terms(field);
+
+            if (terms == null || stats == null) {
+                return terms;
+            }
+
+            return new TombstoneTerms(terms, hiddenDocs, stats.get(field));
+        }
+
+        @Override
+        public CacheHelper getCoreCacheHelper() {
+            // the postings do not change, the deletions are applied on top of them
+            return in.getCoreCacheHelper();
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return null;
+        }
+    }
+
+    /**
+     * The terms of a field, with the statistics of the hidden documents subtracted.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    private static final class TombstoneTerms extends FilterLeafReader.FilterTerms {
+
+        /**
+         * The hidden documents, in increasing order.
+         */
+        private final int[] hiddenDocs;
+
+        /**
+         * The statistics of the field over the hidden documents, or {@code null} if none of them has the field.
+         */
+        private final TemporalIndex.FieldStatistics stats;
+
+        /**
+         * Creates new terms.
+         *
+         * @param in         the terms of the field.
+         * @param hiddenDocs the hidden documents, in increasing order.
+         * @param stats      the statistics of the field over the hidden documents, or {@code null} if none of them has
+         *                   the field.
+         */
+        private TombstoneTerms(final Terms in, final int[] hiddenDocs, final TemporalIndex.FieldStatistics stats) {
+            super(in);
+            this.hiddenDocs = hiddenDocs;
+            this.stats = stats;
+        }
+
+        @Override
+        public TermsEnum iterator() throws IOException {
+            return new TombstoneTermsEnum(in.iterator(), hiddenDocs);
+        }
+
+        @Override
+        public long size() {
+            // the terms only in hidden documents are skipped, but they are not known in advance
+            return -1;
+        }
+
+        @Override
+        public int getDocCount() throws IOException {
+            return (int) (in.getDocCount() - (stats == null ? 0 : stats.docCount));
+        }
+
+        @Override
+        public long getSumDocFreq() throws IOException {
+            return in.getSumDocFreq() - (stats == null ? 0 : stats.sumDocFreq);
+        }
+
+        @Override
+        public long getSumTotalTermFreq() throws IOException {
+            return in.getSumTotalTermFreq() - (stats == null ? 0 : stats.sumTotalTermFreq);
+        }
+    }
+
+    /**
+     * The terms of a field, with the hidden documents subtracted from their frequencies. The terms only in hidden
+     * documents are skipped.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    private static final class TombstoneTermsEnum extends FilterLeafReader.FilterTermsEnum {
+
+        /**
+         * The hidden documents, in increasing order.
+         */
+        private final int[] hiddenDocs;
+
+        /**
+         * The document frequency and the total term frequency of the current term over the hidden documents, or
+         * {@code null} if not counted yet.
+         */
+        private long[] hiddenCounts;
+
+        /**
+         * Creates a new enumeration.
+         *
+         * @param in         the enumeration of the terms.
+         * @param hiddenDocs the hidden documents, in increasing order.
+         */
+        private TombstoneTermsEnum(final TermsEnum in, final int[] hiddenDocs) {
+            super(in);
+            this.hiddenDocs = hiddenDocs;
+        }
+
+        @Override
+        public boolean seekExact(final BytesRef text) throws IOException {
+            hiddenCounts = null;
+            return in.seekExact(text) && isVisible();
+        }
+
+        @Override
+        public SeekStatus seekCeil(final BytesRef text) throws IOException {
+            hiddenCounts = null;
+
+            final SeekStatus status = in.seekCeil(text);
+            if (status == SeekStatus.END || isVisible()) {
+                return status;
+            }
+
+            return next() == null ? SeekStatus.END : SeekStatus.NOT_FOUND;
+        }
+
+        @Override
+        public void seekExact(final long ord) throws IOException {
+            hiddenCounts = null;
+            in.seekExact(ord);
+        }
+
+        @Override
+        public void seekExact(final BytesRef term, final TermState state) throws IOException {
+            hiddenCounts = null;
+            in.seekExact(term, state);
+        }
+
+        @Override
+        public BytesRef next() throws IOException {
+
+            BytesRef term;
+            do {
+                hiddenCounts = null;
+                term = in.next();
+            } while (term != null && !isVisible());
+
+            return term;
+        }
+
+        @Override
+        public int docFreq() throws IOException {
+            return (int) (in.docFreq() - hiddenCounts()[0]);
+        }
+
+        @Override
+        public long totalTermFreq() throws IOException {
+            return in.totalTermFreq() - hiddenCounts()[1];
+        }
+
+        /**
+         * Tells whether the current term is in any document which is not hidden.
+         *
+         * @return {@code true} if the term is in any document which is not hidden, {@code false} otherwise.
+         * @throws IOException if the postings cannot be read.
+         */
+        private boolean isVisible() throws IOException {
+            // cheap check first: more documents than the hidden ones
+            return in.docFreq() > hiddenDocs.length || docFreq() > 0;
+        }
+
+        /**
+         * Counts the current term over the hidden documents, the first time it is needed.
+         *
+         * @return the document frequency and the total term frequency of the term over the hidden documents.
+         * @throws IOException if the postings cannot be read.
+         */
+        private long[] hiddenCounts() throws IOException {
+            if (hiddenCounts == null) {
+                hiddenCounts = TemporalIndex.countIn(in, hiddenDocs, null);
+            }
+            return hiddenCounts;
+        }
+    }
+}
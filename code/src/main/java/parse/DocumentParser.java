@@ -1,7 +1,13 @@
 package parse;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -13,7 +19,7 @@ import java.util.NoSuchElementException;
  * @since 1.00
  */
 public abstract class DocumentParser
-        implements Iterator<ParsedDocument>, Iterable<ParsedDocument> {
+        implements Iterator<ParsedDocument>, Iterable<ParsedDocument>, Closeable {
     //Iterable - Represents a collection that can be iterated over using a for-each loop
     //Iterator - Represents an interface that can be used to iterate over a collection
     /**
@@ -22,7 +28,7 @@ public abstract class DocumentParser
     protected boolean next = true;
 
     /**
-     * The reader to be used to parse document(s).
+     * The reader to be used to parse document(s), or {@code null} if the parser does not use a reader.
      */
     protected final Reader in;
 
@@ -41,6 +47,14 @@ public abstract class DocumentParser
         this.in = in;
     }
 
+    /**
+     * Creates a new document parser which does not read from a {@code Reader}, e.g. because it accesses the file
+     * directly.
+     */
+    protected DocumentParser() {
+        this.in = null;
+    }
+
 
     @Override
     public final Iterator<ParsedDocument> iterator() {
@@ -64,7 +78,7 @@ public abstract class DocumentParser
         } finally {
             try {
                 // we reached the end of the file
-                if (!next) {
+                if (!next && in != null) {
                     in.close();
                 }
             } catch (IOException e) {
@@ -103,6 +117,57 @@ public abstract class DocumentParser
 
     }
 
+    /**
+     * Creates a new {@code DocumentParser} for a file.
+     *
+     * If the {@code DocumentParser} has a constructor which takes a {@code Path} and a {@code Charset} as input, it
+     * is given the file directly; otherwise it is given a buffered {@code Reader} to the file, as in
+     * {@link #create(Class, Reader)}.
+     *
+     * @param cls  the class of the document parser to be instantiated.
+     * @param file the file containing the document(s) to be parsed.
+     * @param cs   the charset used for encoding the documents.
+     * @return a new instance of {@code DocumentParser} for the given class.
+     * @throws NullPointerException  if any of the parameters is {@code null}.
+     * @throws IOException           if the file cannot be opened.
+     * @throws IllegalStateException if something goes wrong in instantiating the class.
+     */
+    public static DocumentParser create(Class<? extends DocumentParser> cls, Path file, Charset cs)
+            throws IOException {
+
+        if (cls == null) {
+            throw new NullPointerException("Document parser class cannot be null.");
+        }
+
+        if (file == null) {
+            throw new NullPointerException("File cannot be null.");
+        }
+
+        if (cs == null) {
+            throw new NullPointerException("Charset cannot be null.");
+        }
+
+        final Constructor<? extends DocumentParser> ctor;
+        try {
+            ctor = cls.getConstructor(Path.class, Charset.class);
+        } catch (NoSuchMethodException e) {
+            return create(cls, Files.newBufferedReader(file, cs));
+        }
+
+        try {
+            return ctor.newInstance(file, cs);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(String.format("Unable to instantiate document parser %s.", cls.getName()),
+                    e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException(String.format("Unable to instantiate document parser %s.", cls.getName()),
+                    e);
+        }
+    }
+
     /**
      * Creates a new {@code DocumentParser}.
      *
@@ -132,6 +197,19 @@ public abstract class DocumentParser
         }
     }
 
+    /**
+     * Closes the reader of the document(s), if any, which is otherwise closed only once all the documents are parsed.
+     * The parser cannot be used afterwards.
+     *
+     * @throws IOException if the reader cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
     /**
      * Performs the actual parsing of the document.
      *
@@ -16,6 +16,12 @@ import java.io.Reader;
  */
 public class LongEvalParser extends DocumentParser {
 
+    /**
+     * Binds every JSON object to a {@link JsonDocument}. It is thread-safe, so a single instance is shared by all the
+     * parsers.
+     */
+    private static final Gson GSON = new Gson();
+
     /**
      * The currently parsed document.
      */
@@ -50,7 +56,7 @@ public class LongEvalParser extends DocumentParser {
         // JSON stream reading taken from: https://www.amitph.com/java-parse-large-json-files/
         try {
             if (in_json.hasNext()) {
-                JsonDocument jsdoc = new Gson().fromJson(in_json, JsonDocument.class);
+                JsonDocument jsdoc = GSON.fromJson(in_json, JsonDocument.class);
                 document = new ParsedDocument(jsdoc.getId(), jsdoc.getContents());
                 next = true;
             } else {
@@ -0,0 +1,580 @@
+package parse;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Parses the Longeval Corpus (JSON) memory-mapping the whole file, as an alternative to {@link LongEvalParser}.
+ *
+ * Instead of decoding the whole file into characters and binding every record to a {@link JsonDocument} by
+ * reflection, it scans the bytes of the file for the {@code id} and {@code contents} of every object and decodes only
+ * those two strings. Scanning the bytes is safe because in ISO-8859-1, US-ASCII and UTF-8 the characters with a
+ * meaning in JSON are always encoded as a single byte which is never part of another character; other charsets are
+ * not supported.
+ *
+ * It has to be created through {@link DocumentParser#create(Class, Path, Charset)}, since it cannot work on a
+ * {@code Reader}.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class MappedLongEvalParser extends DocumentParser {
+
+    /**
+     * Reads eight bytes at a time from a byte array.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Eight quotes and eight backslashes.
+     */
+    private static final long QUOTES = 0x2222222222222222L;
+    private static final long BACKSLASHES = 0x5C5C5C5C5C5C5C5CL;
+
+    /**
+     * The content of the file.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The charset used for encoding the documents.
+     */
+    private final Charset cs;
+
+    /**
+     * The name of the file, for error messages.
+     */
+    private final String fileName;
+
+    /**
+     * The next parsed document, if already read.
+     */
+    private ParsedDocument document = null;
+
+    /**
+     * Whether no object has been parsed yet.
+     */
+    private boolean first = true;
+
+    /**
+     * The minimum and maximum number of bytes copied at once while looking for the end of a string.
+     */
+    private static final int MIN_BLOCK_SIZE = 32;
+    private static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * The bytes of the string being decoded.
+     */
+    private byte[] scratch = new byte[MAX_BLOCK_SIZE];
+
+    /**
+     * Creates a new memory-mapped Longeval Corpus (JSON) document parser.
+     *
+     * @param file the file containing the documents to be parsed.
+     * @param cs   the charset used for encoding the documents.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if the charset is not supported or the file is too big to be mapped.
+     * @throws IOException              if the file cannot be mapped.
+     */
+    public MappedLongEvalParser(final Path file, final Charset cs) throws IOException {
+        super();
+
+        if (file == null) {
+            throw new NullPointerException("File cannot be null.");
+        }
+
+        if (cs == null) {
+            throw new NullPointerException("Charset cannot be null.");
+        }
+
+        if (!cs.equals(StandardCharsets.ISO_8859_1) && !cs.equals(StandardCharsets.US_ASCII)
+                && !cs.equals(StandardCharsets.UTF_8)) {
+            throw new IllegalArgumentException(
+                    String.format("Charset %s not supported: only ISO-8859-1, US-ASCII and UTF-8 are.", cs.name()));
+        }
+
+        this.cs = cs;
+        this.fileName = file.toString();
+
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        String.format("File %s is too big to be mapped (%d bytes).", fileName, channel.size()));
+            }
+
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer = mapped;
+        }
+
+        // skip the byte order mark, if any
+        if (cs.equals(StandardCharsets.UTF_8) && buffer.remaining() >= 3 && (buffer.get(0) & 0xFF) == 0xEF
+                && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) {
+            buffer.position(3);
+        }
+
+        expect('[');
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        if (document == null && next) {
+            skipWhitespace();
+
+            // either the end of the array, i.e. of the file, or another object
+            if (first ? peek() == ']' : !tryConsume(',')) {
+                expect(']');
+                next = false;
+            } else {
+                first = false;
+                document = parseObject();
+            }
+        }
+
+        return next;
+    }
+
+    @Override
+    protected final ParsedDocument parse() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more documents to parse.");
+        }
+
+        final ParsedDocument d = document;
+        document = null;
+        return d;
+    }
+
+    /**
+     * Parses an object, keeping only its {@code id} and {@code contents}.
+     *
+     * @return the parsed document.
+     */
+    private ParsedDocument parseObject() {
+
+        String id = null;
+        String contents = null;
+
+        expect('{');
+        skipWhitespace();
+
+        if (peek() != '}') {
+            do {
+                skipWhitespace();
+                final String name = readString();
+                expect(':');
+                skipWhitespace();
+
+                if ("id".equals(name)) {
+                    id = readString();
+                } else if ("contents".equals(name)) {
+                    contents = readString();
+                } else {
+                    skipValue();
+                }
+
+                skipWhitespace();
+            } while (tryConsume(','));
+        }
+
+        expect('}');
+
+        return new ParsedDocument(id, contents);
+    }
+
+    /**
+     * Reads a string, decoding only its bytes.
+     *
+     * The bytes are copied in growing blocks into {@link #scratch} while looking for the closing quote, unescaped in place and
+     * decoded at once.
+     *
+     * @return the string.
+     */
+    private String readString() {
+
+        expect('"');
+
+        final int start = buffer.position();
+        final int limit = buffer.limit();
+
+        // the position of the first backslash, if any
+        int firstEscape = -1;
+
+        // the bytes copied so far and the position of the scan, which can be one past them after a backslash
+        int filled = 0;
+        int k = 0;
+
+        // find the closing quote
+        while (true) {
+            if (k >= filled) {
+                // short strings, like the keys, are copied in small blocks; longer ones in bigger and bigger blocks
+                final int chunk = Math.min(Math.min(Math.max(MIN_BLOCK_SIZE, filled), MAX_BLOCK_SIZE),
+                        limit - start - filled);
+                if (chunk <= 0) {
+                    throw error("unterminated string");
+                }
+                if (filled + chunk > scratch.length) {
+                    scratch = Arrays.copyOf(scratch, Math.max(filled + chunk, scratch.length * 2));
+                }
+                buffer.get(start + filled, scratch, filled, chunk);
+                filled += chunk;
+                continue;
+            }
+
+            // skip eight bytes at a time as long as there is neither a quote nor a backslash among them
+            while (k + Long.BYTES <= filled && !hasQuoteOrBackslash((long) LONGS.get(scratch, k))) {
+                k += Long.BYTES;
+            }
+            if (k >= filled) {
+                continue;
+            }
+
+            final byte b = scratch[k];
+            if (b == '"') {
+                break;
+            }
+
+            if (b == '\\') {
+                if (firstEscape < 0) {
+                    firstEscape = k;
+                }
+                // the escaped character cannot close the string
+                k += 2;
+            } else {
+                k++;
+            }
+        }
+
+        buffer.position(start + k + 1);
+
+        final int length = firstEscape >= 0 ? unescape(firstEscape, k) : k;
+
+        return length >= 0 ? new String(scratch, 0, length, cs) : decodeEscaped(k);
+    }
+
+    /**
+     * Replaces the escape sequences of a string with the bytes they stand for, in place. The result is never longer
+     * than the escaped string.
+     *
+     * @param from   the position of the first backslash in {@link #scratch}.
+     * @param length the length of the escaped string in {@link #scratch}.
+     * @return the length of the unescaped string or {@code -1} if an escaped character cannot be encoded in the
+     * charset of the file, e.g. a lone surrogate.
+     */
+    private int unescape(final int from, final int length) {
+
+        final byte[] b = scratch;
+        int w = from;
+
+        for (int r = from; r < length; ) {
+
+            if (b[r] != '\\') {
+                b[w++] = b[r++];
+                continue;
+            }
+
+            if (r + 1 >= length) {
+                throw error("invalid escape sequence");
+            }
+
+            final byte e = b[r + 1];
+            r += 2;
+
+            switch (e) {
+                case '"':
+                case '\\':
+                case '/':
+                    b[w++] = e;
+                    break;
+                case 'b':
+                    b[w++] = '\b';
+                    break;
+                case 'f':
+                    b[w++] = '\f';
+                    break;
+                case 'n':
+                    b[w++] = '\n';
+                    break;
+                case 'r':
+                    b[w++] = '\r';
+                    break;
+                case 't':
+                    b[w++] = '\t';
+                    break;
+                case 'u':
+                    int c = hex(r, length);
+                    r += 4;
+
+                    if (c < 0x80) {
+                        b[w++] = (byte) c;
+                    } else if (cs.equals(StandardCharsets.ISO_8859_1) && c < 0x100) {
+                        b[w++] = (byte) c;
+                    } else if (!cs.equals(StandardCharsets.UTF_8)) {
+                        return -1;
+                    } else if (c < 0x800) {
+                        b[w++] = (byte) (0xC0 | (c >> 6));
+                        b[w++] = (byte) (0x80 | (c & 0x3F));
+                    } else if (!Character.isSurrogate((char) c)) {
+                        b[w++] = (byte) (0xE0 | (c >> 12));
+                        b[w++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                        b[w++] = (byte) (0x80 | (c & 0x3F));
+                    } else {
+                        // only a surrogate pair can be encoded in UTF-8
+                        if (!Character.isHighSurrogate((char) c) || r + 6 > length || b[r] != '\\'
+                                || b[r + 1] != 'u') {
+                            return -1;
+                        }
+                        final int low = hex(r + 2, length);
+                        if (!Character.isLowSurrogate((char) low)) {
+                            return -1;
+                        }
+                        r += 6;
+
+                        c = Character.toCodePoint((char) c, (char) low);
+                        b[w++] = (byte) (0xF0 | (c >> 18));
+                        b[w++] = (byte) (0x80 | ((c >> 12) & 0x3F));
+                        b[w++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                        b[w++] = (byte) (0x80 | (c & 0x3F));
+                    }
+                    break;
+                default:
+                    throw error("invalid escape sequence");
+            }
+        }
+
+        return w;
+    }
+
+    /**
+     * Decodes a string whose escaped characters cannot be encoded in the charset of the file, character by character.
+     * The string is read again from the file, since {@link #unescape(int, int)} may have already modified its copy.
+     *
+     * @param length the length of the escaped string.
+     * @return the string.
+     */
+    private String decodeEscaped(final int length) {
+
+        // the string ends just before the closing quote
+        final int start = buffer.position() - 1 - length;
+        buffer.get(start, scratch, 0, length);
+
+        final StringBuilder sb = new StringBuilder(length);
+        int run = 0;
+        int r = 0;
+
+        while (r < length) {
+            if (scratch[r] != '\\') {
+                r++;
+                continue;
+            }
+
+            // the plain bytes before the escape sequence
+            sb.append(new String(scratch, run, r - run, cs));
+
+            final byte e = scratch[r + 1];
+            r += 2;
+
+            switch (e) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    sb.append((char) hex(r, length));
+                    r += 4;
+                    break;
+                default:
+                    // '"', '\\' and '/' stand for themselves; the others have already been rejected by unescape
+                    sb.append((char) e);
+            }
+
+            run = r;
+        }
+        sb.append(new String(scratch, run, length - run, cs));
+
+        return sb.toString();
+    }
+
+    /**
+     * Reads the four hexadecimal digits of a unicode escape sequence from {@link #scratch}.
+     *
+     * @param pos    the position of the first digit.
+     * @param length the length of the string in {@link #scratch}.
+     * @return the escaped character.
+     */
+    private int hex(final int pos, final int length) {
+
+        if (pos + 4 > length) {
+            throw error("truncated unicode escape");
+        }
+
+        int c = 0;
+        for (int i = pos; i < pos + 4; i++) {
+            final int d = Character.digit(scratch[i], 16);
+            if (d < 0) {
+                throw error("invalid unicode escape");
+            }
+            c = (c << 4) | d;
+        }
+        return c;
+    }
+
+    /**
+     * Skips a value which is not needed: a string, a number, a literal, an object or an array.
+     */
+    private void skipValue() {
+
+        final byte b = peek();
+
+        if (b == '"') {
+            readString();
+        } else if (b == '{' || b == '[') {
+            final char close = b == '{' ? '}' : ']';
+            buffer.get();
+            skipWhitespace();
+            if (peek() == close) {
+                buffer.get();
+                return;
+            }
+            do {
+                skipWhitespace();
+                if (b == '{') {
+                    readString();
+                    expect(':');
+                    skipWhitespace();
+                }
+                skipValue();
+                skipWhitespace();
+            } while (tryConsume(','));
+            expect(close);
+        } else {
+            // number, true, false or null
+            while (buffer.hasRemaining()) {
+                final byte c = peek();
+                if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                    break;
+                }
+                buffer.get();
+            }
+        }
+    }
+
+    private void expect(final char c) {
+        skipWhitespace();
+        if (!buffer.hasRemaining() || buffer.get() != c) {
+            throw error(String.format("'%c' expected", c));
+        }
+    }
+
+    private boolean tryConsume(final char c) {
+        if (buffer.hasRemaining() && buffer.get(buffer.position()) == c) {
+            buffer.get();
+            return true;
+        }
+        return false;
+    }
+
+    private byte peek() {
+        if (!buffer.hasRemaining()) {
+            throw error("unexpected end of file");
+        }
+        return buffer.get(buffer.position());
+    }
+
+    private void skipWhitespace() {
+        while (buffer.hasRemaining() && isWhitespace(buffer.get(buffer.position()))) {
+            buffer.get();
+        }
+    }
+
+    /**
+     * Checks whether any of the eight bytes of a word is a quote or a backslash.
+     *
+     * @param word eight bytes of a string.
+     * @return {@code true} if at least one of the bytes is a quote or a backslash; {@code false} otherwise.
+     */
+    private static boolean hasQuoteOrBackslash(final long word) {
+        return (hasZeroByte(word ^ QUOTES) | hasZeroByte(word ^ BACKSLASHES)) != 0;
+    }
+
+    /**
+     * Returns a non-zero value if any of the eight bytes of a word is zero.
+     */
+    private static long hasZeroByte(final long word) {
+        return (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private IllegalStateException error(final String message) {
+        return new IllegalStateException(String.format("Unable to parse the JSON file %s at byte %d: %s.", fileName,
+                buffer.position(), message));
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes: it compares the parsing throughput with the one of
+     * {@link LongEvalParser} and checks that both return the same documents.
+     *
+     * @param args command line arguments.
+     * @throws Exception if something goes wrong while parsing.
+     */
+    public static void main(String[] args) throws Exception {
+        final String FILE_NAME_JMR = "C:\\longeval_train\\publish\\English\\Documents\\Json\\collector_kodicare_1.txt.json";
+        final Path file = Paths.get(args.length > 0 ? args[0] : FILE_NAME_JMR);
+        final Charset cs = Charset.forName("ISO-8859-1");
+        final int rounds = 5;
+
+        for (int r = 0; r < rounds; r++) {
+
+            long start = System.nanoTime();
+            long gsonChars = 0;
+            int gsonDocs = 0;
+            for (ParsedDocument d : DocumentParser.create(LongEvalParser.class, file, cs)) {
+                gsonChars += d.getBody().length();
+                gsonDocs++;
+            }
+            final long gsonTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long mappedChars = 0;
+            int mappedDocs = 0;
+            for (ParsedDocument d : DocumentParser.create(MappedLongEvalParser.class, file, cs)) {
+                mappedChars += d.getBody().length();
+                mappedDocs++;
+            }
+            final long mappedTime = System.nanoTime() - start;
+
+            System.out.printf("Round %d: Gson %d document(s) (%d chars) in %d ms, mapped %d document(s) (%d chars) in %d ms (%.2fx).%n",
+                    r, gsonDocs, gsonChars, gsonTime / 1_000_000, mappedDocs, mappedChars, mappedTime / 1_000_000,
+                    (double) gsonTime / mappedTime);
+        }
+    }
+}
@@ -44,6 +44,12 @@ public class ParsedDocument {
          * The extracted NER information from documents.
          */
         public static final String NER = "ner";
+
+        /**
+         * The file pair of the document and the hash of its content, to delete the documents of a pair when it
+         * changes or is removed from the collection.
+         */
+        public static final String FILE = "file";
     }
 
 
@@ -0,0 +1,709 @@
+package search;
+
+import analyze.EnglishAnalyzer;
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NGramAnalyzer;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import eval.Qrels;
+import eval.RunEvaluation;
+import eval.TopicMeasures;
+import eval.TrecEvaluator;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexReaderContext;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermStates;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.queryparser.classic.QueryParserBase;
+import org.apache.lucene.search.*;
+import parse.ParsedDocument;
+import topic.LongEvalTopic;
+import util.ConcurrencyUtil;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sweeps a grid of BM25 parameters, described by a JSON configuration file, evaluating each point of the grid
+ * against the relevance judgements and ranking them.
+ *
+ * The index is opened once and shared by all the points of the grid, which are searched concurrently. The topics are
+ * parsed only once, and the statistics of their terms are looked up only once, as they do not depend on the
+ * parameters; each point of the grid only recombines the parsed queries with its own similarity and boosts.
+ *
+ * The configuration file looks like:
+ * <pre>
+ * {
+ *   "id": "bm25-sweep_en_en_3gram",
+ *   "runPath": "runs",
+ *   "topics": "D:\\longeval_train\\publish\\English\\Queries\\train.trec",
+ *   "index": "D:\\created_indexes\\train\\2023_04_29_multilingual_3gram_synonym",
+ *   "qrels": "D:\\longeval_train\\publish\\French\\Qrels\\train.txt",
+ *   "ngramSize": 3,
+ *   "maxDocsRetrieved": 1000,
+ *   "threads": 4,
+ *   "fields": {
+ *     "english_body": { "k1": [0.9, 1.2, 1.5], "b": [0.4, 0.75] },
+ *     "n_gram": { "b": [0.5, 0.75], "boost": [0.5, 1.0] }
+ *   }
+ * }
+ * </pre>
+ * where the fields are among {@code english_body}, {@code french_body}, {@code n_gram} and {@code ner}, and each of
+ * them has the values of {@code k1}, {@code b} and of the boost of its clause to try; the missing ones are the
+ * defaults ({@code 1.2}, {@code 0.75} and {@code 1}). The grid is made of all their combinations.
+ *
+ * The ranked configurations are printed and written to {@code runPath/id.tsv}.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class BM25Sweep {
+
+    /**
+     * The default number of points of the grid searched concurrently.
+     */
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The default maximum number of documents to retrieve.
+     */
+    private static final int DEFAULT_MAX_DOCS_RETRIEVED = 1000;
+
+    /**
+     * The default size of the N-Grams.
+     */
+    private static final int DEFAULT_NGRAM_SIZE = 3;
+
+    /**
+     * The default {@code k1} parameter of BM25.
+     */
+    private static final float DEFAULT_K1 = 1.2f;
+
+    /**
+     * The default {@code b} parameter of BM25.
+     */
+    private static final float DEFAULT_B = 0.75f;
+
+    /**
+     * The default boost of a clause.
+     */
+    private static final float DEFAULT_BOOST = 1f;
+
+    /**
+     * The searchable fields, in the order their clauses are added to the queries, as {@link Searcher} does.
+     */
+    private static final List<String> FIELD_ORDER = List.of(ParsedDocument.FIELDS.ENGLISH_BODY,
+            ParsedDocument.FIELDS.FRENCH_BODY, ParsedDocument.FIELDS.N_GRAM, ParsedDocument.FIELDS.NER);
+
+    /**
+     * The sweep to run.
+     */
+    private final SweepConfig config;
+
+    /**
+     * The fields to search, in the order of {@link #FIELD_ORDER}.
+     */
+    private final List<String> fields = new ArrayList<>();
+
+    /**
+     * The total elapsed time.
+     */
+    private long elapsedTime = Long.MIN_VALUE;
+
+    /**
+     * A JSON POJO describing a sweep.
+     */
+    private static final class SweepConfig {
+
+        /**
+         * The identifier of the sweep.
+         */
+        private String id;
+
+        /**
+         * The path where to store the ranked configurations.
+         */
+        private String runPath;
+
+        /**
+         * The file containing the topics to search for.
+         */
+        private String topics;
+
+        /**
+         * The directory containing the index to be searched.
+         */
+        private String index;
+
+        /**
+         * The file containing the relevance judgements.
+         */
+        private String qrels;
+
+        /**
+         * The size of the N-Grams of the index.
+         */
+        private int ngramSize = DEFAULT_NGRAM_SIZE;
+
+        /**
+         * The maximum number of documents to retrieve.
+         */
+        private int maxDocsRetrieved = DEFAULT_MAX_DOCS_RETRIEVED;
+
+        /**
+         * The number of points of the grid searched concurrently.
+         */
+        private int threads = DEFAULT_THREADS;
+
+        /**
+         * The values to try for each field to search.
+         */
+        private Map<String, FieldGrid> fields;
+    }
+
+    /**
+     * A JSON POJO describing the values to try for a field.
+     */
+    private static final class FieldGrid {
+
+        /**
+         * The values of the {@code k1} parameter.
+         */
+        private List<Float> k1;
+
+        /**
+         * The values of the {@code b} parameter.
+         */
+        private List<Float> b;
+
+        /**
+         * The values of the boost of the clause.
+         */
+        private List<Float> boost;
+    }
+
+    /**
+     * A point of the grid, i.e. the parameters of each searched field, and its evaluation once searched.
+     */
+    private static final class GridPoint {
+
+        /**
+         * The {@code k1} parameter of each searched field.
+         */
+        private final float[] k1;
+
+        /**
+         * The {@code b} parameter of each searched field.
+         */
+        private final float[] b;
+
+        /**
+         * The boost of the clause of each searched field.
+         */
+        private final float[] boost;
+
+        /**
+         * The evaluation of the point.
+         */
+        private RunEvaluation evaluation;
+
+        /**
+         * The time spent searching and evaluating the point, in milliseconds.
+         */
+        private long elapsedTime;
+
+        /**
+         * Creates a new point of the grid.
+         *
+         * @param k1    the {@code k1} parameter of each searched field.
+         * @param b     the {@code b} parameter of each searched field.
+         * @param boost the boost of the clause of each searched field.
+         */
+        GridPoint(final float[] k1, final float[] b, final float[] boost) {
+            this.k1 = k1;
+            this.b = b;
+            this.boost = boost;
+        }
+    }
+
+    /**
+     * Creates a new BM25 sweep.
+     *
+     * @param configFile the JSON file describing the sweep.
+     * @throws NullPointerException     if {@code configFile} is {@code null}.
+     * @throws IllegalArgumentException if the configuration file cannot be read or describes an invalid sweep.
+     */
+    public BM25Sweep(final Path configFile) {
+
+        if (configFile == null) {
+            throw new NullPointerException("Configuration file cannot be null.");
+        }
+
+        try (Reader in = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            config = new Gson().fromJson(in, SweepConfig.class);
+        } catch (IOException | JsonParseException e) {
+            throw new IllegalArgumentException(
+                    String.format("Unable to read configuration file %s: %s.", configFile, e.getMessage()), e);
+        }
+
+        if (config == null) {
+            throw new IllegalArgumentException(String.format("Configuration file %s is empty.", configFile));
+        }
+
+        if (config.id == null || config.id.isEmpty()) {
+            throw new IllegalArgumentException("Sweep identifier cannot be null or empty.");
+        }
+
+        if (config.runPath == null || config.runPath.isEmpty()) {
+            throw new IllegalArgumentException("Run path cannot be null or empty.");
+        }
+
+        if (config.topics == null || config.topics.isEmpty()) {
+            throw new IllegalArgumentException("Topics file cannot be null or empty.");
+        }
+
+        if (config.index == null || config.index.isEmpty()) {
+            throw new IllegalArgumentException("Index cannot be null or empty.");
+        }
+
+        if (config.qrels == null || config.qrels.isEmpty()) {
+            throw new IllegalArgumentException("Qrels file cannot be null or empty.");
+        }
+
+        if (config.ngramSize <= 0) {
+            throw new IllegalArgumentException("N-Gram size cannot be less than or equal to zero.");
+        }
+
+        if (config.maxDocsRetrieved <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of documents to be retrieved cannot be less than or equal to zero.");
+        }
+
+        if (config.threads <= 0) {
+            throw new IllegalArgumentException("The number of threads cannot be less than or equal to zero.");
+        }
+
+        if (config.fields == null || config.fields.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one field to search.");
+        }
+
+        for (Map.Entry<String, FieldGrid> e : config.fields.entrySet()) {
+            final String f = e.getKey();
+
+            if (!Searcher.SEARCHABLE_FIELDS.contains(f)) {
+                throw new IllegalArgumentException(String.format("Unknown field %s.", f));
+            }
+
+            FieldGrid g = e.getValue();
+            if (g == null) {
+                g = new FieldGrid();
+                e.setValue(g);
+            }
+
+            g.k1 = values(f, "k1", g.k1, DEFAULT_K1, Float.POSITIVE_INFINITY);
+            g.b = values(f, "b", g.b, DEFAULT_B, 1);
+            g.boost = values(f, "boost", g.boost, DEFAULT_BOOST, Float.POSITIVE_INFINITY);
+        }
+
+        for (String f : FIELD_ORDER) {
+            if (config.fields.containsKey(f)) {
+                fields.add(f);
+            }
+        }
+    }
+
+    /**
+     * Checks the values to try for a parameter of a field.
+     *
+     * @param field        the field.
+     * @param parameter    the parameter.
+     * @param values       the values to try, or {@code null} to try only the default one.
+     * @param defaultValue the default value.
+     * @param max          the maximum allowed value; the minimum is zero.
+     * @return the values to try.
+     * @throws IllegalArgumentException if there are no values or a value is out of range.
+     */
+    private static List<Float> values(final String field, final String parameter, final List<Float> values,
+                                      final float defaultValue, final float max) {
+
+        if (values == null) {
+            return List.of(defaultValue);
+        }
+
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException(
+                    String.format("Values of %s of field %s cannot be empty.", parameter, field));
+        }
+
+        for (Float v : values) {
+            if (v == null || !Float.isFinite(v) || v < 0 || v > max) {
+                throw new IllegalArgumentException(
+                        String.format("Invalid value %s of %s of field %s.", v, parameter, field));
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the total elapsed time.
+     *
+     * @return the total elapsed time.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Searches and evaluates all the points of the grid, and ranks them.
+     *
+     * @throws IOException    if something goes wrong while searching.
+     * @throws ParseException if something goes wrong while parsing topics.
+     */
+    public void sweep() throws IOException, ParseException {
+
+        System.out.printf("%n#### Start BM25 sweep ####%n");
+
+        // the start time of the sweep
+        final long start = System.currentTimeMillis();
+
+        final List<GridPoint> grid = grid();
+
+        System.out.printf("%d point(s) in the grid over field(s) %s.%n", grid.size(), fields);
+
+        final List<LongEvalTopic> topics = Searcher.readTopics(config.topics);
+
+        try (IndexReader reader = Searcher.openIndex(config.index)) {
+
+            final TrecEvaluator evaluator = new TrecEvaluator(new Qrels(Paths.get(config.qrels)), reader);
+
+            // the parsed query of each topic in each field, the same for all the points of the grid
+            final Query[][] queries = parse(topics, reader.getContext());
+
+            final ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+
+            try {
+                final List<Future<GridPoint>> points = new ArrayList<>(grid.size());
+                for (GridPoint p : grid) {
+                    points.add(executor.submit(() -> search(p, reader, topics, queries, evaluator)));
+                }
+
+                for (Future<GridPoint> f : points) {
+                    final GridPoint p = ConcurrencyUtil.get(f, "a point of the grid");
+
+                    System.out.printf(Locale.ENGLISH, "%s: MAP %.4f in %d ms.%n", describe(p), p.evaluation.getMAP(),
+                            p.elapsedTime);
+                }
+            } finally {
+                // stop searching if something went wrong, and wait for the points being searched to stop using the
+                // index before it is closed
+                ConcurrencyUtil.shutdownNow(executor, "the points of the grid still being searched");
+            }
+        }
+
+        grid.sort(Comparator.comparingDouble((GridPoint p) -> p.evaluation.getMAP())
+                .thenComparingDouble(p -> p.evaluation.getNDCG10()).reversed());
+
+        print(grid);
+
+        elapsedTime = System.currentTimeMillis() - start;
+
+        System.out.printf("%d point(s) searched in %d seconds.%n", grid.size(), elapsedTime / 1000);
+        System.out.printf("#### BM25 sweep complete ####%n");
+    }
+
+    /**
+     * Returns all the combinations of the values to try for each field.
+     *
+     * @return the points of the grid.
+     */
+    private List<GridPoint> grid() {
+
+        final int n = fields.size();
+
+        List<GridPoint> grid = new ArrayList<>();
+        grid.add(new GridPoint(new float[n], new float[n], new float[n]));
+
+        for (int i = 0; i < n; i++) {
+            final FieldGrid g = config.fields.get(fields.get(i));
+
+            final List<GridPoint> next = new ArrayList<>(grid.size() * g.k1.size() * g.b.size() * g.boost.size());
+
+            for (GridPoint p : grid) {
+                for (float k1 : g.k1) {
+                    for (float b : g.b) {
+                        for (float boost : g.boost) {
+                            final GridPoint q = new GridPoint(p.k1.clone(), p.b.clone(), p.boost.clone());
+                            q.k1[i] = k1;
+                            q.b[i] = b;
+                            q.boost[i] = boost;
+                            next.add(q);
+                        }
+                    }
+                }
+            }
+
+            grid = next;
+        }
+
+        return grid;
+    }
+
+    /**
+     * Parses the title of each topic in each searched field, binding the statistics of their terms to the index.
+     *
+     * @param topics  the topics.
+     * @param context the context of the index.
+     * @return the query of each topic in each searched field, in the order of {@link #fields}.
+     * @throws IOException    if something goes wrong while looking up the terms.
+     * @throws ParseException if something goes wrong while parsing a topic.
+     */
+    private Query[][] parse(final List<LongEvalTopic> topics, final IndexReaderContext context)
+            throws IOException, ParseException {
+
+        final long start = System.currentTimeMillis();
+
+        final Query[][] queries = new Query[topics.size()][fields.size()];
+
+        // the statistics of each term, shared by the topics containing it
+        final Map<Term, TermStates> termStates = new HashMap<>();
+
+        for (int i = 0; i < fields.size(); i++) {
+            final String f = fields.get(i);
+
+            try (Analyzer a = analyzer(f)) {
+                final QueryParser qp = new QueryParser(f, a);
+
+                for (int t = 0; t < topics.size(); t++) {
+                    queries[t][i] = bind(qp.parse(QueryParserBase.escape(topics.get(t).getTitle())), context,
+                            termStates);
+                }
+            }
+        }
+
+        System.out.printf("%d topic(s) parsed, %d term(s) looked up in %d ms.%n", topics.size(), termStates.size(),
+                System.currentTimeMillis() - start);
+
+        return queries;
+    }
+
+    /**
+     * Returns the analyzer of a searched field, as {@link Searcher} uses it.
+     *
+     * @param field the field.
+     * @return the analyzer of the field.
+     */
+    private Analyzer analyzer(final String field) {
+        switch (field) {
+            case ParsedDocument.FIELDS.ENGLISH_BODY:
+                return new EnglishAnalyzer();
+            case ParsedDocument.FIELDS.FRENCH_BODY:
+                return new FrenchAnalyzer();
+            case ParsedDocument.FIELDS.N_GRAM:
+                return new NGramAnalyzer(config.ngramSize);
+            default:
+                return new NERAnalyzer();
+        }
+    }
+
+    /**
+     * Replaces the term queries within a query with term queries carrying the statistics of their terms, so that
+     * the terms are not looked up again each time the query is searched.
+     *
+     * The statistics are fully loaded before being shared, so that they are only read while searching
+     * concurrently.
+     *
+     * @param query      the query.
+     * @param context    the context of the index.
+     * @param termStates the statistics of the terms already looked up.
+     * @return the query with the statistics of its terms.
+     * @throws IOException if something goes wrong while looking up the terms.
+     */
+    private static Query bind(final Query query, final IndexReaderContext context,
+                              final Map<Term, TermStates> termStates) throws IOException {
+
+        if (query instanceof TermQuery) {
+            final Term term = ((TermQuery) query).getTerm();
+
+            TermStates ts = termStates.get(term);
+            if (ts == null) {
+                ts = TermStates.build(context, term, true);
+
+                // the states of the segments not containing the term are otherwise loaded lazily
+                for (LeafReaderContext leaf : context.leaves()) {
+                    ts.get(leaf);
+                }
+
+                termStates.put(term, ts);
+            }
+
+            return new TermQuery(term, ts);
+        }
+
+        if (query instanceof BoostQuery) {
+            final BoostQuery bq = (BoostQuery) query;
+            return new BoostQuery(bind(bq.getQuery(), context, termStates), bq.getBoost());
+        }
+
+        if (query instanceof BooleanQuery) {
+            final BooleanQuery bq = (BooleanQuery) query;
+
+            final BooleanQuery.Builder b = new BooleanQuery.Builder();
+            b.setMinimumNumberShouldMatch(bq.getMinimumNumberShouldMatch());
+
+            for (BooleanClause c : bq.clauses()) {
+                b.add(bind(c.getQuery(), context, termStates), c.getOccur());
+            }
+
+            return b.build();
+        }
+
+        // other queries, e.g. synonyms, look up their terms by themselves
+        return query;
+    }
+
+    /**
+     * Searches and evaluates all the topics for a point of the grid.
+     *
+     * @param p         the point of the grid.
+     * @param reader    the index reader.
+     * @param topics    the topics.
+     * @param queries   the query of each topic in each searched field.
+     * @param evaluator the evaluator of the results.
+     * @return the point of the grid, evaluated.
+     * @throws IOException if something goes wrong while searching.
+     */
+    private GridPoint search(final GridPoint p, final IndexReader reader, final List<LongEvalTopic> topics,
+                             final Query[][] queries, final TrecEvaluator evaluator) throws IOException {
+
+        final long start = System.currentTimeMillis();
+
+        final Map<String, Float> k1 = new HashMap<>();
+        final Map<String, Float> b = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            k1.put(fields.get(i), p.k1[i]);
+            b.put(fields.get(i), p.b[i]);
+        }
+
+        // an index searcher is cheap: it shares the reader, and so the statistics of the terms
+        final IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setSimilarity(new PerFieldBM25Similarity(k1, b));
+
+        final List<TopicMeasures> measures = new ArrayList<>(topics.size());
+
+        for (int t = 0; t < topics.size(); t++) {
+
+            final BooleanQuery.Builder bq = new BooleanQuery.Builder();
+
+            for (int i = 0; i < fields.size(); i++) {
+                if (p.boost[i] == DEFAULT_BOOST) {
+                    bq.add(queries[t][i], BooleanClause.Occur.SHOULD);
+                } else {
+                    bq.add(new BoostQuery(queries[t][i], p.boost[i]), BooleanClause.Occur.SHOULD);
+                }
+            }
+
+            final TopicMeasures m = evaluator.evaluate(topics.get(t).getNum(),
+                    searcher.search(bq.build(), config.maxDocsRetrieved));
+            if (m != null) {
+                measures.add(m);
+            }
+        }
+
+        p.evaluation = new RunEvaluation(measures);
+        p.elapsedTime = System.currentTimeMillis() - start;
+
+        return p;
+    }
+
+    /**
+     * Returns the parameters of a point of the grid.
+     *
+     * @param p the point of the grid.
+     * @return the parameters of the point of the grid.
+     */
+    private String describe(final GridPoint p) {
+
+        final StringBuilder sb = new StringBuilder();
+        final Formatter formatter = new Formatter(sb, Locale.ENGLISH);
+
+        for (int i = 0; i < fields.size(); i++) {
+            formatter.format("%s%s(k1=%.2f, b=%.2f, boost=%.2f)", i > 0 ? " " : "", fields.get(i), p.k1[i], p.b[i],
+                    p.boost[i]);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Prints the ranked points of the grid and writes them to {@code runPath/id.tsv}.
+     *
+     * @param grid the ranked points of the grid.
+     * @throws IOException if something goes wrong while writing.
+     */
+    private void print(final List<GridPoint> grid) throws IOException {
+
+        final Path runPath = Paths.get(config.runPath);
+        Files.createDirectories(runPath);
+
+        final Path tsv = runPath.resolve(config.id + ".tsv");
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(tsv, StandardCharsets.UTF_8))) {
+
+            System.out.printf("%n%-4s  %-60s  %6s  %7s  %6s  %6s  %6s  %8s%n", "rank", "configuration", "MAP",
+                    "nDCG@10", "P@10", "R@1000", "bpref", "time(ms)");
+
+            out.print("rank");
+            for (String f : fields) {
+                out.printf("\t%s.k1\t%s.b\t%s.boost", f, f, f);
+            }
+            out.printf("\tmap\tndcg_cut_10\tP_10\trecall_1000\tbpref\ttime_ms%n");
+
+            for (int r = 0; r < grid.size(); r++) {
+                final GridPoint p = grid.get(r);
+                final RunEvaluation e = p.evaluation;
+
+                System.out.printf(Locale.ENGLISH, "%-4d  %-60s  %.4f  %.4f   %.4f  %.4f  %.4f  %8d%n", r + 1,
+                        describe(p), e.getMAP(), e.getNDCG10(), e.getP10(), e.getRecall1000(), e.getBpref(),
+                        p.elapsedTime);
+
+                out.print(r + 1);
+                for (int i = 0; i < fields.size(); i++) {
+                    out.printf(Locale.ENGLISH, "\t%s\t%s\t%s", p.k1[i], p.b[i], p.boost[i]);
+                }
+                out.printf(Locale.ENGLISH, "\t%.4f\t%.4f\t%.4f\t%.4f\t%.4f\t%d%n", e.getMAP(), e.getNDCG10(),
+                        e.getP10(), e.getRecall1000(), e.getBpref(), p.elapsedTime);
+            }
+        }
+
+        System.out.printf("%nCreated file: %s%n", tsv);
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes.
+     *
+     * @param args command line arguments: the configuration file of the sweep, if not the default one.
+     * @throws Exception if something goes wrong while searching.
+     */
+    public static void main(String[] args) throws Exception {
+
+        final String configFile = args.length > 0 ? args[0] : "conf\\bm25-sweep-train.json";
+
+        final BM25Sweep s = new BM25Sweep(Paths.get(configFile));
+
+        s.sweep();
+    }
+}
@@ -0,0 +1,377 @@
+package search;
+
+import analyze.EnglishAnalyzer;
+import analyze.FrenchAnalyzer;
+import analyze.NERAnalyzer;
+import analyze.NGramAnalyzer;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import eval.Qrels;
+import eval.RunEvaluation;
+import eval.TrecEvaluator;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import topic.LongEvalTopic;
+import util.ConcurrencyUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches a batch of runs, described by a JSON configuration file, in a single JVM.
+ *
+ * All the runs share the same analyzers; each index is opened only once and its reader is shared by all the runs
+ * searching it, as well as each topic file is read only once. The runs are searched concurrently, each one searching
+ * its topics on its own threads.
+ *
+ * The configuration file looks like:
+ * <pre>
+ * {
+ *   "runPath": "runs",
+ *   "maxDocsRetrieved": 1000,
+ *   "runThreads": 4,
+ *   "topicThreads": 2,
+ *   "runs": [
+ *     {
+ *       "id": "seupd2223-JIHUMING-02_en_en_3gram",
+ *       "topics": "D:\\longeval_train\\publish\\English\\Queries\\train.trec",
+ *       "expectedTopics": 672,
+ *       "index": "D:\\created_indexes\\train\\2023_04_29_multilingual_3gram_synonym",
+ *       "fields": ["english_body", "n_gram"],
+ *       "ngramSize": 3,
+ *       "qrels": "runs\\experiments\\qrels.txt"
+ *     }
+ *   ]
+ * }
+ * </pre>
+ * where the fields are among {@code english_body}, {@code french_body}, {@code n_gram} and {@code ner}. If a run has
+ * relevance judgements ({@code qrels}, optional), it is also evaluated while searching.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class BatchSearcher {
+
+    /**
+     * The default number of runs searched concurrently.
+     */
+    private static final int DEFAULT_RUN_THREADS = 1;
+
+    /**
+     * The default number of threads searching the topics of each run.
+     */
+    private static final int DEFAULT_TOPIC_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The default maximum number of documents to retrieve.
+     */
+    private static final int DEFAULT_MAX_DOCS_RETRIEVED = 1000;
+
+    /**
+     * The default size of the N-Grams.
+     */
+    private static final int DEFAULT_NGRAM_SIZE = 3;
+
+    /**
+     * The batch to search.
+     */
+    private final BatchConfig config;
+
+    /**
+     * The total elapsed time.
+     */
+    private long elapsedTime = Long.MIN_VALUE;
+
+    /**
+     * A JSON POJO describing a batch of runs.
+     */
+    private static final class BatchConfig {
+
+        /**
+         * The path where to store the runs.
+         */
+        private String runPath;
+
+        /**
+         * The maximum number of documents to retrieve.
+         */
+        private int maxDocsRetrieved = DEFAULT_MAX_DOCS_RETRIEVED;
+
+        /**
+         * The number of runs searched concurrently.
+         */
+        private int runThreads = DEFAULT_RUN_THREADS;
+
+        /**
+         * The number of threads searching the topics of each run.
+         */
+        private int topicThreads = DEFAULT_TOPIC_THREADS;
+
+        /**
+         * The runs to search.
+         */
+        private List<RunConfig> runs;
+    }
+
+    /**
+     * A JSON POJO describing a run.
+     */
+    private static final class RunConfig {
+
+        /**
+         * The identifier of the run.
+         */
+        private String id;
+
+        /**
+         * The file containing the topics to search for.
+         */
+        private String topics;
+
+        /**
+         * The total number of topics expected to be searched.
+         */
+        private int expectedTopics;
+
+        /**
+         * The directory containing the index to be searched.
+         */
+        private String index;
+
+        /**
+         * The fields to search.
+         */
+        private Set<String> fields;
+
+        /**
+         * The size of the N-Grams of the index.
+         */
+        private int ngramSize = DEFAULT_NGRAM_SIZE;
+
+        /**
+         * The file containing the relevance judgements to evaluate the run, if any.
+         */
+        private String qrels;
+    }
+
+    /**
+     * Creates a new batch searcher.
+     *
+     * @param configFile the JSON file describing the runs to search.
+     * @throws NullPointerException     if {@code configFile} is {@code null}.
+     * @throws IllegalArgumentException if the configuration file cannot be read or describes invalid runs.
+     */
+    public BatchSearcher(final Path configFile) {
+
+        if (configFile == null) {
+            throw new NullPointerException("Configuration file cannot be null.");
+        }
+
+        try (Reader in = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            config = new Gson().fromJson(in, BatchConfig.class);
+        } catch (IOException | JsonParseException e) {
+            throw new IllegalArgumentException(
+                    String.format("Unable to read configuration file %s: %s.", configFile, e.getMessage()), e);
+        }
+
+        if (config == null) {
+            throw new IllegalArgumentException(String.format("Configuration file %s is empty.", configFile));
+        }
+
+        if (config.runPath == null || config.runPath.isEmpty()) {
+            throw new IllegalArgumentException("Run path cannot be null or empty.");
+        }
+
+        if (config.maxDocsRetrieved <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of documents to be retrieved cannot be less than or equal to zero.");
+        }
+
+        if (config.runThreads <= 0) {
+            throw new IllegalArgumentException("The number of run threads cannot be less than or equal to zero.");
+        }
+
+        if (config.topicThreads <= 0) {
+            throw new IllegalArgumentException("The number of topic threads cannot be less than or equal to zero.");
+        }
+
+        if (config.runs == null || config.runs.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one run to search.");
+        }
+
+        final Set<String> ids = new HashSet<>();
+        for (RunConfig r : config.runs) {
+
+            if (r.id == null || r.id.isEmpty()) {
+                throw new IllegalArgumentException("Run identifier cannot be null or empty.");
+            }
+
+            if (!ids.add(r.id)) {
+                throw new IllegalArgumentException(String.format("Duplicated run %s.", r.id));
+            }
+
+            if (r.topics == null || r.topics.isEmpty()) {
+                throw new IllegalArgumentException(String.format("Topics file of run %s cannot be null or empty.", r.id));
+            }
+
+            if (r.index == null || r.index.isEmpty()) {
+                throw new IllegalArgumentException(String.format("Index of run %s cannot be null or empty.", r.id));
+            }
+
+            if (r.fields == null || r.fields.isEmpty()) {
+                throw new IllegalArgumentException(String.format("Fields of run %s cannot be null or empty.", r.id));
+            }
+
+            for (String f : r.fields) {
+                if (!Searcher.SEARCHABLE_FIELDS.contains(f)) {
+                    throw new IllegalArgumentException(String.format("Unknown field %s in run %s.", f, r.id));
+                }
+            }
+
+            if (r.ngramSize <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("N-Gram size of run %s cannot be less than or equal to zero.", r.id));
+            }
+        }
+    }
+
+    /**
+     * Returns the total elapsed time.
+     *
+     * @return the total elapsed time.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Searches all the runs.
+     *
+     * @throws IOException    if something goes wrong while searching.
+     * @throws ParseException if something goes wrong while parsing topics.
+     */
+    public void search() throws IOException, ParseException {
+
+        System.out.printf("%n#### Start batch searching ####%n");
+
+        // the start time of the searching
+        final long start = System.currentTimeMillis();
+
+        // the analyzers are thread-safe, so they are shared by all the runs
+        final EnglishAnalyzer enAn = new EnglishAnalyzer();
+        final FrenchAnalyzer frAn = new FrenchAnalyzer();
+        final NERAnalyzer nerAn = new NERAnalyzer();
+        final Map<Integer, NGramAnalyzer> ngramAns = new HashMap<>();
+
+        // each index is opened and each topic file is read only once
+        final Map<String, IndexReader> readers = new HashMap<>();
+        final Map<String, List<LongEvalTopic>> topics = new HashMap<>();
+
+        // each qrels file is read only once, and bound only once to each index
+        final Map<String, Qrels> qrels = new HashMap<>();
+        final Map<String, TrecEvaluator> evaluators = new HashMap<>();
+
+        // the searchers created so far, to close the ones whose run is never searched if something goes wrong
+        final List<Searcher> searchers = new ArrayList<>(config.runs.size());
+
+        final ExecutorService runExecutor = Executors.newFixedThreadPool(config.runThreads);
+
+        try {
+            final List<Future<RunEvaluation>> runs = new ArrayList<>(config.runs.size());
+
+            for (RunConfig r : config.runs) {
+
+                final IndexReader reader = readers.computeIfAbsent(r.index, Searcher::openIndex);
+                final List<LongEvalTopic> runTopics = topics.computeIfAbsent(r.topics, Searcher::readTopics);
+                final Analyzer ngramAn = ngramAns.computeIfAbsent(r.ngramSize, NGramAnalyzer::new);
+
+                TrecEvaluator evaluator = null;
+                if (r.qrels != null) {
+                    Qrels q = qrels.get(r.qrels);
+                    if (q == null) {
+                        q = new Qrels(Paths.get(r.qrels));
+                        qrels.put(r.qrels, q);
+                    }
+
+                    final String key = r.qrels + File.pathSeparator + r.index;
+                    evaluator = evaluators.get(key);
+                    if (evaluator == null) {
+                        evaluator = new TrecEvaluator(q, reader);
+                        evaluators.put(key, evaluator);
+                    }
+                }
+                final TrecEvaluator runEvaluator = evaluator;
+
+                final Searcher s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(), reader, runTopics,
+                        r.expectedTopics > 0 ? r.expectedTopics : runTopics.size(), r.id, config.runPath,
+                        config.maxDocsRetrieved, 1, 0, 0);
+                searchers.add(s);
+
+                runs.add(runExecutor.submit(() -> s.search(r.fields, config.topicThreads, runEvaluator)));
+            }
+
+            for (int i = 0; i < runs.size(); i++) {
+                final RunEvaluation e = ConcurrencyUtil.get(runs.get(i), "a run", ParseException.class);
+
+                if (e == null) {
+                    System.out.printf("Run %s searched.%n", config.runs.get(i).id);
+                } else {
+                    System.out.printf(Locale.ENGLISH, "Run %s searched: MAP %.4f, nDCG@10 %.4f, P@10 %.4f.%n",
+                            config.runs.get(i).id, e.getMAP(), e.getNDCG10(), e.getP10());
+                }
+            }
+        } finally {
+            // stop searching runs if something went wrong, and wait for the ones being searched to stop using the
+            // indexes before closing them
+            ConcurrencyUtil.shutdownNow(runExecutor, "the runs still being searched");
+
+            // the runs never started still have their run file open
+            for (Searcher s : searchers) {
+                s.close();
+            }
+
+            for (IndexReader reader : readers.values()) {
+                reader.close();
+            }
+
+            enAn.close();
+            frAn.close();
+            nerAn.close();
+            for (NGramAnalyzer a : ngramAns.values()) {
+                a.close();
+            }
+        }
+
+        elapsedTime = System.currentTimeMillis() - start;
+
+        System.out.printf("%d run(s) over %d index(es) searched in %d seconds.%n", config.runs.size(), readers.size(),
+                elapsedTime / 1000);
+        System.out.printf("#### Batch searching complete ####%n");
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes.
+     *
+     * @param args command line arguments: the configuration file of the batch, if not the default one.
+     * @throws Exception if something goes wrong while searching.
+     */
+    public static void main(String[] args) throws Exception {
+
+        final String configFile = args.length > 0 ? args[0] : "conf\\batch-test-long.json";
+
+        final BatchSearcher b = new BatchSearcher(Paths.get(configFile));
+
+        b.search();
+    }
+}
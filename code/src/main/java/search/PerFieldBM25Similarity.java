@@ -0,0 +1,74 @@
+package search;
+
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.PerFieldSimilarityWrapper;
+import org.apache.lucene.search.similarities.Similarity;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A BM25 similarity with its own {@code k1} and {@code b} parameters for each field.
+ *
+ * BM25 encodes the same norms whatever its parameters, so an index built with the default {@link BM25Similarity} can
+ * be searched with any parameters without reindexing.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class PerFieldBM25Similarity extends PerFieldSimilarityWrapper {
+
+    /**
+     * The similarity of each field with its own parameters.
+     */
+    private final Map<String, BM25Similarity> fields;
+
+    /**
+     * The similarity of the other fields.
+     */
+    private final BM25Similarity defaultSimilarity = new BM25Similarity();
+
+    /**
+     * Creates a new per-field BM25 similarity.
+     *
+     * @param k1 the {@code k1} parameter of each field; the other fields use the default one.
+     * @param b  the {@code b} parameter of each field; the other fields use the default one.
+     * @throws NullPointerException     if {@code k1} or {@code b} is {@code null}.
+     * @throws IllegalArgumentException if a parameter is out of range.
+     */
+    public PerFieldBM25Similarity(final Map<String, Float> k1, final Map<String, Float> b) {
+
+        if (k1 == null) {
+            throw new NullPointerException("k1 parameters cannot be null.");
+        }
+
+        if (b == null) {
+            throw new NullPointerException("b parameters cannot be null.");
+        }
+
+        final Map<String, BM25Similarity> fields = new HashMap<>();
+
+        for (String f : k1.keySet()) {
+            fields.put(f, new BM25Similarity(k1.get(f), b.getOrDefault(f, defaultSimilarity.getB())));
+        }
+
+        for (String f : b.keySet()) {
+            if (!fields.containsKey(f)) {
+                fields.put(f, new BM25Similarity(defaultSimilarity.getK1(), b.get(f)));
+            }
+        }
+
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    public Similarity get(final String name) {
+        return fields.getOrDefault(name, defaultSimilarity);
+    }
+
+    @Override
+    public String toString() {
+        return "PerFieldBM25" + fields;
+    }
+}
@@ -4,21 +4,36 @@ import analyze.EnglishAnalyzer;
 import analyze.FrenchAnalyzer;
 import analyze.NERAnalyzer;
 import analyze.NGramAnalyzer;
+import eval.RunEvaluation;
+import eval.TopicMeasures;
+import eval.TrecEvaluator;
+import index.TemporalIndex;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.QueryParserBase;
 import org.apache.lucene.search.*;
 import org.apache.lucene.search.similarities.BM25Similarity;
 import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 
 import parse.ParsedDocument;
 import topic.LongEvalTopic;
 import topic.LongEvalTopicReader;
+import topic.LongEvalTopicStream;
+import util.ConcurrencyUtil;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
@@ -27,6 +42,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Searches a document collection.
@@ -37,6 +58,12 @@ import java.util.*;
  */
 public class Searcher {
 
+    /**
+     * The fields which can be searched.
+     */
+    static final Set<String> SEARCHABLE_FIELDS = Set.of(ParsedDocument.FIELDS.ENGLISH_BODY,
+            ParsedDocument.FIELDS.FRENCH_BODY, ParsedDocument.FIELDS.N_GRAM, ParsedDocument.FIELDS.NER);
+
     /**
      * The identifier of the run
      */
@@ -52,35 +79,61 @@ public class Searcher {
      */
     private final IndexReader reader;
 
+    /**
+     * Whether to close the index reader at the end of the search; it is not closed if shared with other searchers.
+     */
+    private final boolean closeReader;
+
     /**
      * The index searcher.
      */
     private final IndexSearcher searcher;
 
+    /**
+     * The single-threaded index searcher used as baseline when searching in parallel and comparing with it,
+     * {@code null} otherwise.
+     */
+    private final IndexSearcher baseline;
+
+    /**
+     * The executor searching the slices of the index in parallel, {@code null} if searching with a single thread.
+     */
+    private final ExecutorService executor;
+
     /**
      * The topics to be searched.
      */
-    private final List<LongEvalTopic> topics;
+    private final Iterable<LongEvalTopic> topics;
+
+    /**
+     * The total number of topics expected to be searched.
+     */
+    private final int expectedTopics;
 
     /**
-     * Query parser for English queries.
+     * The number of topics searched.
      */
-    private final QueryParser enQp;
+    private int searchedTopics = 0;
 
     /**
-     * Query parser for French queries.
+     * Analyzer for English queries.
      */
-    private final QueryParser frQp;
+    private final Analyzer enAnalyzer;
 
     /**
-     * Query parser to generate N-Grams for both English and French queries.
+     * Analyzer for French queries.
      */
-    private final QueryParser ngramQp;
+    private final Analyzer frAnalyzer;
 
     /**
-     * Query parser to generate NER information for queries.
+     * Analyzer to generate N-Grams for both English and French queries.
      */
-    private final QueryParser nerQp;
+    private final Analyzer ngramAnalyzer;
+
+    /**
+     * Analyzer to generate NER information for queries.
+     */
+    private final Analyzer nerAnalyzer;
 
     /**
      * The maximum number of documents to retrieve
@@ -93,7 +146,27 @@ public class Searcher {
     private long elapsedTime = Long.MIN_VALUE;
 
     /**
-     * Creates a new searcher.
+     * The total time spent by the single-threaded baseline searching the topics, in nanoseconds.
+     */
+    private final AtomicLong baselineTime = new AtomicLong();
+
+    /**
+     * The total time spent by the parallel searcher searching the topics, in nanoseconds.
+     */
+    private final AtomicLong parallelTime = new AtomicLong();
+
+    /**
+     * The number of topics for which the parallel searcher and the baseline returned different results.
+     */
+    private final AtomicInteger mismatchedTopics = new AtomicInteger();
+
+    /**
+     * The measures of the topics evaluated so far.
+     */
+    private final Queue<TopicMeasures> measures = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new searcher, searching the index with a single thread.
      *
      * @param enAnalyzer       the {@code Analyzer} used for the English documents.
      * @param frAnalyzer       the {@code Analyzer} used for the French documents.
@@ -117,30 +190,326 @@ public class Searcher {
             final Analyzer nerAnalyzer,
             final Similarity similarity, final String indexPath, final String topicsFile,
             final int expectedTopics, final String runID, final String runPath, final int maxDocsRetrieved) {
-        // enAnalyzer
-        if (enAnalyzer == null) {
-            throw new NullPointerException("English analyzer cannot be null.");
-        }
+        this(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer, similarity, indexPath, topicsFile, expectedTopics,
+                runID, runPath, maxDocsRetrieved, 1, 0, 0);
+    }
 
-        // frAnalyzer
-        if (frAnalyzer == null) {
-            throw new NullPointerException("French analyzer cannot be null.");
-        }
+    /**
+     * Creates a new searcher.
+     *
+     * If {@code numSearchThreads} is greater than one, each query is searched in parallel over slices of the index,
+     * i.e. groups of segments, each one searched by a different thread.
+     *
+     * @param enAnalyzer          the {@code Analyzer} used for the English documents.
+     * @param frAnalyzer          the {@code Analyzer} used for the French documents.
+     * @param ngramAnalyzer       the {@code Analyzer} used for N-Gram field of
+     *                            documents.
+     * @param nerAnalyzer         the {@code Analyzer} to be used for NER extracted
+     *                            information from documents.
+     * @param similarity          the {@code Similarity} to be used.
+     * @param indexPath           the directory where containing the index to be
+     *                            searched.
+     * @param topicsFile          the file containing the topics to search for.
+     * @param expectedTopics      the total number of topics expected to be searched.
+     * @param runID               the identifier of the run to be created.
+     * @param runPath             the path where to store the run.
+     * @param maxDocsRetrieved    the maximum number of documents to be retrieved.
+     * @param numSearchThreads    the number of threads searching the slices of the index.
+     * @param maxDocsPerSlice     the maximum number of documents in a slice; a segment larger than that is a slice
+     *                            on its own.
+     * @param maxSegmentsPerSlice the maximum number of segments in a slice.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid
+     *                                  values.
+     */
+    public Searcher(final Analyzer enAnalyzer, final Analyzer frAnalyzer, final Analyzer ngramAnalyzer,
+            final Analyzer nerAnalyzer,
+            final Similarity similarity, final String indexPath, final String topicsFile,
+            final int expectedTopics, final String runID, final String runPath, final int maxDocsRetrieved,
+            final int numSearchThreads, final int maxDocsPerSlice, final int maxSegmentsPerSlice) {
+        this(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer, similarity, indexPath, topicsFile, expectedTopics,
+                runID, runPath, maxDocsRetrieved, numSearchThreads, maxDocsPerSlice, maxSegmentsPerSlice, false);
+    }
+
+    /**
+     * Creates a new searcher.
+     *
+     * If {@code numSearchThreads} is greater than one, each query is searched in parallel over slices of the index,
+     * i.e. groups of segments, each one searched by a different thread. With {@code compareWithBaseline} set, each
+     * query is also searched with a single thread, as a baseline: the speedup over the baseline is reported at the end
+     * of the search and the results of the two searches are checked to be the same. This doubles the work done for
+     * each query, so it is meant only to measure the parallel search.
+     *
+     * @param enAnalyzer          the {@code Analyzer} used for the English documents.
+     * @param frAnalyzer          the {@code Analyzer} used for the French documents.
+     * @param ngramAnalyzer       the {@code Analyzer} used for N-Gram field of
+     *                            documents.
+     * @param nerAnalyzer         the {@code Analyzer} to be used for NER extracted
+     *                            information from documents.
+     * @param similarity          the {@code Similarity} to be used.
+     * @param indexPath           the directory where containing the index to be
+     *                            searched.
+     * @param topicsFile          the file containing the topics to search for.
+     * @param expectedTopics      the total number of topics expected to be searched.
+     * @param runID               the identifier of the run to be created.
+     * @param runPath             the path where to store the run.
+     * @param maxDocsRetrieved    the maximum number of documents to be retrieved.
+     * @param numSearchThreads    the number of threads searching the slices of the index.
+     * @param maxDocsPerSlice     the maximum number of documents in a slice; a segment larger than that is a slice
+     *                            on its own.
+     * @param maxSegmentsPerSlice the maximum number of segments in a slice.
+     * @param compareWithBaseline whether to search each query with a single thread too, when searching in parallel.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid
+     *                                  values.
+     */
+    public Searcher(final Analyzer enAnalyzer, final Analyzer frAnalyzer, final Analyzer ngramAnalyzer,
+            final Analyzer nerAnalyzer,
+            final Similarity similarity, final String indexPath, final String topicsFile,
+            final int expectedTopics, final String runID, final String runPath, final int maxDocsRetrieved,
+            final int numSearchThreads, final int maxDocsPerSlice, final int maxSegmentsPerSlice,
+            final boolean compareWithBaseline) {
+        this(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer, similarity, openIndex(indexPath), true,
+                streamTopics(topicsFile), expectedTopics, runID, runPath, maxDocsRetrieved, numSearchThreads,
+                maxDocsPerSlice, maxSegmentsPerSlice, compareWithBaseline);
+    }
 
-        // nAnalyzer
-        if (ngramAnalyzer == null) {
-            throw new NullPointerException("N-Gram analyzer cannot be null.");
+    /**
+     * Creates a new searcher over an index and topics shared with other searchers, e.g. by {@link BatchSearcher}.
+     * The index reader is not closed at the end of the search.
+     *
+     * @param enAnalyzer          the {@code Analyzer} used for the English documents.
+     * @param frAnalyzer          the {@code Analyzer} used for the French documents.
+     * @param ngramAnalyzer       the {@code Analyzer} used for N-Gram field of
+     *                            documents.
+     * @param nerAnalyzer         the {@code Analyzer} to be used for NER extracted
+     *                            information from documents.
+     * @param similarity          the {@code Similarity} to be used.
+     * @param reader              the reader of the index to be searched.
+     * @param topics              the topics to search for.
+     * @param expectedTopics      the total number of topics expected to be searched.
+     * @param runID               the identifier of the run to be created.
+     * @param runPath             the path where to store the run.
+     * @param maxDocsRetrieved    the maximum number of documents to be retrieved.
+     * @param numSearchThreads    the number of threads searching the slices of the index.
+     * @param maxDocsPerSlice     the maximum number of documents in a slice; a segment larger than that is a slice
+     *                            on its own.
+     * @param maxSegmentsPerSlice the maximum number of segments in a slice.
+     * @throws NullPointerException     if any of the parameters is {@code null}.
+     * @throws IllegalArgumentException if any of the parameters assumes invalid
+     *                                  values.
+     */
+    public Searcher(final Analyzer enAnalyzer, final Analyzer frAnalyzer, final Analyzer ngramAnalyzer,
+            final Analyzer nerAnalyzer,
+            final Similarity similarity, final IndexReader reader, final List<LongEvalTopic> topics,
+            final int expectedTopics, final String runID, final String runPath, final int maxDocsRetrieved,
+            final int numSearchThreads, final int maxDocsPerSlice, final int maxSegmentsPerSlice) {
+        this(enAnalyzer, frAnalyzer, ngramAnalyzer, nerAnalyzer, similarity, reader, false, topics, expectedTopics,
+                runID, runPath, maxDocsRetrieved, numSearchThreads, maxDocsPerSlice, maxSegmentsPerSlice, false);
+    }
+
+    /**
+     * Creates a new searcher.
+     *
+     * @param enAnalyzer          the {@code Analyzer} used for the English documents.
+     * @param frAnalyzer          the {@code Analyzer} used for the French documents.
+     * @param ngramAnalyzer       the {@code Analyzer} used for N-Gram field of documents.
+     * @param nerAnalyzer         the {@code Analyzer} to be used for NER extracted information from documents.
+     * @param similarity          the {@code Similarity} to be used.
+     * @param reader              the reader of the index to be searched.
+     * @param closeReader         whether to close the reader at the end of the search.
+     * @param topics              the topics to search for; closed at the end of the search if {@code Closeable}.
+     * @param expectedTopics      the total number of topics expected to be searched.
+     * @param runID               the identifier of the run to be created.
+     * @param runPath             the path where to store the run.
+     * @param maxDocsRetrieved    the maximum number of documents to be retrieved.
+     * @param numSearchThreads    the number of threads searching the slices of the index.
+     * @param maxDocsPerSlice     the maximum number of documents in a slice.
+     * @param maxSegmentsPerSlice the maximum number of segments in a slice.
+     * @param compareWithBaseline whether to search each query with a single thread too, when searching in parallel.
+     */
+    private Searcher(final Analyzer enAnalyzer, final Analyzer frAnalyzer, final Analyzer ngramAnalyzer,
+            final Analyzer nerAnalyzer,
+            final Similarity similarity, final IndexReader reader, final boolean closeReader,
+            final Iterable<LongEvalTopic> topics,
+            final int expectedTopics, final String runID, final String runPath, final int maxDocsRetrieved,
+            final int numSearchThreads, final int maxDocsPerSlice, final int maxSegmentsPerSlice,
+            final boolean compareWithBaseline) {
+        try {
+            // enAnalyzer
+            if (enAnalyzer == null) {
+                throw new NullPointerException("English analyzer cannot be null.");
+            }
+
+            // frAnalyzer
+            if (frAnalyzer == null) {
+                throw new NullPointerException("French analyzer cannot be null.");
+            }
+
+            // nAnalyzer
+            if (ngramAnalyzer == null) {
+                throw new NullPointerException("N-Gram analyzer cannot be null.");
+            }
+
+            // nerAnalyzer
+            if (nerAnalyzer == null) {
+                throw new NullPointerException("NER analyzer cannot be null.");
+            }
+
+            // similarity
+            if (similarity == null) {
+                throw new NullPointerException("Similarity cannot be null.");
+            }
+
+            // reader
+            if (reader == null) {
+                throw new NullPointerException("Index reader cannot be null.");
+            }
+
+            // numSearchThreads
+            if (numSearchThreads <= 0) {
+                throw new IllegalArgumentException(
+                        "The number of search threads cannot be less than or equal to zero.");
+            }
+
+            if (numSearchThreads > 1) {
+                // maxDocsPerSlice
+                if (maxDocsPerSlice <= 0) {
+                    throw new IllegalArgumentException(
+                            "The maximum number of documents per slice cannot be less than or equal to zero.");
+                }
+
+                // maxSegmentsPerSlice
+                if (maxSegmentsPerSlice <= 0) {
+                    throw new IllegalArgumentException(
+                            "The maximum number of segments per slice cannot be less than or equal to zero.");
+                }
+            }
+
+            // topics
+            if (topics == null) {
+                throw new NullPointerException("Topics cannot be null.");
+            }
+
+            // expectedTopics
+            if (expectedTopics <= 0) {
+                throw new IllegalArgumentException(
+                        "The expected number of topics to be searched cannot be less than or equal to zero.");
+            }
+
+            // runID
+            if (runID == null) {
+                throw new NullPointerException("Run identifier cannot be null.");
+            }
+
+            if (runID.isEmpty()) {
+                throw new IllegalArgumentException("Run identifier cannot be empty.");
+            }
+
+            // runPath
+            if (runPath == null) {
+                throw new NullPointerException("Run path cannot be null.");
+            }
+            if (runPath.isEmpty()) {
+                throw new IllegalArgumentException("Run path cannot be empty.");
+            }
+
+            final Path runDir = Paths.get(runPath);
+            if (!Files.isWritable(runDir)) {
+                throw new IllegalArgumentException(
+                        String.format("Run directory %s cannot be written.", runDir.toAbsolutePath().toString()));
+            }
+
+            if (!Files.isDirectory(runDir)) {
+                throw new IllegalArgumentException(String.format(
+                        "%s expected to be a directory where to write the run.", runDir.toAbsolutePath().toString()));
+            }
+
+            // maxDocsRetrieved
+            if (maxDocsRetrieved <= 0) {
+                throw new IllegalArgumentException(
+                        "The maximum number of documents to be retrieved cannot be less than or equal to zero.");
+            }
+
+            // all the parameters are valid: open the run file, and only then start the search threads, if any
+            final Path runFile = runDir.resolve(runID + ".txt");
+            try {
+                run = new PrintWriter(Files.newBufferedWriter(runFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(
+                        String.format("Unable to open run file %s: %s.", runFile.toAbsolutePath(), e.getMessage()), e);
+            }
+        } catch (RuntimeException e) {
+            // do not leave open the index and the topics opened for this searcher
+            closeOnFailure(closeReader ? reader : null, topics);
+            throw e;
         }
 
-        // nerAnalyzer
-        if (nerAnalyzer == null) {
-            throw new NullPointerException("NER analyzer cannot be null.");
+        this.reader = reader;
+        this.closeReader = closeReader;
+        this.topics = topics;
+        this.expectedTopics = expectedTopics;
+        this.runID = runID;
+        this.maxDocsRetrieved = maxDocsRetrieved;
+
+        // the query parsers are not thread-safe, so they are created by each thread searching topics
+        this.enAnalyzer = enAnalyzer;
+        this.frAnalyzer = frAnalyzer;
+        this.ngramAnalyzer = ngramAnalyzer;
+        this.nerAnalyzer = nerAnalyzer;
+
+        if (numSearchThreads == 1) {
+            executor = null;
+            baseline = null;
+            searcher = new IndexSearcher(reader);
+        } else {
+            executor = Executors.newFixedThreadPool(numSearchThreads);
+            searcher = slicedSearcher(reader, executor, maxDocsPerSlice, maxSegmentsPerSlice);
+
+            if (compareWithBaseline) {
+                baseline = new IndexSearcher(reader);
+                baseline.setSimilarity(similarity);
+            } else {
+                baseline = null;
+            }
+
+            System.out.printf("Searching %d segment(s) in %d slice(s) with %d thread(s)%s.%n",
+                    reader.leaves().size(), searcher.getSlices().length, numSearchThreads,
+                    compareWithBaseline ? ", compared with a single thread" : "");
         }
+        searcher.setSimilarity(similarity);
+    }
 
-        // similarity
-        if (similarity == null) {
-            throw new NullPointerException("Similarity cannot be null.");
+    /**
+     * Closes the index and the topics of a searcher which cannot be created.
+     *
+     * @param reader the reader of the index, or {@code null} if it is not to be closed.
+     * @param topics the topics, closed if {@code Closeable}.
+     */
+    private static void closeOnFailure(final IndexReader reader, final Iterable<LongEvalTopic> topics) {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+            if (topics instanceof Closeable) {
+                ((Closeable) topics).close();
+            }
+        } catch (IOException ignored) {
+            // already failing
         }
+    }
+
+    /**
+     * Opens the index to be searched. The delta index of a snapshot of a {@link TemporalIndex} is searched together
+     * with its base.
+     *
+     * @param indexPath the directory where containing the index to be searched.
+     * @return the reader of the index.
+     * @throws NullPointerException     if {@code indexPath} is {@code null}.
+     * @throws IllegalArgumentException if the index cannot be opened.
+     */
+    static IndexReader openIndex(final String indexPath) {
 
         // indexPath
         if (indexPath == null) {
@@ -162,14 +531,29 @@ public class Searcher {
         }
 
         try {
-            reader = DirectoryReader.open(FSDirectory.open(indexDir));
+            final Directory dir = FSDirectory.open(indexDir);
+
+            if (TemporalIndex.isDelta(dir)) {
+                dir.close();
+                return TemporalIndex.open(indexDir);
+            }
+
+            return DirectoryReader.open(dir);
         } catch (IOException e) {
             throw new IllegalArgumentException(String.format("Unable to create the index reader for directory %s: %s.",
                     indexDir.toAbsolutePath().toString(), e.getMessage()), e);
         }
+    }
 
-        searcher = new IndexSearcher(reader);
-        searcher.setSimilarity(similarity);
+    /**
+     * Reads the topics to be searched.
+     *
+     * @param topicsFile the file containing the topics to search for.
+     * @return the topics.
+     * @throws NullPointerException     if {@code topicsFile} is {@code null}.
+     * @throws IllegalArgumentException if the topics cannot be read.
+     */
+    static List<LongEvalTopic> readTopics(final String topicsFile) {
 
         // topicsFile
         if (topicsFile == null) {
@@ -184,82 +568,123 @@ public class Searcher {
             LongEvalTopicReader tReader = new LongEvalTopicReader(Paths.get(topicsFile));
 
             // Retrieve all the topics from the reader
-            topics = tReader.read();
+            return tReader.read();
         } catch (IOException e) {
             throw new IllegalArgumentException(
                     String.format("Unable to process topic file %s: %s.", topicsFile, e.getMessage()), e);
         }
+    }
 
-        // expectedTopics
-        if (expectedTopics <= 0) {
-            throw new IllegalArgumentException(
-                    "The expected number of topics to be searched cannot be less than or equal to zero.");
-        }
+    /**
+     * Opens the topics to be searched, which are read one at a time while searching them.
+     *
+     * @param topicsFile the file containing the topics to search for.
+     * @return the stream of the topics.
+     * @throws NullPointerException     if {@code topicsFile} is {@code null}.
+     * @throws IllegalArgumentException if the topics cannot be read.
+     */
+    static LongEvalTopicStream streamTopics(final String topicsFile) {
 
-        if (topics.size() != expectedTopics) {
-            System.out.printf("Expected to search for %s topics; %s topics found instead.", expectedTopics,
-                    topics.size());
+        // topicsFile
+        if (topicsFile == null) {
+            throw new NullPointerException("Topics file cannot be null.");
         }
-
-        /*
-         * A query parser contains information about:
-         * - The document field to search the query.
-         * - The analyzer to process the query before searching.
-         */
-        // English query parser
-        enQp = new QueryParser(ParsedDocument.FIELDS.ENGLISH_BODY, enAnalyzer);
-        // French query parser
-        frQp = new QueryParser(ParsedDocument.FIELDS.FRENCH_BODY, frAnalyzer);
-        // N-Gram query parser
-        ngramQp = new QueryParser(ParsedDocument.FIELDS.N_GRAM, ngramAnalyzer);
-        // NER query parser
-        nerQp = new QueryParser(ParsedDocument.FIELDS.NER, nerAnalyzer);
-
-        if (runID == null) {
-            throw new NullPointerException("Run identifier cannot be null.");
+        if (topicsFile.isEmpty()) {
+            throw new IllegalArgumentException("Topics file cannot be empty.");
         }
 
-        if (runID.isEmpty()) {
-            throw new IllegalArgumentException("Run identifier cannot be empty.");
+        try {
+            return new LongEvalTopicStream(Paths.get(topicsFile));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(
+                    String.format("Unable to process topic file %s: %s.", topicsFile, e.getMessage()), e);
         }
+    }
 
-        this.runID = runID;
-
-        // runPath
-        if (runPath == null) {
-            throw new NullPointerException("Run path cannot be null.");
-        }
-        if (runPath.isEmpty()) {
-            throw new IllegalArgumentException("Run path cannot be empty.");
+    /**
+     * Returns the fields searched by a run.
+     *
+     * @param runNumber run number that controls in which fields the search must be
+     *                  done following the scheme.
+     *                  See experimental evaluation in the report.
+     * @return the fields searched by the run.
+     * @throws IllegalArgumentException if {@code runNumber} is not a valid run number.
+     */
+    public static Set<String> runFields(final int runNumber) {
+
+        switch (runNumber) {
+            case 1:
+                return Set.of(ParsedDocument.FIELDS.ENGLISH_BODY);
+            // In runNumbers 2, 3, and 4 we search in the same fields
+            case 2:
+            case 3:
+            case 4:
+                return Set.of(ParsedDocument.FIELDS.ENGLISH_BODY, ParsedDocument.FIELDS.N_GRAM);
+            // In runNumbers 5 and 11 we search in the same fields
+            case 5:
+            case 11:
+                return Set.of(ParsedDocument.FIELDS.ENGLISH_BODY, ParsedDocument.FIELDS.FRENCH_BODY,
+                        ParsedDocument.FIELDS.N_GRAM);
+            case 6:
+                return Set.of(ParsedDocument.FIELDS.ENGLISH_BODY, ParsedDocument.FIELDS.N_GRAM,
+                        ParsedDocument.FIELDS.NER);
+            case 7:
+                return Set.of(ParsedDocument.FIELDS.FRENCH_BODY);
+            // In runNumbers8, 9, and 10 we search in the same fields
+            case 8:
+            case 9:
+            case 10:
+                return Set.of(ParsedDocument.FIELDS.FRENCH_BODY, ParsedDocument.FIELDS.N_GRAM);
+            case 12:
+                return Set.of(ParsedDocument.FIELDS.FRENCH_BODY, ParsedDocument.FIELDS.N_GRAM,
+                        ParsedDocument.FIELDS.NER);
+            default:
+                throw new IllegalArgumentException("Invalid run number.");
         }
+    }
 
-        final Path runDir = Paths.get(runPath);
-        if (!Files.isWritable(runDir)) {
-            throw new IllegalArgumentException(
-                    String.format("Run directory %s cannot be written.", runDir.toAbsolutePath().toString()));
-        }
+    /**
+     * Creates an index searcher searching the given slices of the index in parallel.
+     *
+     * @param reader              the index reader.
+     * @param executor            the executor searching the slices.
+     * @param maxDocsPerSlice     the maximum number of documents in a slice.
+     * @param maxSegmentsPerSlice the maximum number of segments in a slice.
+     * @return the index searcher.
+     */
+    private static IndexSearcher slicedSearcher(final IndexReader reader, final ExecutorService executor,
+            final int maxDocsPerSlice, final int maxSegmentsPerSlice) {
+
+        // the slices are computed by the constructor of IndexSearcher, so the slice sizes must be captured (and not
+        // stored into fields, which would still be unset at that time)
+        return new IndexSearcher(reader, executor) {
+            @Override
+            protected LeafSlice[] slices(final List<LeafReaderContext> leaves) {
+                return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice);
+            }
+        };
+    }
 
-        if (!Files.isDirectory(runDir)) {
-            throw new IllegalArgumentException(String.format("%s expected to be a directory where to write the run.",
-                    runDir.toAbsolutePath().toString()));
-        }
+    /**
+     * Checks whether two searches returned the same documents, in the same order and with the same scores.
+     *
+     * @param a the results of the first search.
+     * @param b the results of the second search.
+     * @return {@code true} if the results are the same, {@code false} otherwise.
+     */
+    private static boolean sameResults(final TopDocs a, final TopDocs b) {
 
-        Path runFile = runDir.resolve(runID + ".txt");
-        try {
-            run = new PrintWriter(Files.newBufferedWriter(runFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.WRITE));
-        } catch (IOException e) {
-            throw new IllegalArgumentException(
-                    String.format("Unable to open run file %s: %s.", runFile.toAbsolutePath(), e.getMessage()), e);
+        if (a.scoreDocs.length != b.scoreDocs.length) {
+            return false;
         }
 
-        // maxDocsRetrieved
-        if (maxDocsRetrieved <= 0) {
-            throw new IllegalArgumentException(
-                    "The maximum number of documents to be retrieved cannot be less than or equal to zero.");
+        for (int i = 0; i < a.scoreDocs.length; i++) {
+            if (a.scoreDocs[i].doc != b.scoreDocs[i].doc || a.scoreDocs[i].score != b.scoreDocs[i].score) {
+                return false;
+            }
         }
-        this.maxDocsRetrieved = maxDocsRetrieved;
+
+        return true;
     }
 
     /**
@@ -272,7 +697,7 @@ public class Searcher {
     }
 
     /**
-     * /** Searches for the specified topics.
+     * Searches for the specified topics, one after the other.
      *
      * @param runNumber run number that controls in which fields the search must be
      *                  done following the scheme.
@@ -282,109 +707,465 @@ public class Searcher {
      * @throws ParseException if something goes wrong while parsing topics.
      */
     public void search(Integer runNumber) throws IOException, ParseException {
+        search(runNumber, 1);
+    }
+
+    /**
+     * Searches for the specified topics.
+     *
+     * If {@code numTopicThreads} is greater than one, the topics are searched concurrently, while the results are
+     * written to the run in the order of the topics, so that the run is the same as the one produced by searching
+     * the topics one after the other.
+     *
+     * @param runNumber       run number that controls in which fields the search must be
+     *                        done following the scheme.
+     *                        See experimental evaluation in the report.
+     * @param numTopicThreads the number of threads searching topics.
+     *
+     * @throws IOException              if something goes wrong while searching.
+     * @throws ParseException           if something goes wrong while parsing topics.
+     * @throws IllegalArgumentException if {@code numTopicThreads} is less than or equal to zero.
+     */
+    public void search(Integer runNumber, int numTopicThreads) throws IOException, ParseException {
+        search(runFields(runNumber), numTopicThreads);
+    }
+
+    /**
+     * Searches for the specified topics in the given fields.
+     *
+     * If {@code numTopicThreads} is greater than one, the topics are searched concurrently, while the results are
+     * written to the run in the order of the topics, so that the run is the same as the one produced by searching
+     * the topics one after the other.
+     *
+     * @param fields          the fields to search, among those in {@link ParsedDocument.FIELDS} but the identifier.
+     * @param numTopicThreads the number of threads searching topics.
+     *
+     * @throws IOException              if something goes wrong while searching.
+     * @throws ParseException           if something goes wrong while parsing topics.
+     * @throws NullPointerException     if {@code fields} is {@code null}.
+     * @throws IllegalArgumentException if {@code fields} is empty or contains unknown fields, or if
+     *                                  {@code numTopicThreads} is less than or equal to zero.
+     */
+    public void search(Set<String> fields, int numTopicThreads) throws IOException, ParseException {
+        search(fields, numTopicThreads, null);
+    }
+
+    /**
+     * Searches for the specified topics in the given fields and evaluates the results of each topic, as soon as it
+     * has been searched.
+     *
+     * If {@code numTopicThreads} is greater than one, the topics are searched concurrently, while the results are
+     * written to the run in the order of the topics, so that the run is the same as the one produced by searching
+     * the topics one after the other.
+     *
+     * @param fields          the fields to search, among those in {@link ParsedDocument.FIELDS} but the identifier.
+     * @param numTopicThreads the number of threads searching topics.
+     * @param evaluator       the evaluator of the results, bound to the same index of this searcher, or
+     *                        {@code null} not to evaluate them.
+     * @return the evaluation of the run, or {@code null} if {@code evaluator} is {@code null}.
+     *
+     * @throws IOException              if something goes wrong while searching.
+     * @throws ParseException           if something goes wrong while parsing topics.
+     * @throws NullPointerException     if {@code fields} is {@code null}.
+     * @throws IllegalArgumentException if {@code fields} is empty or contains unknown fields, or if
+     *                                  {@code numTopicThreads} is less than or equal to zero.
+     */
+    public RunEvaluation search(Set<String> fields, int numTopicThreads, TrecEvaluator evaluator)
+            throws IOException, ParseException {
+
+        if (fields == null) {
+            throw new NullPointerException("Fields cannot be null.");
+        }
+
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("Fields cannot be empty.");
+        }
+
+        for (String f : fields) {
+            if (!SEARCHABLE_FIELDS.contains(f)) {
+                throw new IllegalArgumentException(String.format("Unknown field %s.", f));
+            }
+        }
+
+        if (numTopicThreads <= 0) {
+            throw new IllegalArgumentException("The number of topic threads cannot be less than or equal to zero.");
+        }
 
         System.out.printf("%n#### Start searching ####%n");
 
         // the start time of the searching
         final long start = System.currentTimeMillis();
 
-        final Set<String> idField = new HashSet<>();
-        idField.add(ParsedDocument.FIELDS.ID);
+        try {
+            if (numTopicThreads == 1) {
+                final TopicSearcher ts = new TopicSearcher(fields, evaluator);
+
+                for (LongEvalTopic t : topics) {
+                    run.print(ts.search(t, searchedTopics++));
+                    run.flush();
+                }
+            } else {
+                searchConcurrently(fields, numTopicThreads, evaluator);
+            }
+        } finally {
+            close();
+        }
+
+        elapsedTime = System.currentTimeMillis() - start;
+
+        System.out.printf("%d topic(s) searched in %d seconds.%n", searchedTopics, elapsedTime / 1000);
+
+        if (searchedTopics != expectedTopics) {
+            System.out.printf("Expected to search for %s topics; %s topics found instead.%n", expectedTopics,
+                    searchedTopics);
+        }
+
+        if (baseline != null && searchedTopics > 0) {
+            System.out.printf(Locale.ENGLISH,
+                    "Average latency per topic: %.3f ms single-threaded, %.3f ms parallel (speedup %.2fx).%n",
+                    baselineTime.get() / 1e6 / searchedTopics, parallelTime.get() / 1e6 / searchedTopics,
+                    (double) baselineTime.get() / parallelTime.get());
+
+            if (mismatchedTopics.get() > 0) {
+                System.out.printf("WARNING: %d topic(s) with different results in parallel and single-threaded.%n",
+                        mismatchedTopics.get());
+            }
+        }
 
-        BooleanQuery.Builder bq = null;
-        Query q = null;
-        TopDocs docs = null;
-        ScoreDoc[] sd = null;
-        String docID = null;
+        System.out.printf("Created file: %s.txt%n", runID);
+
+        RunEvaluation evaluation = null;
+        if (evaluator != null) {
+            evaluation = new RunEvaluation(measures);
+            System.out.printf(Locale.ENGLISH,
+                    "%d topic(s) evaluated: MAP %.4f, nDCG@10 %.4f, P@10 %.4f, Recall@1000 %.4f, bpref %.4f.%n",
+                    evaluation.size(), evaluation.getMAP(), evaluation.getNDCG10(), evaluation.getP10(),
+                    evaluation.getRecall1000(), evaluation.getBpref());
+        }
+
+        System.out.printf("#### Searching complete ####%n");
+
+        return evaluation;
+    }
+
+    /**
+     * Closes the run file, the topics and the executor, and the reader if it was opened by this searcher.
+     *
+     * It is called at the end of {@link #search(Set, int, TrecEvaluator)} and it is needed only when the topics are
+     * searched directly with a {@link TopicSearcher}.
+     *
+     * @throws IOException if something goes wrong while closing the topics or the reader.
+     */
+    void close() throws IOException {
+
+        run.close();
+
+        if (topics instanceof Closeable) {
+            ((Closeable) topics).close();
+        }
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+
+        if (closeReader) {
+            reader.close();
+        }
+    }
+
+    /**
+     * Searches for the specified topics on a pool of threads, writing the results to the run in the order of the
+     * topics.
+     *
+     * Only a bounded window of topics is searched ahead of the first topic whose results are not yet written, so
+     * that the results waiting to be written do not pile up in memory.
+     *
+     * @param fields          the fields to search.
+     * @param numTopicThreads the number of threads searching topics.
+     * @param evaluator       the evaluator of the results, or {@code null} not to evaluate them.
+     *
+     * @throws IOException    if something goes wrong while searching.
+     * @throws ParseException if something goes wrong while parsing topics.
+     */
+    private void searchConcurrently(final Set<String> fields, final int numTopicThreads,
+                                    final TrecEvaluator evaluator) throws IOException, ParseException {
+
+        final ExecutorService topicExecutor = Executors.newFixedThreadPool(numTopicThreads);
+
+        // one topic searcher, and so one set of query parsers, for each thread
+        final ThreadLocal<TopicSearcher> topicSearcher = ThreadLocal.withInitial(() -> new TopicSearcher(fields, evaluator));
+
+        final int windowSize = 4 * numTopicThreads;
+        final Deque<Future<String>> window = new ArrayDeque<>(windowSize);
 
         try {
             for (LongEvalTopic t : topics) {
 
-                //System.out.printf("Searching for topic %s.%n", t.getNum());
-
-                bq = new BooleanQuery.Builder();
-
-                // Search the title in the English body field
-                // bq.add(enQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-
-                // Search the title in the French body field
-                // bq.add(frQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-
-                // Search the title in N-Gram field
-                // bq.add(ngramQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-
-                // Search the title in NER field
-                // bq.add(nerQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-
-                // Control in which fields to search based on runNumber
-                switch (runNumber) {
-                    case 1:
-                        bq.add(enQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        break;
-                    // In runNumbers 2, 3, and 4 we search in the same fields
-                    case 2:
-                    case 3:
-                    case 4:
-                        bq.add(enQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(ngramQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        break;
-                    // In runNumbers 5 and 11 we search in the same fields
-                    case 5:
-                    case 11:
-                        bq.add(enQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(frQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(ngramQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        break;
-                    case 6:
-                        bq.add(enQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(ngramQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(nerQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        break;
-                    case 7:
-                        bq.add(frQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        break;
-                    // In runNumbers8, 9, and 10 we search in the same fields
-                    case 8:
-                    case 9:
-                    case 10:
-                        bq.add(frQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(ngramQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        break;
-                    case 12:
-                        bq.add(frQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(ngramQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        bq.add(nerQp.parse(QueryParserBase.escape(t.getTitle())), BooleanClause.Occur.SHOULD);
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Invalid run number.");
+                // wait for the oldest topic and write it, before searching one more
+                if (window.size() == windowSize) {
+                    run.print(ConcurrencyUtil.get(window.removeFirst(), "the results of a topic", ParseException.class));
+                    run.flush();
                 }
 
-                q = bq.build();
+                final int index = searchedTopics++;
+                window.addLast(topicExecutor.submit(() -> topicSearcher.get().search(t, index)));
+            }
+
+            while (!window.isEmpty()) {
+                run.print(ConcurrencyUtil.get(window.removeFirst(), "the results of a topic", ParseException.class));
+                run.flush();
+            }
+        } finally {
+            // stop searching topics if something went wrong, and wait for the ones being searched to stop using the
+            // index before it is closed
+            ConcurrencyUtil.shutdownNow(topicExecutor, "the topics still being searched");
+        }
+    }
+
+    /**
+     * Searches topics with its own query parsers, which are not thread-safe; there is one for each thread searching
+     * topics.
+     *
+     * It is package-private so that the benchmarks can time the search of a single topic.
+     */
+    final class TopicSearcher {
+
+        /**
+         * Query parser for English queries.
+         */
+        private final QueryParser enQp;
+
+        /**
+         * Query parser for French queries.
+         */
+        private final QueryParser frQp;
+
+        /**
+         * Query parser to generate N-Grams for both English and French queries.
+         */
+        private final QueryParser ngramQp;
 
+        /**
+         * Query parser to generate NER information for queries.
+         */
+        private final QueryParser nerQp;
+
+        /**
+         * The fields to search.
+         */
+        private final Set<String> fields;
+
+        /**
+         * The evaluator of the results, or {@code null} not to evaluate them.
+         */
+        private final TrecEvaluator evaluator;
+
+        /**
+         * The fields to load from the retrieved documents.
+         */
+        private final Set<String> idField = Collections.singleton(ParsedDocument.FIELDS.ID);
+
+        /**
+         * The results of the current topic, in the format of the run.
+         */
+        private final StringBuilder sb = new StringBuilder();
+
+        /**
+         * Formats the results of the current topic into {@link #sb}.
+         */
+        private final Formatter formatter = new Formatter(sb, Locale.ENGLISH);
+
+        /**
+         * Creates a new topic searcher.
+         *
+         * @param fields    the fields to search.
+         * @param evaluator the evaluator of the results, or {@code null} not to evaluate them.
+         */
+        TopicSearcher(final Set<String> fields, final TrecEvaluator evaluator) {
+            /*
+             * A query parser contains information about:
+             * - The document field to search the query.
+             * - The analyzer to process the query before searching.
+             */
+            // English query parser
+            enQp = new QueryParser(ParsedDocument.FIELDS.ENGLISH_BODY, enAnalyzer);
+            // French query parser
+            frQp = new QueryParser(ParsedDocument.FIELDS.FRENCH_BODY, frAnalyzer);
+            // N-Gram query parser
+            ngramQp = new QueryParser(ParsedDocument.FIELDS.N_GRAM, ngramAnalyzer);
+            // NER query parser
+            nerQp = new QueryParser(ParsedDocument.FIELDS.NER, nerAnalyzer);
+
+            this.fields = fields;
+            this.evaluator = evaluator;
+        }
+
+        /**
+         * Searches for a topic.
+         *
+         * @param t     the topic.
+         * @param index the index of the topic in the list of topics.
+         * @return the results of the topic, in the format of the run.
+         * @throws IOException    if something goes wrong while searching.
+         * @throws ParseException if something goes wrong while parsing the topic.
+         */
+        String search(final LongEvalTopic t, final int index) throws IOException, ParseException {
+
+            //System.out.printf("Searching for topic %s.%n", t.getNum());
+
+            final BooleanQuery.Builder bq = new BooleanQuery.Builder();
+
+            final String title = QueryParserBase.escape(t.getTitle());
+
+            // Search the title in each of the required fields, always in the same order
+            if (fields.contains(ParsedDocument.FIELDS.ENGLISH_BODY)) {
+                bq.add(enQp.parse(title), BooleanClause.Occur.SHOULD);
+            }
+            if (fields.contains(ParsedDocument.FIELDS.FRENCH_BODY)) {
+                bq.add(frQp.parse(title), BooleanClause.Occur.SHOULD);
+            }
+            if (fields.contains(ParsedDocument.FIELDS.N_GRAM)) {
+                bq.add(ngramQp.parse(title), BooleanClause.Occur.SHOULD);
+            }
+            if (fields.contains(ParsedDocument.FIELDS.NER)) {
+                bq.add(nerQp.parse(title), BooleanClause.Occur.SHOULD);
+            }
+
+            final Query q = bq.build();
+
+            final TopDocs docs;
+            if (baseline == null) {
                 docs = searcher.search(q, maxDocsRetrieved);
+            } else {
+                docs = searchAndCompare(q, (index & 1) == 0);
+            }
 
-                sd = docs.scoreDocs;
+            if (evaluator != null) {
+                final TopicMeasures m = evaluator.evaluate(t.getNum(), docs);
+                if (m != null) {
+                    measures.add(m);
+                }
+            }
 
-                for (int i = 0, n = sd.length; i < n; i++) {
-                    docID = reader.document(sd[i].doc, idField).get(ParsedDocument.FIELDS.ID);
+            final ScoreDoc[] sd = docs.scoreDocs;
+            final String[] docIDs = documentIds(sd);
 
-                    run.printf(Locale.ENGLISH, "%s\tQ0\t%s\t%d\t%.6f\t%s%n", t.getNum(), docID, i, sd[i].score,
-                            runID);
+            sb.setLength(0);
+            for (int i = 0, n = sd.length; i < n; i++) {
+                formatter.format("%s\tQ0\t%s\t%d\t%.6f\t%s%n", t.getNum(), docIDs[i], i, sd[i].score, runID);
+            }
+
+            return sb.toString();
+        }
+
+        /**
+         * Returns the identifiers of the retrieved documents.
+         *
+         * The identifiers are read from their doc values, going through the documents in increasing order, i.e.
+         * segment by segment. Segments indexed without doc values for the identifier are read from the stored
+         * fields instead.
+         *
+         * @param sd the retrieved documents.
+         * @return the identifiers of the retrieved documents, in the same order.
+         * @throws IOException if something goes wrong while reading the identifiers.
+         */
+        private String[] documentIds(final ScoreDoc[] sd) throws IOException {
+
+            final String[] docIDs = new String[sd.length];
+
+            // the Lucene document number in the upper half, the rank in the lower half
+            final long[] order = new long[sd.length];
+            for (int i = 0; i < sd.length; i++) {
+                order[i] = ((long) sd[i].doc << 32) | i;
+            }
+            Arrays.sort(order);
+
+            final List<LeafReaderContext> leaves = reader.leaves();
+            LeafReaderContext leaf = null;
+            SortedDocValues ids = null;
+            StoredFields storedFields = null;
+
+            for (long o : order) {
+                final int doc = (int) (o >>> 32);
+                final int rank = (int) o;
+
+                // move to the segment containing the document, if needed
+                if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                    leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                    ids = idDocValues(leaf.reader());
                 }
 
-                run.flush();
+                if (ids != null && ids.advanceExact(doc - leaf.docBase)) {
+                    docIDs[rank] = ids.lookupOrd(ids.ordValue()).utf8ToString();
+                } else {
+                    if (storedFields == null) {
+                        storedFields = reader.storedFields();
+                    }
+                    docIDs[rank] = storedFields.document(doc, idField).get(ParsedDocument.FIELDS.ID);
+                }
             }
-        } finally {
-            run.close();
 
-            reader.close();
+            return docIDs;
         }
+    }
 
-        elapsedTime = System.currentTimeMillis() - start;
+    /**
+     * Returns the doc values of the document identifiers of a segment.
+     *
+     * @param leafReader the reader of the segment.
+     * @return the doc values of the document identifiers, or {@code null} if the segment was indexed without them.
+     * @throws IOException if something goes wrong while reading the doc values.
+     */
+    private static SortedDocValues idDocValues(final LeafReader leafReader) throws IOException {
 
-        System.out.printf("%d topic(s) searched in %d seconds.%n", topics.size(), elapsedTime / 1000);
-        System.out.printf("Created file: %s.txt%n", runID);
-        System.out.printf("#### Searching complete ####%n");
+        final FieldInfo fi = leafReader.getFieldInfos().fieldInfo(ParsedDocument.FIELDS.ID);
+
+        if (fi == null || fi.getDocValuesType() != DocValuesType.SORTED) {
+            return null;
+        }
+
+        return leafReader.getSortedDocValues(ParsedDocument.FIELDS.ID);
+    }
+
+    /**
+     * Searches a query both with the parallel searcher and with the single-threaded baseline, timing both and checking
+     * that they return the same results.
+     *
+     * @param q             the query to search.
+     * @param baselineFirst whether to search with the baseline first; alternating the order avoids favouring the
+     *                      searcher which always finds the index already in cache.
+     * @return the results of the parallel searcher.
+     * @throws IOException if something goes wrong while searching.
+     */
+    private TopDocs searchAndCompare(final Query q, final boolean baselineFirst) throws IOException {
+
+        final TopDocs baselineDocs;
+        final TopDocs parallelDocs;
+        long time;
+
+        if (baselineFirst) {
+            time = System.nanoTime();
+            baselineDocs = baseline.search(q, maxDocsRetrieved);
+            baselineTime.addAndGet(System.nanoTime() - time);
+
+            time = System.nanoTime();
+            parallelDocs = searcher.search(q, maxDocsRetrieved);
+            parallelTime.addAndGet(System.nanoTime() - time);
+        } else {
+            time = System.nanoTime();
+            parallelDocs = searcher.search(q, maxDocsRetrieved);
+            parallelTime.addAndGet(System.nanoTime() - time);
+
+            time = System.nanoTime();
+            baselineDocs = baseline.search(q, maxDocsRetrieved);
+            baselineTime.addAndGet(System.nanoTime() - time);
+        }
+
+        if (!sameResults(baselineDocs, parallelDocs)) {
+            mismatchedTopics.incrementAndGet();
+        }
+
+        return parallelDocs;
     }
 
     /**
@@ -408,6 +1189,14 @@ public class Searcher {
         String RUN_INFO;
         String RUN_SUFFIX = "";
         final int MAX_DOCS_RETRIEVED = 1000;
+        // topics are searched concurrently, each one with a single thread; use more search threads (and slices) to
+        // search each topic in parallel as well
+        final int NUM_TOPIC_THREADS = Runtime.getRuntime().availableProcessors();
+        final int NUM_SEARCH_THREADS = 1;
+        final int MAX_DOCS_PER_SLICE = 250_000;
+        final int MAX_SEGMENTS_PER_SLICE = 5;
+        // FILL: whether to search each topic with a single thread too, to measure the speedup of the search threads
+        final boolean COMPARE_WITH_BASELINE = false;
 
         Scanner input = new Scanner(System.in);
 
@@ -529,8 +1318,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_3GRAM_P, TOPICS_EN_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -541,8 +1331,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_3GRAM_SYN_P, TOPICS_EN_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -553,8 +1344,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_4GRAM_SYN_P, TOPICS_EN_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -565,8 +1357,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_5GRAM_SYN_P, TOPICS_EN_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -577,8 +1370,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_5GRAM_SYN_P, TOPICS_EN_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -589,8 +1383,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_4GRAM_SYN_NER_P, TOPICS_EN_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -601,8 +1396,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_3GRAM_P, TOPICS_FR_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -613,8 +1409,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_3GRAM_SYN_P, TOPICS_FR_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -625,8 +1422,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_4GRAM_SYN_P, TOPICS_FR_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -637,8 +1435,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_5GRAM_SYN_P, TOPICS_FR_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -649,8 +1448,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_5GRAM_SYN_P, TOPICS_FR_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -661,8 +1461,9 @@ public class Searcher {
 
                     s = new Searcher(enAn, frAn, ngramAn, nerAn, new BM25Similarity(),
                             INDEX_MUL_4GRAM_SYN_NER_P, TOPICS_FR_P, EXPECTED_TOPICS,
-                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED);
-                    s.search(runId);
+                            RUN_PREFIX + RUN_INFO + RUN_SUFFIX, RUN_P, MAX_DOCS_RETRIEVED,
+                            NUM_SEARCH_THREADS, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE, COMPARE_WITH_BASELINE);
+                    s.search(runId, NUM_TOPIC_THREADS);
 
                     ngramAn.close();
                     break;
@@ -0,0 +1,149 @@
+package synthetic;
+
+/**
+ * A vocabulary of pairs of English and French words, ordered by rank.
+ *
+ * The first ranks are actual function words, which dominate real text and exercise the stop lists of the analyzers;
+ * the others are pseudo-words made of consonant-vowel syllables, where the French word of a rank is its English word
+ * with French spelling. Words are computed from their rank, so the vocabulary takes no memory whatever its size,
+ * and different ranks always have different words.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class BilingualVocabulary {
+
+    /**
+     * The English function words, most frequent first.
+     */
+    private static final String[] EN_FUNCTION_WORDS = {"the", "of", "and", "to", "in", "a", "is", "for", "on",
+            "with", "that", "by", "this", "are", "from", "at", "as", "your", "all", "or", "an", "most", "our", "be",
+            "how", "what", "can", "new", "around", "which"};
+
+    /**
+     * The French function words, in the same order as the English ones.
+     */
+    private static final String[] FR_FUNCTION_WORDS = {"le", "de", "et", "à", "dans", "un", "est", "pour", "sur",
+            "avec", "que", "par", "ce", "sont", "du", "au", "comme", "votre", "tous", "ou", "une", "plus", "notre",
+            "être", "comment", "quel", "peut", "nouveau", "environ", "qui"};
+
+    /**
+     * The consonants of the English syllables.
+     */
+    private static final char[] EN_CONSONANTS = "bcdfgklmnprstvz".toCharArray();
+
+    /**
+     * The consonants of the French syllables, in the same order as the English ones.
+     */
+    private static final char[] FR_CONSONANTS = "bçdfgqlmnprstvz".toCharArray();
+
+    /**
+     * The vowels of the English syllables.
+     */
+    private static final char[] EN_VOWELS = "aeiouy".toCharArray();
+
+    /**
+     * The vowels of the French syllables, in the same order as the English ones.
+     */
+    private static final char[] FR_VOWELS = "aéièou".toCharArray();
+
+    /**
+     * The number of different syllables.
+     */
+    private static final int SYLLABLES = EN_CONSONANTS.length * EN_VOWELS.length;
+
+    /**
+     * The number of syllables of the shortest pseudo-words.
+     */
+    private static final int MIN_SYLLABLES = 2;
+
+    /**
+     * The number of words of the vocabulary.
+     */
+    private final int size;
+
+    /**
+     * Creates a new bilingual vocabulary.
+     *
+     * @param size the number of words of the vocabulary.
+     * @throws IllegalArgumentException if {@code size} is not greater than the number of function words.
+     */
+    public BilingualVocabulary(final int size) {
+
+        if (size <= EN_FUNCTION_WORDS.length) {
+            throw new IllegalArgumentException(
+                    String.format("The size of the vocabulary must be greater than %d.", EN_FUNCTION_WORDS.length));
+        }
+
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of words of the vocabulary.
+     *
+     * @return the number of words of the vocabulary.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the rank of the first word which is not a function word.
+     *
+     * @return the rank of the first content word.
+     */
+    public int firstContentWord() {
+        return EN_FUNCTION_WORDS.length;
+    }
+
+    /**
+     * Appends the English word of a rank.
+     *
+     * @param sb   where to append the word.
+     * @param rank the rank of the word.
+     */
+    public void appendEnglish(final StringBuilder sb, final int rank) {
+        append(sb, rank, EN_FUNCTION_WORDS, EN_CONSONANTS, EN_VOWELS);
+    }
+
+    /**
+     * Appends the French word of a rank.
+     *
+     * @param sb   where to append the word.
+     * @param rank the rank of the word.
+     */
+    public void appendFrench(final StringBuilder sb, final int rank) {
+        append(sb, rank, FR_FUNCTION_WORDS, FR_CONSONANTS, FR_VOWELS);
+    }
+
+    /**
+     * Appends the word of a rank in a language.
+     *
+     * Pseudo-words are numbered from the shortest: the first {@code SYLLABLES^2} have two syllables, the next
+     * {@code SYLLABLES^3} three, and so on.
+     */
+    private static void append(final StringBuilder sb, final int rank, final String[] functionWords,
+                               final char[] consonants, final char[] vowels) {
+
+        if (rank < functionWords.length) {
+            sb.append(functionWords[rank]);
+            return;
+        }
+
+        long k = rank - functionWords.length;
+        int length = MIN_SYLLABLES;
+        long count = (long) SYLLABLES * SYLLABLES;
+        while (k >= count) {
+            k -= count;
+            count *= SYLLABLES;
+            length++;
+        }
+
+        for (int i = 0; i < length; i++) {
+            final int syllable = (int) (k % SYLLABLES);
+            k /= SYLLABLES;
+
+            sb.append(consonants[syllable / vowels.length]).append(vowels[syllable % vowels.length]);
+        }
+    }
+}
@@ -0,0 +1,646 @@
+package synthetic;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import util.ConcurrencyUtil;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a synthetic bilingual collection in the layout and format of LongEval, described by a JSON configuration
+ * file, so that indexing and searching can be run and measured at any scale without the real collection:
+ * <pre>
+ * outputPath
+ * ├───English
+ * │   ├───Documents
+ * │   │   └───Json       collector_kwords_synthetic_00000.json, ...
+ * │   └───Queries        synthetic.trec
+ * └───French
+ *     ├───Documents
+ *     │   └───Json       collector_kwords_synthetic_00000.json, ...
+ *     ├───Qrels          synthetic.txt
+ *     └───Queries        synthetic.trec
+ * </pre>
+ * The English and French files with the same name contain the same documents, with the same identifiers, in the
+ * same order, as {@code MultilingualDirectoryIndexer} expects.
+ *
+ * The words of the documents follow a Zipf distribution over a {@link BilingualVocabulary}. Each topic is a few
+ * content words; its relevant documents get its words planted in them, repeated for the highly relevant ones, and
+ * some other documents are judged not relevant.
+ *
+ * The configuration file looks like:
+ * <pre>
+ * {
+ *   "outputPath": "/tmp/synthetic-100k",
+ *   "documents": 100000,
+ *   "documentsPerFile": 10000,
+ *   "minLength": 50,
+ *   "maxLength": 500,
+ *   "vocabularySize": 200000,
+ *   "zipfExponent": 1.0,
+ *   "topics": 500,
+ *   "maxTopicWords": 4,
+ *   "relevantPerTopic": 10,
+ *   "nonRelevantPerTopic": 20,
+ *   "seed": 42,
+ *   "threads": 4,
+ *   "charset": "UTF-8"
+ * }
+ * </pre>
+ * where the lengths are in words. The same configuration always generates the same collection, whatever the number
+ * of threads.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class CollectionGenerator {
+
+    /**
+     * One megabyte.
+     */
+    private static final int MBYTE = 1024 * 1024;
+
+    /**
+     * The minimum number of words of a sentence.
+     */
+    private static final int MIN_SENTENCE_LENGTH = 6;
+
+    /**
+     * The maximum number of words of a sentence.
+     */
+    private static final int MAX_SENTENCE_LENGTH = 20;
+
+    /**
+     * The number of content words, after the function words, from which the words of the topics are drawn: frequent
+     * enough to occur in other documents than the relevant ones.
+     */
+    private static final int TOPIC_VOCABULARY = 5000;
+
+    /**
+     * How many times the words of a topic are planted in a highly relevant document.
+     */
+    private static final int HIGHLY_RELEVANT_REPETITIONS = 3;
+
+    /**
+     * The prefix of the names of the document files.
+     */
+    private static final String FILE_PREFIX = "collector_kwords_synthetic_";
+
+    /**
+     * The name of the topic and qrels files.
+     */
+    private static final String NAME = "synthetic";
+
+    /**
+     * The collection to generate.
+     */
+    private final GeneratorConfig config;
+
+    /**
+     * The charset of the generated files.
+     */
+    private final Charset cs;
+
+    /**
+     * The vocabulary of the collection.
+     */
+    private final BilingualVocabulary vocabulary;
+
+    /**
+     * Samples the words of the documents.
+     */
+    private final ZipfSampler words;
+
+    /**
+     * The words of each topic, as ranks in the vocabulary.
+     */
+    private int[][] topicWords;
+
+    /**
+     * The topics planted in each relevant document, as pairs of topic and relevance.
+     */
+    private final Map<Long, List<int[]>> plants = new HashMap<>();
+
+    /**
+     * The number of generated documents.
+     */
+    private final AtomicLong docsCount = new AtomicLong();
+
+    /**
+     * The number of generated bytes.
+     */
+    private final AtomicLong bytesCount = new AtomicLong();
+
+    /**
+     * The start time of the generation.
+     */
+    private long start;
+
+    /**
+     * The total elapsed time.
+     */
+    private long elapsedTime = Long.MIN_VALUE;
+
+    /**
+     * A JSON POJO describing the collection to generate.
+     */
+    private static final class GeneratorConfig {
+
+        /**
+         * The directory where to generate the collection.
+         */
+        private String outputPath;
+
+        /**
+         * The number of documents.
+         */
+        private long documents;
+
+        /**
+         * The number of documents of each file.
+         */
+        private int documentsPerFile = 10_000;
+
+        /**
+         * The minimum number of words of a document.
+         */
+        private int minLength = 50;
+
+        /**
+         * The maximum number of words of a document.
+         */
+        private int maxLength = 500;
+
+        /**
+         * The number of words of the vocabulary.
+         */
+        private int vocabularySize = 200_000;
+
+        /**
+         * The exponent of the Zipf distribution of the words.
+         */
+        private double zipfExponent = 1.0;
+
+        /**
+         * The number of topics.
+         */
+        private int topics = 500;
+
+        /**
+         * The maximum number of words of a topic.
+         */
+        private int maxTopicWords = 4;
+
+        /**
+         * The number of relevant documents of each topic.
+         */
+        private int relevantPerTopic = 10;
+
+        /**
+         * The number of documents judged not relevant for each topic.
+         */
+        private int nonRelevantPerTopic = 20;
+
+        /**
+         * The seed of the random generators.
+         */
+        private long seed = 42;
+
+        /**
+         * The number of threads generating files.
+         */
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * The charset of the generated files.
+         */
+        private String charset = StandardCharsets.UTF_8.name();
+    }
+
+    /**
+     * Creates a new collection generator.
+     *
+     * @param configFile the JSON file describing the collection to generate.
+     * @throws NullPointerException     if {@code configFile} is {@code null}.
+     * @throws IllegalArgumentException if the configuration file cannot be read or describes an invalid collection.
+     */
+    public CollectionGenerator(final Path configFile) {
+
+        if (configFile == null) {
+            throw new NullPointerException("Configuration file cannot be null.");
+        }
+
+        try (Reader in = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            config = new Gson().fromJson(in, GeneratorConfig.class);
+        } catch (IOException | JsonParseException e) {
+            throw new IllegalArgumentException(
+                    String.format("Unable to read configuration file %s: %s.", configFile, e.getMessage()), e);
+        }
+
+        if (config == null) {
+            throw new IllegalArgumentException(String.format("Configuration file %s is empty.", configFile));
+        }
+
+        if (config.outputPath == null || config.outputPath.isEmpty()) {
+            throw new IllegalArgumentException("Output path cannot be null or empty.");
+        }
+
+        if (config.documents <= 0) {
+            throw new IllegalArgumentException("The number of documents cannot be less than or equal to zero.");
+        }
+
+        if (config.documentsPerFile <= 0) {
+            throw new IllegalArgumentException(
+                    "The number of documents per file cannot be less than or equal to zero.");
+        }
+
+        if (config.minLength <= 0 || config.maxLength < config.minLength) {
+            throw new IllegalArgumentException(
+                    "The minimum length must be greater than zero and not greater than the maximum length.");
+        }
+
+        if (config.topics < 0) {
+            throw new IllegalArgumentException("The number of topics cannot be negative.");
+        }
+
+        if (config.maxTopicWords <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of words of a topic cannot be less than or equal to zero.");
+        }
+
+        if (config.relevantPerTopic < 0 || config.nonRelevantPerTopic < 0
+                || config.relevantPerTopic + config.nonRelevantPerTopic > config.documents) {
+            throw new IllegalArgumentException(
+                    "The number of judged documents per topic must be between zero and the number of documents.");
+        }
+
+        if (config.threads <= 0) {
+            throw new IllegalArgumentException("The number of threads cannot be less than or equal to zero.");
+        }
+
+        try {
+            cs = Charset.forName(config.charset);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    String.format("Unable to create the charset %s: %s.", config.charset, e.getMessage()), e);
+        }
+
+        // the vocabulary and the exponent are checked by their classes
+        vocabulary = new BilingualVocabulary(config.vocabularySize);
+        words = new ZipfSampler(config.vocabularySize, config.zipfExponent);
+
+        if (config.maxTopicWords > Math.min(TOPIC_VOCABULARY, config.vocabularySize - vocabulary.firstContentWord())) {
+            throw new IllegalArgumentException("The maximum number of words of a topic exceeds the vocabulary.");
+        }
+    }
+
+    /**
+     * Returns the total elapsed time.
+     *
+     * @return the total elapsed time.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Generates the collection.
+     *
+     * @throws IOException if something goes wrong while writing.
+     */
+    public void generate() throws IOException {
+
+        System.out.printf("%n#### Start generating ####%n");
+
+        start = System.currentTimeMillis();
+
+        final Path out = Paths.get(config.outputPath);
+        final Path enDocs = Files.createDirectories(out.resolve("English").resolve("Documents").resolve("Json"));
+        final Path frDocs = Files.createDirectories(out.resolve("French").resolve("Documents").resolve("Json"));
+
+        final SplittableRandom random = new SplittableRandom(config.seed);
+
+        generateTopics(random, out);
+
+        final int numFiles = (int) ((config.documents + config.documentsPerFile - 1) / config.documentsPerFile);
+        final ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+
+        try {
+            final List<Future<?>> files = new ArrayList<>(numFiles);
+
+            for (int f = 0; f < numFiles; f++) {
+                final int file = f;
+                files.add(executor.submit(() -> {
+                    generateFile(file, enDocs, frDocs);
+                    return null;
+                }));
+            }
+
+            for (Future<?> f : files) {
+                ConcurrencyUtil.get(f, "a file");
+            }
+        } finally {
+            // stop generating if something went wrong
+            executor.shutdownNow();
+        }
+
+        elapsedTime = System.currentTimeMillis() - start;
+
+        System.out.printf("%d document(s) in both languages (%d files, %d Mbytes) generated in %d seconds.%n",
+                docsCount.get(), 2 * numFiles, bytesCount.get() / MBYTE, elapsedTime / 1000);
+
+        System.out.printf("#### Generation complete ####%n");
+    }
+
+    /**
+     * Generates the topics, in both languages, and their relevance judgements, choosing the documents where their
+     * words are to be planted.
+     *
+     * @param random the random generator.
+     * @param out    the directory of the collection.
+     * @throws IOException if something goes wrong while writing.
+     */
+    private void generateTopics(final SplittableRandom random, final Path out) throws IOException {
+
+        final int first = vocabulary.firstContentWord();
+        final int band = Math.min(TOPIC_VOCABULARY, config.vocabularySize - first);
+
+        topicWords = new int[config.topics][];
+
+        final Path enTopics = Files.createDirectories(out.resolve("English").resolve("Queries"))
+                .resolve(NAME + ".trec");
+        final Path frTopics = Files.createDirectories(out.resolve("French").resolve("Queries"))
+                .resolve(NAME + ".trec");
+        final Path qrels = Files.createDirectories(out.resolve("French").resolve("Qrels")).resolve(NAME + ".txt");
+
+        try (Writer en = Files.newBufferedWriter(enTopics, cs); Writer fr = Files.newBufferedWriter(frTopics, cs);
+             Writer qr = Files.newBufferedWriter(qrels, cs)) {
+
+            final StringBuilder enSb = new StringBuilder();
+            final StringBuilder frSb = new StringBuilder();
+
+            for (int t = 0; t < config.topics; t++) {
+                final String num = topicId(t);
+
+                // distinct words, so that the topic does not repeat itself
+                final Set<Integer> w = new LinkedHashSet<>();
+                final int length = 1 + random.nextInt(config.maxTopicWords);
+                while (w.size() < length) {
+                    w.add(first + random.nextInt(band));
+                }
+                topicWords[t] = w.stream().mapToInt(Integer::intValue).toArray();
+
+                enSb.setLength(0);
+                frSb.setLength(0);
+                for (int i = 0; i < topicWords[t].length; i++) {
+                    if (i > 0) {
+                        enSb.append(' ');
+                        frSb.append(' ');
+                    }
+                    vocabulary.appendEnglish(enSb, topicWords[t][i]);
+                    vocabulary.appendFrench(frSb, topicWords[t][i]);
+                }
+
+                en.write(String.format("<top>%n<num>%s</num>%n<title>%s</title>%n</top>%n", num, enSb));
+                fr.write(String.format("<top>%n<num>%s</num>%n<title>%s</title>%n</top>%n", num, frSb));
+
+                // distinct judged documents: a third of the relevant ones highly relevant, then the not relevant ones
+                final Set<Long> judged = new LinkedHashSet<>();
+                while (judged.size() < config.relevantPerTopic + config.nonRelevantPerTopic) {
+                    judged.add(random.nextLong(config.documents));
+                }
+
+                int i = 0;
+                for (long d : judged) {
+                    final int rel = i < config.relevantPerTopic ? (i < (config.relevantPerTopic + 2) / 3 ? 2 : 1) : 0;
+                    i++;
+
+                    if (rel > 0) {
+                        plants.computeIfAbsent(d, k -> new ArrayList<>()).add(new int[]{t, rel});
+                    }
+
+                    qr.write(String.format("%s 0 %s %d%n", num, documentId(d), rel));
+                }
+            }
+        }
+
+        System.out.printf("%d topic(s) generated: %s, %s, %s.%n", config.topics, enTopics, frTopics, qrels);
+    }
+
+    /**
+     * Generates a pair of English and French document files.
+     *
+     * Each file has its own random generator, seeded from the file number, so that the collection does not depend
+     * on the order the files are generated in.
+     *
+     * @param file   the number of the file.
+     * @param enDocs the directory of the English documents.
+     * @param frDocs the directory of the French documents.
+     * @throws IOException if something goes wrong while writing.
+     */
+    private void generateFile(final int file, final Path enDocs, final Path frDocs) throws IOException {
+
+        final SplittableRandom random = new SplittableRandom(config.seed ^ (0x9E3779B97F4A7C15L * (file + 1)));
+
+        final String name = String.format("%s%05d.json", FILE_PREFIX, file);
+
+        final long first = (long) file * config.documentsPerFile;
+        final long last = Math.min(config.documents, first + config.documentsPerFile);
+
+        final StringBuilder en = new StringBuilder();
+        final StringBuilder fr = new StringBuilder();
+
+        try (Writer enOut = Files.newBufferedWriter(enDocs.resolve(name), cs);
+             Writer frOut = Files.newBufferedWriter(frDocs.resolve(name), cs)) {
+
+            enOut.write("[\n");
+            frOut.write("[\n");
+
+            for (long d = first; d < last; d++) {
+                en.setLength(0);
+                fr.setLength(0);
+
+                if (d > first) {
+                    en.append(",\n");
+                    fr.append(",\n");
+                }
+
+                final String id = documentId(d);
+                en.append("{\"id\": \"").append(id).append("\", \"contents\": \"");
+                fr.append("{\"id\": \"").append(id).append("\", \"contents\": \"");
+
+                generateContents(random, plants.get(d), en, fr);
+
+                en.append("\"}");
+                fr.append("\"}");
+
+                enOut.append(en);
+                frOut.append(fr);
+
+                final long generated = docsCount.incrementAndGet();
+
+                // print progress every 100000 generated documents
+                if (generated % 100_000 == 0) {
+                    System.out.printf("%d document(s) in both languages generated in %d seconds.%n", generated,
+                            (System.currentTimeMillis() - start) / 1000);
+                }
+            }
+
+            enOut.write("\n]\n");
+            frOut.write("\n]\n");
+        }
+
+        bytesCount.addAndGet(Files.size(enDocs.resolve(name)) + Files.size(frDocs.resolve(name)));
+    }
+
+    /**
+     * Generates the contents of a document in both languages, as sentences of words, planting the words of the
+     * topics it is relevant for in sentences of their own.
+     *
+     * @param random the random generator.
+     * @param topics the topics the document is relevant for, as pairs of topic and relevance, or {@code null}.
+     * @param en     where to append the English contents.
+     * @param fr     where to append the French contents.
+     */
+    private void generateContents(final SplittableRandom random, final List<int[]> topics, final StringBuilder en,
+                                  final StringBuilder fr) {
+
+        final int length = config.minLength + random.nextInt(config.maxLength - config.minLength + 1);
+
+        // the sentences after which the topics are planted
+        final int numSentences = Math.max(1, length / ((MIN_SENTENCE_LENGTH + MAX_SENTENCE_LENGTH) / 2));
+        final int[] plantAfter = new int[topics == null ? 0 : topics.size()];
+        for (int p = 0; p < plantAfter.length; p++) {
+            plantAfter[p] = random.nextInt(numSentences);
+        }
+
+        int written = 0;
+        for (int s = 0; written < length; s++) {
+            final int sentenceLength = Math.min(length - written,
+                    MIN_SENTENCE_LENGTH + random.nextInt(MAX_SENTENCE_LENGTH - MIN_SENTENCE_LENGTH + 1));
+
+            final int[] sentence = new int[sentenceLength];
+            for (int i = 0; i < sentenceLength; i++) {
+                sentence[i] = words.sample(random);
+            }
+            appendSentence(sentence, written == 0, en, fr);
+            written += sentenceLength;
+
+            for (int p = 0; p < plantAfter.length; p++) {
+                if (plantAfter[p] == s || (written >= length && plantAfter[p] > s)) {
+                    appendSentence(plantedSentence(random, topics.get(p)), false, en, fr);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a sentence with the words of a topic, repeated if the document is highly relevant, mixed with other
+     * words.
+     *
+     * @param random the random generator.
+     * @param topic  the topic and the relevance of the document.
+     * @return the sentence, as ranks in the vocabulary.
+     */
+    private int[] plantedSentence(final SplittableRandom random, final int[] topic) {
+
+        final int[] w = topicWords[topic[0]];
+        final int repetitions = topic[1] > 1 ? HIGHLY_RELEVANT_REPETITIONS : 1;
+
+        final int[] sentence = new int[2 * w.length * repetitions];
+        for (int i = 0; i < sentence.length; i++) {
+            sentence[i] = i < w.length * repetitions ? w[i % w.length] : words.sample(random);
+        }
+
+        // shuffle, so that the words of the topic are not always at the beginning
+        for (int i = sentence.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int tmp = sentence[i];
+            sentence[i] = sentence[j];
+            sentence[j] = tmp;
+        }
+
+        return sentence;
+    }
+
+    /**
+     * Appends a sentence in both languages, capitalized and ended by a full stop.
+     *
+     * @param sentence the sentence, as ranks in the vocabulary.
+     * @param first    whether it is the first sentence of the document.
+     * @param en       where to append the English sentence.
+     * @param fr       where to append the French sentence.
+     */
+    private void appendSentence(final int[] sentence, final boolean first, final StringBuilder en,
+                                final StringBuilder fr) {
+
+        for (int i = 0; i < sentence.length; i++) {
+            if (i > 0 || !first) {
+                en.append(' ');
+                fr.append(' ');
+            }
+
+            final int enStart = en.length();
+            final int frStart = fr.length();
+
+            vocabulary.appendEnglish(en, sentence[i]);
+            vocabulary.appendFrench(fr, sentence[i]);
+
+            if (i == 0) {
+                en.setCharAt(enStart, Character.toUpperCase(en.charAt(enStart)));
+                fr.setCharAt(frStart, Character.toUpperCase(fr.charAt(frStart)));
+            }
+        }
+
+        en.append('.');
+        fr.append('.');
+    }
+
+    /**
+     * Returns the identifier of a document, in the format of LongEval, e.g. {@code doc000000012743}.
+     *
+     * @param d the number of the document.
+     * @return the identifier of the document.
+     */
+    private static String documentId(final long d) {
+        final String n = Long.toString(d);
+        return "doc" + "000000000000".substring(Math.min(12, n.length())) + n;
+    }
+
+    /**
+     * Returns the identifier of a topic, in the format of LongEval, e.g. {@code q00000042}.
+     *
+     * @param t the number of the topic.
+     * @return the identifier of the topic.
+     */
+    private static String topicId(final int t) {
+        return String.format("q%08d", t);
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes.
+     *
+     * @param args command line arguments: the configuration file of the collection, if not the default one.
+     * @throws Exception if something goes wrong while generating.
+     */
+    public static void main(String[] args) throws Exception {
+
+        final String configFile = args.length > 0 ? args[0] : "conf/synthetic-100k.json";
+
+        final CollectionGenerator g = new CollectionGenerator(Paths.get(configFile));
+
+        g.generate();
+    }
+}
@@ -0,0 +1,112 @@
+package synthetic;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks {@code 0..n-1} from a Zipf distribution, where the probability of rank {@code r} is proportional to
+ * {@code 1 / (r + 1)^s}.
+ *
+ * It uses the alias method, so each sample takes constant time whatever the number of ranks; the tables are
+ * immutable, so a single sampler can be shared by all the threads, each one with its own random generator.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class ZipfSampler {
+
+    /**
+     * The probability of keeping the rank of each column instead of its alias.
+     */
+    private final double[] prob;
+
+    /**
+     * The alias of each column.
+     */
+    private final int[] alias;
+
+    /**
+     * Creates a new Zipf sampler.
+     *
+     * @param n the number of ranks.
+     * @param s the exponent of the distribution, i.e. its skew.
+     * @throws IllegalArgumentException if {@code n} is less than or equal to zero, or {@code s} is negative or not
+     *                                  finite.
+     */
+    public ZipfSampler(final int n, final double s) {
+
+        if (n <= 0) {
+            throw new IllegalArgumentException("The number of ranks cannot be less than or equal to zero.");
+        }
+
+        if (!Double.isFinite(s) || s < 0) {
+            throw new IllegalArgumentException("The exponent cannot be negative or not finite.");
+        }
+
+        prob = new double[n];
+        alias = new int[n];
+
+        double sum = 0;
+        for (int r = 0; r < n; r++) {
+            prob[r] = Math.pow(r + 1, -s);
+            sum += prob[r];
+        }
+
+        // scale so that the mean column is 1, and split the columns into the small and the large ones
+        final int[] small = new int[n];
+        final int[] large = new int[n];
+        int ns = 0;
+        int nl = 0;
+
+        for (int r = 0; r < n; r++) {
+            prob[r] = prob[r] * n / sum;
+            if (prob[r] < 1) {
+                small[ns++] = r;
+            } else {
+                large[nl++] = r;
+            }
+        }
+
+        // fill each small column with its alias, a large one
+        while (ns > 0 && nl > 0) {
+            final int s1 = small[--ns];
+            final int l = large[--nl];
+
+            alias[s1] = l;
+            prob[l] -= 1 - prob[s1];
+
+            if (prob[l] < 1) {
+                small[ns++] = l;
+            } else {
+                large[nl++] = l;
+            }
+        }
+
+        // what is left is full, up to rounding
+        while (nl > 0) {
+            prob[large[--nl]] = 1;
+        }
+        while (ns > 0) {
+            prob[small[--ns]] = 1;
+        }
+    }
+
+    /**
+     * Returns the number of ranks.
+     *
+     * @return the number of ranks.
+     */
+    public int size() {
+        return prob.length;
+    }
+
+    /**
+     * Samples a rank.
+     *
+     * @param random the random generator.
+     * @return the sampled rank.
+     */
+    public int sample(final SplittableRandom random) {
+        final int r = random.nextInt(prob.length);
+        return random.nextDouble() < prob[r] ? r : alias[r];
+    }
+}
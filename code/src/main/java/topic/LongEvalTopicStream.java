@@ -0,0 +1,250 @@
+package topic;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the topics provided by LongEval one at a time, while parsing the file.
+ *
+ * Unlike {@link LongEvalTopicReader}, the file is never held in memory as a whole: the topics are returned as soon as
+ * they are parsed and memory does not depend on the size of the file. As for {@link LongEvalTopicReader}, the file
+ * is a sequence of {@code top} elements, each one with a {@code num} and a {@code title}, which is wrapped into a
+ * root element to be parsed as XML.
+ *
+ * The stream is closed once all the topics have been returned, or by {@link #close()}.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public class LongEvalTopicStream implements Iterator<LongEvalTopic>, Iterable<LongEvalTopic>, Closeable {
+
+    /**
+     * Creates the XML stream readers. It is thread-safe once configured, so a single instance is shared.
+     */
+    private static final XMLInputFactory XML = XMLInputFactory.newInstance();
+
+    static {
+        // the text of an element in a single event, no DTD and no external entities
+        XML.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * The file containing the topics.
+     */
+    private final Path topicsFile;
+
+    /**
+     * The stream of the file, wrapped into the root element.
+     */
+    private final InputStream in;
+
+    /**
+     * The XML stream reader parsing the file.
+     */
+    private final XMLStreamReader xml;
+
+    /**
+     * The next topic to return, or {@code null} if there are no more topics.
+     */
+    private LongEvalTopic next;
+
+    /**
+     * The number of topics returned so far.
+     */
+    private int count = 0;
+
+    /**
+     * Creates a new stream of topics and parses the first one.
+     *
+     * @param topicsFile the file containing the topics.
+     * @throws NullPointerException if {@code topicsFile} is {@code null}.
+     * @throws IOException          if the file cannot be opened or parsed.
+     */
+    public LongEvalTopicStream(final Path topicsFile) throws IOException {
+
+        if (topicsFile == null) {
+            throw new NullPointerException("Topics file cannot be null.");
+        }
+
+        this.topicsFile = topicsFile;
+
+        // the file is a sequence of elements: wrap them into a root element to parse it as XML
+        in = new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream("<in>".getBytes(StandardCharsets.UTF_8)),
+                new BufferedInputStream(Files.newInputStream(topicsFile)),
+                new ByteArrayInputStream("</in>".getBytes(StandardCharsets.UTF_8)))));
+
+        try {
+            xml = XML.createXMLStreamReader(in, StandardCharsets.UTF_8.name());
+            next = parse();
+        } catch (XMLStreamException e) {
+            in.close();
+            throw new IOException(String.format("Unable to parse topics file %s: %s", topicsFile, e.getMessage()), e);
+        }
+    }
+
+    @Override
+    public final Iterator<LongEvalTopic> iterator() {
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public LongEvalTopic next() {
+
+        if (next == null) {
+            throw new NoSuchElementException("No more topics to read.");
+        }
+
+        final LongEvalTopic t = next;
+
+        try {
+            next = parse();
+        } catch (XMLStreamException | IOException e) {
+            throw new IllegalStateException(
+                    String.format("Unable to parse topics file %s: %s", topicsFile, e.getMessage()), e);
+        }
+
+        count++;
+        return t;
+    }
+
+    /**
+     * Returns the number of topics returned so far.
+     *
+     * @return the number of topics returned so far.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Parses the next topic, closing the stream if there are no more topics.
+     *
+     * @return the next topic, or {@code null} if there are no more topics.
+     * @throws XMLStreamException if something goes wrong while parsing the file.
+     * @throws IOException        if something goes wrong while closing the file.
+     */
+    private LongEvalTopic parse() throws XMLStreamException, IOException {
+
+        String num = null;
+        String title = null;
+        boolean inTopic = false;
+
+        while (xml.hasNext()) {
+            switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final String name = xml.getLocalName();
+                    if ("top".equals(name)) {
+                        inTopic = true;
+                        num = null;
+                        title = null;
+                    } else if (inTopic && "num".equals(name) && num == null) {
+                        num = text();
+                    } else if (inTopic && "title".equals(name) && title == null) {
+                        title = text();
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (inTopic && "top".equals(xml.getLocalName())) {
+                        if (num == null || title == null) {
+                            throw new XMLStreamException("Topic without num or title.", xml.getLocation());
+                        }
+                        return new LongEvalTopic(num, title);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        close();
+        return null;
+    }
+
+    /**
+     * Returns the whole text of the current element, including the text of nested elements, and moves to its end.
+     *
+     * @return the text of the current element.
+     * @throws XMLStreamException if something goes wrong while parsing the file.
+     */
+    private String text() throws XMLStreamException {
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (int depth = 1; depth > 0; ) {
+            switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    sb.append(xml.getText());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Closes the stream; no more topics are returned afterwards.
+     *
+     * @throws IOException if something goes wrong while closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        next = null;
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(String.format("Unable to close topics file %s.", topicsFile), e);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Main method of the class. Just for testing purposes.
+     *
+     * @param args command line arguments.
+     * @throws Exception if something goes wrong while reading.
+     */
+    public static void main(String[] args) throws Exception {
+
+        final String FILE_NAME = "C:\\longeval_train\\publish\\English\\Queries\\heldout.trec";
+
+        System.out.printf("Starting topic reading at %s %n", FILE_NAME);
+
+        try (LongEvalTopicStream topics = new LongEvalTopicStream(Paths.get(FILE_NAME))) {
+            for (LongEvalTopic t : topics) {
+                System.out.printf("Topic read: %s %n", t);
+            }
+            System.out.printf("Number of read topics: %d", topics.getCount());
+        }
+    }
+}
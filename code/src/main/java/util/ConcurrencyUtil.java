@@ -0,0 +1,100 @@
+package util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper class to wait for the tasks run by an {@link ExecutorService}, rethrowing their exceptions as if they had
+ * been run by the waiting thread, and to stop them before closing the resources they use.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class ConcurrencyUtil {
+
+    /**
+     * No instances: this class only has static helpers.
+     */
+    private ConcurrencyUtil() {
+    }
+
+    /**
+     * Waits for the result of a task run by another thread.
+     *
+     * @param future the result of the task, still to come.
+     * @param what   what the task computes, for the error messages, e.g. {@code "a run"}.
+     * @param <T>    the type of the result.
+     * @return the result of the task.
+     * @throws InterruptedIOException if interrupted while waiting; the thread is kept interrupted.
+     * @throws IOException            if the task threw it.
+     * @throws IllegalStateException  if the task threw any other checked exception.
+     */
+    public static <T> T get(final Future<T> future, final String what) throws IOException {
+        return get(future, what, IOException.class);
+    }
+
+    /**
+     * Waits for the result of a task run by another thread, which may also throw a checked exception besides
+     * {@link IOException}.
+     *
+     * @param future  the result of the task, still to come.
+     * @param what    what the task computes, for the error messages, e.g. {@code "a run"}.
+     * @param checked the other checked exception the task may throw.
+     * @param <T>     the type of the result.
+     * @param <E>     the type of the other checked exception.
+     * @return the result of the task.
+     * @throws InterruptedIOException if interrupted while waiting; the thread is kept interrupted.
+     * @throws IOException            if the task threw it.
+     * @throws E                      if the task threw it.
+     * @throws IllegalStateException  if the task threw any other checked exception.
+     */
+    public static <T, E extends Exception> T get(final Future<T> future, final String what, final Class<E> checked)
+            throws IOException, E {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Interrupted while waiting for %s.", what));
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (checked.isInstance(cause)) {
+                throw checked.cast(cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(String.format("Unable to get %s.", what), cause);
+        }
+    }
+
+    /**
+     * Stops an executor, interrupting its tasks, and waits for the ones still running to finish, so that the resources
+     * they use can be closed. If interrupted, it stops waiting and keeps the thread interrupted.
+     *
+     * @param executor the executor to stop.
+     * @param what     the tasks, for the progress messages, e.g. {@code "the runs still being searched"}.
+     */
+    public static void shutdownNow(final ExecutorService executor, final String what) {
+
+        executor.shutdownNow();
+
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.printf("Waiting for %s.%n", what);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package analyze;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenFilter;
+import org.apache.lucene.analysis.pattern.PatternReplaceFilter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static analyze.TokenStreamTestUtil.fuzzedTexts;
+import static analyze.TokenStreamTestUtil.tokens;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link LetterNGramTokenizer} returns the same tokens as the chain of filters it replaces in
+ * {@link NGramAnalyzer}.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+class LetterNGramTokenizerTest {
+
+    /**
+     * The sizes of the N-Grams to check.
+     */
+    private static final int[] SIZES = {1, 2, 3, 4, 5, 6};
+
+    /**
+     * The characters of the fuzzed texts: letters kept or deleted, uppercase letters, digits, punctuation, whitespace
+     * and non-breaking spaces, and the two halves of a supplementary character.
+     */
+    private static final String ALPHABET = "abcxyzABCXYZéàèùçâêîôûëïüÉÀÇÜñß0123456789.,;:!?'’-_()\"  \t\n\r 😀";
+
+    @Test
+    void sameTokensOnText() throws IOException {
+        final String text = "Le Château de Versailles est à 20 km de Paris. L'entrée coûte 18€ ; "
+                + "it's open from 9:00 to 18:30, every day but Monday! Rendez-vous à l'Hôtel-Dieu...";
+
+        for (int n : SIZES) {
+            assertSameTokens(n, text);
+        }
+    }
+
+    @Test
+    void sameTokensOnEdgeCases() throws IOException {
+        final String[] texts = {"", " ", "a", "ab", "   abc   ", "123 456", "a1b2c3", "...", "Ü", "😀",
+                "x😀y", "\ud83d", "\ude00abc", "abc\ud83d", "a".repeat(254), "a".repeat(255),
+                "a".repeat(256), "ab".repeat(300) + " cd", "é".repeat(257) + "!" + "z".repeat(3)};
+
+        for (int n : SIZES) {
+            for (String text : texts) {
+                assertSameTokens(n, text);
+            }
+        }
+    }
+
+    @Test
+    void sameTokensOnFuzzedText() throws IOException {
+        final List<String> texts = fuzzedTexts(ALPHABET, 2000, 80, 5000);
+
+        for (int i = 0; i < texts.size(); i++) {
+            assertSameTokens(SIZES[i % SIZES.length], texts.get(i));
+        }
+    }
+
+    @Test
+    void sameTokensOnChunkedReader() throws IOException {
+        final String text = "Chunked readers return fewer characters than asked, so that words and surrogate pairs "
+                + "😀 are split across reads: Saint-Étienne, Aix-en-Provence. ".repeat(200);
+
+        for (int n : SIZES) {
+            assertEquals(tokens(oldChain(n), "n_gram", new StringReader(text)), tokens(new NGramAnalyzer(n), "n_gram",
+                    new ChunkedReader(text, 7)), "N = " + n);
+        }
+    }
+
+    /**
+     * Checks that the old chain and {@link NGramAnalyzer} return the same tokens for a text.
+     *
+     * @param n    the size of the N-Grams.
+     * @param text the text.
+     * @throws IOException if the text cannot be analyzed.
+     */
+    private static void assertSameTokens(final int n, final String text) throws IOException {
+        TokenStreamTestUtil.assertSameTokens(oldChain(n), new NGramAnalyzer(n), text, "N = " + n);
+    }
+
+    /**
+     * Returns the analyzer {@link NGramAnalyzer} used to be, before {@link LetterNGramTokenizer}.
+     *
+     * @param n the size of the N-Grams.
+     * @return the analyzer.
+     */
+    private static Analyzer oldChain(final int n) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer source = new WhitespaceTokenizer();
+                TokenStream tokens = new LowerCaseFilter(source);
+                tokens = new PatternReplaceFilter(tokens, Pattern.compile("[^a-zéàèùçâêîôûëïü]+"), "", true);
+                tokens = new EmptyTokenFilter(tokens);
+                tokens = new NGramTokenFilter(tokens, n);
+                return new TokenStreamComponents(source, tokens);
+            }
+        };
+    }
+
+    /**
+     * A reader returning at most a given number of characters at a time.
+     *
+     * @version 1.00
+     * @since 1.00
+     */
+    private static final class ChunkedReader extends StringReader {
+
+        /**
+         * The maximum number of characters returned by each read.
+         */
+        private final int chunk;
+
+        /**
+         * Creates a new reader.
+         *
+         * @param text  the text.
+         * @param chunk the maximum number of characters returned by each read.
+         */
+        private ChunkedReader(final String text, final int chunk) {
+            super(text);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, chunk));
+        }
+    }
+}
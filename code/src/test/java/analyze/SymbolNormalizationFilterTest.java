@@ -0,0 +1,82 @@
+package analyze;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.pattern.PatternReplaceFilter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import static analyze.TokenStreamTestUtil.assertSameTokens;
+import static analyze.TokenStreamTestUtil.fuzzedTexts;
+
+/**
+ * Checks that {@link SymbolNormalizationFilter} returns the same tokens as the three
+ * {@link PatternReplaceFilter}s it replaces in {@link EnglishAnalyzer} and {@link FrenchAnalyzer}.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+class SymbolNormalizationFilterTest {
+
+    /**
+     * The characters of the fuzzed texts: letters, digits, all the ASCII punctuation, the strange symbols, whitespace,
+     * the line terminators which are not whitespace, and the two halves of a supplementary character.
+     */
+    private static final String ALPHABET = "abzÉé09!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~" + AnalyzerUtil.STRANGE_SYMBOLS
+            + "  \t\n\r\u0085  ¿¡«»😀";
+
+    /**
+     * The analyzer with the regular expressions.
+     */
+    private final Analyzer oldChain = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(final String fieldName) {
+            final Tokenizer source = new WhitespaceTokenizer();
+            TokenStream tokens = new PatternReplaceFilter(source, Pattern.compile(AnalyzerUtil.STRANGE_SYMBOLS_REGEX),
+                    "", true);
+            tokens = new PatternReplaceFilter(tokens, Pattern.compile("^[\\p{Punct}]+"), "", true);
+            tokens = new PatternReplaceFilter(tokens, Pattern.compile("[\\p{Punct}]+$"), "", true);
+            return new TokenStreamComponents(source, tokens);
+        }
+    };
+
+    /**
+     * The analyzer with {@link SymbolNormalizationFilter}.
+     */
+    private final Analyzer newChain = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(final String fieldName) {
+            final Tokenizer source = new WhitespaceTokenizer();
+            return new TokenStreamComponents(source, new SymbolNormalizationFilter(source));
+        }
+    };
+
+    @Test
+    void sameTokensOnText() throws IOException {
+        assertSameTokens(oldChain, newChain, "« L'hôtel » — it's (really) the best... isn't it?! Prix : 120€, "
+                + "rendez-vous à 9h30 ; l’été _underscored_ ‘quoted’ “double” -dash- …ellipsis… ·dot· "
+                + "e-mail: a.b@c.org #tag @user", null);
+    }
+
+    @Test
+    void sameTokensOnEdgeCases() throws IOException {
+        final String[] texts = {"", "!", "...", "'", "’’’", "-a-", "a-b", "_-_", "!a!", "!!a!!b!!", "a.",
+                ".a", "a\u0085", "!\u0085", "a!\u0085", "\u0085!", "a!\u0085!", "a !", "😀!", "!😀",
+                "\ud83d!", "!\ude00", "a".repeat(300) + "!", "!".repeat(300), "·'’_…–-"};
+
+        for (String text : texts) {
+            assertSameTokens(oldChain, newChain, text, null);
+        }
+    }
+
+    @Test
+    void sameTokensOnFuzzedText() throws IOException {
+        for (String text : fuzzedTexts(ALPHABET, 20000, 40, 40)) {
+            assertSameTokens(oldChain, newChain, text, null);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package analyze;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Helper class for the tests checking that a new analysis component returns the same tokens as the one it replaces:
+ * it describes the tokens of an analyzer and makes random texts to compare them on.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+public final class TokenStreamTestUtil {
+
+    /**
+     * The seed of the random texts, so that a failure can be reproduced.
+     */
+    private static final long SEED = 0x5EEDL;
+
+    /**
+     * One every how many random texts is a long one.
+     */
+    private static final int LONG_TEXT_EVERY = 10;
+
+    /**
+     * No instances: this class only has static helpers.
+     */
+    private TokenStreamTestUtil() {
+    }
+
+    /**
+     * Checks that two analyzers return the same tokens for a text.
+     *
+     * @param expected the analyzer returning the expected tokens.
+     * @param actual   the analyzer under test.
+     * @param text     the text.
+     * @param message  what is being checked, e.g. the parameters of the analyzers, or {@code null}.
+     * @throws IOException if the text cannot be analyzed.
+     */
+    public static void assertSameTokens(final Analyzer expected, final Analyzer actual, final String text,
+                                        final String message) throws IOException {
+        assertEquals(tokens(expected, "body", new StringReader(text)), tokens(actual, "body", new StringReader(text)),
+                (message == null ? "" : message + ", ") + "text = " + text);
+    }
+
+    /**
+     * Analyzes a text and describes each token, and the state of the stream after {@link TokenStream#end()}.
+     *
+     * @param analyzer the analyzer.
+     * @param field    the field the text belongs to.
+     * @param reader   the text.
+     * @return the term, offsets, position increment, position length and type of each token, then the final offsets
+     * and position increment.
+     * @throws IOException if the text cannot be analyzed.
+     */
+    public static List<String> tokens(final Analyzer analyzer, final String field, final Reader reader)
+            throws IOException {
+        final List<String> tokens = new ArrayList<>();
+
+        try (TokenStream stream = analyzer.tokenStream(field, reader)) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            final OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+            final PositionIncrementAttribute posIncrAtt = stream.addAttribute(PositionIncrementAttribute.class);
+            final PositionLengthAttribute posLenAtt = stream.addAttribute(PositionLengthAttribute.class);
+            final TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(String.format("[%s] %d-%d +%d /%d %s", termAtt, offsetAtt.startOffset(),
+                        offsetAtt.endOffset(), posIncrAtt.getPositionIncrement(), posLenAtt.getPositionLength(),
+                        typeAtt.type()));
+            }
+            stream.end();
+            tokens.add(String.format("end %d-%d +%d", offsetAtt.startOffset(), offsetAtt.endOffset(),
+                    posIncrAtt.getPositionIncrement()));
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Returns random texts made of the characters of an alphabet, always the same ones for the same parameters. One
+     * text every ten can be longer, e.g. to span several buffers of a tokenizer.
+     *
+     * @param alphabet   the characters of the texts, which may include the two halves of supplementary characters.
+     * @param count      the number of texts.
+     * @param maxLength  the maximum length of the texts.
+     * @param longLength the maximum length of the long texts.
+     * @return the texts.
+     */
+    public static List<String> fuzzedTexts(final String alphabet, final int count, final int maxLength,
+                                           final int longLength) {
+        final Random random = new Random(SEED);
+        final List<String> texts = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            final int length = random.nextInt((i % LONG_TEXT_EVERY == 0 ? longLength : maxLength) + 1);
+            final StringBuilder text = new StringBuilder(length);
+
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            texts.add(text.toString());
+        }
+
+        return texts;
+    }
+}
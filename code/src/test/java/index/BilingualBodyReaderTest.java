@@ -0,0 +1,135 @@
+package index;
+
+import analyze.NGramAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
+import org.junit.jupiter.api.Test;
+import parse.ParsedDocument;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static analyze.TokenStreamTestUtil.fuzzedTexts;
+import static analyze.TokenStreamTestUtil.tokens;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that {@link BilingualBodyReader} returns the same text, and so the same N-Grams, as the concatenation of the
+ * English body, a space and the French body it replaces.
+ *
+ * @version 1.00
+ * @since 1.00
+ */
+class BilingualBodyReaderTest {
+
+    /**
+     * Pairs of English and French bodies: empty ones, short ones and ones longer than the buffer of the tokenizer.
+     */
+    private static final String[][] BODIES = {
+            {"", ""},
+            {"", "Bonjour"},
+            {"Hello", ""},
+            {"The hotel is near the station.", "L'hôtel est près de la gare."},
+            {"Cheap flights to Paris 😀", "Vols pas chers pour Paris 😀"},
+            {"word ".repeat(2000), "mot ".repeat(3000)},
+            {"a".repeat(5000), "é".repeat(5000)}
+    };
+
+    /**
+     * The characters of the random bodies: letters, accents, digits, punctuation and spaces between the words.
+     */
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzéàçô0123456789.,'-     ";
+
+    @Test
+    void sameText() throws IOException {
+        for (String[] bodies : BODIES) {
+            final String expected = bodies[0] + " " + bodies[1];
+
+            for (int chunk : new int[]{1, 2, 3, 7, 64, 4096, 20000}) {
+                assertEquals(expected, readInChunks(new BilingualBodyReader(bodies[0], bodies[1]), chunk),
+                        "chunk = " + chunk);
+            }
+            assertEquals(expected, readByChar(new BilingualBodyReader(bodies[0], bodies[1])));
+        }
+    }
+
+    @Test
+    void sameNGrams() throws IOException {
+        final List<String[]> bodies = new ArrayList<>(List.of(BODIES));
+
+        final List<String> texts = fuzzedTexts(ALPHABET, 400, 300, 5000);
+        for (int i = 0; i < texts.size(); i += 2) {
+            bodies.add(new String[]{texts.get(i), texts.get(i + 1)});
+        }
+
+        for (int n = 3; n <= 5; n++) {
+            final Analyzer analyzer = new NGramAnalyzer(n);
+
+            for (String[] b : bodies) {
+                assertEquals(tokens(analyzer, ParsedDocument.FIELDS.N_GRAM, new StringReader(b[0] + " " + b[1])),
+                        tokens(analyzer, ParsedDocument.FIELDS.N_GRAM, new BilingualBodyReader(b[0], b[1])),
+                        "N = " + n);
+            }
+        }
+    }
+
+    @Test
+    void endOfText() throws IOException {
+        final Reader reader = new BilingualBodyReader("en", "fr");
+        final char[] buffer = new char[16];
+
+        assertEquals(0, reader.read(buffer, 0, 0));
+        assertEquals(5, reader.read(buffer, 0, buffer.length));
+        assertEquals(-1, reader.read(buffer, 0, buffer.length));
+        assertEquals(-1, reader.read());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> new BilingualBodyReader("en", "fr").read(buffer, 10, 7));
+    }
+
+    @Test
+    void nullBodies() {
+        assertThrows(NullPointerException.class, () -> new BilingualBodyReader(null, "fr"));
+        assertThrows(NullPointerException.class, () -> new BilingualBodyReader("en", null));
+    }
+
+    /**
+     * Reads all the text of a reader, a given number of characters at a time.
+     *
+     * @param reader the reader.
+     * @param chunk  the number of characters to ask at a time.
+     * @return the text.
+     * @throws IOException if the text cannot be read.
+     */
+    private static String readInChunks(final Reader reader, final int chunk) throws IOException {
+        final StringBuilder text = new StringBuilder();
+        final char[] buffer = new char[chunk + 2];
+
+        int n;
+        while ((n = reader.read(buffer, 1, chunk)) != -1) {
+            text.append(buffer, 1, n);
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Reads all the text of a reader, one character at a time.
+     *
+     * @param reader the reader.
+     * @return the text.
+     * @throws IOException if the text cannot be read.
+     */
+    private static String readByChar(final Reader reader) throws IOException {
+        final StringBuilder text = new StringBuilder();
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            text.append((char) c);
+        }
+
+        return text.toString();
+    }
+}